@@ -47,6 +47,7 @@ import org.eclipse.jetty.util.JavaVersion;
 import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.TypeUtil;
 import org.eclipse.jetty.util.resource.Resource;
@@ -463,7 +464,12 @@ public class AnnotationConfiguration extends AbstractConfiguration
         createServletContainerInitializerAnnotationHandlers(context, getNonExcludedInitializers(context));
 
         if (!_discoverableAnnotationHandlers.isEmpty() || _classInheritanceHandler != null || !_containerInitializerAnnotationHandlers.isEmpty())
-            scanForAnnotations(context);
+        {
+            try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.ANNOTATION_SCAN, context))
+            {
+                scanForAnnotations(context);
+            }
+        }
         
         Map<String, Set<String>> map = (Map<String, Set<String>>)context.getAttribute(AnnotationConfiguration.CLASS_INHERITANCE_MAP);
         for (DiscoveredServletContainerInitializerHolder holder:_sciHolders)
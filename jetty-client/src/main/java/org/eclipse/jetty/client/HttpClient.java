@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
+import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
@@ -71,6 +72,7 @@ import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
@@ -139,6 +141,7 @@ public class HttpClient extends ContainerLifeCycle
     private int responseBufferSize = 16384;
     private int maxRedirects = 8;
     private long addressResolutionTimeout = 15000;
+    private long connectionAttemptDelay = 250;
     private boolean tcpNoDelay = true;
     private boolean strictEventOrdering = false;
     private HttpField encodingField;
@@ -575,7 +578,7 @@ public class HttpClient extends ContainerLifeCycle
             @Override
             public void succeeded(List<InetSocketAddress> socketAddresses)
             {
-                connect(socketAddresses, 0, context);
+                new ConnectionAttempts(socketAddresses, context, promise).attempt();
             }
 
             @Override
@@ -583,23 +586,6 @@ public class HttpClient extends ContainerLifeCycle
             {
                 promise.failed(x);
             }
-
-            private void connect(List<InetSocketAddress> socketAddresses, int index, Map<String, Object> context)
-            {
-                context.put(HttpClientTransport.HTTP_CONNECTION_PROMISE_CONTEXT_KEY, new Promise.Wrapper<>(promise)
-                {
-                    @Override
-                    public void failed(Throwable x)
-                    {
-                        int nextIndex = index + 1;
-                        if (nextIndex == socketAddresses.size())
-                            super.failed(x);
-                        else
-                            connect(socketAddresses, nextIndex, context);
-                    }
-                });
-                transport.connect((SocketAddress)socketAddresses.get(index), context);
-            }
         });
     }
 
@@ -696,6 +682,34 @@ public class HttpClient extends ContainerLifeCycle
         this.addressResolutionTimeout = addressResolutionTimeout;
     }
 
+    /**
+     * @return the delay, in milliseconds, before attempting to connect to the next resolved address
+     * @see #setConnectionAttemptDelay(long)
+     */
+    @ManagedAttribute("The delay, in milliseconds, before attempting to connect to the next resolved address")
+    public long getConnectionAttemptDelay()
+    {
+        return connectionAttemptDelay;
+    }
+
+    /**
+     * <p>Sets the delay, in milliseconds, before attempting to connect to the next resolved
+     * address while the connect attempts to the previous addresses are still in progress,
+     * as specified by the "Happy Eyeballs" algorithm of RFC 8305.</p>
+     * <p>The connect attempts race, and the first that succeeds is used; the resolved
+     * addresses are attempted alternating IPv6 and IPv4 addresses, so that a host with
+     * an unreachable address family is connected quickly.
+     * A failed connect attempt immediately starts the attempt to the next address.</p>
+     * <p>A zero or negative value disables the racing, so that the next address is
+     * only attempted after the connect attempt to the previous address failed.</p>
+     *
+     * @param connectionAttemptDelay the delay, in milliseconds, before attempting to connect to the next resolved address
+     */
+    public void setConnectionAttemptDelay(long connectionAttemptDelay)
+    {
+        this.connectionAttemptDelay = connectionAttemptDelay;
+    }
+
     /**
      * @return the max time, in milliseconds, a connection can be idle (that is, without traffic of bytes in either direction)
      */
@@ -1159,6 +1173,151 @@ public class HttpClient extends ContainerLifeCycle
         return new SslClientConnectionFactory(sslContextFactory, getByteBufferPool(), getExecutor(), connectionFactory);
     }
 
+    /**
+     * <p>Attempts to connect to the resolved addresses of a destination,
+     * racing the connect attempts as specified by RFC 8305.</p>
+     * <p>The next address is attempted when the previous attempt fails, or after
+     * {@link #getConnectionAttemptDelay()} milliseconds if the previous attempt is
+     * still in progress; the first connection that is opened wins and is given to
+     * the promise, while connections opened by the other attempts are closed.</p>
+     */
+    private class ConnectionAttempts implements Runnable
+    {
+        private final AutoLock lock = new AutoLock();
+        private final List<InetSocketAddress> addresses;
+        private final Map<String, Object> context;
+        private final Promise<Connection> promise;
+        private final long delay;
+        private Scheduler.Task task;
+        private int index;
+        private int pending;
+        private boolean complete;
+
+        private ConnectionAttempts(List<InetSocketAddress> addresses, Map<String, Object> context, Promise<Connection> promise)
+        {
+            this.delay = getConnectionAttemptDelay();
+            this.addresses = delay > 0 ? interleave(addresses) : addresses;
+            this.context = context;
+            this.promise = promise;
+        }
+
+        /**
+         * <p>Orders the addresses alternating address families, starting
+         * with the family of the first address, as specified by RFC 8305.</p>
+         */
+        private List<InetSocketAddress> interleave(List<InetSocketAddress> addresses)
+        {
+            if (addresses.size() < 2)
+                return addresses;
+            boolean firstIPv6 = addresses.get(0).getAddress() instanceof Inet6Address;
+            List<InetSocketAddress> first = new ArrayList<>();
+            List<InetSocketAddress> second = new ArrayList<>();
+            for (InetSocketAddress address : addresses)
+            {
+                boolean ipv6 = address.getAddress() instanceof Inet6Address;
+                (ipv6 == firstIPv6 ? first : second).add(address);
+            }
+            List<InetSocketAddress> result = new ArrayList<>(addresses.size());
+            for (int i = 0; i < Math.max(first.size(), second.size()); ++i)
+            {
+                if (i < first.size())
+                    result.add(first.get(i));
+                if (i < second.size())
+                    result.add(second.get(i));
+            }
+            return result;
+        }
+
+        @Override
+        public void run()
+        {
+            // The connection attempt delay expired.
+            attempt();
+        }
+
+        private void attempt()
+        {
+            InetSocketAddress address;
+            try (AutoLock l = lock.lock())
+            {
+                if (complete || index == addresses.size())
+                    return;
+                address = addresses.get(index++);
+                ++pending;
+                if (task != null)
+                    task.cancel();
+                task = delay > 0 && index < addresses.size() ? getScheduler().schedule(this, delay, TimeUnit.MILLISECONDS) : null;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Connecting to {}", address);
+            // Each attempt has its own context, with its own promise.
+            Map<String, Object> attemptContext = new ConcurrentHashMap<>(context);
+            attemptContext.put(HttpClientTransport.HTTP_CONNECTION_PROMISE_CONTEXT_KEY, new Promise<Connection>()
+            {
+                @Override
+                public void succeeded(Connection connection)
+                {
+                    onAttemptSucceeded(address, connection);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    onAttemptFailed(address, x);
+                }
+            });
+            transport.connect((SocketAddress)address, attemptContext);
+        }
+
+        private void onAttemptSucceeded(InetSocketAddress address, Connection connection)
+        {
+            boolean winner;
+            try (AutoLock l = lock.lock())
+            {
+                --pending;
+                winner = !complete;
+                complete = true;
+                if (task != null)
+                    task.cancel();
+            }
+
+            if (winner)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Connected to {}: {}", address, connection);
+                promise.succeeded(connection);
+            }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Closing connection that lost the connect race to {}: {}", address, connection);
+                connection.close();
+            }
+        }
+
+        private void onAttemptFailed(InetSocketAddress address, Throwable failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not connect to {}", address, failure);
+            boolean failed;
+            try (AutoLock l = lock.lock())
+            {
+                --pending;
+                if (complete)
+                    return;
+                failed = pending == 0 && index == addresses.size();
+                if (failed)
+                    complete = true;
+            }
+
+            if (failed)
+                promise.failed(failure);
+            else
+                attempt();
+        }
+    }
+
     private class ContentDecoderFactorySet implements Set<ContentDecoder.Factory>
     {
         private final Set<ContentDecoder.Factory> set = new HashSet<>();
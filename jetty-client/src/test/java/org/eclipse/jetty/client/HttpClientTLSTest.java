@@ -51,7 +51,9 @@ import org.eclipse.jetty.io.ConnectionStatistics;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ssl.SslClientConnectionFactory;
 import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
 import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.eclipse.jetty.io.ssl.SslHandshakeStatistics;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
@@ -71,7 +73,10 @@ import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledForJreRange;
 import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -365,6 +370,187 @@ public class HttpClientTLSTest
         assertTrue(clientLatch.await(1, TimeUnit.SECONDS));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"TLSv1.2", "TLSv1.3"})
+    public void testHandshakeStatisticsWithSessionResumption(String protocol) throws Exception
+    {
+        SslContextFactory.Server serverTLSFactory = createServerSslContextFactory();
+        startServer(serverTLSFactory, new EmptyServerHandler());
+        SslHandshakeStatistics serverStats = new SslHandshakeStatistics();
+        connector.addBean(serverStats);
+
+        SslContextFactory.Client clientTLSFactory = createClientSslContextFactory();
+        clientTLSFactory.setIncludeProtocols(protocol);
+        startClient(clientTLSFactory);
+        SslHandshakeStatistics clientStats = new SslHandshakeStatistics();
+        client.addBean(clientStats);
+
+        // The first request primes the TLS session,
+        // the other requests should resume it.
+        int requests = 3;
+        for (int i = 0; i < requests; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(HttpScheme.HTTPS.asString())
+                .headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE))
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        assertEquals(1, serverStats.getFullHandshakes());
+        assertEquals(requests - 1, serverStats.getResumedHandshakes());
+        assertEquals(0, serverStats.getFailedHandshakes());
+        assertEquals(1, clientStats.getFullHandshakes());
+        assertEquals(requests - 1, clientStats.getResumedHandshakes());
+        assertEquals(0, clientStats.getFailedHandshakes());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"TLSv1.2", "TLSv1.3"})
+    public void testHandshakeStatisticsWithoutSessionResumption(String protocol) throws Exception
+    {
+        SslContextFactory.Server serverTLSFactory = createServerSslContextFactory();
+        startServer(serverTLSFactory, new EmptyServerHandler());
+        SslHandshakeStatistics serverStats = new SslHandshakeStatistics();
+        connector.addBean(serverStats);
+
+        SslContextFactory.Client clientTLSFactory = createClientSslContextFactory();
+        clientTLSFactory.setIncludeProtocols(protocol);
+        // Without session caching the client cannot offer a TLS session to resume.
+        clientTLSFactory.setSessionCachingEnabled(false);
+        startClient(clientTLSFactory);
+        SslHandshakeStatistics clientStats = new SslHandshakeStatistics();
+        client.addBean(clientStats);
+
+        int requests = 3;
+        for (int i = 0; i < requests; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(HttpScheme.HTTPS.asString())
+                .headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE))
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        assertEquals(requests, serverStats.getFullHandshakes());
+        assertEquals(0, serverStats.getResumedHandshakes());
+        assertEquals(requests, clientStats.getFullHandshakes());
+        assertEquals(0, clientStats.getResumedHandshakes());
+    }
+
+    @Test
+    public void testHandshakeExecutor() throws Exception
+    {
+        SslContextFactory.Server serverTLSFactory = createServerSslContextFactory();
+        startServer(serverTLSFactory, new EmptyServerHandler());
+        SslHandshakeExecutor serverExecutor = new SslHandshakeExecutor(2, 16);
+        connector.addBean(serverExecutor, true);
+        serverExecutor.start();
+
+        AtomicReference<String> serverThread = new AtomicReference<>();
+        connector.addBean(new SslHandshakeListener()
+        {
+            @Override
+            public void handshakeSucceeded(Event event)
+            {
+                serverThread.set(Thread.currentThread().getName());
+            }
+        });
+
+        SslContextFactory.Client clientTLSFactory = createClientSslContextFactory();
+        startClient(clientTLSFactory);
+        SslHandshakeExecutor clientExecutor = new SslHandshakeExecutor(2, 16);
+        client.addBean(clientExecutor, true);
+        clientExecutor.start();
+
+        for (int i = 0; i < 2; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(HttpScheme.HTTPS.asString())
+                .headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE))
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        // The server handshake must have been performed by the handshake executor.
+        assertThat(serverThread.get(), Matchers.startsWith("ssl-handshake-"));
+        assertThat(serverExecutor.getTaskCount(), Matchers.greaterThan(0L));
+        assertThat(clientExecutor.getTaskCount(), Matchers.greaterThan(0L));
+        assertEquals(0, serverExecutor.getQueueSize());
+        assertEquals(0, serverExecutor.getRejectedCount());
+        assertEquals(0, serverExecutor.getExpiredCount());
+    }
+
+    @Test
+    public void testHandshakeExecutorExpiresQueuedHandshakes() throws Exception
+    {
+        SslContextFactory.Server serverTLSFactory = createServerSslContextFactory();
+        startServer(serverTLSFactory, new EmptyServerHandler());
+        long maxQueueTime = 500;
+        SslHandshakeExecutor serverExecutor = new SslHandshakeExecutor(1, 16);
+        serverExecutor.setMaxQueueTime(maxQueueTime);
+        connector.addBean(serverExecutor, true);
+        serverExecutor.start();
+
+        // Block the only handshake thread during the first handshake.
+        CountDownLatch blockLatch = new CountDownLatch(1);
+        AtomicLong handshakes = new AtomicLong();
+        connector.addBean(new SslHandshakeListener()
+        {
+            @Override
+            public void handshakeSucceeded(Event event)
+            {
+                try
+                {
+                    if (handshakes.incrementAndGet() == 1)
+                        blockLatch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new RuntimeException(x);
+                }
+            }
+        });
+
+        SslContextFactory.Client clientTLSFactory = createClientSslContextFactory();
+        startClient(clientTLSFactory);
+
+        CountDownLatch latch1 = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+            .scheme(HttpScheme.HTTPS.asString())
+            .timeout(5, TimeUnit.SECONDS)
+            .send(result ->
+            {
+                if (result.isSucceeded() && result.getResponse().getStatus() == HttpStatus.OK_200)
+                    latch1.countDown();
+            });
+
+        await().atMost(5, TimeUnit.SECONDS).until(handshakes::get, Matchers.is(1L));
+
+        // The second connection must queue its handshake, which then expires.
+        CountDownLatch latch2 = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+            .scheme(HttpScheme.HTTPS.asString())
+            .timeout(5, TimeUnit.SECONDS)
+            .send(result ->
+            {
+                if (result.isFailed())
+                    latch2.countDown();
+            });
+
+        await().atMost(5, TimeUnit.SECONDS).until(serverExecutor::getQueueSize, Matchers.is(1L));
+        Thread.sleep(2 * maxQueueTime);
+        blockLatch.countDown();
+
+        assertTrue(latch1.await(5, TimeUnit.SECONDS));
+        assertTrue(latch2.await(5, TimeUnit.SECONDS));
+        assertEquals(1, serverExecutor.getExpiredCount());
+        assertEquals(1, handshakes.get());
+    }
+
     // Excluded in JDK 11+ because resumed sessions cannot be compared
     // using their session IDs even though they are resumed correctly.
     @EnabledForJreRange(max = JRE.JAVA_10)
@@ -21,6 +21,7 @@ import java.net.HttpCookie;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.UnknownHostException;
@@ -865,6 +866,66 @@ public class HttpClientTest extends AbstractHttpClientServerTest
             .send();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testConnectionAttemptsRace(Scenario scenario) throws Exception
+    {
+        startServer(scenario, new EmptyServerHandler());
+        long connectDelay = 2000;
+        InetSocketAddress slowAddress = new InetSocketAddress("127.0.0.2", connector.getLocalPort());
+        InetSocketAddress fastAddress = new InetSocketAddress("127.0.0.1", connector.getLocalPort());
+        AtomicReference<Connection> slowConnection = new AtomicReference<>();
+        CountDownLatch slowLatch = new CountDownLatch(1);
+        startClient(scenario, clientConnector -> new HttpClientTransportOverHTTP(clientConnector)
+        {
+            @Override
+            public void connect(SocketAddress address, Map<String, Object> context)
+            {
+                if (!slowAddress.equals(address))
+                {
+                    super.connect(address, context);
+                    return;
+                }
+                // Simulate an address that is slow to connect.
+                @SuppressWarnings("unchecked")
+                Promise<Connection> promise = (Promise<Connection>)context.get(HTTP_CONNECTION_PROMISE_CONTEXT_KEY);
+                context.put(HTTP_CONNECTION_PROMISE_CONTEXT_KEY, new Promise.Wrapper<>(promise)
+                {
+                    @Override
+                    public void succeeded(Connection connection)
+                    {
+                        slowConnection.set(connection);
+                        super.succeeded(connection);
+                        slowLatch.countDown();
+                    }
+                });
+                client.getScheduler().schedule(() -> super.connect(address, context), connectDelay, TimeUnit.MILLISECONDS);
+            }
+        }, client ->
+        {
+            client.setConnectionAttemptDelay(100);
+            client.setSocketAddressResolver((host, port, promise) -> promise.succeeded(List.of(slowAddress, fastAddress)));
+        });
+
+        long begin = System.nanoTime();
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(200, response.getStatus());
+        // The second address won the race, without waiting for the first.
+        assertThat(elapsed, Matchers.lessThan(connectDelay));
+
+        // The connection to the first address is closed when it is opened.
+        assertTrue(slowLatch.await(2 * connectDelay, TimeUnit.MILLISECONDS));
+        assertTrue(((HttpConnectionOverHTTP)slowConnection.get()).isClosed());
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        DuplexConnectionPool connectionPool = (DuplexConnectionPool)destination.getConnectionPool();
+        assertEquals(1, connectionPool.getConnectionCount());
+    }
+
     @ParameterizedTest
     @ArgumentsSource(ScenarioProvider.class)
     public void testCustomUserAgent(Scenario scenario) throws Exception
@@ -28,3 +28,6 @@ etc/jetty-deploy.xml
 
 # Whether to extract *.war files
 # jetty.deploy.extractWars=true
+
+# Maximum number of webapps deployed concurrently at startup
+# jetty.deploy.parallelism=1
@@ -13,17 +13,27 @@
 
 package org.eclipse.jetty.deploy;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.deploy.bindings.StandardDeployer;
 import org.eclipse.jetty.deploy.bindings.StandardStarter;
@@ -36,13 +46,16 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.util.AttributesMap;
 import org.eclipse.jetty.util.MultiException;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.eclipse.jetty.xml.XmlConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -91,7 +104,12 @@ public class DeploymentManager extends ContainerLifeCycle
         /**
          * Tracking the various AppState timestamps (in system milliseconds)
          */
-        private Map<Node, Long> stateTimestamps = new HashMap<Node, Long>();
+        private Map<Node, Long> stateTimestamps = new ConcurrentHashMap<>();
+
+        /**
+         * The time in milliseconds taken by the last lifecycle goal request
+         */
+        private volatile long lastGoalDuration;
 
         public App getApp()
         {
@@ -113,6 +131,14 @@ public class DeploymentManager extends ContainerLifeCycle
             return version;
         }
 
+        /**
+         * @return the time in milliseconds taken by the last lifecycle goal request for this app
+         */
+        public long getLastGoalDuration()
+        {
+            return lastGoalDuration;
+        }
+
         void setLifeCycleNode(Node node)
         {
             this.lifecyleNode = node;
@@ -129,6 +155,9 @@ public class DeploymentManager extends ContainerLifeCycle
     private ContextHandlerCollection _contexts;
     private boolean _useStandardBindings = true;
     private String _defaultLifeCycleGoal = AppLifeCycle.STARTED;
+    private int _deployParallelism = 1;
+    private final Map<String, Set<String>> _deployDependencies = new ConcurrentHashMap<>();
+    private List<AppEntry> _pendingDeploys;
 
     /**
      * Receive an app for processing.
@@ -147,6 +176,16 @@ public class DeploymentManager extends ContainerLifeCycle
 
         if (isRunning() && _defaultLifeCycleGoal != null)
         {
+            try (AutoLock l = _lock.lock())
+            {
+                // Defer to the parallel deployment at the end of doStart()
+                if (_pendingDeploys != null)
+                {
+                    _pendingDeploys.add(entry);
+                    return;
+                }
+            }
+
             // Immediately attempt to go to default lifecycle state
             this.requestAppGoal(entry, _defaultLifeCycleGoal);
         }
@@ -240,12 +279,24 @@ public class DeploymentManager extends ContainerLifeCycle
             addLifeCycleBinding(new StandardUndeployer());
         }
 
+        boolean parallel = _deployParallelism > 1 && _defaultLifeCycleGoal != null;
+        if (parallel)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                _pendingDeploys = new ArrayList<>();
+            }
+        }
+
         // Start all of the AppProviders
         for (AppProvider provider : _providers)
         {
             startAppProvider(provider);
         }
 
+        if (parallel)
+            deployPending();
+
         try (AutoLock l = _lock.lock())
         {
             if (_onStartupErrors != null)
@@ -255,6 +306,186 @@ public class DeploymentManager extends ContainerLifeCycle
         super.doStart();
     }
 
+    /**
+     * Moves the apps found by the AppProviders during startup to the default lifecycle goal.
+     * The apps are first deployed one by one in the order they were found, so that their
+     * contexts are added to the {@link ContextHandlerCollection} in a deterministic order,
+     * then they are started using up to {@link #getDeployParallelism()} threads of the
+     * Server's {@link ThreadPool}, honoring the declared
+     * {@link #addDeployDependency(String, String) deploy dependencies}.
+     */
+    private void deployPending()
+    {
+        List<AppEntry> pending;
+        try (AutoLock l = _lock.lock())
+        {
+            pending = _pendingDeploys;
+            _pendingDeploys = null;
+        }
+        if (pending == null || pending.isEmpty())
+            return;
+
+        long start = System.nanoTime();
+
+        // Register the contexts in the order the apps were found.
+        Node deployed = _lifecycle.getNodeByName(AppLifeCycle.DEPLOYED);
+        Node goal = _lifecycle.getNodeByName(_defaultLifeCycleGoal);
+        for (AppEntry entry : pending)
+        {
+            Path path = goal == null ? null : _lifecycle.getPath(entry.lifecyleNode, goal);
+            if (path != null && path.getNodes().contains(deployed))
+                requestAppGoal(entry, AppLifeCycle.DEPLOYED);
+        }
+
+        int threads = Math.min(_deployParallelism, pending.size());
+        Server server = getServer();
+        ThreadPool threadPool = server == null ? null : server.getThreadPool();
+        Executor executor = threadPool instanceof LifeCycle && ((LifeCycle)threadPool).isRunning()
+            ? new LimitedExecutor(threadPool, threads)
+            : Runnable::run;
+        try
+        {
+            Map<AppEntry, CompletableFuture<Void>> deploys = new LinkedHashMap<>();
+            for (AppEntry entry : pending)
+            {
+                deployAfterDependencies(entry, pending, deploys, executor, new HashSet<>());
+            }
+            CompletableFuture.allOf(deploys.values().toArray(new CompletableFuture<?>[0])).join();
+        }
+        catch (CompletionException x)
+        {
+            LOG.warn("Unable to deploy apps", x.getCause());
+            addOnStartupError(x.getCause());
+        }
+
+        if (LOG.isInfoEnabled())
+            LOG.info("Deployed {} apps in {} ms using {} threads", pending.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), threads);
+        if (LOG.isDebugEnabled())
+        {
+            for (AppEntry entry : pending)
+            {
+                LOG.debug("Deployed {} in {} ms", entry.app, entry.getLastGoalDuration());
+            }
+        }
+    }
+
+    private CompletableFuture<Void> deployAfterDependencies(AppEntry entry, List<AppEntry> pending, Map<AppEntry, CompletableFuture<Void>> deploys, Executor executor, Set<AppEntry> visiting)
+    {
+        CompletableFuture<Void> deploy = deploys.get(entry);
+        if (deploy != null)
+            return deploy;
+
+        if (!visiting.add(entry))
+        {
+            LOG.warn("Ignoring circular deploy dependency on {}", entry.app);
+            return null;
+        }
+
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (AppEntry other : pending)
+        {
+            if (other != entry && isDeployDependency(entry.app, other.app))
+            {
+                CompletableFuture<Void> dependency = deployAfterDependencies(other, pending, deploys, executor, visiting);
+                if (dependency != null)
+                    dependencies.add(dependency);
+            }
+        }
+        visiting.remove(entry);
+
+        deploy = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+            .thenRunAsync(() ->
+            {
+                if (!AppLifeCycle.FAILED.equals(entry.lifecyleNode.getName()))
+                    requestAppGoal(entry, _defaultLifeCycleGoal);
+            }, executor);
+        deploys.put(entry, deploy);
+        return deploy;
+    }
+
+    /**
+     * An Executor that runs at most a given number of tasks at once on another Executor.
+     */
+    private static class LimitedExecutor implements Executor
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final Queue<Runnable> _queue = new ArrayDeque<>();
+        private final Executor _executor;
+        private final int _maxThreads;
+        private int _threads;
+
+        private LimitedExecutor(Executor executor, int maxThreads)
+        {
+            _executor = executor;
+            _maxThreads = maxThreads;
+        }
+
+        @Override
+        public void execute(Runnable task)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                if (_threads >= _maxThreads)
+                {
+                    _queue.offer(task);
+                    return;
+                }
+                _threads++;
+            }
+
+            try
+            {
+                _executor.execute(() -> run(task));
+            }
+            catch (RejectedExecutionException x)
+            {
+                LOG.trace("IGNORED", x);
+                run(task);
+            }
+        }
+
+        private void run(Runnable task)
+        {
+            while (task != null)
+            {
+                task.run();
+                try (AutoLock l = _lock.lock())
+                {
+                    task = _queue.poll();
+                    if (task == null)
+                        _threads--;
+                }
+            }
+        }
+    }
+
+    private boolean isDeployDependency(App app, App dependency)
+    {
+        for (Map.Entry<String, Set<String>> entry : _deployDependencies.entrySet())
+        {
+            if (isApp(entry.getKey(), app))
+            {
+                for (String id : entry.getValue())
+                {
+                    if (isApp(id, dependency))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isApp(String id, App app)
+    {
+        String originId = app.getOriginId();
+        if (originId == null)
+            return false;
+        if (originId.equals(id))
+            return true;
+        return originId.endsWith(id) && originId.length() > id.length() &&
+            (originId.charAt(originId.length() - id.length() - 1) == '/' || originId.charAt(originId.length() - id.length() - 1) == File.separatorChar);
+    }
+
     @Override
     protected void doStop() throws Exception
     {
@@ -501,7 +732,8 @@ public class DeploymentManager extends ContainerLifeCycle
         }
 
         // Execute each Node binding.  Stopping at any thrown exception.
-        try
+        long start = System.nanoTime();
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.DEPLOY, appentry.app))
         {
             Iterator<Node> it = path.getNodes().iterator();
             if (it.hasNext()) // Any entries?
@@ -540,6 +772,10 @@ public class DeploymentManager extends ContainerLifeCycle
                 addOnStartupError(t);
             }
         }
+        finally
+        {
+            appentry.lastGoalDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
     }
 
     private void addOnStartupError(Throwable cause)
@@ -597,6 +833,51 @@ public class DeploymentManager extends ContainerLifeCycle
         this._defaultLifeCycleGoal = defaultLifeCycleState;
     }
 
+    /**
+     * @return the maximum number of apps deployed concurrently at startup
+     */
+    @ManagedAttribute("maximum number of apps deployed concurrently at startup")
+    public int getDeployParallelism()
+    {
+        return _deployParallelism;
+    }
+
+    /**
+     * <p>Sets the maximum number of apps deployed concurrently at startup.</p>
+     * <p>When greater than 1, the apps found by the AppProviders while this
+     * DeploymentManager is starting are moved to the default lifecycle goal
+     * concurrently, using at most this many threads of the Server's
+     * {@link ThreadPool}, once all the AppProviders are started. Their contexts
+     * are still added to the {@link ContextHandlerCollection} one by one, in the
+     * order the apps were provided; only the starting of the contexts is
+     * concurrent. Apps provided after startup are always deployed by the
+     * calling thread.</p>
+     *
+     * @param deployParallelism the maximum number of apps deployed concurrently, 1 for sequential deployment
+     * @see #addDeployDependency(String, String)
+     */
+    public void setDeployParallelism(int deployParallelism)
+    {
+        if (isRunning())
+            throw new IllegalStateException();
+        _deployParallelism = Math.max(1, deployParallelism);
+    }
+
+    /**
+     * <p>Declares that an app must only be started after another app has been started,
+     * when apps are deployed concurrently.</p>
+     * <p>Apps are identified by their {@link App#getOriginId() origin id}, or by the last
+     * segments of it, such as the file name of a context XML or WAR.</p>
+     *
+     * @param appId the id of the dependent app
+     * @param dependencyAppId the id of the app that must be deployed first
+     * @see #setDeployParallelism(int)
+     */
+    public void addDeployDependency(String appId, String dependencyAppId)
+    {
+        _deployDependencies.computeIfAbsent(appId, k -> ConcurrentHashMap.newKeySet()).add(dependencyAppId);
+    }
+
     private void startAppProvider(AppProvider provider)
     {
         try
@@ -13,16 +13,30 @@
 
 package org.eclipse.jetty.deploy;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.eclipse.jetty.deploy.graph.Node;
 import org.eclipse.jetty.deploy.test.XmlConfiguredJetty;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -76,6 +90,110 @@ public class DeploymentManagerTest
         assertEquals(1, deploybindings.size(), "'deploying' Bindings.size");
     }
 
+    @Test
+    public void testParallelDeploy() throws Exception
+    {
+        Server server = new Server();
+        ContextHandlerCollection contexts = new ContextHandlerCollection();
+        server.setHandler(contexts);
+        DeploymentManager depman = new DeploymentManager();
+        depman.setContexts(contexts);
+        depman.setUseStandardBindings(false);
+        depman.setDeployParallelism(2);
+        depman.addDeployDependency("mock-b.war", "mock-a.war");
+        server.addBean(depman);
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        // A single log of the deploy events, in the order they happen.
+        List<String> events = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        depman.addLifeCycleBinding(new AppLifeCycle.Binding()
+        {
+            @Override
+            public String[] getBindingTargets()
+            {
+                return new String[]{"deploying"};
+            }
+
+            @Override
+            public void processBinding(Node node, App app)
+            {
+                // A slow deploy must not change the order the contexts are added in.
+                if (app.getOriginId().equals("mock-a.war"))
+                    sleep(200);
+                contexts.addHandler(new ContextHandler("/" + app.getOriginId()));
+            }
+        });
+        depman.addLifeCycleBinding(new AppLifeCycle.Binding()
+        {
+            @Override
+            public String[] getBindingTargets()
+            {
+                return new String[]{"starting"};
+            }
+
+            @Override
+            public void processBinding(Node node, App app) throws Exception
+            {
+                events.add("start " + app.getOriginId());
+                threads.add(Thread.currentThread().getName());
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                Thread.sleep(200);
+                active.decrementAndGet();
+                events.add("end " + app.getOriginId());
+            }
+        });
+        depman.addAppProvider(new MockAppProvider()
+        {
+            @Override
+            public void doStart()
+            {
+                super.doStart();
+                findWebapp("a.war");
+                findWebapp("b.war");
+                findWebapp("c.war");
+                findWebapp("d.war");
+            }
+        });
+
+        server.start();
+
+        assertThat(events.size(), is(8));
+        assertThat(maxActive.get(), is(2));
+        for (String thread : threads)
+        {
+            assertThat(thread, startsWith("qtp"));
+        }
+        List<String> contextPaths = Arrays.stream(contexts.getHandlers())
+            .map(handler -> ((ContextHandler)handler).getContextPath())
+            .collect(Collectors.toList());
+        assertThat(contextPaths, contains("/mock-a.war", "/mock-b.war", "/mock-c.war", "/mock-d.war"));
+        // b depends on a, so b must start after a completed.
+        int aEnd = events.indexOf("end mock-a.war");
+        assertThat(aEnd, greaterThanOrEqualTo(0));
+        assertThat(events.indexOf("start mock-b.war"), greaterThan(aEnd));
+        for (DeploymentManager.AppEntry entry : depman.getAppEntries())
+        {
+            assertThat(entry.getLifecyleNode().getName(), is(AppLifeCycle.STARTED));
+            assertThat(entry.getLastGoalDuration(), greaterThanOrEqualTo(200L));
+        }
+
+        server.stop();
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException x)
+        {
+            throw new RuntimeException(x);
+        }
+    }
+
     @Test
     public void testXmlConfigured() throws Exception
     {
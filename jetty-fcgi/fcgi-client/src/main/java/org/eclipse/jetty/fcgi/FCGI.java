@@ -15,6 +15,12 @@ package org.eclipse.jetty.fcgi;
 
 public class FCGI
 {
+    /**
+     * The FCGI_KEEP_CONN flag of the FCGI_BEGIN_REQUEST frame: when set, the application
+     * must not close the connection after responding, so that it can be reused.
+     */
+    public static final int KEEP_CONN = 1;
+
     private FCGI()
     {
     }
@@ -58,6 +58,11 @@ public class HttpChannelOverFCGI extends HttpChannel
         return request;
     }
 
+    boolean isMultiplexed()
+    {
+        return connection.isMultiplexed();
+    }
+
     void setRequest(int request)
     {
         this.request = request;
@@ -152,7 +157,7 @@ public class HttpChannelOverFCGI extends HttpChannel
         HttpFields responseHeaders = result.getResponse().getHeaders();
         if (result.isFailed())
             connection.close(result.getFailure());
-        else if (!connection.closeByHTTP(responseHeaders))
+        else if (!connection.closeByHTTP(responseHeaders) && !connection.closeByHTTP(result.getRequest().getHeaders()))
             release();
     }
 
@@ -23,6 +23,8 @@ import org.eclipse.jetty.client.DuplexHttpDestination;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.HttpDestination;
 import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.MultiplexHttpDestination;
 import org.eclipse.jetty.client.Origin;
 import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.client.api.Request;
@@ -43,6 +45,7 @@ public class HttpClientTransportOverFCGI extends AbstractConnectorHttpClientTran
     private static final Logger LOG = LoggerFactory.getLogger(HttpClientTransportOverFCGI.class);
 
     private final String scriptRoot;
+    private int maxRequestsPerConnection = 1;
 
     public HttpClientTransportOverFCGI(String scriptRoot)
     {
@@ -63,6 +66,9 @@ public class HttpClientTransportOverFCGI extends AbstractConnectorHttpClientTran
         {
             HttpClient httpClient = getHttpClient();
             int maxConnections = httpClient.getMaxConnectionsPerDestination();
+            int maxMultiplex = getMaxRequestsPerConnection();
+            if (maxMultiplex > 1)
+                return new MultiplexConnectionPool(destination, maxConnections, destination, maxMultiplex);
             return new DuplexConnectionPool(destination, maxConnections, destination);
         });
     }
@@ -73,6 +79,33 @@ public class HttpClientTransportOverFCGI extends AbstractConnectorHttpClientTran
         return scriptRoot;
     }
 
+    @ManagedAttribute("The maximum number of concurrent requests per connection")
+    public int getMaxRequestsPerConnection()
+    {
+        return maxRequestsPerConnection;
+    }
+
+    /**
+     * <p>Sets the maximum number of requests multiplexed over a single connection.</p>
+     * <p>Multiplexing must only be enabled if the FastCGI server supports it,
+     * that is if it reports a non-zero {@code FCGI_MPXS_CONNS} value; for example,
+     * PHP-FPM does not support it.
+     * The default value of {@code 1} does not multiplex requests; connections are
+     * nevertheless kept open with {@link FCGI#KEEP_CONN} and reused for subsequent
+     * requests.</p>
+     * <p>This value must be set before the destinations are created,
+     * and it applies to destinations created afterwards.</p>
+     *
+     * @param maxRequestsPerConnection the maximum number of concurrent requests per connection,
+     * at most 65535, the number of FastCGI request ids
+     */
+    public void setMaxRequestsPerConnection(int maxRequestsPerConnection)
+    {
+        if (maxRequestsPerConnection < 1 || maxRequestsPerConnection > 0xFF_FF)
+            throw new IllegalArgumentException("Invalid max requests per connection " + maxRequestsPerConnection);
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+    }
+
     @Override
     public Origin newOrigin(HttpRequest request)
     {
@@ -82,6 +115,8 @@ public class HttpClientTransportOverFCGI extends AbstractConnectorHttpClientTran
     @Override
     public HttpDestination newHttpDestination(Origin origin)
     {
+        if (getMaxRequestsPerConnection() > 1)
+            return new MultiplexHttpDestination(getHttpClient(), origin);
         return new DuplexHttpDestination(getHttpClient(), origin);
     }
 
@@ -16,9 +16,14 @@ package org.eclipse.jetty.fcgi.client.http;
 import java.io.EOFException;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -28,6 +33,7 @@ import org.eclipse.jetty.client.HttpConnection;
 import org.eclipse.jetty.client.HttpDestination;
 import org.eclipse.jetty.client.HttpExchange;
 import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.HttpRequestException;
 import org.eclipse.jetty.client.IConnection;
 import org.eclipse.jetty.client.SendFailure;
 import org.eclipse.jetty.client.api.Connection;
@@ -52,20 +58,37 @@ import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>A FastCGI connection to a FastCGI server.</p>
+ * <p>Each request is identified by a FastCGI request id, so that multiple
+ * requests may be multiplexed over the same connection if the FastCGI
+ * server supports it, see {@link HttpClientTransportOverFCGI#setMaxRequestsPerConnection(int)}.</p>
+ * <p>Responses to multiplexed requests are parsed in order of arrival, so
+ * a response whose content is not consumed delays the other responses.</p>
+ * <p>When multiplexing, a request or response with {@code Connection: close}
+ * retires the connection from the pool rather than closing it, so that the
+ * other requests in progress can complete; the connection is closed when
+ * the last of them completes.</p>
+ */
 public class HttpConnectionOverFCGI extends AbstractConnection implements IConnection, Attachable
 {
     private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionOverFCGI.class);
+    private static final int MAX_REQUEST_ID = 0xFF_FF;
 
     private final RetainableByteBufferPool networkByteBufferPool;
     private final AutoLock lock = new AutoLock();
-    private final LinkedList<Integer> requests = new LinkedList<>();
+    private final BitSet requests = new BitSet();
+    private final Map<Integer, HttpChannelOverFCGI> activeChannels = new ConcurrentHashMap<>();
+    private final Queue<HttpChannelOverFCGI> idleChannels = new ArrayDeque<>();
     private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean retired = new AtomicBoolean();
     private final HttpDestination destination;
     private final Promise<Connection> promise;
     private final Flusher flusher;
     private final Delegate delegate;
     private final ClientParser parser;
-    private HttpChannelOverFCGI channel;
+    private final int maxRequestsPerConnection;
+    private int requestCount;
     private RetainableByteBuffer networkBuffer;
     private Object attachment;
 
@@ -77,9 +100,9 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         this.flusher = new Flusher(endPoint);
         this.delegate = new Delegate(destination);
         this.parser = new ClientParser(new ResponseListener());
-        requests.addLast(0);
         HttpClient client = destination.getHttpClient();
         this.networkByteBufferPool = RetainableByteBufferPool.findOrAdapt(client, client.getByteBufferPool());
+        this.maxRequestsPerConnection = ((HttpClientTransportOverFCGI)client.getTransport()).getMaxRequestsPerConnection();
     }
 
     public HttpDestination getHttpDestination()
@@ -92,6 +115,22 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         return flusher;
     }
 
+    /**
+     * @return the maximum number of concurrent requests on this connection
+     */
+    public int getMaxRequestsPerConnection()
+    {
+        return maxRequestsPerConnection;
+    }
+
+    /**
+     * @return whether requests are multiplexed on this connection
+     */
+    public boolean isMultiplexed()
+    {
+        return maxRequestsPerConnection > 1;
+    }
+
     @Override
     public void send(Request request, Response.CompleteListener listener)
     {
@@ -200,8 +239,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
     {
         // Close explicitly only if we are idle, since the request may still
         // be in progress, otherwise close only if we can fail the responses.
-        HttpChannelOverFCGI channel = this.channel;
-        if (channel == null || channel.getRequest() == 0)
+        if (activeChannels.isEmpty())
             close();
         else
             failAndClose(new EOFException(String.valueOf(getEndPoint())));
@@ -220,27 +258,50 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
 
     protected void release(HttpChannelOverFCGI channel)
     {
-        HttpChannelOverFCGI existing = this.channel;
-        if (existing == channel)
+        int request = channel.getRequest();
+        if (activeChannels.remove(request, channel))
         {
+            releaseRequest(request);
             channel.setRequest(0);
             // Recycle only non-failed channels.
             if (channel.isFailed())
             {
                 channel.destroy();
-                this.channel = null;
             }
-            destination.release(this);
+            else
+            {
+                try (AutoLock l = lock.lock())
+                {
+                    idleChannels.offer(channel);
+                }
+            }
+            if (retired.get())
+            {
+                // A retired connection is removed from the pool
+                // and closed when its last request completes.
+                destination.remove(this);
+                if (activeChannels.isEmpty())
+                    close();
+            }
+            else
+            {
+                destination.release(this);
+            }
         }
         else
         {
-            if (existing == null)
-                channel.destroy();
-            else
-                throw new UnsupportedOperationException("FastCGI Multiplex");
+            channel.destroy();
         }
     }
 
+    /**
+     * @return the number of requests in progress on this connection
+     */
+    public int getActiveRequests()
+    {
+        return activeChannels.size();
+    }
+
     @Override
     public void close()
     {
@@ -286,42 +347,67 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
     {
         if (!fields.contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString()))
             return false;
+        if (isMultiplexed())
+        {
+            // Other requests may be in progress on this connection,
+            // so only retire it, and close it when they are complete.
+            retire();
+            return false;
+        }
         close();
         return true;
     }
 
+    private void retire()
+    {
+        if (retired.compareAndSet(false, true))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Retiring {}", this);
+        }
+    }
+
     protected void abort(Throwable failure)
     {
-        HttpChannelOverFCGI channel = this.channel;
-        if (channel != null)
+        List<HttpChannelOverFCGI> channels = new ArrayList<>(activeChannels.values());
+        activeChannels.clear();
+        for (HttpChannelOverFCGI channel : channels)
         {
+            releaseRequest(channel.getRequest());
             HttpExchange exchange = channel.getHttpExchange();
             if (exchange != null)
                 exchange.getRequest().abort(failure);
             channel.destroy();
-            this.channel = null;
         }
     }
 
     private void failAndClose(Throwable failure)
     {
-        HttpChannelOverFCGI channel = this.channel;
-        if (channel != null)
+        boolean result = false;
+        for (HttpChannelOverFCGI channel : new ArrayList<>(activeChannels.values()))
         {
-            boolean result = channel.responseFailure(failure);
+            result |= channel.responseFailure(failure);
             channel.destroy();
-            if (result)
-                close(failure);
         }
+        if (result)
+            close(failure);
     }
 
+    /**
+     * @return the lowest free request id, or -1 if the max number of requests is in progress
+     */
     private int acquireRequest()
     {
         try (AutoLock l = lock.lock())
         {
-            int last = requests.getLast();
-            int request = last + 1;
-            requests.addLast(request);
+            if (requestCount >= maxRequestsPerConnection)
+                return -1;
+            // Request id 0 is reserved for management records.
+            int request = requests.nextClearBit(1);
+            if (request > MAX_REQUEST_ID)
+                return -1;
+            requests.set(request);
+            ++requestCount;
             return request;
         }
     }
@@ -330,15 +416,25 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
     {
         try (AutoLock l = lock.lock())
         {
-            requests.removeFirstOccurrence(request);
+            if (request > 0 && requests.get(request))
+            {
+                requests.clear(request);
+                --requestCount;
+            }
         }
     }
 
     protected HttpChannelOverFCGI acquireHttpChannel(int id, Request request)
     {
+        HttpChannelOverFCGI channel;
+        try (AutoLock l = lock.lock())
+        {
+            channel = idleChannels.poll();
+        }
         if (channel == null)
             channel = newHttpChannel(request);
         channel.setRequest(id);
+        activeChannels.put(id, channel);
         return channel;
     }
 
@@ -367,8 +463,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         protected Iterator<HttpChannel> getHttpChannels()
         {
-            HttpChannel channel = HttpConnectionOverFCGI.this.channel;
-            return channel == null ? Collections.emptyIterator() : Collections.singleton(channel).iterator();
+            return new ArrayList<HttpChannel>(activeChannels.values()).iterator();
         }
 
         @Override
@@ -377,8 +472,23 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
             HttpRequest request = exchange.getRequest();
             normalizeRequest(request);
 
+            if (retired.get())
+            {
+                // Remove this connection from the pool, so that the request is retried on another connection.
+                getHttpDestination().remove(HttpConnectionOverFCGI.this);
+                return new SendFailure(new HttpRequestException("Connection retired", request), true);
+            }
             int id = acquireRequest();
+            if (id < 0)
+            {
+                // Release this connection, so that the request is retried on another connection.
+                getHttpDestination().release(HttpConnectionOverFCGI.this);
+                return new SendFailure(new HttpRequestException("Max requests per connection " + maxRequestsPerConnection + " exceeded", request), true);
+            }
             HttpChannelOverFCGI channel = acquireHttpChannel(id, request);
+            // Do not send other requests on a connection that will be closed.
+            if (isMultiplexed() && request.getHeaders().contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString()))
+                retire();
 
             return send(channel, exchange);
         }
@@ -413,7 +523,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         public void onBegin(int request, int code, String reason)
         {
-            HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+            HttpChannelOverFCGI channel = activeChannels.get(request);
             if (channel != null)
                 channel.responseBegin(code, reason);
             else
@@ -423,7 +533,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         public void onHeader(int request, HttpField field)
         {
-            HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+            HttpChannelOverFCGI channel = activeChannels.get(request);
             if (channel != null)
                 channel.responseHeader(field);
             else
@@ -433,7 +543,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         public boolean onHeaders(int request)
         {
-            HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+            HttpChannelOverFCGI channel = activeChannels.get(request);
             if (channel != null)
                 return !channel.responseHeaders();
             noChannel(request);
@@ -447,7 +557,7 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
             {
                 case STD_OUT:
                 {
-                    HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+                    HttpChannelOverFCGI channel = activeChannels.get(request);
                     if (channel != null)
                     {
                         networkBuffer.retain();
@@ -475,12 +585,9 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         public void onEnd(int request)
         {
-            HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+            HttpChannelOverFCGI channel = activeChannels.get(request);
             if (channel != null)
-            {
-                if (channel.responseSuccess())
-                    releaseRequest(request);
-            }
+                channel.responseSuccess();
             else
             {
                 noChannel(request);
@@ -490,12 +597,9 @@ public class HttpConnectionOverFCGI extends AbstractConnection implements IConne
         @Override
         public void onFailure(int request, Throwable failure)
         {
-            HttpChannelOverFCGI channel = HttpConnectionOverFCGI.this.channel;
+            HttpChannelOverFCGI channel = activeChannels.get(request);
             if (channel != null)
-            {
-                if (channel.responseFailure(failure))
-                    releaseRequest(request);
-            }
+                channel.responseFailure(failure);
             else
             {
                 noChannel(request);
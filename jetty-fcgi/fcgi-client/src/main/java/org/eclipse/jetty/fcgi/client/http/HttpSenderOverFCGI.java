@@ -29,6 +29,7 @@ import org.eclipse.jetty.fcgi.generator.Generator;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.Jetty;
 import org.eclipse.jetty.util.StringUtil;
@@ -97,16 +98,20 @@ public class HttpSenderOverFCGI extends HttpSender
         HttpClientTransportOverFCGI transport = (HttpClientTransportOverFCGI)getHttpChannel().getHttpDestination().getHttpClient().getTransport();
         transport.customize(request, fcgiHeaders);
 
+        // Ask the FastCGI server to keep the connection open, unless it will be closed after this request;
+        // a multiplexed connection is shared with other requests, so it is always kept open.
+        boolean keepConnection = getHttpChannel().isMultiplexed() || !headers.contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString());
+
         int id = getHttpChannel().getRequest();
         if (contentBuffer.hasRemaining() || lastContent)
         {
-            Generator.Result headersResult = generator.generateRequestHeaders(id, fcgiHeaders, Callback.NOOP);
+            Generator.Result headersResult = generator.generateRequestHeaders(id, fcgiHeaders, keepConnection, Callback.NOOP);
             Generator.Result contentResult = generator.generateRequestContent(id, contentBuffer, lastContent, callback);
             getHttpChannel().flush(headersResult, contentResult);
         }
         else
         {
-            Generator.Result headersResult = generator.generateRequestHeaders(id, fcgiHeaders, callback);
+            Generator.Result headersResult = generator.generateRequestHeaders(id, fcgiHeaders, keepConnection, callback);
             getHttpChannel().flush(headersResult);
         }
     }
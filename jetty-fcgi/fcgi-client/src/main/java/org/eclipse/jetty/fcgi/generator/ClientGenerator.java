@@ -44,6 +44,11 @@ public class ClientGenerator extends Generator
     }
 
     public Result generateRequestHeaders(int request, HttpFields fields, Callback callback)
+    {
+        return generateRequestHeaders(request, fields, true, callback);
+    }
+
+    public Result generateRequestHeaders(int request, HttpFields fields, boolean keepConnection, Callback callback)
     {
         request &= 0xFF_FF;
 
@@ -87,8 +92,11 @@ public class ClientGenerator extends Generator
         // Generate the FCGI_BEGIN_REQUEST frame
         beginRequestBuffer.putInt(0x01_01_00_00 + request);
         beginRequestBuffer.putInt(0x00_08_00_00);
-        // Hardcode RESPONDER role and KEEP_ALIVE flag
-        beginRequestBuffer.putLong(0x00_01_01_00_00_00_00_00L);
+        // Hardcode RESPONDER role, and set the KEEP_CONN flag if the connection is reused
+        long roleAndFlags = 0x00_01_00_00_00_00_00_00L;
+        if (keepConnection)
+            roleAndFlags |= (long)FCGI.KEEP_CONN << 40;
+        beginRequestBuffer.putLong(roleAndFlags);
         BufferUtil.flipToFlush(beginRequestBuffer, 0);
 
         int index = 0;
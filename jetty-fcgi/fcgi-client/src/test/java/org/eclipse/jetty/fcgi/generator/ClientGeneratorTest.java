@@ -24,6 +24,8 @@ import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -135,6 +137,36 @@ public class ClientGeneratorTest
         assertEquals(value, params.get());
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testGenerateRequestHeadersKeepConnection(boolean keepConnection)
+    {
+        HttpFields fields = HttpFields.build().put(FCGI.Headers.REQUEST_METHOD, "GET");
+        ClientGenerator generator = new ClientGenerator(new MappedByteBufferPool());
+        final int id = 13;
+        Generator.Result result = generator.generateRequestHeaders(id, fields, keepConnection, null);
+
+        AtomicInteger flags = new AtomicInteger(-1);
+        ServerParser parser = new ServerParser(new ServerParser.Listener.Adapter()
+        {
+            @Override
+            public void onStart(int request, FCGI.Role role, int f)
+            {
+                assertEquals(id, request);
+                assertEquals(FCGI.Role.RESPONDER, role);
+                flags.set(f);
+            }
+        });
+
+        for (ByteBuffer buffer : result.getByteBuffers())
+        {
+            parser.parse(buffer);
+            assertFalse(buffer.hasRemaining());
+        }
+
+        assertEquals(keepConnection ? FCGI.KEEP_CONN : 0, flags.get());
+    }
+
     @Test
     public void testGenerateSmallRequestContent() throws Exception
     {
@@ -15,6 +15,7 @@ package org.eclipse.jetty.fcgi.server;
 
 import java.nio.ByteBuffer;
 
+import org.eclipse.jetty.fcgi.FCGI;
 import org.eclipse.jetty.fcgi.generator.Flusher;
 import org.eclipse.jetty.fcgi.generator.Generator;
 import org.eclipse.jetty.fcgi.generator.ServerGenerator;
@@ -36,14 +37,30 @@ public class HttpTransportOverFCGI implements HttpTransport
     private final ServerGenerator generator;
     private final Flusher flusher;
     private final int request;
+    private final boolean keepConnection;
     private volatile boolean shutdown;
     private volatile boolean aborted;
 
     public HttpTransportOverFCGI(ByteBufferPool byteBufferPool, boolean useDirectByteBuffers, boolean sendStatus200, Flusher flusher, int request)
+    {
+        this(byteBufferPool, useDirectByteBuffers, sendStatus200, flusher, request, true);
+    }
+
+    /**
+     * @param byteBufferPool the pool of buffers used to generate the response
+     * @param useDirectByteBuffers whether to generate the response in direct buffers
+     * @param sendStatus200 whether to send the status line for 200 responses
+     * @param flusher the flusher used to write the response
+     * @param request the FastCGI request id
+     * @param keepConnection whether the FastCGI client sent the {@link FCGI#KEEP_CONN} flag,
+     * so that the connection must not be closed after the response
+     */
+    public HttpTransportOverFCGI(ByteBufferPool byteBufferPool, boolean useDirectByteBuffers, boolean sendStatus200, Flusher flusher, int request, boolean keepConnection)
     {
         this.generator = new ServerGenerator(byteBufferPool, useDirectByteBuffers, sendStatus200);
         this.flusher = flusher;
         this.request = request;
+        this.keepConnection = keepConnection;
     }
 
     @Override
@@ -98,7 +115,7 @@ public class HttpTransportOverFCGI implements HttpTransport
     {
         if (LOG.isDebugEnabled())
             LOG.debug("commit {} {} l={}", this, info, lastContent);
-        boolean shutdown = this.shutdown = info.getFields().contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString());
+        boolean shutdown = this.shutdown = !keepConnection || info.getFields().contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString());
 
         if (head)
         {
@@ -212,13 +212,14 @@ public class ServerFCGIConnection extends AbstractConnection
         @Override
         public void onStart(int request, FCGI.Role role, int flags)
         {
-            // TODO: handle flags
             if (channel != null)
                 throw new UnsupportedOperationException("FastCGI Multiplexing");
+            // Without the KEEP_CONN flag, the connection is closed after the response.
+            boolean keepConnection = (flags & FCGI.KEEP_CONN) != 0;
             channel = new HttpChannelOverFCGI(ServerFCGIConnection.this, connector, configuration, getEndPoint(),
-                new HttpTransportOverFCGI(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), sendStatus200, flusher, request));
+                new HttpTransportOverFCGI(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), sendStatus200, flusher, request, keepConnection));
             if (LOG.isDebugEnabled())
-                LOG.debug("Request {} start on {}", request, channel);
+                LOG.debug("Request {} start on {}, keepConnection={}", request, channel, keepConnection);
         }
 
         @Override
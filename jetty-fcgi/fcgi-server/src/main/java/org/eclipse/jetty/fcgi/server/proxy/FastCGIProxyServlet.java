@@ -66,6 +66,9 @@ import org.eclipse.jetty.util.ProcessorUtils;
  * names read via {@link System#getenv(String)} that are forwarded as FastCGI parameters.</li>
  * <li>{@code unixDomainPath}, optional, that specifies the Unix-Domain path the FastCGI
  * server listens to.</li>
+ * <li>{@code maxRequestsPerConnection}, optional, defaults to 1, that specifies the max
+ * number of requests multiplexed over a single connection to the FastCGI server; it must
+ * be greater than 1 only if the FastCGI server supports multiplexing.</li>
  * </ul>
  *
  * @see TryFilesFilter
@@ -78,6 +81,7 @@ public class FastCGIProxyServlet extends AsyncProxyServlet.Transparent
     public static final String ORIGINAL_QUERY_ATTRIBUTE_INIT_PARAM = "originalQueryAttribute";
     public static final String FASTCGI_HTTPS_INIT_PARAM = "fastCGI.HTTPS";
     public static final String FASTCGI_ENV_NAMES_INIT_PARAM = "fastCGI.envNames";
+    public static final String MAX_REQUESTS_PER_CONNECTION_INIT_PARAM = "maxRequestsPerConnection";
 
     private static final String REMOTE_ADDR_ATTRIBUTE = FastCGIProxyServlet.class.getName() + ".remoteAddr";
     private static final String REMOTE_PORT_ATTRIBUTE = FastCGIProxyServlet.class.getName() + ".remotePort";
@@ -142,7 +146,11 @@ public class FastCGIProxyServlet extends AsyncProxyServlet.Transparent
             connector = new ClientConnector();
             connector.setSelectors(selectors);
         }
-        return new HttpClient(new ProxyHttpClientTransportOverFCGI(connector, scriptRoot));
+        ProxyHttpClientTransportOverFCGI transport = new ProxyHttpClientTransportOverFCGI(connector, scriptRoot);
+        String maxRequestsPerConnection = config.getInitParameter(MAX_REQUESTS_PER_CONNECTION_INIT_PARAM);
+        if (maxRequestsPerConnection != null)
+            transport.setMaxRequestsPerConnection(Integer.parseInt(maxRequestsPerConnection));
+        return new HttpClient(transport);
     }
 
     @Override
@@ -0,0 +1,108 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.fcgi.server;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientLoadTest extends AbstractHttpClientServerTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientLoadTest.class);
+
+    @Tag("stress")
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testThroughput(boolean keepConnection) throws Exception
+    {
+        byte[] content = new byte[1024];
+        // Avoid the overhead of leak tracking on the client.
+        clientBufferPool = new MappedByteBufferPool();
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                response.setContentLength(content.length);
+                response.getOutputStream().write(content);
+            }
+        });
+        AtomicInteger opened = new AtomicInteger();
+        connector.addBean(new Connection.Listener.Adapter()
+        {
+            @Override
+            public void onOpened(Connection connection)
+            {
+                opened.incrementAndGet();
+            }
+        });
+
+        int requests = 5_000;
+        int concurrency = 16;
+        Semaphore semaphore = new Semaphore(concurrency);
+        CountDownLatch latch = new CountDownLatch(requests);
+        AtomicInteger failures = new AtomicInteger();
+        long begin = System.nanoTime();
+        for (int i = 0; i < requests; ++i)
+        {
+            semaphore.acquire();
+            Request request = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .timeout(5, TimeUnit.SECONDS);
+            if (!keepConnection)
+                request.headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString()));
+            request.send(result ->
+            {
+                if (result.isFailed() || result.getResponse().getStatus() != 200)
+                    failures.incrementAndGet();
+                semaphore.release();
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(0, failures.get());
+        if (keepConnection)
+            assertThat(opened.get(), lessThanOrEqualTo(concurrency));
+        else
+            assertThat(opened.get(), greaterThanOrEqualTo(requests));
+
+        LOG.info("keepConnection={}: {} requests in {} ms, {} requests/s, {} connections",
+            keepConnection, requests, elapsed, requests * 1000L / Math.max(1, elapsed), opened.get());
+    }
+}
@@ -0,0 +1,345 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.fcgi.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.fcgi.FCGI;
+import org.eclipse.jetty.fcgi.client.http.HttpClientTransportOverFCGI;
+import org.eclipse.jetty.fcgi.generator.Generator;
+import org.eclipse.jetty.fcgi.generator.ServerGenerator;
+import org.eclipse.jetty.fcgi.parser.ServerParser;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientMultiplexTest
+{
+    private MultiplexingServer server;
+    private HttpClient client;
+
+    private void start(int maxRequestsPerConnection, int batch) throws Exception
+    {
+        server = new MultiplexingServer(batch);
+        server.start();
+
+        HttpClientTransportOverFCGI transport = new HttpClientTransportOverFCGI(1, "");
+        transport.setMaxRequestsPerConnection(maxRequestsPerConnection);
+        client = new HttpClient(transport);
+        client.setMaxConnectionsPerDestination(1);
+        client.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testMultiplexedRequestsOnSingleConnection() throws Exception
+    {
+        int requests = 8;
+        // The server replies only when it has received all the
+        // requests, so they must be multiplexed on the connection.
+        start(requests, requests);
+
+        CountDownLatch latch = new CountDownLatch(requests);
+        Map<String, String> contents = new ConcurrentHashMap<>();
+        for (int i = 0; i < requests; ++i)
+        {
+            String path = "/" + i;
+            client.newRequest("localhost", server.getLocalPort())
+                .path(path)
+                .timeout(5, TimeUnit.SECONDS)
+                .send(new BufferingResponseListener()
+                {
+                    @Override
+                    public void onComplete(Result result)
+                    {
+                        if (result.isSucceeded() && result.getResponse().getStatus() == 200)
+                            contents.put(path, getContentAsString());
+                        latch.countDown();
+                    }
+                });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(requests, contents.size());
+        // Responses were sent in reverse order, and must be matched to their request.
+        contents.forEach((path, content) -> assertEquals(path, content));
+        assertEquals(1, server.connections.get());
+        assertEquals(requests, server.keepConnections.get());
+    }
+
+    @Test
+    public void testSequentialRequestsReuseMultiplexedConnection() throws Exception
+    {
+        start(4, 1);
+
+        for (int i = 0; i < 5; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", server.getLocalPort())
+                .path("/seq")
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(200, response.getStatus());
+            assertEquals("/seq", response.getContentAsString());
+        }
+
+        assertEquals(1, server.connections.get());
+        // The lowest free request id is reused.
+        for (int i = 0; i < 5; ++i)
+        {
+            assertEquals(1, server.requestIds.poll());
+        }
+    }
+
+    @Test
+    public void testMaxRequestsPerConnectionIsNotExceeded() throws Exception
+    {
+        int maxRequestsPerConnection = 2;
+        start(maxRequestsPerConnection, maxRequestsPerConnection);
+
+        int requests = 3 * maxRequestsPerConnection;
+        CountDownLatch latch = new CountDownLatch(requests);
+        for (int i = 0; i < requests; ++i)
+        {
+            client.newRequest("localhost", server.getLocalPort())
+                .path("/" + i)
+                .timeout(5, TimeUnit.SECONDS)
+                .send(result ->
+                {
+                    if (result.isSucceeded() && result.getResponse().getStatus() == 200)
+                        latch.countDown();
+                });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, server.connections.get());
+        // Only the lowest request ids have been used.
+        assertEquals(requests, server.requestIds.size());
+        server.requestIds.forEach(id -> assertTrue(id >= 1 && id <= maxRequestsPerConnection, "request id " + id));
+    }
+
+    @Test
+    public void testConnectionCloseRetiresMultiplexedConnection() throws Exception
+    {
+        start(2, 2);
+
+        CountDownLatch latch = new CountDownLatch(2);
+        client.newRequest("localhost", server.getLocalPort())
+            .path("/keep")
+            .timeout(5, TimeUnit.SECONDS)
+            .send(result ->
+            {
+                if (result.isSucceeded() && result.getResponse().getStatus() == 200)
+                    latch.countDown();
+            });
+        // Wait for the first request to arrive to the server.
+        assertNotNull(server.requestIds.poll(5, TimeUnit.SECONDS));
+
+        // The second request must not close the connection while the first is in progress.
+        client.newRequest("localhost", server.getLocalPort())
+            .path("/close")
+            .headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE))
+            .timeout(5, TimeUnit.SECONDS)
+            .send(result ->
+            {
+                if (result.isSucceeded() && result.getResponse().getStatus() == 200)
+                    latch.countDown();
+            });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, server.connections.get());
+        // The shared connection is always kept open by the FastCGI server.
+        assertEquals(2, server.keepConnections.get());
+        // The connection is closed by the client when both requests are complete.
+        assertTrue(server.closeLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * <p>A minimal FastCGI server that supports multiplexing.</p>
+     * <p>It waits for {@code batch} requests on a connection,
+     * then replies to them in reverse order.</p>
+     */
+    private static class MultiplexingServer
+    {
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger keepConnections = new AtomicInteger();
+        private final BlockingQueue<Integer> requestIds = new LinkedBlockingQueue<>();
+        private final CountDownLatch closeLatch = new CountDownLatch(1);
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+        private final int batch;
+        private ServerSocketChannel serverChannel;
+
+        private MultiplexingServer(int batch)
+        {
+            this.batch = batch;
+        }
+
+        private void start() throws IOException
+        {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress("localhost", 0));
+            fork(this::accept);
+        }
+
+        private int getLocalPort() throws IOException
+        {
+            return ((InetSocketAddress)serverChannel.getLocalAddress()).getPort();
+        }
+
+        private void stop() throws Exception
+        {
+            serverChannel.close();
+            for (Thread thread : threads)
+            {
+                thread.interrupt();
+                thread.join(5000);
+            }
+        }
+
+        private void fork(Runnable task)
+        {
+            Thread thread = new Thread(task);
+            threads.add(thread);
+            thread.start();
+        }
+
+        private void accept()
+        {
+            try
+            {
+                while (true)
+                {
+                    SocketChannel channel = serverChannel.accept();
+                    connections.incrementAndGet();
+                    fork(() -> serve(channel));
+                }
+            }
+            catch (IOException ignored)
+            {
+                // The server has been stopped.
+            }
+        }
+
+        private void serve(SocketChannel channel)
+        {
+            ServerGenerator generator = new ServerGenerator(new MappedByteBufferPool());
+            Map<Integer, String> paths = new ConcurrentHashMap<>();
+            List<Integer> completed = new ArrayList<>();
+            ServerParser parser = new ServerParser(new ServerParser.Listener.Adapter()
+            {
+                @Override
+                public void onStart(int request, FCGI.Role role, int flags)
+                {
+                    requestIds.offer(request);
+                    if ((flags & FCGI.KEEP_CONN) != 0)
+                        keepConnections.incrementAndGet();
+                }
+
+                @Override
+                public void onHeader(int request, HttpField field)
+                {
+                    if (FCGI.Headers.DOCUMENT_URI.equals(field.getName()))
+                        paths.put(request, field.getValue());
+                }
+
+                @Override
+                public void onEnd(int request)
+                {
+                    completed.add(request);
+                }
+            });
+
+            try (SocketChannel ignored = channel)
+            {
+                ByteBuffer buffer = ByteBuffer.allocate(8192);
+                while (channel.read(buffer) >= 0)
+                {
+                    buffer.flip();
+                    while (buffer.hasRemaining())
+                    {
+                        parser.parse(buffer);
+                    }
+                    buffer.clear();
+
+                    if (completed.size() < batch)
+                        continue;
+
+                    for (int i = completed.size() - 1; i >= 0; --i)
+                    {
+                        int request = completed.get(i);
+                        ByteBuffer content = StandardCharsets.UTF_8.encode(paths.remove(request));
+                        HttpFields fields = HttpFields.build().put("Content-Length", String.valueOf(content.remaining()));
+                        Generator.Result headers = generator.generateResponseHeaders(request, 200, "OK", fields, Callback.NOOP);
+                        Generator.Result body = generator.generateResponseContent(request, content, true, false, Callback.NOOP);
+                        write(channel, headers);
+                        write(channel, body);
+                    }
+                    completed.clear();
+                }
+                closeLatch.countDown();
+            }
+            catch (IOException ignored)
+            {
+                // The connection has been closed.
+            }
+        }
+
+        private void write(SocketChannel channel, Generator.Result result) throws IOException
+        {
+            for (ByteBuffer buffer : result.getByteBuffers())
+            {
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer);
+                }
+            }
+            result.succeeded();
+        }
+    }
+}
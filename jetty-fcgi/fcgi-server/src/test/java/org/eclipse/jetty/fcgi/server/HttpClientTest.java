@@ -37,7 +37,10 @@ import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.util.AsyncRequestContent;
 import org.eclipse.jetty.client.util.BytesRequestContent;
 import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.logging.StacklessLogging;
 import org.eclipse.jetty.server.handler.AbstractHandler;
@@ -69,6 +72,69 @@ public class HttpClientTest extends AbstractHttpClientServerTest
         }
     }
 
+    @Test
+    public void testRequestsReuseConnection() throws Exception
+    {
+        start(new EmptyServerHandler());
+        AtomicInteger opened = new AtomicInteger();
+        connector.addBean(new Connection.Listener.Adapter()
+        {
+            @Override
+            public void onOpened(Connection connection)
+            {
+                opened.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 5; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(200, response.getStatus());
+        }
+
+        // The FCGI_KEEP_CONN flag keeps the connection open.
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testConnectionCloseDoesNotKeepConnection() throws Exception
+    {
+        start(new EmptyServerHandler());
+        AtomicInteger opened = new AtomicInteger();
+        CountDownLatch closed = new CountDownLatch(2);
+        connector.addBean(new Connection.Listener.Adapter()
+        {
+            @Override
+            public void onOpened(Connection connection)
+            {
+                opened.incrementAndGet();
+            }
+
+            @Override
+            public void onClosed(Connection connection)
+            {
+                closed.countDown();
+            }
+        });
+
+        for (int i = 0; i < 2; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .headers(headers -> headers.put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString()))
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(200, response.getStatus());
+        }
+
+        // Without the FCGI_KEEP_CONN flag, the server closes the connection.
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(2, opened.get());
+    }
+
     @Test
     public void testGETResponseWithContent() throws Exception
     {
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -32,6 +33,8 @@ import org.eclipse.jetty.client.util.FutureResponseListener;
 import org.eclipse.jetty.fcgi.FCGI;
 import org.eclipse.jetty.fcgi.server.ServerFCGIConnectionFactory;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.server.AbstractConnector;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.Server;
@@ -260,4 +263,45 @@ public class FastCGIProxyServletTest
         assertEquals(HttpStatus.OK_200, response.getStatus());
         assertArrayEquals(content, response.getContent());
     }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_16)
+    public void testUnixDomainConnectionIsReused() throws Exception
+    {
+        int maxUnixDomainPathLength = 108;
+        Path path = Files.createTempFile("unix", ".sock");
+        if (path.normalize().toAbsolutePath().toString().length() > maxUnixDomainPathLength)
+            path = Files.createTempFile(Path.of("/tmp"), "unix", ".sock");
+        assertTrue(Files.deleteIfExists(path));
+        unixDomainPath = path;
+        fcgiParams.put("unixDomainPath", path.toString());
+        prepare(true, new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+            {
+            }
+        });
+        AtomicInteger opened = new AtomicInteger();
+        ((AbstractConnector)fcgiConnector).addBean(new Connection.Listener.Adapter()
+        {
+            @Override
+            public void onOpened(Connection connection)
+            {
+                opened.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 5; ++i)
+        {
+            ContentResponse response = client.newRequest("localhost", httpConnector.getLocalPort())
+                .path("/index.php")
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        // The FastCGI connection is kept open with FCGI_KEEP_CONN and pooled.
+        assertEquals(1, opened.get());
+    }
 }
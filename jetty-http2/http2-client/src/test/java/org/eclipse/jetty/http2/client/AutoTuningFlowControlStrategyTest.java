@@ -0,0 +1,291 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AutoTuningFlowControlStrategy;
+import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.IO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutoTuningFlowControlStrategyTest extends FlowControlStrategyTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AutoTuningFlowControlStrategyTest.class);
+
+    private LatencyProxy proxy;
+
+    @Override
+    protected FlowControlStrategy newFlowControlStrategy()
+    {
+        return new AutoTuningFlowControlStrategy();
+    }
+
+    @AfterEach
+    public void stopProxy()
+    {
+        if (proxy != null)
+            proxy.close();
+    }
+
+    @Test
+    public void testRecvWindowGrowsWithLatency() throws Exception
+    {
+        int length = 4 * 1024 * 1024;
+        startDownload(length);
+        proxy = new LatencyProxy(connector.getLocalPort(), 10);
+
+        int maxRecvWindow = 1024 * 1024;
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(FlowControlStrategy.DEFAULT_WINDOW_SIZE, maxRecvWindow, 0.5F);
+        download(() -> strategy, length);
+
+        // The round-trip time includes the latency in both directions.
+        assertThat(strategy.getRoundTripTime(), greaterThan(TimeUnit.MILLISECONDS.toMicros(20)));
+        // The connection is only limited by the latency, so the windows grow up to the max.
+        assertEquals(maxRecvWindow, strategy.getStreamRecvWindowTarget());
+        assertEquals(maxRecvWindow, strategy.getSessionRecvWindowTarget());
+    }
+
+    @Test
+    public void testRecvWindowDoesNotGrowWithoutFlowControlStalls() throws Exception
+    {
+        int length = 16 * 1024;
+        startDownload(length);
+        proxy = new LatencyProxy(connector.getLocalPort(), 10);
+
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy();
+        for (int i = 0; i < 4; ++i)
+        {
+            download(() -> strategy, length);
+        }
+
+        // The responses fit the initial windows, so they never grow.
+        assertEquals(FlowControlStrategy.DEFAULT_WINDOW_SIZE, strategy.getStreamRecvWindowTarget());
+    }
+
+    @Tag("stress")
+    @Test
+    public void testDownloadThroughputWithLatency() throws Exception
+    {
+        int length = 32 * 1024 * 1024;
+        startDownload(length);
+
+        for (long latency : new long[]{5, 25})
+        {
+            proxy = new LatencyProxy(connector.getLocalPort(), latency);
+            for (int i = 0; i < 2; ++i)
+            {
+                long buffering = download(() -> new BufferingFlowControlStrategy(0.5F), length);
+                long autoTuning = download(AutoTuningFlowControlStrategy::new, length);
+                LOG.info("latency={}ms download {} MiB, buffering={}ms ({} MiB/s), autoTuning={}ms ({} MiB/s)",
+                    latency, length >> 20, buffering, String.format("%.1f", (length >> 20) * 1000D / buffering),
+                    autoTuning, String.format("%.1f", (length >> 20) * 1000D / autoTuning));
+            }
+            proxy.close();
+        }
+    }
+
+    private void startDownload(int length) throws Exception
+    {
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP)));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @return the download time in milliseconds
+     */
+    private long download(Supplier<FlowControlStrategy> strategy, int length) throws Exception
+    {
+        client.setFlowControlStrategyFactory(strategy::get);
+        FuturePromise<Session> sessionPromise = new FuturePromise<>();
+        client.connect(new InetSocketAddress("localhost", proxy.getLocalPort()), new Session.Listener.Adapter(), sessionPromise);
+        Session session = sessionPromise.get(5, TimeUnit.SECONDS);
+
+        long begin = System.nanoTime();
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true), new FuturePromise<>(), new Stream.Listener.Adapter()
+        {
+            private long received;
+
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                received += frame.remaining();
+                callback.succeeded();
+                if (frame.isEndStream() && received == length)
+                    latch.countDown();
+            }
+        });
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        session.close(0, null, Callback.NOOP);
+        return elapsed;
+    }
+
+    /**
+     * <p>A TCP proxy that delays the bytes it forwards in both directions,
+     * to simulate the latency of a long network path.</p>
+     */
+    private static class LatencyProxy implements AutoCloseable
+    {
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final ServerSocket server;
+        private final int targetPort;
+        private final long latency;
+
+        private LatencyProxy(int targetPort, long latency) throws IOException
+        {
+            this.server = new ServerSocket(0);
+            this.targetPort = targetPort;
+            this.latency = TimeUnit.MILLISECONDS.toNanos(latency);
+            new Thread(this::accept, "latency-proxy").start();
+        }
+
+        private int getLocalPort()
+        {
+            return server.getLocalPort();
+        }
+
+        private void accept()
+        {
+            try
+            {
+                while (true)
+                {
+                    Socket client = server.accept();
+                    Socket target = new Socket("localhost", targetPort);
+                    client.setTcpNoDelay(true);
+                    target.setTcpNoDelay(true);
+                    sockets.add(client);
+                    sockets.add(target);
+                    forward(client, target);
+                    forward(target, client);
+                }
+            }
+            catch (IOException x)
+            {
+                // The proxy has been closed.
+            }
+        }
+
+        private void forward(Socket from, Socket to) throws IOException
+        {
+            InputStream input = from.getInputStream();
+            OutputStream output = to.getOutputStream();
+            BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<>();
+            new Thread(() ->
+            {
+                try
+                {
+                    byte[] buffer = new byte[64 * 1024];
+                    while (true)
+                    {
+                        int read = input.read(buffer);
+                        chunks.put(new Chunk(System.nanoTime() + latency, read < 0 ? null : Arrays.copyOf(buffer, read)));
+                        if (read < 0)
+                            break;
+                    }
+                }
+                catch (Exception x)
+                {
+                    chunks.offer(new Chunk(0, null));
+                }
+            }, "latency-proxy-reader").start();
+            new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Chunk chunk = chunks.take();
+                        long delay = chunk.time - System.nanoTime();
+                        if (delay > 0)
+                            TimeUnit.NANOSECONDS.sleep(delay);
+                        if (chunk.bytes == null)
+                            break;
+                        output.write(chunk.bytes);
+                    }
+                    to.shutdownOutput();
+                }
+                catch (Exception x)
+                {
+                    IO.close(to);
+                }
+            }, "latency-proxy-writer").start();
+        }
+
+        @Override
+        public void close()
+        {
+            IO.close(server);
+            sockets.forEach(IO::close);
+        }
+
+        private static class Chunk
+        {
+            private final long time;
+            private final byte[] bytes;
+
+            private Chunk(long time, byte[] bytes)
+            {
+                this.time = time;
+                this.bytes = bytes;
+            }
+        }
+    }
+}
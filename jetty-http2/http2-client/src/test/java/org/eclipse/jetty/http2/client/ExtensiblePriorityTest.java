@@ -0,0 +1,421 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.ExtensiblePriority;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.http2.server.HttpChannelOverHTTP2;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExtensiblePriorityTest extends AbstractTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ExtensiblePriorityTest.class);
+
+    @Test
+    public void testParse()
+    {
+        assertNull(ExtensiblePriority.from(null));
+        assertEquals(ExtensiblePriority.DEFAULT, ExtensiblePriority.from(""));
+        assertEquals(new ExtensiblePriority(1, false), ExtensiblePriority.from("u=1"));
+        assertEquals(new ExtensiblePriority(5, true), ExtensiblePriority.from("u=5, i"));
+        assertEquals(new ExtensiblePriority(0, true), ExtensiblePriority.from("i=?1,u=0"));
+        assertEquals(new ExtensiblePriority(3, false), ExtensiblePriority.from("u=9, i=?0"));
+        assertEquals(new ExtensiblePriority(2, true), ExtensiblePriority.from("u=2;x=y, foo=bar, i"));
+        assertEquals(new ExtensiblePriority(6, false), ExtensiblePriority.from("u=1, u=6"));
+        assertEquals("u=5, i", new ExtensiblePriority(5, true).getFieldValue());
+    }
+
+    @Test
+    public void testUrgentStreamIsSentBeforeIncrementalStreams() throws Exception
+    {
+        List<Stream> serverStreams = new CopyOnWriteArrayList<>();
+        CountDownLatch serverStreamsLatch = new CountDownLatch(3);
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreams.add(stream);
+                serverStreamsLatch.countDown();
+                return null;
+            }
+        });
+
+        List<Integer> frames = new CopyOnWriteArrayList<>();
+        CountDownLatch clientLatch = new CountDownLatch(3);
+        Session session = newClient(new Session.Listener.Adapter());
+        Stream bulk1 = newStream(session, "u=5, i", frames, clientLatch);
+        Stream bulk2 = newStream(session, "u=5, i", frames, clientLatch);
+        Stream urgent = newStream(session, "u=0", frames, clientLatch);
+
+        assertTrue(serverStreamsLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(new ExtensiblePriority(5, true), serverStreams.get(0).getPriority());
+        assertEquals(new ExtensiblePriority(0, false), serverStreams.get(2).getPriority());
+
+        // Queue the DATA frames together, the urgent stream last.
+        respond(serverStreams, 48 * 1024);
+
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+
+        assertThat(frames.lastIndexOf(urgent.getId()), lessThan(frames.indexOf(bulk1.getId())));
+        assertThat(frames.lastIndexOf(urgent.getId()), lessThan(frames.indexOf(bulk2.getId())));
+        // Incremental streams of the same urgency are interleaved.
+        assertThat(frames.indexOf(bulk2.getId()), lessThan(frames.lastIndexOf(bulk1.getId())));
+        assertThat(frames.indexOf(bulk1.getId()), lessThan(frames.lastIndexOf(bulk2.getId())));
+    }
+
+    @Test
+    public void testNonIncrementalStreamsAreSentSequentially() throws Exception
+    {
+        List<Stream> serverStreams = new CopyOnWriteArrayList<>();
+        CountDownLatch serverStreamsLatch = new CountDownLatch(2);
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                assertNull(stream.getPriority());
+                // The application prioritizes the stream.
+                stream.setPriority(ExtensiblePriority.DEFAULT);
+                serverStreams.add(stream);
+                serverStreamsLatch.countDown();
+                return null;
+            }
+        });
+
+        List<Integer> frames = new CopyOnWriteArrayList<>();
+        CountDownLatch clientLatch = new CountDownLatch(2);
+        Session session = newClient(new Session.Listener.Adapter());
+        Stream stream1 = newStream(session, null, frames, clientLatch);
+        Stream stream2 = newStream(session, null, frames, clientLatch);
+
+        assertTrue(serverStreamsLatch.await(5, TimeUnit.SECONDS));
+
+        respond(serverStreams, 48 * 1024);
+
+        assertTrue(clientLatch.await(5, TimeUnit.SECONDS));
+
+        assertThat(frames.lastIndexOf(stream1.getId()), lessThan(frames.indexOf(stream2.getId())));
+    }
+
+    @Test
+    public void testResponsePriorityHeader() throws Exception
+    {
+        AtomicReference<ExtensiblePriority> priorityRef = new AtomicReference<>();
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                response.setHeader(HttpHeader.PRIORITY.asString(), "u=1, i");
+                response.flushBuffer();
+                HttpChannelOverHTTP2 channel = (HttpChannelOverHTTP2)Request.getBaseRequest(request).getHttpChannel();
+                priorityRef.set(channel.getHttpTransport().getStream().getPriority());
+            }
+        });
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Session session = newClient(new Session.Listener.Adapter());
+        session.newStream(new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true), new FuturePromise<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onHeaders(Stream stream, HeadersFrame frame)
+            {
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(new ExtensiblePriority(1, true), priorityRef.get());
+    }
+
+    @Tag("stress")
+    @Test
+    public void testUrgentStreamCompletionUnderBulkStreams() throws Exception
+    {
+        int bulkStreams = 8;
+        int bulkLength = 8 * 1024 * 1024;
+        int urgentLength = 256 * 1024;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Request request = (MetaData.Request)frame.getMetaData();
+                int length = request.getURI().getPath().endsWith("/urgent") ? urgentLength : bulkLength;
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP)));
+                return null;
+            }
+        });
+        client.setInitialSessionRecvWindow(16 * 1024 * 1024);
+        client.setInitialStreamRecvWindow(16 * 1024 * 1024);
+
+        for (boolean prioritized : new boolean[]{false, true, false, true, false, true})
+        {
+            Session session = newClient(new Session.Listener.Adapter());
+
+            AtomicLong bulkBytes = new AtomicLong();
+            CountDownLatch bulkLatch = new CountDownLatch(bulkStreams);
+            for (int i = 0; i < bulkStreams; ++i)
+            {
+                HttpFields fields = prioritized ? HttpFields.build().put(HttpHeader.PRIORITY, "u=6, i") : HttpFields.EMPTY;
+                session.newStream(new HeadersFrame(newRequest("GET", "/bulk", fields), null, true), new FuturePromise<>(), new DataListener(bulkLatch)
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        bulkBytes.addAndGet(frame.remaining());
+                        super.onData(stream, frame, callback);
+                    }
+                });
+            }
+            // Let the bulk streams saturate the connection.
+            Thread.sleep(20);
+
+            long bulkBegin = bulkBytes.get();
+            AtomicLong bulkEnd = new AtomicLong();
+            AtomicLong urgentEnd = new AtomicLong();
+            CountDownLatch urgentLatch = new CountDownLatch(1);
+            HttpFields fields = prioritized ? HttpFields.build().put(HttpHeader.PRIORITY, "u=0") : HttpFields.EMPTY;
+            long urgentBegin = System.nanoTime();
+            session.newStream(new HeadersFrame(newRequest("GET", "/urgent", fields), null, true), new FuturePromise<>(), new DataListener(urgentLatch)
+            {
+                @Override
+                public void onData(Stream stream, DataFrame frame, Callback callback)
+                {
+                    if (frame.isEndStream())
+                    {
+                        urgentEnd.set(System.nanoTime());
+                        bulkEnd.set(bulkBytes.get());
+                    }
+                    super.onData(stream, frame, callback);
+                }
+            });
+
+            assertTrue(urgentLatch.await(30, TimeUnit.SECONDS));
+            assertTrue(bulkLatch.await(60, TimeUnit.SECONDS));
+            LOG.info("prioritized={} urgent stream completed in {} ms, {} bulk bytes received meanwhile",
+                prioritized, TimeUnit.NANOSECONDS.toMillis(urgentEnd.get() - urgentBegin), bulkEnd.get() - bulkBegin);
+            session.close(0, null, Callback.NOOP);
+        }
+    }
+
+    @Test
+    public void testStalledBidirectionalStreamReceivesWindowUpdate() throws Exception
+    {
+        StalledListener serverListener = new StalledListener();
+        StalledListener clientListener = new StalledListener();
+        newStalledBidirectionalStream(serverListener, clientListener);
+
+        // Each peer has a stalled DATA frame for the stream, but the
+        // WINDOW_UPDATE frames sent when consuming must not wait for them.
+        clientListener.consume();
+        serverListener.consume();
+
+        assertTrue(serverListener.dataLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(clientListener.dataLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStalledBidirectionalStreamReceivesReset() throws Exception
+    {
+        StalledListener serverListener = new StalledListener();
+        StalledListener clientListener = new StalledListener();
+        Stream stream = newStalledBidirectionalStream(serverListener, clientListener);
+
+        // The RST_STREAM frame must not wait for the stalled DATA frame.
+        stream.reset(new ResetFrame(stream.getId(), ErrorCode.CANCEL_STREAM_ERROR.code), Callback.NOOP);
+
+        assertTrue(serverListener.resetLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    private Stream newStalledBidirectionalStream(StalledListener serverListener, StalledListener clientListener) throws Exception
+    {
+        // Twice the stream window, so that neither peer can send all its DATA.
+        int length = 2 * FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP)));
+                return serverListener;
+            }
+        });
+
+        Session session = newClient(new Session.Listener.Adapter());
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(newRequest("POST", HttpFields.EMPTY), null, false), promise, clientListener);
+        Stream stream = promise.get(5, TimeUnit.SECONDS);
+        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP);
+
+        assertTrue(serverListener.stalledLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(clientListener.stalledLatch.await(5, TimeUnit.SECONDS));
+        return stream;
+    }
+
+    private Stream newStream(Session session, String priority, List<Integer> frames, CountDownLatch latch) throws Exception
+    {
+        HttpFields fields = priority == null ? HttpFields.EMPTY : HttpFields.build().put(HttpHeader.PRIORITY, priority);
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(newRequest("GET", fields), null, true), promise, new DataListener(latch)
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                if (frame.remaining() > 0)
+                    frames.add(stream.getId());
+                super.onData(stream, frame, callback);
+            }
+        });
+        return promise.get(5, TimeUnit.SECONDS);
+    }
+
+    private void respond(List<Stream> serverStreams, int length)
+    {
+        List<Stream> streams = new ArrayList<>(serverStreams);
+        Callback dataCallback = Callback.from(() ->
+        {
+            for (Stream stream : streams)
+            {
+                stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP);
+            }
+        });
+        for (int i = 0; i < streams.size(); ++i)
+        {
+            Stream stream = streams.get(i);
+            MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+            stream.headers(new HeadersFrame(stream.getId(), response, null, false), i == streams.size() - 1 ? dataCallback : Callback.NOOP);
+        }
+    }
+
+    /**
+     * A listener that does not consume the DATA frames until {@link #consume()} is called,
+     * so that the peer stalls once the stream window is exhausted.
+     */
+    private static class StalledListener extends Stream.Listener.Adapter
+    {
+        private final List<Callback> callbacks = new ArrayList<>();
+        private final CountDownLatch stalledLatch = new CountDownLatch(1);
+        private final CountDownLatch dataLatch = new CountDownLatch(1);
+        private final CountDownLatch resetLatch = new CountDownLatch(1);
+        private long bytes;
+        private boolean consuming;
+
+        @Override
+        public void onData(Stream stream, DataFrame frame, Callback callback)
+        {
+            boolean consume;
+            synchronized (this)
+            {
+                bytes += frame.remaining();
+                if (bytes >= FlowControlStrategy.DEFAULT_WINDOW_SIZE)
+                    stalledLatch.countDown();
+                consume = consuming;
+                if (!consume)
+                    callbacks.add(callback);
+            }
+            if (consume)
+                callback.succeeded();
+            if (frame.isEndStream())
+                dataLatch.countDown();
+        }
+
+        @Override
+        public void onReset(Stream stream, ResetFrame frame)
+        {
+            resetLatch.countDown();
+        }
+
+        private void consume()
+        {
+            List<Callback> pending;
+            synchronized (this)
+            {
+                consuming = true;
+                pending = new ArrayList<>(callbacks);
+                callbacks.clear();
+            }
+            pending.forEach(Callback::succeeded);
+        }
+    }
+
+    private static class DataListener extends Stream.Listener.Adapter
+    {
+        private final CountDownLatch latch;
+
+        private DataListener(CountDownLatch latch)
+        {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onData(Stream stream, DataFrame frame, Callback callback)
+        {
+            callback.succeeded();
+            if (frame.isEndStream())
+                latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A flow control strategy that sizes the receive windows after the
+ * bandwidth-delay product (BDP) of the connection.</p>
+ * <p>Static receive windows must be configured for the worst case: too small
+ * and a sender on a high-bandwidth, high-latency connection stalls waiting for
+ * window control frames; too large and every stream may buffer large amounts
+ * of data.</p>
+ * <p>This strategy sends a PING frame when it receives a DATA frame and no PING
+ * is outstanding, and counts the bytes received until the PING reply arrives.
+ * Those bytes are a sample of the BDP: when the sample gets close to the
+ * window the sender could use (the sender was likely limited by flow control),
+ * and the measured bandwidth did not decrease, the receive windows are grown to
+ * twice the window used by the sender, up to {@link #getMaxRecvWindow() maxRecvWindow}.</p>
+ * <p>Streams that have not received data for longer than
+ * {@link #getStreamIdleTimeout() streamIdleTimeout} shrink back to the initial
+ * stream receive window: since flow control credit cannot be revoked, this is
+ * done by withholding window control frames until the data in flight for that
+ * stream fits the smaller window again.</p>
+ * <p>Like {@link BufferingFlowControlStrategy}, window control frames are
+ * emitted when the consumed bytes exceed the {@code bufferRatio} fraction of
+ * the window.</p>
+ */
+@ManagedObject
+public class AutoTuningFlowControlStrategy extends AbstractFlowControlStrategy
+{
+    private final Window sessionWindow = new Window(DEFAULT_WINDOW_SIZE, DEFAULT_WINDOW_SIZE);
+    private final Map<IStream, Window> streamWindows = new ConcurrentHashMap<>();
+    private final AtomicLong unconsumed = new AtomicLong();
+    private float bufferRatio;
+    private int maxRecvWindow;
+    private long streamIdleTimeout = 1000;
+    // The PING fields are only accessed by the thread that parses frames.
+    private boolean pingPending;
+    private long pingPayload;
+    private long pingNanoTime;
+    private long pingBytes;
+    private int pingWindow;
+    private volatile long bandwidth;
+    private volatile long roundTripTime;
+    private volatile int bdpWindow;
+
+    public AutoTuningFlowControlStrategy()
+    {
+        this(DEFAULT_WINDOW_SIZE, 16 * 1024 * 1024, 0.5F);
+    }
+
+    public AutoTuningFlowControlStrategy(int initialStreamSendWindow, int maxRecvWindow, float bufferRatio)
+    {
+        super(initialStreamSendWindow);
+        this.maxRecvWindow = maxRecvWindow;
+        this.bufferRatio = bufferRatio;
+    }
+
+    @ManagedAttribute("The ratio between the receive buffer and the consume buffer")
+    public float getBufferRatio()
+    {
+        return bufferRatio;
+    }
+
+    public void setBufferRatio(float bufferRatio)
+    {
+        this.bufferRatio = bufferRatio;
+    }
+
+    @ManagedAttribute("The max size the flow control receive windows may grow to")
+    public int getMaxRecvWindow()
+    {
+        return maxRecvWindow;
+    }
+
+    public void setMaxRecvWindow(int maxRecvWindow)
+    {
+        this.maxRecvWindow = maxRecvWindow;
+    }
+
+    @ManagedAttribute("The time, in milliseconds, after which a stream that does not receive data shrinks its receive window")
+    public long getStreamIdleTimeout()
+    {
+        return streamIdleTimeout;
+    }
+
+    public void setStreamIdleTimeout(long streamIdleTimeout)
+    {
+        this.streamIdleTimeout = streamIdleTimeout;
+    }
+
+    @ManagedAttribute(value = "The last round-trip time sample, in microseconds", readonly = true)
+    public long getRoundTripTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+    }
+
+    @ManagedAttribute(value = "The max bandwidth sample, in bytes per second", readonly = true)
+    public long getBandwidth()
+    {
+        return bandwidth;
+    }
+
+    @ManagedAttribute(value = "The current size of the session flow control receive window", readonly = true)
+    public int getSessionRecvWindowTarget()
+    {
+        return sessionWindow.getTarget();
+    }
+
+    @ManagedAttribute(value = "The current size of the flow control receive window of active streams", readonly = true)
+    public int getStreamRecvWindowTarget()
+    {
+        return Math.max(getInitialStreamRecvWindow(), bdpWindow);
+    }
+
+    @Override
+    public void onStreamCreated(IStream stream)
+    {
+        super.onStreamCreated(stream);
+        streamWindows.put(stream, new Window(getInitialStreamRecvWindow(), getStreamRecvWindowTarget()));
+    }
+
+    @Override
+    public void onStreamDestroyed(IStream stream)
+    {
+        streamWindows.remove(stream);
+        super.onStreamDestroyed(stream);
+    }
+
+    @Override
+    public void updateInitialStreamWindow(ISession session, int initialStreamWindow, boolean local)
+    {
+        int previousInitialStreamWindow = getInitialStreamRecvWindow();
+        super.updateInitialStreamWindow(session, initialStreamWindow, local);
+        if (local)
+        {
+            int delta = initialStreamWindow - previousInitialStreamWindow;
+            streamWindows.values().forEach(window -> window.resize(delta));
+        }
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+        long unconsumed = this.unconsumed.addAndGet(length);
+
+        long now = System.nanoTime();
+        if (stream != null)
+        {
+            Window window = streamWindows.get(stream);
+            if (window != null)
+                window.lastDataNanoTime = now;
+        }
+
+        if (pingPending)
+        {
+            pingBytes += length;
+        }
+        else if ((unconsumed - length) * 2 <= getStreamRecvWindowTarget())
+        {
+            // Only sample when the application keeps up with the data,
+            // otherwise the windows could not grow anyway.
+            pingPending = true;
+            pingPayload = ThreadLocalRandom.current().nextLong();
+            pingNanoTime = now;
+            pingBytes = length;
+            pingWindow = getStreamRecvWindowTarget();
+            session.ping(new PingFrame(pingPayload, false), Callback.NOOP);
+        }
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        if (!pingPending || frame.getPayloadAsLong() != pingPayload)
+            return false;
+        pingPending = false;
+
+        long now = System.nanoTime();
+        long rtt = Math.max(1, now - pingNanoTime);
+        long sample = pingBytes;
+        long bandwidth = sample * TimeUnit.SECONDS.toNanos(1) / rtt;
+        roundTripTime = rtt;
+
+        // A larger sample with a lower bandwidth means that
+        // the round-trip time grew, likely because of queueing
+        // along the path, so there is no point in growing.
+        boolean maxBandwidth = bandwidth >= this.bandwidth;
+        if (maxBandwidth)
+            this.bandwidth = bandwidth;
+        // Window control frames are only sent after a bufferRatio fraction
+        // of the window has been consumed, so the sender can only use the
+        // remaining fraction of the window in a round-trip.
+        float usable = Math.max(1F - getBufferRatio(), 0.25F);
+        long usedWindow = (long)(sample / usable);
+        // When the application does not keep up with the data,
+        // it is the bottleneck and larger windows would only
+        // buffer more data.
+        boolean consumed = this.unconsumed.get() * 2 <= sample;
+        int streamTarget = getStreamRecvWindowTarget();
+        if (maxBandwidth && consumed && usedWindow * 3 >= pingWindow * 2L)
+        {
+            int window = (int)Math.min(2 * usedWindow, getMaxRecvWindow());
+            if (window > bdpWindow)
+            {
+                bdpWindow = window;
+                sessionWindow.grow(window);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("BDP sample {} bytes in {} us, grown recv windows to {} for {}", sample, TimeUnit.NANOSECONDS.toMicros(rtt), window, session);
+            }
+        }
+        else
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("BDP sample {} bytes in {} us, recv windows {} for {}", sample, TimeUnit.NANOSECONDS.toMicros(rtt), streamTarget, session);
+        }
+
+        streamTarget = getStreamRecvWindowTarget();
+        int idleTarget = getInitialStreamRecvWindow();
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(getStreamIdleTimeout());
+        for (Window window : streamWindows.values())
+        {
+            boolean idle = now - window.lastDataNanoTime > idleTimeout;
+            window.setTarget(idle ? idleTarget : streamTarget);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void onDataConsumed(ISession session, IStream stream, int length)
+    {
+        if (length <= 0)
+            return;
+
+        unconsumed.addAndGet(-length);
+        float ratio = bufferRatio;
+
+        int delta = sessionWindow.consume(length, ratio);
+        if (delta > 0)
+        {
+            session.updateRecvWindow(delta);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Data consumed, {} bytes, updated session recv window by {} {} for {}", length, delta, sessionWindow, session);
+            sendWindowUpdate(null, session, new WindowUpdateFrame(0, delta));
+        }
+        else
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Data consumed, {} bytes, session recv window {} for {}", length, sessionWindow, session);
+        }
+
+        if (stream != null)
+        {
+            if (stream.isRemotelyClosed())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Data consumed, {} bytes, ignoring update stream recv window for remotely closed {}", length, stream);
+            }
+            else
+            {
+                Window window = streamWindows.get(stream);
+                if (window != null)
+                {
+                    delta = window.consume(length, ratio);
+                    if (delta > 0)
+                    {
+                        stream.updateRecvWindow(delta);
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Data consumed, {} bytes, updated stream recv window by {} {} for {}", length, delta, window, stream);
+                        sendWindowUpdate(stream, session, new WindowUpdateFrame(stream.getId(), delta));
+                    }
+                    else
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Data consumed, {} bytes, stream recv window {} for {}", length, window, stream);
+                    }
+                }
+            }
+        }
+    }
+
+    protected void sendWindowUpdate(IStream stream, ISession session, WindowUpdateFrame frame)
+    {
+        session.frames(stream, List.of(frame), Callback.NOOP);
+    }
+
+    @Override
+    public void windowUpdate(ISession session, IStream stream, WindowUpdateFrame frame)
+    {
+        super.windowUpdate(session, stream, frame);
+        // Track the initial session window update sent
+        // by the connection factories, or by applications.
+        // See BufferingFlowControlStrategy.windowUpdate().
+        if (frame.getStreamId() == 0)
+            sessionWindow.updateMax(session.updateRecvWindow(0));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[ratio=%.2f,bdp=%d,rtt=%dus,sessionWindow=%s,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            bufferRatio,
+            bdpWindow,
+            getRoundTripTime(),
+            sessionWindow,
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+
+    /**
+     * <p>The receive side of a flow control window.</p>
+     * <p>The {@code size} is the sum of the credit given to the sender,
+     * of the bytes received but not yet consumed, and of the bytes
+     * consumed but not yet given back to the sender (the {@code level}).
+     * When the bytes are given back, the size moves towards the
+     * {@code target}, either growing or shrinking the window.</p>
+     */
+    private static class Window
+    {
+        private final AutoLock lock = new AutoLock();
+        private int size;
+        private int target;
+        private int level;
+        private volatile long lastDataNanoTime = System.nanoTime();
+
+        private Window(int size, int target)
+        {
+            this.size = size;
+            this.target = target;
+        }
+
+        private int getTarget()
+        {
+            try (AutoLock l = lock.lock())
+            {
+                return target;
+            }
+        }
+
+        private void setTarget(int target)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                this.target = target;
+            }
+        }
+
+        private void grow(int target)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                this.target = Math.max(this.target, target);
+            }
+        }
+
+        private void updateMax(int size)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                this.size = Math.max(this.size, size);
+                this.target = Math.max(this.target, this.size);
+            }
+        }
+
+        private void resize(int delta)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                size += delta;
+                target += delta;
+            }
+        }
+
+        /**
+         * @param length the number of bytes consumed
+         * @param ratio the buffer ratio
+         * @return the window delta to send to the other peer, or 0 if no window update must be sent
+         */
+        private int consume(int length, float ratio)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                level += length;
+                int delta = level + target - size;
+                if (delta <= (int)(target * ratio))
+                    return 0;
+                size = target;
+                level = 0;
+                return delta;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            try (AutoLock l = lock.lock())
+            {
+                return String.format("%d/%d+%d", size, target, level);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Objects;
+
+/**
+ * <p>The priority of a stream, as defined by
+ * <a href="https://datatracker.ietf.org/doc/html/rfc9218">RFC 9218</a>.</p>
+ * <p>The urgency ranges from {@code 0} (most urgent) to {@code 7} (least urgent).
+ * The DATA frames of a non-incremental stream are sent one stream at a time, in
+ * stream id order, while the DATA frames of incremental streams with the same
+ * urgency are interleaved.</p>
+ * <p>The priority is typically carried by the {@code Priority} header field,
+ * for example {@code Priority: u=1, i}.</p>
+ */
+public class ExtensiblePriority
+{
+    public static final int DEFAULT_URGENCY = 3;
+    public static final int MAX_URGENCY = 7;
+    public static final ExtensiblePriority DEFAULT = new ExtensiblePriority(DEFAULT_URGENCY, false);
+
+    private final int urgency;
+    private final boolean incremental;
+
+    public ExtensiblePriority(int urgency, boolean incremental)
+    {
+        if (urgency < 0 || urgency > MAX_URGENCY)
+            throw new IllegalArgumentException("Invalid urgency " + urgency);
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * <p>Parses the value of a {@code Priority} header field.</p>
+     * <p>Unknown members, parameters and invalid values are ignored,
+     * so that the default values apply, as required by the specification.</p>
+     *
+     * @param value the {@code Priority} header field value, may be null
+     * @return the priority, or null if the value is null
+     */
+    public static ExtensiblePriority from(String value)
+    {
+        if (value == null)
+            return null;
+
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental = false;
+        for (String member : value.split(","))
+        {
+            int semicolon = member.indexOf(';');
+            if (semicolon >= 0)
+                member = member.substring(0, semicolon);
+            int equal = member.indexOf('=');
+            String key = (equal < 0 ? member : member.substring(0, equal)).trim();
+            String item = equal < 0 ? null : member.substring(equal + 1).trim();
+            switch (key)
+            {
+                case "u":
+                {
+                    if (item != null && item.length() == 1)
+                    {
+                        int u = item.charAt(0) - '0';
+                        if (u >= 0 && u <= MAX_URGENCY)
+                            urgency = u;
+                    }
+                    break;
+                }
+                case "i":
+                {
+                    if (item == null || "?1".equals(item))
+                        incremental = true;
+                    else if ("?0".equals(item))
+                        incremental = false;
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return new ExtensiblePriority(urgency, incremental);
+    }
+
+    /**
+     * @return the urgency, from {@code 0} (most urgent) to {@code 7} (least urgent)
+     */
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    /**
+     * @return whether the stream DATA frames can be interleaved with those of other streams
+     */
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    /**
+     * @return the value of the {@code Priority} header field for this priority
+     */
+    public String getFieldValue()
+    {
+        return incremental ? "u=" + urgency + ", i" : "u=" + urgency;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        ExtensiblePriority that = (ExtensiblePriority)obj;
+        return urgency == that.urgency && incremental == that.incremental;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(urgency, incremental);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[u=%d,i=%b]", getClass().getSimpleName(), urgency, incremental);
+    }
+}
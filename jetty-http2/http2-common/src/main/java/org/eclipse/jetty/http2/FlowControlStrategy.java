@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.http2;
 
+import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 
 public interface FlowControlStrategy
@@ -37,6 +38,21 @@ public interface FlowControlStrategy
 
     public void onDataSent(IStream stream, int length);
 
+    /**
+     * <p>Invoked when a PING reply is received.</p>
+     * <p>Strategies that send PING frames, for example to measure the
+     * round-trip time, receive here the replies to their PING frames.</p>
+     *
+     * @param session the session that received the PING reply
+     * @param frame the PING reply frame
+     * @return true if the PING reply was for a PING sent by this strategy,
+     * and therefore must not be notified to the application
+     */
+    public default boolean onPingReply(ISession session, PingFrame frame)
+    {
+        return false;
+    }
+
     public interface Factory
     {
         public FlowControlStrategy newFlowControlStrategy();
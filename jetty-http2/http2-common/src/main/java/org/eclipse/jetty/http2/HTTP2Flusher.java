@@ -18,10 +18,14 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
@@ -43,17 +47,36 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Flusher.class);
     private static final ByteBuffer[] EMPTY_BYTE_BUFFERS = new ByteBuffer[0];
+    // Streams without priority keep interleaving their DATA frames, as they did before RFC 9218.
+    private static final ExtensiblePriority UNPRIORITIZED = new ExtensiblePriority(ExtensiblePriority.DEFAULT_URGENCY, true);
+    // Most urgent first; for the same urgency, non-incremental streams first, one at a time in stream id order,
+    // then incremental streams in queue order, which the stable sort preserves so they are served round-robin.
+    private static final Comparator<Entry> PRIORITY_ORDER = (e1, e2) ->
+    {
+        ExtensiblePriority p1 = e1.getPriority();
+        ExtensiblePriority p2 = e2.getPriority();
+        int result = Integer.compare(p1.getUrgency(), p2.getUrgency());
+        if (result != 0)
+            return result;
+        result = Boolean.compare(p1.isIncremental(), p2.isIncremental());
+        if (result != 0 || p1.isIncremental())
+            return result;
+        return Integer.compare(e1.stream.getId(), e2.stream.getId());
+    };
 
     private final AutoLock lock = new AutoLock();
     private final Queue<WindowEntry> windows = new ArrayDeque<>();
     private final Deque<Entry> entries = new ArrayDeque<>();
     private final Queue<Entry> pendingEntries = new ArrayDeque<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
+    private final List<Entry> dataEntries = new ArrayList<>();
+    private final Map<IStream, Integer> dataStreams = new HashMap<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private InvocationType invocationType = InvocationType.NON_BLOCKING;
     private Throwable terminated;
     private Entry stalledEntry;
+    private boolean dataEntriesSorted = true;
 
     public HTTP2Flusher(HTTP2Session session)
     {
@@ -178,7 +201,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             }
         }
 
-        if (pendingEntries.isEmpty())
+        if (pendingEntries.isEmpty() && dataEntries.isEmpty())
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Flushed {}", session);
@@ -189,73 +212,50 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         {
             boolean progress = false;
 
-            if (pendingEntries.isEmpty())
+            if (pendingEntries.isEmpty() && dataEntries.isEmpty())
                 break;
 
+            // Control frames are generated in queue order, while DATA frames,
+            // and the HEADERS frames (trailers) that follow them in the same
+            // stream, are moved to the data entries to be generated in priority
+            // order. Other control frames of the stream, such as WINDOW_UPDATE
+            // and RST_STREAM, must not wait for a possibly stalled DATA frame.
             Iterator<Entry> pending = pendingEntries.iterator();
             while (pending.hasNext())
             {
                 Entry entry = pending.next();
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Processing {}", entry);
-
-                // If the stream has been reset or removed,
-                // don't send the frame and fail it here.
-                if (entry.shouldBeDropped())
+                if (entry.frame.getType() == FrameType.DATA)
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Dropped {}", entry);
-                    entry.failed(new EofException("dropped"));
                     pending.remove();
+                    dataStreams.merge(entry.stream, 1, Integer::sum);
+                    dataEntries.add(entry);
+                    dataEntriesSorted = false;
                     continue;
                 }
-
-                try
-                {
-                    if (entry.generate(lease))
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
-
-                        progress = true;
-
-                        // We use ArrayList contains() + add() instead of HashSet add()
-                        // because that is faster for collections of size up to 250 entries.
-                        if (!processedEntries.contains(entry))
-                        {
-                            processedEntries.add(entry);
-                            invocationType = Invocable.combine(invocationType, Invocable.getInvocationType(entry.getCallback()));
-                        }
-
-                        if (entry.getDataBytesRemaining() == 0)
-                            pending.remove();
-                    }
-                    else
-                    {
-                        if (session.getSendWindow() <= 0 && stalledEntry == null)
-                        {
-                            stalledEntry = entry;
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("Flow control stalled at {}", entry);
-                            // Continue to process control frames.
-                        }
-                    }
-                }
-                catch (HpackException.StreamException failure)
+                if (entry.frame.getType() == FrameType.HEADERS && entry.stream != null && dataStreams.containsKey(entry.stream))
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating {}", entry, failure);
-                    entry.failed(failure);
                     pending.remove();
+                    dataEntries.add(entry);
+                    dataEntriesSorted = false;
+                    continue;
                 }
-                catch (Throwable failure)
-                {
-                    // Failure to generate the entry is catastrophic.
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating {}", entry, failure);
-                    failed(failure);
+
+                Progress result = generate(entry);
+                if (result == Progress.FAILED)
                     return Action.SUCCEEDED;
-                }
+                if (result.progress)
+                    progress = true;
+                if (result.done)
+                    pending.remove();
+            }
+
+            if (!dataEntries.isEmpty())
+            {
+                Progress result = generateData();
+                if (result == Progress.FAILED)
+                    return Action.SUCCEEDED;
+                if (result.progress)
+                    progress = true;
             }
 
             if (!progress)
@@ -285,7 +285,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                 byteBuffers.size(),
                 lease.getTotalLength(),
                 processedEntries.size(),
-                pendingEntries.size(),
+                pendingEntries.size() + dataEntries.size(),
                 processedEntries,
                 pendingEntries);
 
@@ -293,6 +293,124 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    private Progress generateData()
+    {
+        // The data entries are only sorted when entries are added, so
+        // priority changes apply when the next entries are added.
+        // The sort is stable, so the entries of the same stream,
+        // which have the same priority, remain in queue order.
+        if (!dataEntriesSorted)
+        {
+            dataEntries.sort(PRIORITY_ORDER);
+            dataEntriesSorted = true;
+        }
+
+        boolean progress = false;
+        ExtensiblePriority served = null;
+        int size = dataEntries.size();
+        int kept = 0;
+        for (int i = 0; i < size; ++i)
+        {
+            Entry entry = dataEntries.get(i);
+            Progress result = Progress.NONE;
+            if (entry.frame.getType() == FrameType.DATA)
+            {
+                if (served == null || isInterleaved(served, entry.getPriority()))
+                {
+                    result = generate(entry);
+                    if (result == Progress.FAILED)
+                        return result;
+                    if (result.progress && served == null)
+                        served = entry.getPriority();
+                    if (result.done)
+                        dataStreams.computeIfPresent(entry.stream, (stream, count) -> count == 1 ? null : count - 1);
+                }
+            }
+            else if (!dataStreams.containsKey(entry.stream))
+            {
+                // The DATA frames that preceded this frame in the same stream have
+                // been generated, so it is generated like any other control frame.
+                result = generate(entry);
+                if (result == Progress.FAILED)
+                    return result;
+            }
+            if (result.progress)
+                progress = true;
+            // Compact the list in place, rather than removing each
+            // done entry, to keep the remaining entries in order.
+            if (!result.done)
+                dataEntries.set(kept++, entry);
+        }
+        dataEntries.subList(kept, size).clear();
+        return progress ? Progress.PARTIAL : Progress.NONE;
+    }
+
+    private static boolean isInterleaved(ExtensiblePriority served, ExtensiblePriority priority)
+    {
+        // Once frames have been generated for a stream, only the incremental
+        // streams of the same urgency may interleave their frames with it.
+        return served.isIncremental() && priority.isIncremental() && served.getUrgency() == priority.getUrgency();
+    }
+
+    private Progress generate(Entry entry)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Processing {}", entry);
+
+        // If the stream has been reset or removed,
+        // don't send the frame and fail it here.
+        if (entry.shouldBeDropped())
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Dropped {}", entry);
+            entry.failed(new EofException("dropped"));
+            return Progress.DROPPED;
+        }
+
+        try
+        {
+            if (entry.generate(lease))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
+
+                // We use ArrayList contains() + add() instead of HashSet add()
+                // because that is faster for collections of size up to 250 entries.
+                if (!processedEntries.contains(entry))
+                {
+                    processedEntries.add(entry);
+                    invocationType = Invocable.combine(invocationType, Invocable.getInvocationType(entry.getCallback()));
+                }
+
+                return entry.getDataBytesRemaining() == 0 ? Progress.COMPLETE : Progress.PARTIAL;
+            }
+
+            if (session.getSendWindow() <= 0 && stalledEntry == null)
+            {
+                stalledEntry = entry;
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Flow control stalled at {}", entry);
+                // Continue to process control frames.
+            }
+            return Progress.NONE;
+        }
+        catch (HpackException.StreamException failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating {}", entry, failure);
+            entry.failed(failure);
+            return Progress.DROPPED;
+        }
+        catch (Throwable failure)
+        {
+            // Failure to generate the entry is catastrophic.
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating {}", entry, failure);
+            failed(failure);
+            return Progress.FAILED;
+        }
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -326,14 +444,24 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
         if (stalledEntry != null)
         {
-            int size = pendingEntries.size();
-            for (int i = 0; i < size; ++i)
+            // Only DATA entries can be stalled by flow control; restart from
+            // the stalled entry among the incremental entries it is interleaved
+            // with, which are contiguous in the sorted data entries.
+            int index = dataEntries.indexOf(stalledEntry);
+            ExtensiblePriority priority = stalledEntry.getPriority();
+            if (index >= 0 && priority.isIncremental())
             {
-                Entry entry = pendingEntries.peek();
-                if (entry == stalledEntry)
-                    break;
-                pendingEntries.poll();
-                pendingEntries.offer(entry);
+                int start = index;
+                while (start > 0 && isInterleaved(priority, dataEntries.get(start - 1).getPriority()))
+                {
+                    --start;
+                }
+                int end = index + 1;
+                while (end < dataEntries.size() && isInterleaved(priority, dataEntries.get(end).getPriority()))
+                {
+                    ++end;
+                }
+                Collections.rotate(dataEntries.subList(start, end), start - index);
             }
             stalledEntry = null;
         }
@@ -370,6 +498,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         processedEntries.clear();
         allEntries.addAll(pendingEntries);
         pendingEntries.clear();
+        allEntries.addAll(dataEntries);
+        dataEntries.clear();
+        dataStreams.clear();
         allEntries.forEach(entry -> entry.failed(x));
 
         // If the failure came from within the
@@ -417,7 +548,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             getWindowQueueSize(),
             getFrameQueueSize(),
             processedEntries.size(),
-            pendingEntries.size());
+            pendingEntries.size() + dataEntries.size());
     }
 
     public abstract static class Entry extends Callback.Nested
@@ -448,6 +579,12 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return false;
         }
 
+        ExtensiblePriority getPriority()
+        {
+            ExtensiblePriority priority = stream == null ? null : stream.getPriority();
+            return priority == null ? UNPRIORITIZED : priority;
+        }
+
         @Override
         public void failed(Throwable x)
         {
@@ -510,6 +647,20 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         }
     }
 
+    private enum Progress
+    {
+        NONE(false, false), PARTIAL(true, false), COMPLETE(true, true), DROPPED(false, true), FAILED(false, true);
+
+        private final boolean progress;
+        private final boolean done;
+
+        Progress(boolean progress, boolean done)
+        {
+            this.progress = progress;
+            this.done = done;
+        }
+    }
+
     private class WindowEntry
     {
         private final IStream stream;
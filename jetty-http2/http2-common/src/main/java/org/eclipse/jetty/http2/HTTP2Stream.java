@@ -76,6 +76,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     private boolean committed;
     private long idleTimeout;
     private long expireNanoTime = Long.MAX_VALUE;
+    private volatile ExtensiblePriority priority;
 
     public HTTP2Stream(ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -317,6 +318,18 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         ((HTTP2Session)session).scheduleTimeout(this);
     }
 
+    @Override
+    public ExtensiblePriority getPriority()
+    {
+        return priority;
+    }
+
+    @Override
+    public void setPriority(ExtensiblePriority priority)
+    {
+        this.priority = priority;
+    }
+
     protected void onIdleExpired(TimeoutException timeout)
     {
         if (LOG.isDebugEnabled())
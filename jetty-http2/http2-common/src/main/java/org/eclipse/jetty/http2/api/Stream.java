@@ -15,6 +15,7 @@ package org.eclipse.jetty.http2.api;
 
 import java.util.concurrent.CompletableFuture;
 
+import org.eclipse.jetty.http2.ExtensiblePriority;
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
@@ -167,6 +168,29 @@ public interface Stream
      */
     public void setIdleTimeout(long idleTimeout);
 
+    /**
+     * @return the priority used to schedule the DATA frames sent on this stream,
+     * or null if this stream has no priority
+     * @see #setPriority(ExtensiblePriority)
+     */
+    public default ExtensiblePriority getPriority()
+    {
+        return null;
+    }
+
+    /**
+     * <p>Sets the priority used to schedule the DATA frames sent on this stream
+     * with respect to those of the other streams of the same session.</p>
+     * <p>On the server, the priority is initialized from the {@code Priority}
+     * request header, and applications may change it at any time.</p>
+     *
+     * @param priority the priority of this stream, or null to remove it
+     * @see #getPriority()
+     */
+    public default void setPriority(ExtensiblePriority priority)
+    {
+    }
+
     /**
      * <p>Demands {@code n} more {@code DATA} frames for this stream.</p>
      *
@@ -20,11 +20,13 @@ import java.util.function.Supplier;
 
 import org.eclipse.jetty.http.BadMessageException;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.ExtensiblePriority;
 import org.eclipse.jetty.http2.IStream;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
@@ -113,6 +115,11 @@ public class HttpTransportOverHTTP2 implements HttpTransport
         {
             if (commit.compareAndSet(false, true))
             {
+                // Applications may prioritize the response with the Priority header.
+                ExtensiblePriority priority = ExtensiblePriority.from(response.getFields().get(HttpHeader.PRIORITY));
+                if (priority != null)
+                    stream.setPriority(priority);
+
                 if (lastContent)
                 {
                     long realContentLength = BufferUtil.length(content);
@@ -209,6 +209,8 @@ public class HTTP3Client extends ContainerLifeCycle
             quicConnection.setOutputBufferSize(getHTTP3Configuration().getOutputBufferSize());
             quicConnection.setUseInputDirectByteBuffers(getHTTP3Configuration().isUseInputDirectByteBuffers());
             quicConnection.setUseOutputDirectByteBuffers(getHTTP3Configuration().isUseOutputDirectByteBuffers());
+            quicConnection.setDatagramBatchSize(getHTTP3Configuration().getDatagramBatchSize());
+            quicConnection.setUseSegmentOffload(getHTTP3Configuration().isUseSegmentOffload());
         }
         return connection;
     }
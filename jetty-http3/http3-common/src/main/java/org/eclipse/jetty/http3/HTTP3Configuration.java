@@ -27,6 +27,8 @@ public class HTTP3Configuration
     private int outputBufferSize = 2048;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
+    private int datagramBatchSize = 1;
+    private boolean useSegmentOffload;
     private int maxBlockedStreams = 0;
     private int maxRequestHeadersSize = 8192;
     private int maxResponseHeadersSize = 8192;
@@ -86,6 +88,28 @@ public class HTTP3Configuration
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    @ManagedAttribute("The max number of datagrams received or sent with a single system call")
+    public int getDatagramBatchSize()
+    {
+        return datagramBatchSize;
+    }
+
+    public void setDatagramBatchSize(int datagramBatchSize)
+    {
+        this.datagramBatchSize = datagramBatchSize;
+    }
+
+    @ManagedAttribute("Whether to use UDP segmentation offload for batched datagrams")
+    public boolean isUseSegmentOffload()
+    {
+        return useSegmentOffload;
+    }
+
+    public void setUseSegmentOffload(boolean useSegmentOffload)
+    {
+        this.useSegmentOffload = useSegmentOffload;
+    }
+
     @ManagedAttribute("The max number of QPACK blocked streams")
     public int getMaxBlockedStreams()
     {
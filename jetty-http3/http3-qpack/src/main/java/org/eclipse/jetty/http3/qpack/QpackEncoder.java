@@ -19,6 +19,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +38,7 @@ import org.eclipse.jetty.http3.qpack.internal.metadata.Http3Fields;
 import org.eclipse.jetty.http3.qpack.internal.parser.EncoderInstructionParser;
 import org.eclipse.jetty.http3.qpack.internal.table.DynamicTable;
 import org.eclipse.jetty.http3.qpack.internal.table.Entry;
+import org.eclipse.jetty.http3.qpack.internal.util.HuffmanCache;
 import org.eclipse.jetty.http3.qpack.internal.util.NBitIntegerEncoder;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.component.Dumpable;
@@ -87,6 +89,14 @@ public class QpackEncoder implements Dumpable
             HttpHeader.SET_COOKIE,
             HttpHeader.SET_COOKIE2);
 
+    /**
+     * The default number of times a field must be encoded before it is inserted into the dynamic table.
+     */
+    public static final int DEFAULT_INSERT_THRESHOLD = 2;
+    private static final int MAX_TRACKED_FIELDS = 512;
+    private static final int MAX_HUFFMAN_CACHE_ENTRIES = 256;
+    private static final int MAX_HUFFMAN_CACHE_LENGTH = 256;
+
     private final AutoLock lock = new AutoLock();
     private final List<Instruction> _instructions = new ArrayList<>();
     private final Instruction.Handler _handler;
@@ -95,6 +105,16 @@ public class QpackEncoder implements Dumpable
     private final Map<Long, StreamInfo> _streamInfoMap = new HashMap<>();
     private final EncoderInstructionParser _parser;
     private final InstructionHandler _instructionHandler = new InstructionHandler();
+    private final Map<HttpField, Integer> _fieldFrequency = new LinkedHashMap<>(64, 0.75F, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HttpField, Integer> eldest)
+        {
+            return size() > MAX_TRACKED_FIELDS;
+        }
+    };
+    private final HuffmanCache _huffmanCache = new HuffmanCache(MAX_HUFFMAN_CACHE_ENTRIES, MAX_HUFFMAN_CACHE_LENGTH);
+    private int _insertThreshold = DEFAULT_INSERT_THRESHOLD;
     private int _knownInsertCount = 0;
     private int _blockedStreams = 0;
 
@@ -106,6 +126,31 @@ public class QpackEncoder implements Dumpable
         _parser = new EncoderInstructionParser(_instructionHandler);
     }
 
+    /**
+     * @return the number of times a field must be encoded before it is inserted into the dynamic table
+     */
+    public int getInsertThreshold()
+    {
+        return _insertThreshold;
+    }
+
+    /**
+     * <p>Sets the number of times a field must be encoded before it is inserted into the dynamic table.</p>
+     * <p>Fields that are only seen once (for example a unique request path) would otherwise evict
+     * entries that are referenced by many streams; a value of {@code 1} or less inserts every
+     * indexable field the first time it is encoded.</p>
+     *
+     * @param insertThreshold the number of times a field must be encoded before it is inserted
+     */
+    public void setInsertThreshold(int insertThreshold)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            _insertThreshold = insertThreshold;
+            _fieldFrequency.clear();
+        }
+    }
+
     /**
      * Set the capacity of the DynamicTable and send a instruction to set the capacity on the remote Decoder.
      *
@@ -320,12 +365,23 @@ public class QpackEncoder implements Dumpable
         if (field.getValue() == null)
             field = new HttpField(field.getHeader(), field.getName(), "");
 
+        Entry entry = _context.get(field);
+        if (entry != null && entry.isStatic())
+            return EncodableEntry.getReferencedEntry(entry);
+
         if (field instanceof PreEncodedHttpField)
+        {
+            // The pre-encoded bytes only reference the static table, so prefer
+            // a dynamic table entry and insert the field once it is frequent.
+            if (referenceEntry(entry, streamInfo))
+                return EncodableEntry.getReferencedEntry(entry);
+            if (entry == null && shouldIndex(field) && isFrequent(field))
+                insert(field);
             return EncodableEntry.getPreEncodedEntry((PreEncodedHttpField)field);
+        }
 
-        boolean canCreateEntry = shouldIndex(field) && dynamicTable.canInsert(field);
+        boolean canCreateEntry = shouldIndex(field) && isFrequent(field) && dynamicTable.canInsert(field);
 
-        Entry entry = _context.get(field);
         if (referenceEntry(entry, streamInfo))
         {
             return EncodableEntry.getReferencedEntry(entry);
@@ -363,7 +419,7 @@ public class QpackEncoder implements Dumpable
                     return EncodableEntry.getReferencedEntry(newEntry);
             }
 
-            return EncodableEntry.getNameReferencedEntry(nameEntry, field, huffman);
+            return EncodableEntry.getNameReferencedEntry(nameEntry, field, huffman, _huffmanCache);
         }
         else
         {
@@ -378,10 +434,19 @@ public class QpackEncoder implements Dumpable
                     return EncodableEntry.getReferencedEntry(newEntry);
             }
 
-            return EncodableEntry.getLiteralEntry(field, huffman);
+            return EncodableEntry.getLiteralEntry(field, huffman, _huffmanCache);
         }
     }
 
+    private boolean isFrequent(HttpField field)
+    {
+        if (_insertThreshold <= 1)
+            return true;
+        // Keep counting after the threshold is reached, so that a frequent
+        // field that has been evicted is inserted again the next time it is seen.
+        return _fieldFrequency.merge(field, 1, Integer::sum) >= _insertThreshold;
+    }
+
     private boolean referenceEntry(Entry entry, StreamInfo streamInfo)
     {
         if (entry == null)
@@ -498,6 +563,6 @@ public class QpackEncoder implements Dumpable
     @Override
     public void dump(Appendable out, String indent) throws IOException
     {
-        Dumpable.dumpObjects(out, indent, _context.getDynamicTable());
+        Dumpable.dumpObjects(out, indent, _context.getDynamicTable(), _huffmanCache);
     }
 }
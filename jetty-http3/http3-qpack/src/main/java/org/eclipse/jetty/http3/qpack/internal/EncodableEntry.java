@@ -20,6 +20,7 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http3.qpack.internal.table.Entry;
+import org.eclipse.jetty.http3.qpack.internal.util.HuffmanCache;
 import org.eclipse.jetty.http3.qpack.internal.util.HuffmanEncoder;
 import org.eclipse.jetty.http3.qpack.internal.util.NBitIntegerEncoder;
 
@@ -32,12 +33,22 @@ public abstract class EncodableEntry
 
     public static EncodableEntry getNameReferencedEntry(Entry nameEntry, HttpField field, boolean huffman)
     {
-        return new ReferencedNameEntry(nameEntry, field, huffman);
+        return getNameReferencedEntry(nameEntry, field, huffman, null);
+    }
+
+    public static EncodableEntry getNameReferencedEntry(Entry nameEntry, HttpField field, boolean huffman, HuffmanCache huffmanCache)
+    {
+        return new ReferencedNameEntry(nameEntry, field, huffman, huffmanCache);
     }
 
     public static EncodableEntry getLiteralEntry(HttpField field, boolean huffman)
     {
-        return new LiteralEntry(field, huffman);
+        return getLiteralEntry(field, huffman, null);
+    }
+
+    public static EncodableEntry getLiteralEntry(HttpField field, boolean huffman, HuffmanCache huffmanCache)
+    {
+        return new LiteralEntry(field, huffman, huffmanCache);
     }
 
     public static EncodableEntry getPreEncodedEntry(PreEncodedHttpField httpField)
@@ -51,6 +62,28 @@ public abstract class EncodableEntry
 
     public abstract int getRequiredInsertCount();
 
+    private static int huffmanOctetsNeeded(HuffmanCache huffmanCache, String s)
+    {
+        byte[] encoded = (huffmanCache == null) ? null : huffmanCache.encode(s);
+        return (encoded == null) ? HuffmanEncoder.octetsNeeded(s) : encoded.length;
+    }
+
+    private static void huffmanEncode(ByteBuffer buffer, int n, HuffmanCache huffmanCache, String s)
+    {
+        // The prefix byte with the Huffman bit set has already been put in the buffer.
+        byte[] encoded = (huffmanCache == null) ? null : huffmanCache.encode(s);
+        if (encoded == null)
+        {
+            NBitIntegerEncoder.encode(buffer, n, HuffmanEncoder.octetsNeeded(s));
+            HuffmanEncoder.encode(buffer, s);
+        }
+        else
+        {
+            NBitIntegerEncoder.encode(buffer, n, encoded.length);
+            buffer.put(encoded);
+        }
+    }
+
     private static class ReferencedEntry extends EncodableEntry
     {
         private final Entry _entry;
@@ -123,12 +156,14 @@ public abstract class EncodableEntry
         private final Entry _nameEntry;
         private final HttpField _field;
         private final boolean _huffman;
+        private final HuffmanCache _huffmanCache;
 
-        public ReferencedNameEntry(Entry nameEntry, HttpField field, boolean huffman)
+        public ReferencedNameEntry(Entry nameEntry, HttpField field, boolean huffman, HuffmanCache huffmanCache)
         {
             _nameEntry = nameEntry;
             _field = field;
             _huffman = huffman;
+            _huffmanCache = huffmanCache;
         }
 
         @Override
@@ -166,8 +201,7 @@ public abstract class EncodableEntry
             if (_huffman)
             {
                 buffer.put((byte)0x80);
-                NBitIntegerEncoder.encode(buffer, 7, HuffmanEncoder.octetsNeeded(value));
-                HuffmanEncoder.encode(buffer, value);
+                huffmanEncode(buffer, 7, _huffmanCache, value);
             }
             else
             {
@@ -182,7 +216,7 @@ public abstract class EncodableEntry
         {
             String value = getValue();
             int relativeIndex =  _nameEntry.getIndex() - base;
-            int valueLength = _huffman ? HuffmanEncoder.octetsNeeded(value) : value.length();
+            int valueLength = _huffman ? huffmanOctetsNeeded(_huffmanCache, value) : value.length();
             return 1 + NBitIntegerEncoder.octectsNeeded(4, relativeIndex) + 1 + NBitIntegerEncoder.octectsNeeded(7, valueLength) + valueLength;
         }
 
@@ -203,11 +237,13 @@ public abstract class EncodableEntry
     {
         private final HttpField _field;
         private final boolean _huffman;
+        private final HuffmanCache _huffmanCache;
 
-        public LiteralEntry(HttpField field, boolean huffman)
+        public LiteralEntry(HttpField field, boolean huffman, HuffmanCache huffmanCache)
         {
             _field = field;
             _huffman = huffman;
+            _huffmanCache = huffmanCache;
         }
 
         @Override
@@ -221,11 +257,9 @@ public abstract class EncodableEntry
             if (_huffman)
             {
                 buffer.put((byte)(0x28 | allowIntermediary));
-                NBitIntegerEncoder.encode(buffer, 3, HuffmanEncoder.octetsNeeded(name));
-                HuffmanEncoder.encode(buffer, name);
+                huffmanEncode(buffer, 3, _huffmanCache, name);
                 buffer.put((byte)0x80);
-                NBitIntegerEncoder.encode(buffer, 7, HuffmanEncoder.octetsNeeded(value));
-                HuffmanEncoder.encode(buffer, value);
+                huffmanEncode(buffer, 7, _huffmanCache, value);
             }
             else
             {
@@ -244,8 +278,8 @@ public abstract class EncodableEntry
         {
             String name = getName();
             String value = getValue();
-            int nameLength = _huffman ? HuffmanEncoder.octetsNeeded(name) : name.length();
-            int valueLength = _huffman ? HuffmanEncoder.octetsNeeded(value) : value.length();
+            int nameLength = _huffman ? huffmanOctetsNeeded(_huffmanCache, name) : name.length();
+            int valueLength = _huffman ? huffmanOctetsNeeded(_huffmanCache, value) : value.length();
             return 2 + NBitIntegerEncoder.octectsNeeded(3, nameLength) + nameLength + NBitIntegerEncoder.octectsNeeded(7, valueLength) + valueLength;
         }
 
@@ -0,0 +1,98 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack.internal.util;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A least recently used cache of Huffman encoded strings.</p>
+ * <p>Header values that repeat across streams but that are not inserted into the dynamic table
+ * (for example because they must not be indexed, or because they are not yet frequent enough)
+ * are Huffman encoded once, rather than every time they are sent.</p>
+ * <p>This class is not thread-safe, it must be used under the lock of the encoder that owns it.</p>
+ */
+public class HuffmanCache
+{
+    private final int _maxLength;
+    private final Map<String, byte[]> _cache;
+    private long _hits;
+    private long _misses;
+
+    /**
+     * @param maxEntries the max number of cached strings
+     * @param maxLength the max length of a cached string
+     */
+    public HuffmanCache(int maxEntries, int maxLength)
+    {
+        _maxLength = maxLength;
+        _cache = new LinkedHashMap<>(16, 0.75F, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param s the string to Huffman encode
+     * @return the Huffman encoded bytes, or null if the string cannot be cached or cannot be Huffman encoded
+     */
+    public byte[] encode(String s)
+    {
+        if (s.length() > _maxLength)
+            return null;
+
+        byte[] encoded = _cache.get(s);
+        if (encoded != null)
+        {
+            _hits++;
+            return encoded;
+        }
+
+        int length = HuffmanEncoder.octetsNeeded(s);
+        if (length < 0)
+            return null;
+
+        _misses++;
+        encoded = new byte[length];
+        HuffmanEncoder.encode(ByteBuffer.wrap(encoded), s);
+        _cache.put(s, encoded);
+        return encoded;
+    }
+
+    public int size()
+    {
+        return _cache.size();
+    }
+
+    public long getHits()
+    {
+        return _hits;
+    }
+
+    public long getMisses()
+    {
+        return _misses;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,hits=%d,misses=%d}", getClass().getSimpleName(), hashCode(), size(), _hits, _misses);
+    }
+}
@@ -0,0 +1,170 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http3.qpack.internal.EncodableEntry;
+import org.eclipse.jetty.http3.qpack.internal.instruction.LiteralNameEntryInstruction;
+import org.eclipse.jetty.http3.qpack.internal.instruction.SetCapacityInstruction;
+import org.eclipse.jetty.http3.qpack.internal.util.HuffmanCache;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InsertThresholdTest
+{
+    private static final int MAX_BLOCKED_STREAMS = 5;
+    private static final int MAX_HEADER_SIZE = 1024;
+
+    private final TestDecoderHandler _decoderHandler = new TestDecoderHandler();
+    private final TestEncoderHandler _encoderHandler = new TestEncoderHandler();
+    private QpackEncoder _encoder;
+    private QpackDecoder _decoder;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _decoder = new QpackDecoder(_decoderHandler, MAX_HEADER_SIZE);
+        _encoder = new QpackEncoder(_encoderHandler, MAX_BLOCKED_STREAMS);
+        _encoder.setCapacity(1024);
+        parseInstruction(SetCapacityInstruction.class);
+    }
+
+    @Test
+    public void testFieldInsertedWhenRepeated() throws Exception
+    {
+        HttpFields fields = HttpFields.build().add("x-custom", "repeated-value");
+
+        // The first time the field is seen it is sent as a literal.
+        ByteBuffer first = encode(0, fields);
+        int literalLength = first.remaining();
+        assertTrue(_encoderHandler.isEmpty());
+        decode(0, first, fields);
+
+        // The second time it is inserted into the dynamic table.
+        ByteBuffer second = encode(4, fields);
+        parseInstruction(LiteralNameEntryInstruction.class);
+        assertTrue(_encoderHandler.isEmpty());
+        decode(4, second, fields);
+
+        // Once acknowledged, it is referenced with a single byte.
+        ByteBuffer third = encode(8, fields);
+        assertTrue(_encoderHandler.isEmpty());
+        assertThat(third.remaining(), lessThan(literalLength));
+        decode(8, third, fields);
+    }
+
+    @Test
+    public void testInsertThresholdOne() throws Exception
+    {
+        _encoder.setInsertThreshold(1);
+        HttpFields fields = HttpFields.build().add("x-custom", "value");
+
+        ByteBuffer buffer = encode(0, fields);
+        parseInstruction(LiteralNameEntryInstruction.class);
+        decode(0, buffer, fields);
+    }
+
+    @Test
+    public void testPreEncodedFieldInsertedWhenRepeated() throws Exception
+    {
+        PreEncodedHttpField field = new PreEncodedHttpField("x-pre-encoded", "pre-encoded-value");
+        HttpFields fields = HttpFields.build().add(field);
+        int preEncodedLength = field.getEncodedLength(HttpVersion.HTTP_3);
+
+        ByteBuffer first = encode(0, fields);
+        int literalLength = first.remaining();
+        assertTrue(_encoderHandler.isEmpty());
+        decode(0, first, fields);
+
+        // The pre-encoded bytes are still used, but the field is inserted speculatively.
+        ByteBuffer second = encode(4, fields);
+        parseInstruction(LiteralNameEntryInstruction.class);
+        assertThat(second.remaining(), is(literalLength));
+        decode(4, second, fields);
+
+        // Then the dynamic table entry is referenced instead of the pre-encoded bytes.
+        ByteBuffer third = encode(8, fields);
+        assertThat(third.remaining(), lessThan(literalLength));
+        assertThat(third.remaining(), lessThan(preEncodedLength));
+        decode(8, third, fields);
+    }
+
+    @Test
+    public void testHuffmanCache()
+    {
+        HuffmanCache huffmanCache = new HuffmanCache(2, 16);
+        HttpField field = new HttpField("name", "value");
+
+        ByteBuffer expected = encode(EncodableEntry.getLiteralEntry(field, true));
+        for (int i = 0; i < 3; i++)
+        {
+            ByteBuffer actual = encode(EncodableEntry.getLiteralEntry(field, true, huffmanCache));
+            assertThat(BufferUtil.toHexString(actual), is(BufferUtil.toHexString(expected)));
+        }
+        assertThat(huffmanCache.size(), is(2));
+        assertThat(huffmanCache.getMisses(), is(2L));
+
+        // Strings that are too long are not cached.
+        assertThat(huffmanCache.encode("a-string-that-is-too-long"), nullValue());
+        // Strings that cannot be Huffman encoded are not cached.
+        assertThat(huffmanCache.encode("café"), nullValue());
+        assertThat(huffmanCache.size(), is(2));
+    }
+
+    private void parseInstruction(Class<? extends Instruction> type) throws Exception
+    {
+        Instruction instruction = _encoderHandler.getInstruction();
+        assertThat(instruction, instanceOf(type));
+        _decoder.parseInstructions(QpackTestUtil.toBuffer(List.of(instruction)));
+    }
+
+    private ByteBuffer encode(EncodableEntry entry)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.getRequiredSize(0));
+        entry.encode(buffer, 0);
+        return buffer.flip();
+    }
+
+    private ByteBuffer encode(long streamId, HttpFields fields) throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        _encoder.encode(buffer, streamId, new MetaData(HttpVersion.HTTP_3, fields));
+        return buffer.flip();
+    }
+
+    private void decode(long streamId, ByteBuffer buffer, HttpFields expected) throws Exception
+    {
+        _decoder.decode(streamId, buffer, _decoderHandler);
+        MetaData metaData = _decoderHandler.getMetaData();
+        assertNotNull(metaData);
+        assertTrue(metaData.getFields().isEqualTo(expected));
+        _encoder.parseInstructions(_decoderHandler.getInstructionBuffer());
+    }
+}
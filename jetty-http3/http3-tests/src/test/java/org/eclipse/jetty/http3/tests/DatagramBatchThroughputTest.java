@@ -0,0 +1,104 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http3.server.HTTP3ServerConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Compares the download throughput of HTTP/3 with and without batched datagram I/O.</p>
+ */
+@Tag("stress")
+public class DatagramBatchThroughputTest extends AbstractClientServerTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DatagramBatchThroughputTest.class);
+
+    @ParameterizedTest
+    @CsvSource({"1,false", "32,false", "32,true"})
+    public void testDownloadThroughput(int datagramBatchSize, boolean useSegmentOffload) throws Exception
+    {
+        int chunkSize = 64 * 1024;
+        int chunks = 1024;
+        prepareServer(new HTTP3ServerConnectionFactory());
+        connector.setDatagramBatchSize(datagramBatchSize);
+        connector.setUseSegmentOffload(useSegmentOffload);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.setHandled(true);
+                byte[] chunk = new byte[chunkSize];
+                OutputStream output = response.getOutputStream();
+                for (int i = 0; i < chunks; ++i)
+                {
+                    output.write(chunk);
+                }
+            }
+        });
+        server.start();
+        startClient();
+        http3Client.getHTTP3Configuration().setDatagramBatchSize(datagramBatchSize);
+        http3Client.getHTTP3Configuration().setUseSegmentOffload(useSegmentOffload);
+
+        // Warm up.
+        download();
+
+        long begin = System.nanoTime();
+        long length = download();
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals((long)chunkSize * chunks, length);
+        LOG.info("datagramBatchSize={} segmentOffload={}: {} MiB in {} ms, {} MiB/s",
+            datagramBatchSize,
+            useSegmentOffload,
+            length >> 20,
+            TimeUnit.NANOSECONDS.toMillis(elapsed),
+            String.format("%.2f", (length / (1024.0 * 1024.0)) / (elapsed / 1_000_000_000.0)));
+    }
+
+    private long download() throws Exception
+    {
+        AtomicLong length = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        httpClient.newRequest("https://localhost:" + connector.getLocalPort())
+            .onResponseContent((response, content) -> length.addAndGet(content.remaining()))
+            .timeout(60, TimeUnit.SECONDS)
+            .send(result ->
+            {
+                if (result.isSucceeded() && result.getResponse().getStatus() == HttpStatus.OK_200)
+                    latch.countDown();
+            });
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        return length.get();
+    }
+}
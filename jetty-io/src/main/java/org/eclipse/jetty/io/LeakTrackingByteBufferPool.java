@@ -49,6 +49,8 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     private final AtomicLong leakedReleases = new AtomicLong(0);
     private final AtomicLong leakedRemoves = new AtomicLong(0);
     private final AtomicLong leaked = new AtomicLong(0);
+    private final AtomicLong acquiredHeapMemory = new AtomicLong(0);
+    private final AtomicLong acquiredDirectMemory = new AtomicLong(0);
     private final ByteBufferPool delegate;
 
     public LeakTrackingByteBufferPool(ByteBufferPool delegate)
@@ -63,7 +65,11 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     {
         ByteBuffer buffer = delegate.acquire(size, direct);
         boolean acquired = leakDetector.acquired(buffer);
-        if (!acquired)
+        if (acquired)
+        {
+            (buffer.isDirect() ? acquiredDirectMemory : acquiredHeapMemory).addAndGet(buffer.capacity());
+        }
+        else
         {
             leakedAcquires.incrementAndGet();
             if (LOG.isDebugEnabled())
@@ -78,7 +84,11 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
         if (buffer == null)
             return;
         boolean released = leakDetector.released(buffer);
-        if (!released)
+        if (released)
+        {
+            (buffer.isDirect() ? acquiredDirectMemory : acquiredHeapMemory).addAndGet(-buffer.capacity());
+        }
+        else
         {
             leakedReleases.incrementAndGet();
             if (LOG.isDebugEnabled())
@@ -93,7 +103,11 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
         if (buffer == null)
             return;
         boolean released = leakDetector.released(buffer);
-        if (!released)
+        if (released)
+        {
+            (buffer.isDirect() ? acquiredDirectMemory : acquiredHeapMemory).addAndGet(-buffer.capacity());
+        }
+        else
         {
             leakedRemoves.incrementAndGet();
             if (LOG.isDebugEnabled())
@@ -149,6 +163,24 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
         return leaked.get();
     }
 
+    /**
+     * @return the bytes of the heap ByteBuffers that were acquired and not yet released
+     */
+    @ManagedAttribute("The bytes of the heap ByteBuffers currently acquired")
+    public long getAcquiredHeapMemory()
+    {
+        return acquiredHeapMemory.get();
+    }
+
+    /**
+     * @return the bytes of the direct ByteBuffers that were acquired and not yet released
+     */
+    @ManagedAttribute("The bytes of the direct ByteBuffers currently acquired")
+    public long getAcquiredDirectMemory()
+    {
+        return acquiredDirectMemory.get();
+    }
+
     protected void leaked(LeakDetector<ByteBuffer>.LeakInfo leakInfo)
     {
         LOG.warn("ByteBuffer {} leaked at: {}", leakInfo.getResourceDescription(), leakInfo.getStackFrames());
@@ -146,7 +146,10 @@ public class SslClientConnectionFactory implements ClientConnectionFactory
             sslConnection.setRequireCloseMessage(isRequireCloseMessage());
             ContainerLifeCycle client = (ContainerLifeCycle)context.get(ClientConnectionFactory.CLIENT_CONTEXT_KEY);
             if (client != null)
+            {
                 client.getBeans(SslHandshakeListener.class).forEach(sslConnection::addHandshakeListener);
+                sslConnection.setHandshakeExecutor(client.getBean(SslHandshakeExecutor.class));
+            }
         }
         return ClientConnectionFactory.super.customize(connection, context);
     }
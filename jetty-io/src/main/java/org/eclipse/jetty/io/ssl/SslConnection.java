@@ -121,6 +121,8 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
     private int _renegotiationLimit = -1;
     private boolean _closedOutbound;
     private boolean _requireCloseMessage;
+    private SslHandshakeExecutor _handshakeExecutor;
+    private SslHelloInspector _helloInspector = new SslHelloInspector();
     private FlushState _flushState = FlushState.IDLE;
     private FillState _fillState = FillState.IDLE;
     private boolean _underflown;
@@ -138,6 +140,20 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             return _decryptedEndPoint.getFillInterest().getCallbackInvocationType();
         }
     };
+    private final Runnable _runHandshake = new RunnableTask("runHandshake")
+    {
+        @Override
+        public void run()
+        {
+            _decryptedEndPoint.onHandshakeFillable();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.BLOCKING;
+        }
+    };
     private final Callback _sslReadCallback = new Callback()
     {
         @Override
@@ -155,6 +171,9 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         @Override
         public InvocationType getInvocationType()
         {
+            // Offloading the handshake does not block.
+            if (isHandshakeOffloaded())
+                return InvocationType.NON_BLOCKING;
             return getDecryptedEndPoint().getFillInterest().getCallbackInvocationType();
         }
 
@@ -278,6 +297,43 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         _requireCloseMessage = requireCloseMessage;
     }
 
+    /**
+     * @return the executor for the initial TLS handshake, or null if the
+     * initial TLS handshake is performed by this connection's executor
+     */
+    public SslHandshakeExecutor getHandshakeExecutor()
+    {
+        return _handshakeExecutor;
+    }
+
+    /**
+     * <p>Sets the executor that performs the initial TLS handshake,
+     * including the {@link SSLEngine#getDelegatedTask() SSLEngine delegated tasks},
+     * so that TLS handshakes do not compete for threads with the processing of
+     * already established connections.</p>
+     * <p>Once the initial TLS handshake is complete, reads are processed
+     * again by this connection's executor.</p>
+     *
+     * @param handshakeExecutor the executor for the initial TLS handshake,
+     * or null to perform the initial TLS handshake in this connection's executor
+     */
+    public void setHandshakeExecutor(SslHandshakeExecutor handshakeExecutor)
+    {
+        _handshakeExecutor = handshakeExecutor;
+    }
+
+    private boolean isHandshakeOffloaded()
+    {
+        return _handshakeExecutor != null && !isHandshakeComplete();
+    }
+
+    private void offloadHandshake()
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("offloading handshake {}", SslConnection.this);
+        _handshakeExecutor.execute(_runHandshake, _decryptedEndPoint::onHandshakeRejected);
+    }
+
     private boolean isHandshakeInitial()
     {
         return _handshake.get() == HandshakeState.INITIAL;
@@ -369,6 +425,12 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         // to do the fill and/or flush again and these calls will do the actually
         // filling.
 
+        if (isHandshakeOffloaded())
+        {
+            offloadHandshake();
+            return;
+        }
+
         if (LOG.isDebugEnabled())
             LOG.debug(">c.onFillable {}", SslConnection.this);
 
@@ -398,6 +460,14 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         return sslEngine.unwrap(input, output);
     }
 
+    private void inspectHello(ByteBuffer buffer, int from, int length)
+    {
+        // Only the records of the initial handshake, up to the ServerHello, are inspected.
+        SslHelloInspector helloInspector = _helloInspector;
+        if (helloInspector != null && length > 0 && !helloInspector.isDone())
+            helloInspector.inspect(buffer, from, from + length);
+    }
+
     @Override
     public String toConnectionString()
     {
@@ -545,6 +615,49 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             }
         }
 
+        /**
+         * <p>Performs the initial TLS handshake in the handshake executor,
+         * without invoking the application connection until either the
+         * handshake is complete or decrypted data is available.</p>
+         */
+        private void onHandshakeFillable()
+        {
+            try
+            {
+                try (AutoLock l = _lock.lock())
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("onHandshakeFillable {}", SslConnection.this);
+                    _fillState = FillState.IDLE;
+                }
+
+                // Fill into the decrypted input buffer, to drive the handshake.
+                int filled = fill(BufferUtil.EMPTY_BUFFER);
+                boolean decrypted;
+                try (AutoLock l = _lock.lock())
+                {
+                    decrypted = BufferUtil.hasContent(_decryptedInput);
+                }
+
+                if (filled == 0 && !decrypted && !isHandshakeComplete())
+                    needsFillInterest();
+                else
+                    getExecutor().execute(_runFillable);
+            }
+            catch (Throwable x)
+            {
+                onHandshakeRejected(x);
+            }
+        }
+
+        private void onHandshakeRejected(Throwable failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("handshake failure {}", SslConnection.this, failure);
+            onFillableFail(failure);
+            close(failure);
+        }
+
         protected void onFillableFail(Throwable failure)
         {
             // If we are handshaking, then wake up any waiting write as well as it may have been blocked on the read
@@ -686,6 +799,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                             // Let's unwrap even if we have no net data because in that
                             // case we want to fall through to the handshake handling
                             int pos = BufferUtil.flipToFill(appIn);
+                            int netPos = _encryptedInput.getBuffer().position();
                             SSLEngineResult unwrapResult;
                             try
                             {
@@ -696,6 +810,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                             {
                                 BufferUtil.flipToFlush(appIn, pos);
                             }
+                            inspectHello(_encryptedInput.getBuffer(), netPos, unwrapResult.bytesConsumed());
                             if (LOG.isDebugEnabled())
                                 LOG.debug("unwrap net_filled={} {} encryptedBuffer={} unwrapBuffer={} appBuffer={}",
                                     netFilled,
@@ -894,7 +1009,12 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                 if (write != null)
                     getEndPoint().write(_incompleteWriteCallback, write);
                 else if (fillable)
-                    getExecutor().execute(_runFillable);
+                {
+                    if (isHandshakeOffloaded())
+                        offloadHandshake();
+                    else
+                        getExecutor().execute(_runFillable);
+                }
                 else if (interest)
                     ensureFillInterested();
             }
@@ -915,7 +1035,9 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                     LOG.debug("handshake succeeded {} {} {}/{}", SslConnection.this,
                         _sslEngine.getUseClientMode() ? "client" : "resumed server",
                         _sslEngine.getSession().getProtocol(), _sslEngine.getSession().getCipherSuite());
-                notifyHandshakeSucceeded(_sslEngine);
+                boolean resumed = _helloInspector != null && _helloInspector.isResumed();
+                _helloInspector = null;
+                notifyHandshakeSucceeded(_sslEngine, resumed);
             }
             else if (isHandshakeSucceeded())
             {
@@ -1058,6 +1180,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                             // buffers and encrypt them into the _encryptedOutput buffer.
                             BufferUtil.compact(_encryptedOutput);
                             int pos = BufferUtil.flipToFill(_encryptedOutput);
+                            int netPos = _encryptedOutput.position();
                             SSLEngineResult wrapResult;
                             try
                             {
@@ -1067,6 +1190,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                             {
                                 BufferUtil.flipToFlush(_encryptedOutput, pos);
                             }
+                            inspectHello(_encryptedOutput, netPos, wrapResult.bytesProduced());
                             if (LOG.isDebugEnabled())
                                 LOG.debug("wrap {} {} ioDone={}/{}",
                                     StringUtil.replace(wrapResult.toString(), '\n', ' '),
@@ -1413,13 +1537,13 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             }
         }
 
-        private void notifyHandshakeSucceeded(SSLEngine sslEngine) throws SSLException
+        private void notifyHandshakeSucceeded(SSLEngine sslEngine, boolean resumed) throws SSLException
         {
             SslHandshakeListener.Event event = null;
             for (SslHandshakeListener listener : handshakeListeners)
             {
                 if (event == null)
-                    event = new SslHandshakeListener.Event(sslEngine);
+                    event = new SslHandshakeListener.Event(sslEngine, resumed);
                 try
                 {
                     listener.handshakeSucceeded(event);
@@ -0,0 +1,264 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A bounded executor dedicated to the initial TLS handshake of {@link SslConnection}s.</p>
+ * <p>TLS handshakes are CPU intensive, and a surge of new connections (for example
+ * when many clients reconnect at the same time) may starve the processing of
+ * requests on already established connections if handshakes run in the same
+ * thread pool.</p>
+ * <p>Adding an instance of this class as a bean to a ServerConnector or
+ * SslConnectionFactory (for the server) or to HttpClient (for the client)
+ * will move the TLS handshake work of all TLS connections managed by the
+ * server or by the client to the threads of this executor, including the
+ * {@link javax.net.ssl.SSLEngine#getDelegatedTask() SSLEngine delegated tasks}.
+ * Once the TLS handshake is complete, the processing of the connection goes
+ * back to the connection's executor.</p>
+ * <p>At most {@link #getMaxQueued() maxQueued} handshake tasks may wait for a
+ * thread; further handshake tasks are rejected and their connections closed.
+ * Handshake tasks that waited for a thread longer than {@link #getMaxQueueTime()}
+ * are rejected as well, since the remote peer is likely to have given up.</p>
+ */
+@ManagedObject("Executor for TLS handshakes")
+public class SslHandshakeExecutor extends ContainerLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SslHandshakeExecutor.class);
+
+    private final CounterStatistic _queued = new CounterStatistic();
+    private final SampleStatistic _queueTimes = new SampleStatistic();
+    private final SampleStatistic _taskTimes = new SampleStatistic();
+    private final LongAdder _rejected = new LongAdder();
+    private final LongAdder _expired = new LongAdder();
+    private final QueuedThreadPool _threadPool;
+    private final int _maxQueued;
+    private long _maxQueueTime = 10000;
+
+    public SslHandshakeExecutor()
+    {
+        this(ProcessorUtils.availableProcessors(), 1024);
+    }
+
+    /**
+     * @param maxThreads the max number of threads performing TLS handshakes
+     * @param maxQueued the max number of handshake tasks waiting for a thread
+     */
+    public SslHandshakeExecutor(int maxThreads, int maxQueued)
+    {
+        _maxQueued = maxQueued;
+        _threadPool = new QueuedThreadPool(maxThreads, 1, 60000, 0, new BlockingArrayQueue<>(Math.min(maxQueued, 64), 64, maxQueued), null);
+        _threadPool.setName("ssl-handshake-" + hashCode());
+        addBean(_threadPool);
+    }
+
+    @ManagedAttribute("The max number of threads performing TLS handshakes")
+    public int getMaxThreads()
+    {
+        return _threadPool.getMaxThreads();
+    }
+
+    @ManagedAttribute("The max number of handshake tasks waiting for a thread")
+    public int getMaxQueued()
+    {
+        return _maxQueued;
+    }
+
+    /**
+     * @return the max time, in milliseconds, a handshake task may wait for a thread,
+     * or a non-positive value for no limit
+     */
+    @ManagedAttribute("The max time in ms a handshake task may wait for a thread")
+    public long getMaxQueueTime()
+    {
+        return _maxQueueTime;
+    }
+
+    /**
+     * @param maxQueueTime the max time, in milliseconds, a handshake task may wait
+     * for a thread, or a non-positive value for no limit
+     */
+    public void setMaxQueueTime(long maxQueueTime)
+    {
+        _maxQueueTime = maxQueueTime;
+    }
+
+    @ManagedAttribute("The number of handshake tasks waiting for a thread")
+    public long getQueueSize()
+    {
+        return _queued.getCurrent();
+    }
+
+    @ManagedAttribute("The max number of handshake tasks waiting for a thread")
+    public long getQueueSizeMax()
+    {
+        return _queued.getMax();
+    }
+
+    @ManagedAttribute("The mean time in ms handshake tasks waited for a thread")
+    public double getQueueTimeMean()
+    {
+        return _queueTimes.getMean();
+    }
+
+    @ManagedAttribute("The max time in ms handshake tasks waited for a thread")
+    public long getQueueTimeMax()
+    {
+        return _queueTimes.getMax();
+    }
+
+    @ManagedAttribute("The number of handshake tasks executed")
+    public long getTaskCount()
+    {
+        return _taskTimes.getCount();
+    }
+
+    @ManagedAttribute("The mean time in ms spent executing handshake tasks")
+    public double getTaskTimeMean()
+    {
+        return _taskTimes.getMean();
+    }
+
+    @ManagedAttribute("The max time in ms spent executing a handshake task")
+    public long getTaskTimeMax()
+    {
+        return _taskTimes.getMax();
+    }
+
+    @ManagedAttribute("The number of handshake tasks rejected because the queue was full")
+    public long getRejectedCount()
+    {
+        return _rejected.sum();
+    }
+
+    @ManagedAttribute("The number of handshake tasks rejected because they waited too long for a thread")
+    public long getExpiredCount()
+    {
+        return _expired.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _queued.reset(_queued.getCurrent());
+        _queueTimes.reset();
+        _taskTimes.reset();
+        _rejected.reset();
+        _expired.reset();
+    }
+
+    /**
+     * <p>Executes the given handshake task.</p>
+     * <p>If the task cannot be executed, either because the queue is full or
+     * because the task waited too long for a thread, the given {@code rejected}
+     * function is invoked instead of the task.</p>
+     *
+     * @param task the handshake task to execute
+     * @param rejected the function to invoke if the task is rejected
+     */
+    public void execute(Runnable task, Consumer<Throwable> rejected)
+    {
+        Job job = new Job(task, rejected);
+        _queued.increment();
+        try
+        {
+            _threadPool.execute(job);
+        }
+        catch (RejectedExecutionException x)
+        {
+            _queued.decrement();
+            _rejected.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Rejected {} in {}", task, this, x);
+            rejected.accept(x);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[threads=%d,queued=%d/%d,rejected=%d,expired=%d]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getMaxThreads(),
+            getQueueSize(),
+            getMaxQueued(),
+            getRejectedCount(),
+            getExpiredCount());
+    }
+
+    private class Job implements Runnable
+    {
+        private final long _queueNanoTime = System.nanoTime();
+        private final Runnable _task;
+        private final Consumer<Throwable> _onRejected;
+
+        private Job(Runnable task, Consumer<Throwable> onRejected)
+        {
+            _task = task;
+            _onRejected = onRejected;
+        }
+
+        @Override
+        public void run()
+        {
+            long begin = System.nanoTime();
+            _queued.decrement();
+            long queueTime = TimeUnit.NANOSECONDS.toMillis(begin - _queueNanoTime);
+            _queueTimes.record(queueTime);
+
+            long maxQueueTime = getMaxQueueTime();
+            if (maxQueueTime > 0 && queueTime > maxQueueTime)
+            {
+                _expired.increment();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Expired {} after {} ms in {}", _task, queueTime, SslHandshakeExecutor.this);
+                _onRejected.accept(new TimeoutException("TLS handshake queued for " + queueTime + " ms"));
+                return;
+            }
+
+            try
+            {
+                _task.run();
+            }
+            finally
+            {
+                _taskTimes.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _task);
+        }
+    }
+}
@@ -51,9 +51,21 @@ public interface SslHandshakeListener extends EventListener
      */
     public static class Event extends EventObject
     {
+        private final boolean resumed;
+
         public Event(Object source)
+        {
+            this(source, false);
+        }
+
+        /**
+         * @param source the SSLEngine associated to the TLS handshake event
+         * @param resumed whether the TLS handshake resumed a previous TLS session
+         */
+        public Event(Object source, boolean resumed)
         {
             super(source);
+            this.resumed = resumed;
         }
 
         /**
@@ -63,5 +75,22 @@ public interface SslHandshakeListener extends EventListener
         {
             return (SSLEngine)getSource();
         }
+
+        /**
+         * <p>Returns whether the TLS handshake was an abbreviated handshake that
+         * resumed a previous TLS session, via either a session ID or a session
+         * ticket, rather than a full handshake.</p>
+         * <p>The detection is based on the hello messages of the handshake:
+         * a TLS 1.3 handshake is resumed if the server accepted a pre-shared key,
+         * and a TLS 1.2 handshake is resumed if the server echoed the session ID
+         * offered by the client. Handshakes whose hello messages cannot be
+         * inspected are reported as full handshakes.</p>
+         *
+         * @return whether the TLS handshake resumed a previous TLS session
+         */
+        public boolean isResumed()
+        {
+            return resumed;
+        }
     }
 }
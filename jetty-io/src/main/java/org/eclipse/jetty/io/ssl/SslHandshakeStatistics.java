@@ -0,0 +1,100 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A {@link SslHandshakeListener} that tracks TLS handshake statistics.</p>
+ * <p>Adding an instance of this class as a bean to a ServerConnector
+ * or SslConnectionFactory (for the server) or to HttpClient (for the client)
+ * will trigger the tracking of the TLS handshake statistics for all
+ * TLS connections managed by the server or by the client.</p>
+ * <p>TLS handshakes are classified as full handshakes, or as abbreviated
+ * handshakes that resumed a previous TLS session, see
+ * {@link SslHandshakeListener.Event#isResumed()}.
+ * A low resumption ratio may indicate that TLS session caching is disabled
+ * or undersized, or that the TLS sessions expire too early.</p>
+ */
+@ManagedObject("Tracks statistics on TLS handshakes")
+public class SslHandshakeStatistics implements SslHandshakeListener
+{
+    private final LongAdder _fullHandshakes = new LongAdder();
+    private final LongAdder _resumedHandshakes = new LongAdder();
+    private final LongAdder _failedHandshakes = new LongAdder();
+
+    @Override
+    public void handshakeSucceeded(Event event)
+    {
+        if (event.isResumed())
+            _resumedHandshakes.increment();
+        else
+            _fullHandshakes.increment();
+    }
+
+    @Override
+    public void handshakeFailed(Event event, Throwable failure)
+    {
+        _failedHandshakes.increment();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _fullHandshakes.reset();
+        _resumedHandshakes.reset();
+        _failedHandshakes.reset();
+    }
+
+    @ManagedAttribute("The number of successful full TLS handshakes")
+    public long getFullHandshakes()
+    {
+        return _fullHandshakes.sum();
+    }
+
+    @ManagedAttribute("The number of successful abbreviated TLS handshakes that resumed a TLS session")
+    public long getResumedHandshakes()
+    {
+        return _resumedHandshakes.sum();
+    }
+
+    @ManagedAttribute("The number of failed TLS handshakes")
+    public long getFailedHandshakes()
+    {
+        return _failedHandshakes.sum();
+    }
+
+    @ManagedAttribute("The ratio of resumed TLS handshakes over successful TLS handshakes")
+    public double getResumptionRatio()
+    {
+        long resumed = getResumedHandshakes();
+        long total = resumed + getFullHandshakes();
+        return total == 0 ? 0 : (double)resumed / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[full=%d,resumed=%d,failed=%d]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getFullHandshakes(),
+            getResumedHandshakes(),
+            getFailedHandshakes());
+    }
+}
@@ -0,0 +1,195 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Inspects the cleartext TLS records of the initial handshake to find out
+ * whether the handshake resumed a previous TLS session.</p>
+ * <p>The {@code SSLSession} APIs cannot tell a resumed session from a new one:
+ * a resumed TLS 1.3 session has a new session ID, and TLS 1.2 session tickets
+ * may also produce a new {@code SSLSession} object. The hello messages instead
+ * carry the server decision: in TLS 1.3 the ServerHello has a
+ * {@code pre_shared_key} extension only if the server accepted a session
+ * ticket, while in TLS 1.2 the ServerHello echoes the session ID sent by the
+ * ClientHello only if the server resumes that session, either from its session
+ * cache or from a session ticket.</p>
+ * <p>The records passed to {@link #inspect(ByteBuffer, int, int)} are the
+ * complete records consumed by {@code SSLEngine.unwrap()} or produced by
+ * {@code SSLEngine.wrap()}, so that both the client and the server see both
+ * hello messages. The inspection is done once the ServerHello is found.</p>
+ */
+class SslHelloInspector
+{
+    private static final int RECORD_HEADER_LENGTH = 5;
+    private static final int HANDSHAKE_HEADER_LENGTH = 4;
+    private static final int RANDOM_LENGTH = 32;
+    private static final byte CONTENT_TYPE_HANDSHAKE = 22;
+    private static final byte CLIENT_HELLO = 1;
+    private static final byte SERVER_HELLO = 2;
+    private static final int EXTENSION_PRE_SHARED_KEY = 41;
+    private static final int EXTENSION_SUPPORTED_VERSIONS = 43;
+    private static final int TLS_1_3 = 0x0304;
+    // The ServerHello random of a TLS 1.3 HelloRetryRequest, see RFC 8446, section 4.1.3.
+    private static final byte[] HELLO_RETRY_REQUEST_RANDOM =
+    {
+        (byte)0xCF, (byte)0x21, (byte)0xAD, (byte)0x74, (byte)0xE5, (byte)0x9A, (byte)0x61, (byte)0x11,
+        (byte)0xBE, (byte)0x1D, (byte)0x8C, (byte)0x02, (byte)0x1E, (byte)0x65, (byte)0xB8, (byte)0x91,
+        (byte)0xC2, (byte)0xA2, (byte)0x11, (byte)0x16, (byte)0x7A, (byte)0xBB, (byte)0x8C, (byte)0x5E,
+        (byte)0x07, (byte)0x9E, (byte)0x09, (byte)0xE2, (byte)0xC8, (byte)0xA8, (byte)0x33, (byte)0x9C
+    };
+
+    private byte[] _clientSessionId;
+    private boolean _done;
+    private boolean _resumed;
+
+    /**
+     * @return whether the ServerHello has been inspected, or the records could not be parsed
+     */
+    boolean isDone()
+    {
+        return _done;
+    }
+
+    /**
+     * @return whether the ServerHello resumed the TLS session offered by the ClientHello
+     */
+    boolean isResumed()
+    {
+        return _resumed;
+    }
+
+    /**
+     * <p>Inspects the TLS records between the given absolute indexes of the given buffer,
+     * without modifying the buffer position or limit.</p>
+     *
+     * @param buffer the buffer containing the TLS records
+     * @param from the index of the first byte of the records
+     * @param to the index after the last byte of the records
+     */
+    void inspect(ByteBuffer buffer, int from, int to)
+    {
+        try
+        {
+            int record = from;
+            while (!_done && record + RECORD_HEADER_LENGTH <= to)
+            {
+                int length = getUnsignedShort(buffer, record + 3);
+                int fragment = record + RECORD_HEADER_LENGTH;
+                if (fragment + length > to)
+                    break;
+                if (buffer.get(record) == CONTENT_TYPE_HANDSHAKE)
+                    inspectHandshake(buffer, fragment, fragment + length);
+                record = fragment + length;
+            }
+        }
+        catch (IndexOutOfBoundsException x)
+        {
+            // A malformed or fragmented hello message is reported as a full handshake.
+            _done = true;
+        }
+    }
+
+    private void inspectHandshake(ByteBuffer buffer, int from, int to)
+    {
+        int message = from;
+        while (!_done && message + HANDSHAKE_HEADER_LENGTH <= to)
+        {
+            byte type = buffer.get(message);
+            int length = getUnsignedMedium(buffer, message + 1);
+            int body = message + HANDSHAKE_HEADER_LENGTH;
+            if (body + length > to)
+            {
+                // Hello messages spanning multiple records are not supported.
+                _done = true;
+                return;
+            }
+            if (type == CLIENT_HELLO)
+                _clientSessionId = getSessionId(buffer, body);
+            else if (type == SERVER_HELLO)
+                inspectServerHello(buffer, body, body + length);
+            message = body + length;
+        }
+    }
+
+    private void inspectServerHello(ByteBuffer buffer, int from, int to)
+    {
+        int random = from + 2;
+        if (isHelloRetryRequest(buffer, random))
+            return;
+
+        byte[] sessionId = getSessionId(buffer, from);
+        // Skip the cipher suite and the compression method.
+        int extensions = random + RANDOM_LENGTH + 1 + sessionId.length + 2 + 1;
+        boolean tls13 = false;
+        boolean preSharedKey = false;
+        if (extensions + 2 <= to)
+        {
+            int extension = extensions + 2;
+            int end = Math.min(to, extension + getUnsignedShort(buffer, extensions));
+            while (extension + 4 <= end)
+            {
+                int type = getUnsignedShort(buffer, extension);
+                int length = getUnsignedShort(buffer, extension + 2);
+                if (type == EXTENSION_SUPPORTED_VERSIONS && length == 2)
+                    tls13 = getUnsignedShort(buffer, extension + 4) == TLS_1_3;
+                else if (type == EXTENSION_PRE_SHARED_KEY)
+                    preSharedKey = true;
+                extension += 4 + length;
+            }
+        }
+
+        // A TLS 1.3 ServerHello always echoes the legacy session ID
+        // of the ClientHello, so only the pre-shared key tells resumption.
+        if (tls13)
+            _resumed = preSharedKey;
+        else
+            _resumed = sessionId.length > 0 && Arrays.equals(sessionId, _clientSessionId);
+        _done = true;
+    }
+
+    private static boolean isHelloRetryRequest(ByteBuffer buffer, int random)
+    {
+        for (int i = 0; i < RANDOM_LENGTH; ++i)
+        {
+            if (buffer.get(random + i) != HELLO_RETRY_REQUEST_RANDOM[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static byte[] getSessionId(ByteBuffer buffer, int hello)
+    {
+        // The session ID follows the protocol version and the random.
+        int index = hello + 2 + RANDOM_LENGTH;
+        byte[] sessionId = new byte[buffer.get(index) & 0xFF];
+        for (int i = 0; i < sessionId.length; ++i)
+        {
+            sessionId[i] = buffer.get(index + 1 + i);
+        }
+        return sessionId;
+    }
+
+    private static int getUnsignedShort(ByteBuffer buffer, int index)
+    {
+        return ((buffer.get(index) & 0xFF) << 8) | (buffer.get(index + 1) & 0xFF);
+    }
+
+    private static int getUnsignedMedium(ByteBuffer buffer, int index)
+    {
+        return ((buffer.get(index) & 0xFF) << 16) | getUnsignedShort(buffer, index + 1);
+    }
+}
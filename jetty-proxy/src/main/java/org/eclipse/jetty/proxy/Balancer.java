@@ -0,0 +1,309 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.proxy.BalancerServlet.BalancerMember;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>The strategy used by {@link BalancerServlet} to pick the
+ * {@link BalancerMember} that will serve a request.</p>
+ * <p>Implementations are given only the members that are currently
+ * available, that is healthy and not ejected; when no member is
+ * available, all members are given so that requests still have a
+ * chance to be served.</p>
+ */
+public interface Balancer
+{
+    /**
+     * <p>Invoked once when the balancer servlet is initialized,
+     * with the full list of configured members.</p>
+     *
+     * @param members all the balancer members
+     */
+    default void init(List<BalancerMember> members)
+    {
+    }
+
+    /**
+     * @param request the client request to balance
+     * @param members the non-empty list of members to choose from
+     * @return the member that will serve the request
+     */
+    BalancerMember select(HttpServletRequest request, List<BalancerMember> members);
+
+    /**
+     * <p>A smooth weighted round-robin balancer.</p>
+     * <p>Members with equal weights are selected in turn; members with a higher
+     * weight are selected proportionally more often, interleaved with the others.</p>
+     */
+    class RoundRobin implements Balancer
+    {
+        private final AutoLock lock = new AutoLock();
+
+        @Override
+        public BalancerMember select(HttpServletRequest request, List<BalancerMember> members)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                int total = 0;
+                BalancerMember result = null;
+                for (BalancerMember member : members)
+                {
+                    int weight = member.getWeight();
+                    total += weight;
+                    member._currentWeight += weight;
+                    if (result == null || member._currentWeight > result._currentWeight)
+                        result = member;
+                }
+                result._currentWeight -= total;
+                return result;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * <p>Selects the member with the least active requests relative to its weight.</p>
+     * <p>Ties are broken by rotating among the tied members.</p>
+     */
+    class LeastRequests implements Balancer
+    {
+        private final AtomicLong counter = new AtomicLong();
+
+        @Override
+        public BalancerMember select(HttpServletRequest request, List<BalancerMember> members)
+        {
+            int size = members.size();
+            int start = (int)(counter.getAndIncrement() % size);
+            BalancerMember result = null;
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < size; ++i)
+            {
+                BalancerMember member = members.get((start + i) % size);
+                double load = (double)member.getActiveRequests() / member.getWeight();
+                if (load < min)
+                {
+                    min = load;
+                    result = member;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * <p>Selects the member with the lowest exponentially weighted moving
+     * average response latency, scaled by its number of active requests
+     * and by its weight, so that a fast member is not overloaded.</p>
+     * <p>Members that have not served any request yet are preferred,
+     * so that their latency can be measured.</p>
+     */
+    class EWMA implements Balancer
+    {
+        private final AtomicLong counter = new AtomicLong();
+
+        @Override
+        public BalancerMember select(HttpServletRequest request, List<BalancerMember> members)
+        {
+            int size = members.size();
+            int start = (int)(counter.getAndIncrement() % size);
+            BalancerMember result = null;
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < size; ++i)
+            {
+                BalancerMember member = members.get((start + i) % size);
+                double latency = member.getLatency();
+                if (latency < 0)
+                    latency = 0;
+                double score = latency * (member.getActiveRequests() + 1) / member.getWeight();
+                if (score < min)
+                {
+                    min = score;
+                    result = member;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * <p>A consistent hashing balancer with bounded loads.</p>
+     * <p>Requests with the same key, taken from the configured header or from
+     * the client remote address, are sent to the same member, unless that member
+     * is not available or it is already serving more than {@link #getLoadFactor()}
+     * times the average number of active requests, in which case the next member
+     * on the hash ring is selected.</p>
+     * <p>Each member is placed on the hash ring {@link #getReplicas()} times
+     * its weight, so that keys are spread evenly and adding or removing a
+     * member only remaps a small fraction of the keys.</p>
+     */
+    class ConsistentHash implements Balancer
+    {
+        private final String header;
+        private final int replicas;
+        private final double loadFactor;
+        private long[] hashes;
+        private BalancerMember[] ring;
+
+        public ConsistentHash(String header)
+        {
+            this(header, 100, 1.25D);
+        }
+
+        public ConsistentHash(String header, int replicas, double loadFactor)
+        {
+            if (replicas < 1)
+                throw new IllegalArgumentException("Invalid replicas " + replicas);
+            if (loadFactor < 1)
+                throw new IllegalArgumentException("Invalid load factor " + loadFactor);
+            this.header = header;
+            this.replicas = replicas;
+            this.loadFactor = loadFactor;
+        }
+
+        /**
+         * @return the request header providing the hash key, or null to use the client remote address
+         */
+        public String getHeader()
+        {
+            return header;
+        }
+
+        /**
+         * @return the number of points on the hash ring for each unit of member weight
+         */
+        public int getReplicas()
+        {
+            return replicas;
+        }
+
+        /**
+         * @return the max number of active requests of a member, relative to the average
+         */
+        public double getLoadFactor()
+        {
+            return loadFactor;
+        }
+
+        @Override
+        public void init(List<BalancerMember> members)
+        {
+            List<long[]> points = new ArrayList<>();
+            for (int m = 0; m < members.size(); ++m)
+            {
+                BalancerMember member = members.get(m);
+                int count = replicas * member.getWeight();
+                for (int r = 0; r < count; ++r)
+                {
+                    points.add(new long[]{hash(member.getName() + "#" + r), m});
+                }
+            }
+            points.sort((p1, p2) -> Long.compare(p1[0], p2[0]));
+            long[] hashes = new long[points.size()];
+            BalancerMember[] ring = new BalancerMember[points.size()];
+            for (int i = 0; i < hashes.length; ++i)
+            {
+                long[] point = points.get(i);
+                hashes[i] = point[0];
+                ring[i] = members.get((int)point[1]);
+            }
+            this.hashes = hashes;
+            this.ring = ring;
+        }
+
+        @Override
+        public BalancerMember select(HttpServletRequest request, List<BalancerMember> members)
+        {
+            long totalActive = 0;
+            int totalWeight = 0;
+            for (BalancerMember member : members)
+            {
+                totalActive += member.getActiveRequests();
+                totalWeight += member.getWeight();
+            }
+            // The load bound, per unit of weight, counting the request being balanced.
+            double capacity = Math.ceil(loadFactor * (totalActive + 1) / totalWeight);
+
+            int index = Arrays.binarySearch(hashes, hash(key(request)));
+            if (index < 0)
+                index = -index - 1;
+            BalancerMember fallback = null;
+            for (int i = 0; i < ring.length; ++i)
+            {
+                BalancerMember member = ring[(index + i) % ring.length];
+                if (!members.contains(member))
+                    continue;
+                if (fallback == null)
+                    fallback = member;
+                if (member.getActiveRequests() < capacity * member.getWeight())
+                    return member;
+            }
+            return fallback != null ? fallback : members.get(0);
+        }
+
+        private String key(HttpServletRequest request)
+        {
+            String key = header == null ? null : request.getHeader(header);
+            return key == null ? request.getRemoteAddr() : key;
+        }
+
+        private static long hash(String key)
+        {
+            // 64-bit FNV-1a followed by a MurmurHash3 finalizer to spread close keys.
+            long hash = 0xCBF29CE484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8))
+            {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[header=%s,replicas=%d,loadFactor=%.2f]", getClass().getSimpleName(), hashCode(), header, replicas, loadFactor);
+        }
+    }
+}
@@ -20,18 +20,50 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.ServletException;
 import javax.servlet.UnavailableException;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.URIUtil;
-
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * <p>A reverse proxy servlet that balances requests across a set of backends.</p>
+ * <p>Backends are configured with {@code balancerMember.<name>.proxyTo} init parameters,
+ * and optionally weighted with {@code balancerMember.<name>.weight} init parameters.</p>
+ * <p>The backend that serves a request is chosen by a {@link Balancer}, configured via the
+ * {@code balancer} init parameter with one of the values {@code roundRobin} (the default),
+ * {@code leastRequests}, {@code ewma}, {@code consistentHash}, or the class name of a
+ * custom implementation.
+ * The {@code consistentHash} balancer hashes the value of the request header named by
+ * the {@code hashHeader} init parameter, or the client remote address.
+ * With {@code stickySessions}, requests that carry a session id are sent to the backend
+ * that created the session, as long as it is available.</p>
+ * <p>Backends are checked passively: a backend that fails {@code maxConsecutiveFailures}
+ * requests in a row (with an exception or a 5xx response) is ejected for
+ * {@code ejectionTime} milliseconds.
+ * If the {@code healthCheckPath} init parameter is configured, backends are also checked
+ * actively every {@code healthCheckInterval} milliseconds by sending a GET request to that
+ * path; a backend that does not reply with a 2xx status is excluded until a later check
+ * succeeds.
+ * If no backend is available, requests are balanced across all backends.</p>
+ */
 public class BalancerServlet extends ProxyServlet
 {
     private static final String BALANCER_MEMBER_PREFIX = "balancerMember.";
+    private static final String BALANCER_MEMBER_ATTRIBUTE = BalancerServlet.class.getName() + ".balancerMember";
+    private static final String BALANCER_START_ATTRIBUTE = BalancerServlet.class.getName() + ".start";
     private static final List<String> FORBIDDEN_CONFIG_PARAMETERS;
 
     static
@@ -58,9 +90,14 @@ public class BalancerServlet extends ProxyServlet
     private static final String JSESSIONID_URL_PREFIX = JSESSIONID + "=";
 
     private final List<BalancerMember> _balancerMembers = new ArrayList<>();
-    private final AtomicLong counter = new AtomicLong();
     private boolean _stickySessions;
     private boolean _proxyPassReverse;
+    private Balancer _balancer;
+    private int _maxConsecutiveFailures;
+    private long _ejectionTime;
+    private String _healthCheckPath;
+    private long _healthCheckInterval;
+    private volatile Scheduler.Task _healthCheckTask;
 
     @Override
     public void init() throws ServletException
@@ -70,6 +107,18 @@ public class BalancerServlet extends ProxyServlet
         initStickySessions();
         initBalancers();
         initProxyPassReverse();
+        initBalancer();
+        initHealthChecks();
+    }
+
+    @Override
+    public void destroy()
+    {
+        Scheduler.Task task = _healthCheckTask;
+        _healthCheckTask = null;
+        if (task != null)
+            task.cancel();
+        super.destroy();
     }
 
     private void validateConfig() throws ServletException
@@ -97,7 +146,21 @@ public class BalancerServlet extends ProxyServlet
             String proxyTo = getServletConfig().getInitParameter(memberProxyToParam);
             if (proxyTo == null || proxyTo.trim().length() == 0)
                 throw new UnavailableException(memberProxyToParam + " parameter is empty.");
-            members.add(new BalancerMember(balancerName, proxyTo));
+            String memberWeightParam = BALANCER_MEMBER_PREFIX + balancerName + ".weight";
+            String weight = getServletConfig().getInitParameter(memberWeightParam);
+            BalancerMember member = new BalancerMember(balancerName, proxyTo);
+            if (weight != null)
+            {
+                try
+                {
+                    member.setWeight(Integer.parseInt(weight.trim()));
+                }
+                catch (IllegalArgumentException x)
+                {
+                    throw new UnavailableException(memberWeightParam + " parameter is invalid: " + weight);
+                }
+            }
+            members.add(member);
         }
         _balancerMembers.addAll(members);
     }
@@ -107,6 +170,105 @@ public class BalancerServlet extends ProxyServlet
         _proxyPassReverse = Boolean.parseBoolean(getServletConfig().getInitParameter("proxyPassReverse"));
     }
 
+    private void initBalancer() throws ServletException
+    {
+        String value = getServletConfig().getInitParameter("balancer");
+        if (value == null || "roundRobin".equals(value))
+        {
+            _balancer = new Balancer.RoundRobin();
+        }
+        else if ("leastRequests".equals(value))
+        {
+            _balancer = new Balancer.LeastRequests();
+        }
+        else if ("ewma".equals(value))
+        {
+            _balancer = new Balancer.EWMA();
+        }
+        else if ("consistentHash".equals(value))
+        {
+            _balancer = new Balancer.ConsistentHash(getServletConfig().getInitParameter("hashHeader"));
+        }
+        else
+        {
+            try
+            {
+                _balancer = (Balancer)Loader.loadClass(BalancerServlet.class, value).getConstructor().newInstance();
+            }
+            catch (Exception x)
+            {
+                throw new UnavailableException("balancer parameter is invalid: " + value);
+            }
+        }
+        _balancer.init(Collections.unmodifiableList(_balancerMembers));
+        if (_log.isDebugEnabled())
+            _log.debug("Balancing {} with {}", _balancerMembers, _balancer);
+    }
+
+    private void initHealthChecks() throws ServletException
+    {
+        String value = getServletConfig().getInitParameter("maxConsecutiveFailures");
+        _maxConsecutiveFailures = value == null ? 5 : Integer.parseInt(value);
+        value = getServletConfig().getInitParameter("ejectionTime");
+        _ejectionTime = value == null ? 30000 : Long.parseLong(value);
+
+        _healthCheckPath = getServletConfig().getInitParameter("healthCheckPath");
+        value = getServletConfig().getInitParameter("healthCheckInterval");
+        _healthCheckInterval = value == null ? 10000 : Long.parseLong(value);
+        if (_healthCheckPath != null)
+        {
+            if (!_healthCheckPath.startsWith("/"))
+                throw new UnavailableException("healthCheckPath parameter must start with '/': " + _healthCheckPath);
+            if (_healthCheckInterval <= 0)
+                throw new UnavailableException("healthCheckInterval parameter is invalid: " + _healthCheckInterval);
+            scheduleHealthChecks();
+        }
+    }
+
+    private void scheduleHealthChecks()
+    {
+        _healthCheckTask = getHttpClient().getScheduler().schedule(this::healthCheck, _healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void healthCheck()
+    {
+        if (_healthCheckTask == null)
+            return;
+
+        AtomicInteger pending = new AtomicInteger(_balancerMembers.size());
+        for (BalancerMember member : _balancerMembers)
+        {
+            String target = URI.create(member.getProxyTo() + _healthCheckPath).normalize().toString();
+            getHttpClient().newRequest(target)
+                .timeout(_healthCheckInterval, TimeUnit.MILLISECONDS)
+                .send(result ->
+                {
+                    boolean healthy = result.isSucceeded() && HttpStatus.isSuccess(result.getResponse().getStatus());
+                    if (member.isHealthy() != healthy && _log.isDebugEnabled())
+                        _log.debug("Health check {} for {}: {}", healthy ? "succeeded" : "failed", member, result);
+                    member.setHealthy(healthy);
+                    if (pending.decrementAndGet() == 0 && _healthCheckTask != null)
+                        scheduleHealthChecks();
+                });
+        }
+    }
+
+    /**
+     * @return the balancer members, in the order they are given to the {@link Balancer}
+     */
+    public List<BalancerMember> getBalancerMembers()
+    {
+        return Collections.unmodifiableList(_balancerMembers);
+    }
+
+    /**
+     * @return the balancer that selects the member for each request
+     */
+    public Balancer getBalancer()
+    {
+        return _balancer;
+    }
+
     private Set<String> getBalancerNames() throws ServletException
     {
         Set<String> names = new HashSet<>();
@@ -130,6 +292,7 @@ public class BalancerServlet extends ProxyServlet
         BalancerMember balancerMember = selectBalancerMember(request);
         if (_log.isDebugEnabled())
             _log.debug("Selected {}", balancerMember);
+        request.setAttribute(BALANCER_MEMBER_ATTRIBUTE, balancerMember);
         String path = request.getRequestURI();
         String query = request.getQueryString();
         if (query != null)
@@ -139,18 +302,50 @@ public class BalancerServlet extends ProxyServlet
 
     private BalancerMember selectBalancerMember(HttpServletRequest request)
     {
+        long now = System.nanoTime();
         if (_stickySessions)
         {
             String name = getBalancerMemberNameFromSessionId(request);
             if (name != null)
             {
                 BalancerMember balancerMember = findBalancerMemberByName(name);
-                if (balancerMember != null)
+                if (balancerMember != null && balancerMember.isAvailable(now))
                     return balancerMember;
             }
         }
-        int index = (int)(counter.getAndIncrement() % _balancerMembers.size());
-        return _balancerMembers.get(index);
+        List<BalancerMember> available = new ArrayList<>(_balancerMembers.size());
+        for (BalancerMember balancerMember : _balancerMembers)
+        {
+            if (balancerMember.isAvailable(now))
+                available.add(balancerMember);
+        }
+        if (available.isEmpty())
+            available = _balancerMembers;
+        return _balancer.select(request, available);
+    }
+
+    @Override
+    protected void sendProxyRequest(HttpServletRequest clientRequest, HttpServletResponse proxyResponse, Request proxyRequest)
+    {
+        BalancerMember balancerMember = (BalancerMember)clientRequest.getAttribute(BALANCER_MEMBER_ATTRIBUTE);
+        if (balancerMember != null)
+        {
+            balancerMember.onRequestBegin();
+            long start = System.nanoTime();
+            proxyRequest.onComplete(result -> onBalancerMemberComplete(balancerMember, start, result));
+        }
+        super.sendProxyRequest(clientRequest, proxyResponse, proxyRequest);
+    }
+
+    private void onBalancerMemberComplete(BalancerMember balancerMember, long start, Result result)
+    {
+        long now = System.nanoTime();
+        boolean failed = result.isFailed() || result.getResponse().getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR_500;
+        if (balancerMember.onRequestComplete(now, now - start, failed, _maxConsecutiveFailures, _ejectionTime))
+        {
+            if (_log.isDebugEnabled())
+                _log.debug("Ejected {} for {} ms after {} consecutive failures", balancerMember, _ejectionTime, _maxConsecutiveFailures);
+        }
     }
 
     private BalancerMember findBalancerMemberByName(String name)
@@ -254,11 +449,30 @@ public class BalancerServlet extends ProxyServlet
         return true;
     }
 
-    private static class BalancerMember
+    /**
+     * <p>A backend of the balancer, along with the statistics
+     * used by {@link Balancer}s and by health checks.</p>
+     */
+    public static class BalancerMember
     {
+        // The smoothing factor of the latency moving average.
+        private static final double ALPHA = 0.3D;
+
+        private final AutoLock _lock = new AutoLock();
+        private final AtomicInteger _activeRequests = new AtomicInteger();
+        private final AtomicLong _totalRequests = new AtomicLong();
+        private final AtomicLong _failedRequests = new AtomicLong();
+        private final AtomicLong _ejections = new AtomicLong();
         private final String _name;
         private final String _proxyTo;
         private final URI _backendURI;
+        private int _weight = 1;
+        private volatile boolean _healthy = true;
+        private volatile double _latency = -1;
+        private volatile long _ejectedUntil;
+        private int _consecutiveFailures;
+        // Used by Balancer.RoundRobin, guarded by its lock.
+        int _currentWeight;
 
         public BalancerMember(String name, String proxyTo)
         {
@@ -282,10 +496,128 @@ public class BalancerServlet extends ProxyServlet
             return _backendURI;
         }
 
+        /**
+         * @return the relative weight of this member
+         */
+        public int getWeight()
+        {
+            return _weight;
+        }
+
+        public void setWeight(int weight)
+        {
+            if (weight < 1)
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            _weight = weight;
+        }
+
+        /**
+         * @return the number of requests currently being proxied to this member
+         */
+        public int getActiveRequests()
+        {
+            return _activeRequests.get();
+        }
+
+        /**
+         * @return the number of requests proxied to this member
+         */
+        public long getTotalRequests()
+        {
+            return _totalRequests.get();
+        }
+
+        /**
+         * @return the number of requests proxied to this member that failed or received a 5xx response
+         */
+        public long getFailedRequests()
+        {
+            return _failedRequests.get();
+        }
+
+        /**
+         * @return the number of times this member has been ejected
+         */
+        public long getEjections()
+        {
+            return _ejections.get();
+        }
+
+        /**
+         * @return the exponentially weighted moving average of the response latency
+         * in nanoseconds, or -1 if no request has completed yet
+         */
+        public double getLatency()
+        {
+            return _latency;
+        }
+
+        /**
+         * @return whether the last active health check succeeded
+         */
+        public boolean isHealthy()
+        {
+            return _healthy;
+        }
+
+        void setHealthy(boolean healthy)
+        {
+            _healthy = healthy;
+        }
+
+        /**
+         * @return whether this member is currently ejected because of consecutive failures
+         */
+        public boolean isEjected()
+        {
+            return isEjected(System.nanoTime());
+        }
+
+        private boolean isEjected(long now)
+        {
+            long ejectedUntil = _ejectedUntil;
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        private boolean isAvailable(long now)
+        {
+            return isHealthy() && !isEjected(now);
+        }
+
+        private void onRequestBegin()
+        {
+            _activeRequests.incrementAndGet();
+            _totalRequests.incrementAndGet();
+        }
+
+        private boolean onRequestComplete(long now, long latency, boolean failed, int maxConsecutiveFailures, long ejectionTime)
+        {
+            _activeRequests.decrementAndGet();
+            if (failed)
+                _failedRequests.incrementAndGet();
+            try (AutoLock l = _lock.lock())
+            {
+                double average = _latency;
+                _latency = average < 0 ? latency : average + ALPHA * (latency - average);
+                if (!failed)
+                {
+                    _consecutiveFailures = 0;
+                    return false;
+                }
+                if (++_consecutiveFailures < maxConsecutiveFailures || maxConsecutiveFailures <= 0)
+                    return false;
+                _consecutiveFailures = 0;
+                _ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(ejectionTime);
+                _ejections.incrementAndGet();
+                return true;
+            }
+        }
+
         @Override
         public String toString()
         {
-            return String.format("%s[name=%s,proxyTo=%s]", getClass().getSimpleName(), _name, _proxyTo);
+            return String.format("%s[name=%s,proxyTo=%s,weight=%d,active=%d,healthy=%b,ejected=%b]",
+                getClass().getSimpleName(), _name, _proxyTo, _weight, getActiveRequests(), isHealthy(), isEjected());
         }
 
         @Override
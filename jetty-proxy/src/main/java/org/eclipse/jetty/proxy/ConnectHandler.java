@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -50,6 +51,11 @@ import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.HostPort;
 import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.RateCounter;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
@@ -57,11 +63,19 @@ import org.slf4j.LoggerFactory;
 
 /**
  * <p>Implementation of a {@link Handler} that supports HTTP CONNECT.</p>
+ * <p>Statistics about the tunnels, such as the number of active tunnels
+ * and the number of tunnelled bytes, are exposed via JMX.</p>
  */
+@ManagedObject("Handler for HTTP CONNECT tunnels")
 public class ConnectHandler extends HandlerWrapper
 {
     protected static final Logger LOG = LoggerFactory.getLogger(ConnectHandler.class);
 
+    private final CounterStatistic tunnels = new CounterStatistic();
+    private final LongAdder clientBytes = new LongAdder();
+    private final LongAdder serverBytes = new LongAdder();
+    private final RateCounter clientBytesRate = new RateCounter();
+    private final RateCounter serverBytesRate = new RateCounter();
     private final Set<String> whiteList = new HashSet<>();
     private final Set<String> blackList = new HashSet<>();
     private Executor executor;
@@ -156,6 +170,58 @@ public class ConnectHandler extends HandlerWrapper
         this.bufferSize = bufferSize;
     }
 
+    @ManagedAttribute("The number of active tunnels")
+    public long getTunnels()
+    {
+        return tunnels.getCurrent();
+    }
+
+    @ManagedAttribute("The max number of active tunnels")
+    public long getTunnelsMax()
+    {
+        return tunnels.getMax();
+    }
+
+    @ManagedAttribute("The total number of tunnels")
+    public long getTunnelsTotal()
+    {
+        return tunnels.getTotal();
+    }
+
+    @ManagedAttribute("The number of bytes tunnelled from clients to servers")
+    public long getClientBytes()
+    {
+        return clientBytes.sum();
+    }
+
+    @ManagedAttribute("The number of bytes tunnelled from servers to clients")
+    public long getServerBytes()
+    {
+        return serverBytes.sum();
+    }
+
+    @ManagedAttribute("The rate of bytes/s tunnelled from clients to servers since the last statistics reset")
+    public long getClientBytesRate()
+    {
+        return clientBytesRate.getRate();
+    }
+
+    @ManagedAttribute("The rate of bytes/s tunnelled from servers to clients since the last statistics reset")
+    public long getServerBytesRate()
+    {
+        return serverBytesRate.getRate();
+    }
+
+    @ManagedOperation(value = "Resets the tunnel statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        tunnels.reset(tunnels.getCurrent());
+        clientBytes.reset();
+        serverBytes.reset();
+        clientBytesRate.reset();
+        serverBytesRate.reset();
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -581,14 +647,28 @@ public class ConnectHandler extends HandlerWrapper
         public void onOpen()
         {
             super.onOpen();
+            tunnels.increment();
             onConnectSuccess(connectContext, UpstreamConnection.this);
             fillInterested();
         }
 
+        @Override
+        public void onClose(Throwable cause)
+        {
+            tunnels.decrement();
+            super.onClose(cause);
+        }
+
         @Override
         protected int read(EndPoint endPoint, ByteBuffer buffer) throws IOException
         {
-            return ConnectHandler.this.read(endPoint, buffer, getContext());
+            int read = ConnectHandler.this.read(endPoint, buffer, getContext());
+            if (read > 0)
+            {
+                serverBytes.add(read);
+                serverBytesRate.add(read);
+            }
+            return read;
         }
 
         @Override
@@ -625,6 +705,8 @@ public class ConnectHandler extends HandlerWrapper
             }
 
             int remaining = buffer.remaining();
+            clientBytes.add(remaining);
+            clientBytesRate.add(remaining);
             write(getConnection().getEndPoint(), buffer, new Callback()
             {
                 @Override
@@ -651,7 +733,13 @@ public class ConnectHandler extends HandlerWrapper
         @Override
         protected int read(EndPoint endPoint, ByteBuffer buffer) throws IOException
         {
-            return ConnectHandler.this.read(endPoint, buffer, getContext());
+            int read = ConnectHandler.this.read(endPoint, buffer, getContext());
+            if (read > 0)
+            {
+                clientBytes.add(read);
+                clientBytesRate.add(read);
+            }
+            return read;
         }
 
         @Override
@@ -22,6 +22,7 @@ import org.eclipse.jetty.io.AbstractConnection;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.slf4j.Logger;
@@ -95,7 +96,12 @@ public abstract class ProxyConnection extends AbstractConnection
         @Override
         protected Action process()
         {
-            buffer = bufferPool.acquire(getInputBufferSize(), true);
+            // The buffer is retained while data flows through the tunnel,
+            // and it is only released when the tunnel becomes idle.
+            if (buffer == null)
+                buffer = bufferPool.acquire(getInputBufferSize(), true);
+            else
+                BufferUtil.clear(buffer);
             try
             {
                 int filled = this.filled = read(getEndPoint(), buffer);
@@ -108,13 +114,13 @@ public abstract class ProxyConnection extends AbstractConnection
                 }
                 else if (filled == 0)
                 {
-                    bufferPool.release(buffer);
+                    releaseBuffer();
                     fillInterested();
                     return Action.IDLE;
                 }
                 else
                 {
-                    bufferPool.release(buffer);
+                    releaseBuffer();
                     connection.getEndPoint().shutdownOutput();
                     return Action.SUCCEEDED;
                 }
@@ -123,18 +129,24 @@ public abstract class ProxyConnection extends AbstractConnection
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("{} could not fill", ProxyConnection.this, x);
-                bufferPool.release(buffer);
+                releaseBuffer();
                 disconnect(x);
                 return Action.SUCCEEDED;
             }
         }
 
+        private void releaseBuffer()
+        {
+            if (buffer != null)
+                bufferPool.release(buffer);
+            buffer = null;
+        }
+
         @Override
         public void succeeded()
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("{} wrote {} bytes", ProxyConnection.this, filled);
-            bufferPool.release(buffer);
             super.succeeded();
         }
 
@@ -148,7 +160,7 @@ public abstract class ProxyConnection extends AbstractConnection
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("{} failed to write {} bytes", ProxyConnection.this, filled, x);
-            bufferPool.release(buffer);
+            releaseBuffer();
             disconnect(x);
         }
 
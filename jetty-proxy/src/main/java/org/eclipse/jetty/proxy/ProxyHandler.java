@@ -0,0 +1,563 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.AsyncRequestContent;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.HttpInput;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link org.eclipse.jetty.server.Handler} that proxies requests to a server,
+ * without the servlet layer copies of {@link AbstractProxyServlet}.</p>
+ * <p>Request content buffers read from the client connection are handed over to the
+ * {@link HttpClient} request as they are, and released only after they have been written
+ * to the server; likewise response content buffers received from the server are written
+ * to the client connection before being released. Backpressure is therefore end-to-end:
+ * no more content is read from one side until the previous content has been written to
+ * the other side.</p>
+ * <p>Request and response header fields are forwarded as the same {@link HttpField}
+ * instances, except for hop-by-hop headers that are removed.</p>
+ * <p>Requests for which {@link #rewriteTarget(Request)} returns {@code null} are not
+ * handled, so that other handlers may handle them.</p>
+ *
+ * @see Reverse
+ */
+public abstract class ProxyHandler extends AbstractHandler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyHandler.class);
+    private static final Set<HttpHeader> HOP_HEADERS = EnumSet.of(
+        HttpHeader.CONNECTION,
+        HttpHeader.KEEP_ALIVE,
+        HttpHeader.PROXY_AUTHORIZATION,
+        HttpHeader.PROXY_AUTHENTICATE,
+        HttpHeader.PROXY_CONNECTION,
+        HttpHeader.TRANSFER_ENCODING,
+        HttpHeader.TE,
+        HttpHeader.TRAILER,
+        HttpHeader.UPGRADE
+    );
+
+    private HttpClient _httpClient;
+    private String _viaHost;
+    private HttpField _viaField11;
+    private HttpField _viaField20;
+    private boolean _preserveHost;
+    private long _timeout;
+
+    public HttpClient getHttpClient()
+    {
+        return _httpClient;
+    }
+
+    /**
+     * @param httpClient the client used to send requests to the server, or null to create a default one
+     */
+    public void setHttpClient(HttpClient httpClient)
+    {
+        updateBean(_httpClient, httpClient);
+        _httpClient = httpClient;
+    }
+
+    public String getViaHost()
+    {
+        return _viaHost;
+    }
+
+    /**
+     * @param viaHost the host name to use in the {@code Via} header, defaults to the local host name
+     */
+    public void setViaHost(String viaHost)
+    {
+        _viaHost = viaHost;
+    }
+
+    public boolean isPreserveHost()
+    {
+        return _preserveHost;
+    }
+
+    /**
+     * @param preserveHost whether the client {@code Host} header is forwarded to the server
+     */
+    public void setPreserveHost(boolean preserveHost)
+    {
+        _preserveHost = preserveHost;
+    }
+
+    public long getTimeout()
+    {
+        return _timeout;
+    }
+
+    /**
+     * @param timeout the total timeout in milliseconds of requests to the server, or 0 for no timeout
+     */
+    public void setTimeout(long timeout)
+    {
+        _timeout = timeout;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_httpClient == null)
+            setHttpClient(newHttpClient());
+        if (_viaHost == null)
+            _viaHost = viaHost();
+        _viaField11 = new HttpField(HttpHeader.VIA, "1.1 " + _viaHost);
+        _viaField20 = new HttpField(HttpHeader.VIA, "2.0 " + _viaHost);
+        super.doStart();
+    }
+
+    /**
+     * @return a new client configured to proxy requests
+     */
+    protected HttpClient newHttpClient()
+    {
+        HttpClient httpClient = new HttpClient();
+        // Redirects must be proxied as is, not followed.
+        httpClient.setFollowRedirects(false);
+        // Must not store cookies, otherwise cookies of different clients will mix.
+        httpClient.setCookieStore(new HttpCookieStore.Empty());
+        if (getServer() != null)
+            httpClient.setExecutor(getServer().getThreadPool());
+        // Do not add the User-Agent header, the client one is forwarded.
+        httpClient.setUserAgentField(null);
+        return httpClient;
+    }
+
+    private static String viaHost()
+    {
+        try
+        {
+            return InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException x)
+        {
+            return "localhost";
+        }
+    }
+
+    /**
+     * @param clientRequest the request received from the client
+     * @return the URI of the server to proxy the request to, or null if the request must not be proxied
+     */
+    protected abstract String rewriteTarget(Request clientRequest);
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+    {
+        String rewrittenTarget = rewriteTarget(baseRequest);
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} rewriting: {} -> {}", this, request.getRequestURL(), rewrittenTarget);
+        if (rewrittenTarget == null)
+            return;
+
+        baseRequest.setHandled(true);
+        AsyncContext asyncContext = request.startAsync();
+        // We do not want to use the implicit startAsync() timeout.
+        asyncContext.setTimeout(0);
+
+        // Do not copy the HTTP version, since the client-to-proxy
+        // version may be different from the proxy-to-server version.
+        org.eclipse.jetty.client.api.Request proxyRequest = _httpClient.newRequest(rewrittenTarget)
+            .method(baseRequest.getMethod());
+        copyRequestHeaders(baseRequest, proxyRequest);
+        if (_timeout > 0)
+            proxyRequest.timeout(_timeout, TimeUnit.MILLISECONDS);
+
+        if (hasContent(baseRequest))
+        {
+            AsyncRequestContent content = new AsyncRequestContent();
+            proxyRequest.body(content);
+            RequestContentPump pump = new RequestContentPump(baseRequest.getHttpInput(), content);
+            baseRequest.getHttpInput().addInterceptor(pump);
+            baseRequest.getHttpInput().setReadListener(pump);
+        }
+
+        proxyRequest.send(new ProxyResponseListener(baseRequest, proxyRequest, asyncContext));
+    }
+
+    private boolean hasContent(Request clientRequest)
+    {
+        return clientRequest.getContentLengthLong() > 0 ||
+            clientRequest.getContentType() != null ||
+            clientRequest.getHttpFields().contains(HttpHeader.TRANSFER_ENCODING);
+    }
+
+    /**
+     * <p>Copies the client request headers to the proxy request, removing the hop-by-hop ones
+     * and adding the {@code Via} and {@code X-Forwarded-*} headers.</p>
+     *
+     * @param clientRequest the request received from the client
+     * @param proxyRequest the request to send to the server
+     */
+    protected void copyRequestHeaders(Request clientRequest, org.eclipse.jetty.client.api.Request proxyRequest)
+    {
+        HttpFields clientFields = clientRequest.getHttpFields();
+        Set<String> connectionHeaders = findConnectionHeaders(clientFields);
+        proxyRequest.headers(headers ->
+        {
+            headers.clear();
+            HttpField viaField = null;
+            for (HttpField field : clientFields)
+            {
+                HttpHeader header = field.getHeader();
+                if (header == HttpHeader.HOST && !_preserveHost)
+                    continue;
+                if (header != null && HOP_HEADERS.contains(header))
+                    continue;
+                if (connectionHeaders != null && connectionHeaders.contains(StringUtil.asciiToLowerCase(field.getName())))
+                    continue;
+                if (header == HttpHeader.VIA)
+                {
+                    viaField = field;
+                    continue;
+                }
+                headers.add(field);
+            }
+
+            headers.add(viaField(clientRequest.getHttpVersion(), viaField));
+            headers.add(HttpHeader.X_FORWARDED_FOR, clientRequest.getRemoteAddr());
+            headers.add(HttpHeader.X_FORWARDED_PROTO, clientRequest.getScheme());
+            String host = clientFields.get(HttpHeader.HOST);
+            if (host != null)
+                headers.add(HttpHeader.X_FORWARDED_HOST, host);
+            String localName = clientRequest.getLocalName();
+            if (localName != null)
+                headers.add(HttpHeader.X_FORWARDED_SERVER, localName);
+        });
+    }
+
+    private HttpField viaField(HttpVersion version, HttpField clientViaField)
+    {
+        HttpField viaField = version == HttpVersion.HTTP_2 ? _viaField20 : version == HttpVersion.HTTP_1_1 ? _viaField11 : null;
+        String value = viaField != null ? viaField.getValue() : version.asString() + " " + _viaHost;
+        if (clientViaField != null && !StringUtil.isBlank(clientViaField.getValue()))
+            return new HttpField(HttpHeader.VIA, clientViaField.getValue() + ", " + value);
+        return viaField != null ? viaField : new HttpField(HttpHeader.VIA, value);
+    }
+
+    private Set<String> findConnectionHeaders(HttpFields clientFields)
+    {
+        // Any header listed by the Connection header must be removed:
+        // http://tools.ietf.org/html/rfc7230#section-6.1.
+        Set<String> connectionHeaders = null;
+        for (HttpField field : clientFields)
+        {
+            if (field.getHeader() != HttpHeader.CONNECTION)
+                continue;
+            for (String name : field.getValues())
+            {
+                if (connectionHeaders == null)
+                    connectionHeaders = new HashSet<>();
+                connectionHeaders.add(name.trim().toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return connectionHeaders;
+    }
+
+    /**
+     * <p>Copies the server response status and headers to the client response,
+     * removing the hop-by-hop ones.</p>
+     *
+     * @param serverResponse the response received from the server
+     * @param clientResponse the response to send to the client
+     */
+    protected void copyResponseHeaders(org.eclipse.jetty.client.api.Response serverResponse, Response clientResponse)
+    {
+        clientResponse.setStatus(serverResponse.getStatus());
+        HttpFields.Mutable clientFields = clientResponse.getHttpFields();
+        for (HttpField field : serverResponse.getHeaders())
+        {
+            HttpHeader header = field.getHeader();
+            if (header != null && HOP_HEADERS.contains(header))
+                continue;
+            // The Response tracks these headers, so they must be set via its API.
+            if (header == HttpHeader.CONTENT_LENGTH)
+                clientResponse.setContentLengthLong(field.getLongValue());
+            else if (header == HttpHeader.CONTENT_TYPE)
+                clientResponse.setContentType(field.getValue());
+            else
+                clientFields.add(field);
+        }
+    }
+
+    protected int proxyResponseStatus(Throwable failure)
+    {
+        return failure instanceof TimeoutException
+            ? HttpStatus.GATEWAY_TIMEOUT_504
+            : HttpStatus.BAD_GATEWAY_502;
+    }
+
+    protected void onProxyResponseFailure(Request clientRequest, Throwable failure)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} proxying failed {}", this, clientRequest, failure);
+
+        Response clientResponse = clientRequest.getResponse();
+        try
+        {
+            if (!clientResponse.isCommitted())
+            {
+                clientResponse.resetBuffer();
+                clientResponse.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+            }
+            clientResponse.sendError(proxyResponseStatus(failure));
+        }
+        catch (Exception e)
+        {
+            LOG.trace("IGNORED", e);
+            try
+            {
+                clientResponse.sendError(-1);
+            }
+            catch (Exception e2)
+            {
+                LOG.trace("IGNORED", e2);
+            }
+        }
+        finally
+        {
+            if (clientRequest.isAsyncStarted())
+                clientRequest.getAsyncContext().complete();
+        }
+    }
+
+    /**
+     * <p>Moves the request content buffers from the client connection to the proxy request.</p>
+     * <p>As an {@link HttpInput.Interceptor}, it retains a view of each raw content buffer:
+     * the raw content is only recycled by {@link HttpInput} when the view has been consumed,
+     * that is when the proxy request has written it to the server.</p>
+     */
+    private static class RequestContentPump extends IteratingCallback implements HttpInput.Interceptor, ReadListener
+    {
+        private final HttpInput _input;
+        private final AsyncRequestContent _content;
+        private HttpInput.Content _chunk;
+
+        private RequestContentPump(HttpInput input, AsyncRequestContent content)
+        {
+            _input = input;
+            _content = content;
+        }
+
+        @Override
+        public HttpInput.Content readFrom(HttpInput.Content content)
+        {
+            if (content.isSpecial() || content.isEmpty())
+                return content;
+            ByteBuffer view = content.getByteBuffer().slice();
+            content.skip(content.remaining());
+            _chunk = new HttpInput.Content(view);
+            return _chunk;
+        }
+
+        @Override
+        protected Action process() throws Throwable
+        {
+            if (!_input.isReady())
+                return Action.IDLE;
+
+            HttpInput.Content chunk = _chunk;
+            if (chunk == null)
+            {
+                // Only special content is not intercepted, read it to get the EOF or the failure.
+                if (_input.read() >= 0)
+                    throw new IOException("Unexpected content");
+                _content.close();
+                return Action.SUCCEEDED;
+            }
+
+            _chunk = null;
+            _content.offer(chunk.getByteBuffer(), this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        protected void onCompleteFailure(Throwable cause)
+        {
+            _content.fail(cause);
+        }
+
+        @Override
+        public void onDataAvailable()
+        {
+            iterate();
+        }
+
+        @Override
+        public void onAllDataRead()
+        {
+            iterate();
+        }
+
+        @Override
+        public void onError(Throwable failure)
+        {
+            failed(failure);
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.NON_BLOCKING;
+        }
+    }
+
+    private class ProxyResponseListener implements org.eclipse.jetty.client.api.Response.Listener
+    {
+        private final Request _clientRequest;
+        private final org.eclipse.jetty.client.api.Request _proxyRequest;
+        private final AsyncContext _asyncContext;
+        private final HttpOutput.Interceptor _output;
+
+        private ProxyResponseListener(Request clientRequest, org.eclipse.jetty.client.api.Request proxyRequest, AsyncContext asyncContext)
+        {
+            _clientRequest = clientRequest;
+            _proxyRequest = proxyRequest;
+            _asyncContext = asyncContext;
+            _output = clientRequest.getResponse().getHttpOutput().getInterceptor();
+        }
+
+        @Override
+        public void onHeaders(org.eclipse.jetty.client.api.Response serverResponse)
+        {
+            copyResponseHeaders(serverResponse, _clientRequest.getResponse());
+        }
+
+        @Override
+        public void onContent(org.eclipse.jetty.client.api.Response serverResponse, ByteBuffer content, Callback callback)
+        {
+            if (!content.hasRemaining())
+            {
+                callback.succeeded();
+                return;
+            }
+            // Write the server buffer as is, it is released when the callback completes.
+            _output.write(content, false, Callback.from(callback::succeeded, failure ->
+            {
+                callback.failed(failure);
+                serverResponse.abort(failure);
+            }));
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            if (result.isSucceeded())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} proxying successful {}", ProxyHandler.this, _clientRequest);
+                _asyncContext.complete();
+            }
+            else
+            {
+                onProxyResponseFailure(_clientRequest, result.getFailure());
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _proxyRequest);
+        }
+    }
+
+    /**
+     * <p>A {@link ProxyHandler} that proxies requests to a fixed server URI,
+     * optionally stripping a path prefix.</p>
+     * <p>For example, with {@code proxyTo="http://host:80/context"} and {@code prefix="/foo"},
+     * a request for {@code "/foo/bar"} is proxied to {@code "http://host:80/context/bar"}.</p>
+     */
+    public static class Reverse extends ProxyHandler
+    {
+        private final String _proxyTo;
+        private final String _prefix;
+
+        public Reverse(String proxyTo)
+        {
+            this(proxyTo, null);
+        }
+
+        public Reverse(String proxyTo, String prefix)
+        {
+            if (prefix != null && !prefix.startsWith("/"))
+                throw new IllegalArgumentException("Prefix must start with a '/'");
+            _proxyTo = proxyTo.endsWith("/") ? proxyTo.substring(0, proxyTo.length() - 1) : proxyTo;
+            _prefix = prefix == null ? "" : prefix;
+        }
+
+        @Override
+        protected String rewriteTarget(Request clientRequest)
+        {
+            String path = clientRequest.getRequestURI();
+            if (!path.startsWith(_prefix))
+                return null;
+
+            StringBuilder uri = new StringBuilder(_proxyTo);
+            String rest = path.substring(_prefix.length());
+            if (!rest.isEmpty())
+            {
+                if (!rest.startsWith("/"))
+                    uri.append("/");
+                uri.append(rest);
+            }
+
+            String query = clientRequest.getQueryString();
+            if (query != null)
+            {
+                // Is there at least one path segment ?
+                String separator = "://";
+                if (uri.indexOf("/", uri.indexOf(separator) + separator.length()) < 0)
+                    uri.append("/");
+                uri.append("?").append(query);
+            }
+            return URI.create(uri.toString()).normalize().toString();
+        }
+    }
+}
@@ -17,8 +17,12 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -26,6 +30,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.proxy.BalancerServlet.BalancerMember;
 import org.eclipse.jetty.rewrite.handler.RewriteHandler;
 import org.eclipse.jetty.rewrite.handler.VirtualHostRuleContainer;
 import org.eclipse.jetty.server.Server;
@@ -39,15 +45,20 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BalancerServletTest
 {
     private static final String CONTEXT_PATH = "/context";
     private static final String SERVLET_PATH = "/mapping";
 
+    private final Map<String, String> balancerParams = new HashMap<>();
     private boolean stickySessions;
+    private ServletHolder balancerServletHolder;
     private Server server1;
     private Server server2;
     private Server balancer;
@@ -71,17 +82,23 @@ public class BalancerServletTest
 
     protected void startBalancer(Class<? extends HttpServlet> servletClass) throws Exception
     {
-        server1 = createServer(new ServletHolder(servletClass), "node1");
+        startBalancer(new ServletHolder(servletClass), new ServletHolder(servletClass));
+    }
+
+    private void startBalancer(ServletHolder servletHolder1, ServletHolder servletHolder2) throws Exception
+    {
+        server1 = createServer(servletHolder1, "node1");
         server1.start();
 
-        server2 = createServer(new ServletHolder(servletClass), "node2");
+        server2 = createServer(servletHolder2, "node2");
         server2.start();
 
-        ServletHolder balancerServletHolder = new ServletHolder(BalancerServlet.class);
+        balancerServletHolder = new ServletHolder(BalancerServlet.class);
         balancerServletHolder.setInitParameter("stickySessions", String.valueOf(stickySessions));
         balancerServletHolder.setInitParameter("proxyPassReverse", "true");
         balancerServletHolder.setInitParameter("balancerMember." + "node1" + ".proxyTo", "http://localhost:" + getServerPort(server1));
         balancerServletHolder.setInitParameter("balancerMember." + "node2" + ".proxyTo", "http://localhost:" + getServerPort(server2));
+        balancerParams.forEach(balancerServletHolder::setInitParameter);
 
         balancer = createServer(balancerServletHolder, null);
         balancer.start();
@@ -111,6 +128,27 @@ public class BalancerServletTest
         return server.getURI().getPort();
     }
 
+    private BalancerMember getBalancerMember(String name) throws Exception
+    {
+        BalancerServlet balancerServlet = (BalancerServlet)balancerServletHolder.getServlet();
+        return balancerServlet.getBalancerMembers().stream()
+            .filter(member -> member.getName().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() - deadline > 0)
+                return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
     protected ContentResponse getBalancedResponse(String path) throws Exception
     {
         return client.newRequest("localhost", getServerPort(balancer))
@@ -184,6 +222,147 @@ public class BalancerServletTest
         assertThat(response.getContentAsString(), containsString("pathInfo='/test/\n'"));
     }
 
+    @Test
+    public void testLeastRequestsBalancerAvoidsBusyBackend() throws Exception
+    {
+        balancerParams.put("balancer", "leastRequests");
+        NodeServlet node1 = new NodeServlet("node1");
+        node1.hold = new CountDownLatch(1);
+        NodeServlet node2 = new NodeServlet("node2");
+        startBalancer(new ServletHolder(node1), new ServletHolder(node2));
+
+        try
+        {
+            // Send requests until one is held by node1.
+            for (int i = 0; i < 10 && node1.active.get() == 0; ++i)
+            {
+                client.newRequest("localhost", getServerPort(balancer))
+                    .path(CONTEXT_PATH + SERVLET_PATH + "/busy")
+                    .send(result -> {});
+                await(() -> node1.active.get() > 0 || node2.requests.get() > 0);
+                node2.requests.set(0);
+            }
+            BalancerMember member1 = getBalancerMember("node1");
+            assertTrue(await(() -> member1.getActiveRequests() > 0));
+
+            for (int i = 0; i < 5; ++i)
+            {
+                ContentResponse response = getBalancedResponse("/leastRequests");
+                assertEquals("node2", response.getContentAsString());
+            }
+        }
+        finally
+        {
+            node1.hold.countDown();
+        }
+    }
+
+    @Test
+    public void testEWMABalancerAvoidsSlowBackend() throws Exception
+    {
+        balancerParams.put("balancer", "ewma");
+        NodeServlet node1 = new NodeServlet("node1");
+        node1.delay = 250;
+        NodeServlet node2 = new NodeServlet("node2");
+        startBalancer(new ServletHolder(node1), new ServletHolder(node2));
+
+        for (int i = 0; i < 10; i++)
+        {
+            ContentResponse response = getBalancedResponse("/ewma");
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        // Only the request that measured node1 latency was sent to node1.
+        assertEquals(1, node1.requests.get());
+        assertEquals(9, node2.requests.get());
+        assertThat(getBalancerMember("node1").getLatency(), greaterThan(getBalancerMember("node2").getLatency()));
+    }
+
+    @Test
+    public void testPassiveHealthCheckEjectsFailingBackend() throws Exception
+    {
+        balancerParams.put("maxConsecutiveFailures", "2");
+        balancerParams.put("ejectionTime", "60000");
+        NodeServlet node1 = new NodeServlet("node1");
+        node1.status = HttpStatus.SERVICE_UNAVAILABLE_503;
+        NodeServlet node2 = new NodeServlet("node2");
+        startBalancer(new ServletHolder(node1), new ServletHolder(node2));
+
+        int failures = 0;
+        for (int i = 0; i < 10; i++)
+        {
+            ContentResponse response = getBalancedResponse("/passive");
+            if (response.getStatus() != HttpStatus.OK_200)
+                ++failures;
+        }
+
+        assertEquals(2, failures);
+        BalancerMember member1 = getBalancerMember("node1");
+        assertTrue(member1.isEjected());
+        assertEquals(1, member1.getEjections());
+        assertEquals(2, member1.getFailedRequests());
+        assertFalse(getBalancerMember("node2").isEjected());
+    }
+
+    @Test
+    public void testActiveHealthCheck() throws Exception
+    {
+        balancerParams.put("healthCheckPath", CONTEXT_PATH + SERVLET_PATH + "/health");
+        balancerParams.put("healthCheckInterval", "50");
+        NodeServlet node1 = new NodeServlet("node1");
+        node1.healthStatus = HttpStatus.SERVICE_UNAVAILABLE_503;
+        NodeServlet node2 = new NodeServlet("node2");
+        startBalancer(new ServletHolder(node1), new ServletHolder(node2));
+
+        BalancerMember member1 = getBalancerMember("node1");
+        assertTrue(await(() -> !member1.isHealthy()));
+        assertTrue(getBalancerMember("node2").isHealthy());
+
+        for (int i = 0; i < 5; i++)
+        {
+            ContentResponse response = getBalancedResponse("/active");
+            assertEquals("node2", response.getContentAsString());
+        }
+        assertEquals(0, node1.requests.get());
+
+        node1.healthStatus = HttpStatus.OK_200;
+        assertTrue(await(member1::isHealthy));
+
+        for (int i = 0; i < 4; i++)
+        {
+            getBalancedResponse("/active");
+        }
+        assertEquals(2, node1.requests.get());
+    }
+
+    @Test
+    public void testConsistentHashBalancer() throws Exception
+    {
+        balancerParams.put("balancer", "consistentHash");
+        balancerParams.put("hashHeader", "X-Key");
+        startBalancer(new ServletHolder(new NodeServlet("node1")), new ServletHolder(new NodeServlet("node2")));
+
+        Map<String, String> nodes = new HashMap<>();
+        for (int round = 0; round < 3; ++round)
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                String key = "key-" + i;
+                ContentResponse response = client.newRequest("localhost", getServerPort(balancer))
+                    .path(CONTEXT_PATH + SERVLET_PATH + "/hash")
+                    .headers(headers -> headers.put("X-Key", key))
+                    .timeout(5, TimeUnit.SECONDS)
+                    .send();
+                String node = response.getContentAsString();
+                String previous = nodes.putIfAbsent(key, node);
+                if (previous != null)
+                    assertEquals(previous, node, key);
+            }
+        }
+        assertTrue(nodes.containsValue("node1"));
+        assertTrue(nodes.containsValue("node2"));
+    }
+
     private String readFirstLine(byte[] responseBytes) throws IOException
     {
         BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(responseBytes)));
@@ -217,6 +396,54 @@ public class BalancerServletTest
         }
     }
 
+    public static final class NodeServlet extends HttpServlet
+    {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final String name;
+        private volatile CountDownLatch hold;
+        private volatile long delay;
+        private volatile int status = HttpStatus.OK_200;
+        private volatile int healthStatus = HttpStatus.OK_200;
+
+        public NodeServlet(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException
+        {
+            if ("/health".equals(req.getPathInfo()))
+            {
+                resp.setStatus(healthStatus);
+                return;
+            }
+
+            requests.incrementAndGet();
+            active.incrementAndGet();
+            try
+            {
+                CountDownLatch latch = hold;
+                if (latch != null)
+                    latch.await(15, TimeUnit.SECONDS);
+                if (delay > 0)
+                    Thread.sleep(delay);
+            }
+            catch (InterruptedException x)
+            {
+                throw new ServletException(x);
+            }
+            finally
+            {
+                active.decrementAndGet();
+            }
+            resp.setStatus(status);
+            resp.setContentType("text/plain");
+            resp.getWriter().print(name);
+        }
+    }
+
     public static final class RelocationServlet extends HttpServlet
     {
         @Override
@@ -0,0 +1,227 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConnectHandlerLoadTest extends AbstractConnectHandlerTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectHandlerLoadTest.class);
+
+    private void start(int tunnels, int contentLength) throws Exception
+    {
+        byte[] content = new byte[contentLength];
+        QueuedThreadPool serverThreads = new QueuedThreadPool(400);
+        serverThreads.setName("server");
+        server = new Server(serverThreads);
+        serverConnector = new ServerConnector(server);
+        serverConnector.setAcceptQueueSize(tunnels);
+        server.addConnector(serverConnector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.setHandled(true);
+                response.setContentLength(content.length);
+                response.getOutputStream().write(content);
+            }
+        });
+        server.start();
+
+        QueuedThreadPool proxyThreads = new QueuedThreadPool(400);
+        proxyThreads.setName("proxy");
+        proxy = new Server(proxyThreads);
+        proxyConnector = new ServerConnector(proxy);
+        proxyConnector.setAcceptQueueSize(tunnels);
+        proxy.addConnector(proxyConnector);
+        connectHandler = new ConnectHandler();
+        connectHandler.setIdleTimeout(TimeUnit.MINUTES.toMillis(1));
+        connectHandler.setConnectTimeout(TimeUnit.MINUTES.toMillis(1));
+        proxy.setHandler(connectHandler);
+        proxy.start();
+    }
+
+    @Tag("stress")
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000})
+    public void testConcurrentTunnelsThroughput(int tunnels) throws Exception
+    {
+        int contentLength = 256 * 1024;
+        start(tunnels, contentLength);
+
+        // Each tunnel needs 4 file descriptors: client, proxy downstream, proxy upstream and server.
+        long maxFileDescriptors = getMaxFileDescriptorCount();
+        Assumptions.assumeTrue(maxFileDescriptors > 0, "Unknown file descriptor limit");
+        Assumptions.assumeTrue(maxFileDescriptors > 4L * tunnels + 1024, "Not enough file descriptors: " + maxFileDescriptors);
+
+        String hostPort = "localhost:" + serverConnector.getLocalPort();
+        byte[] connect = ("CONNECT " + hostPort + " HTTP/1.1\r\n" +
+            "Host: " + hostPort + "\r\n" +
+            "\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] get = ("GET / HTTP/1.1\r\n" +
+            "Host: " + hostPort + "\r\n" +
+            "Connection: close\r\n" +
+            "\r\n").getBytes(StandardCharsets.UTF_8);
+
+        InetSocketAddress proxyAddress = new InetSocketAddress("localhost", proxyConnector.getLocalPort());
+        ByteBuffer input = ByteBuffer.allocateDirect(64 * 1024);
+        int completed = 0;
+        int failed = 0;
+        long received = 0;
+        long begin = System.nanoTime();
+        try (Selector selector = Selector.open())
+        {
+            for (int i = 0; i < tunnels; ++i)
+            {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(proxyAddress);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Tunnel(ByteBuffer.wrap(connect)));
+            }
+
+            long deadline = begin + TimeUnit.MINUTES.toNanos(5);
+            while (completed < tunnels && System.nanoTime() < deadline)
+            {
+                selector.select(1000);
+                for (SelectionKey key : selector.selectedKeys())
+                {
+                    SocketChannel channel = (SocketChannel)key.channel();
+                    Tunnel tunnel = (Tunnel)key.attachment();
+                    try
+                    {
+                        if (key.isConnectable())
+                        {
+                            channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_WRITE);
+                        }
+                        else if (key.isWritable())
+                        {
+                            channel.write(tunnel.output);
+                            if (!tunnel.output.hasRemaining())
+                                key.interestOps(SelectionKey.OP_READ);
+                        }
+                        else if (key.isReadable())
+                        {
+                            input.clear();
+                            int read = channel.read(input);
+                            if (read < 0)
+                            {
+                                ++completed;
+                                if (!tunnel.established)
+                                    ++failed;
+                                channel.close();
+                            }
+                            else if (tunnel.established)
+                            {
+                                received += read;
+                            }
+                            else
+                            {
+                                input.flip();
+                                tunnel.response.append(StandardCharsets.ISO_8859_1.decode(input));
+                                if (tunnel.response.indexOf("\r\n\r\n") >= 0)
+                                {
+                                    if (!tunnel.response.toString().startsWith("HTTP/1.1 200 "))
+                                        throw new IOException("Unexpected CONNECT response " + tunnel.response);
+                                    tunnel.established = true;
+                                    tunnel.output = ByteBuffer.wrap(get);
+                                    key.interestOps(SelectionKey.OP_WRITE);
+                                }
+                            }
+                        }
+                    }
+                    catch (IOException x)
+                    {
+                        LOG.debug("Tunnel failure", x);
+                        ++completed;
+                        ++failed;
+                        channel.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals(tunnels, completed);
+        assertEquals(0, failed);
+        // Each tunnel receives the response headers and the content.
+        assertEquals(received, connectHandler.getServerBytes());
+        long minReceived = (long)tunnels * contentLength;
+        if (received < minReceived)
+            throw new AssertionError("Received " + received + " < " + minReceived);
+
+        double mibs = received * 1_000_000_000.0 / elapsed / 1024 / 1024;
+        LOG.info("{} tunnels: {} MiB in {} ms, {} MiB/s, max concurrent tunnels={}",
+            tunnels,
+            received / 1024 / 1024,
+            TimeUnit.NANOSECONDS.toMillis(elapsed),
+            String.format("%.1f", mibs),
+            connectHandler.getTunnelsMax());
+    }
+
+    private static long getMaxFileDescriptorCount()
+    {
+        // Read the platform specific attribute via JMX, rather than
+        // depending on com.sun.management.UnixOperatingSystemMXBean.
+        try
+        {
+            ObjectName name = new ObjectName(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME);
+            Object value = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "MaxFileDescriptorCount");
+            return value instanceof Number ? ((Number)value).longValue() : -1;
+        }
+        catch (Exception x)
+        {
+            return -1;
+        }
+    }
+
+    private static class Tunnel
+    {
+        private final StringBuilder response = new StringBuilder();
+        private ByteBuffer output;
+        private boolean established;
+
+        private Tunnel(ByteBuffer output)
+        {
+            this.output = output;
+        }
+    }
+}
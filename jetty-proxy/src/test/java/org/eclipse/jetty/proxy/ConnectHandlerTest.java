@@ -26,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Locale;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -140,6 +141,53 @@ public class ConnectHandlerTest extends AbstractConnectHandlerTest
         }
     }
 
+    @Test
+    public void testCONNECTAndGETStatistics() throws Exception
+    {
+        String hostPort = "localhost:" + serverConnector.getLocalPort();
+        String request =
+            "CONNECT " + hostPort + " HTTP/1.1\r\n" +
+                "Host: " + hostPort + "\r\n" +
+                "\r\n";
+        try (Socket socket = newSocket())
+        {
+            OutputStream output = socket.getOutputStream();
+            InputStream input = socket.getInputStream();
+
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            HttpTester.Input in = HttpTester.from(input);
+            HttpTester.Response response = HttpTester.parseResponse(in);
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals(1, connectHandler.getTunnels());
+
+            request =
+                "GET /echo HTTP/1.1\r\n" +
+                    "Host: " + hostPort + "\r\n" +
+                    "\r\n";
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            response = HttpTester.parseResponse(in);
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("GET /echo", response.getContent());
+
+            assertEquals(request.length(), connectHandler.getClientBytes());
+            assertTrue(connectHandler.getServerBytes() > response.getContent().length());
+        }
+
+        // Wait for the tunnel to be closed.
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connectHandler.getTunnels() > 0 && System.nanoTime() < timeout)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(0, connectHandler.getTunnels());
+        assertEquals(1, connectHandler.getTunnelsMax());
+        assertEquals(1, connectHandler.getTunnelsTotal());
+    }
+
     @Test
     public void testProxyWhiteList() throws Exception
     {
@@ -0,0 +1,319 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.BytesRequestContent;
+import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProxyHandlerTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyHandlerTest.class);
+
+    private Server server;
+    private ServerConnector serverConnector;
+    private Server proxy;
+    private ServerConnector proxyConnector;
+    private HttpClient client;
+
+    private void startServer(Handler handler) throws Exception
+    {
+        QueuedThreadPool serverPool = new QueuedThreadPool();
+        serverPool.setName("server");
+        server = new Server(serverPool);
+        serverConnector = new ServerConnector(server);
+        server.addConnector(serverConnector);
+        server.setHandler(handler);
+        server.start();
+    }
+
+    private void startProxy(Handler handler) throws Exception
+    {
+        QueuedThreadPool proxyPool = new QueuedThreadPool();
+        proxyPool.setName("proxy");
+        proxy = new Server(proxyPool);
+
+        HttpConfiguration configuration = new HttpConfiguration();
+        configuration.setSendDateHeader(false);
+        configuration.setSendServerVersion(false);
+        proxyConnector = new ServerConnector(proxy, new HttpConnectionFactory(configuration));
+        proxy.addConnector(proxyConnector);
+        proxy.setHandler(handler);
+        proxy.start();
+    }
+
+    private void startClient() throws Exception
+    {
+        QueuedThreadPool clientPool = new QueuedThreadPool();
+        clientPool.setName("client");
+        client = new HttpClient();
+        client.setExecutor(clientPool);
+        client.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+        if (proxy != null)
+            proxy.stop();
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testGET() throws Exception
+    {
+        AtomicReference<String> viaRef = new AtomicReference<>();
+        startServer(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.setHandled(true);
+                viaRef.set(request.getHeader(HttpHeader.VIA.asString()));
+                response.setHeader("X-Path", request.getRequestURI() + "?" + request.getQueryString());
+                response.setContentType("text/plain");
+                response.getWriter().print("hello");
+            }
+        });
+        startProxy(new ProxyHandler.Reverse("http://localhost:" + serverConnector.getLocalPort() + "/app", "/proxy"));
+        startClient();
+
+        ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/proxy/path?a=b")
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals("/app/path?a=b", response.getHeaders().get("X-Path"));
+        assertEquals("text/plain", response.getMediaType());
+        assertNotNull(viaRef.get());
+    }
+
+    @Test
+    public void testNotProxiedRequestIsNotHandled() throws Exception
+    {
+        startServer(new EmptyServerHandler());
+        startProxy(new ProxyHandler.Reverse("http://localhost:" + serverConnector.getLocalPort(), "/proxy"));
+        startClient();
+
+        ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/other")
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(HttpStatus.NOT_FOUND_404, response.getStatus());
+    }
+
+    @Test
+    public void testHopByHopHeadersRemoved() throws Exception
+    {
+        startServer(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                jettyRequest.setHandled(true);
+                if (request.getHeader("X-Hop") != null || request.getHeader(HttpHeader.PROXY_AUTHORIZATION.asString()) != null)
+                    response.setStatus(HttpStatus.BAD_REQUEST_400);
+                response.setHeader("X-End", request.getHeader("X-End"));
+            }
+        });
+        startProxy(new ProxyHandler.Reverse("http://localhost:" + serverConnector.getLocalPort()));
+        startClient();
+
+        ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+            .headers(headers -> headers
+                .put(HttpHeader.CONNECTION, "X-Hop")
+                .put("X-Hop", "hop")
+                .put(HttpHeader.PROXY_AUTHORIZATION, "secret")
+                .put("X-End", "end"))
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("end", response.getHeaders().get("X-End"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1024, 16 * 1024 * 1024})
+    public void testPOSTEcho(int length) throws Exception
+    {
+        startServer(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.setHandled(true);
+                IO.copy(request.getInputStream(), response.getOutputStream());
+            }
+        });
+        startProxy(new ProxyHandler.Reverse("http://localhost:" + serverConnector.getLocalPort()));
+        startClient();
+
+        byte[] content = new byte[length];
+        new Random().nextBytes(content);
+        org.eclipse.jetty.client.api.Request request = client.newRequest("localhost", proxyConnector.getLocalPort())
+            .method(HttpMethod.POST)
+            .body(new BytesRequestContent(content))
+            .timeout(15, TimeUnit.SECONDS);
+        FutureResponseListener listener = new FutureResponseListener(request, length);
+        request.send(listener);
+        ContentResponse response = listener.get(15, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertArrayEquals(content, response.getContent());
+    }
+
+    @Test
+    public void testServerUnavailable() throws Exception
+    {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0))
+        {
+            port = serverSocket.getLocalPort();
+        }
+        startProxy(new ProxyHandler.Reverse("http://localhost:" + port));
+        startClient();
+
+        ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(HttpStatus.BAD_GATEWAY_502, response.getStatus());
+        assertNull(response.getHeaders().get(HttpHeader.VIA));
+    }
+
+    @Tag("stress")
+    @ParameterizedTest
+    @ValueSource(strings = {"ProxyServlet", "ProxyHandler"})
+    public void testThroughput(String proxyType) throws Exception
+    {
+        startServer(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                jettyRequest.setHandled(true);
+                IO.copy(request.getInputStream(), response.getOutputStream());
+            }
+        });
+        String proxyTo = "http://localhost:" + serverConnector.getLocalPort();
+        if ("ProxyHandler".equals(proxyType))
+        {
+            startProxy(new ProxyHandler.Reverse(proxyTo));
+        }
+        else
+        {
+            ServletContextHandler context = new ServletContextHandler();
+            ServletHolder holder = context.addServlet(ProxyServlet.Transparent.class, "/*");
+            holder.setInitParameter("proxyTo", proxyTo);
+            startProxy(context);
+        }
+        startClient();
+
+        int concurrency = 16;
+        int iterations = 2000;
+        byte[] content = new byte[64 * 1024];
+        new Random().nextBytes(content);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(concurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < concurrency; ++i)
+        {
+            new Thread(() ->
+            {
+                try
+                {
+                    for (int j = 0; j < iterations && failure.get() == null; ++j)
+                    {
+                        long start = System.nanoTime();
+                        ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+                            .method(HttpMethod.POST)
+                            .body(new BytesRequestContent(content))
+                            .timeout(15, TimeUnit.SECONDS)
+                            .send();
+                        latencies.add(System.nanoTime() - start);
+                        if (response.getStatus() != HttpStatus.OK_200 || response.getContent().length != content.length)
+                            throw new IllegalStateException("Unexpected response " + response);
+                    }
+                }
+                catch (Throwable x)
+                {
+                    failure.compareAndSet(null, x);
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get(sorted.size() * 99 / 100);
+        double throughput = sorted.size() * 1_000_000_000.0 / elapsed;
+        LOG.info("{}: {} req/s, p99={} µs", proxyType, String.format("%.0f", throughput), TimeUnit.NANOSECONDS.toMicros(p99));
+    }
+}
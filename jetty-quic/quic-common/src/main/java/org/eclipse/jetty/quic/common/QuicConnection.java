@@ -17,10 +17,13 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EventListener;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
@@ -32,9 +35,11 @@ import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.DatagramChannelEndPoint;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.quic.common.internal.QuicErrorCode;
+import org.eclipse.jetty.quic.quiche.DatagramBatch;
 import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.AutoLock;
@@ -50,6 +55,9 @@ import org.slf4j.LoggerFactory;
  * {@link QuicSession}, and the received bytes are then passed to the {@link QuicSession} for processing.</p>
  * <p>On the receive side, one QuicConnection <em>fans-out</em> to multiple {@link QuicSession}s.</p>
  * <p>On the send side, many {@link QuicSession}s <em>fan-in</em> to one QuicConnection.</p>
+ * <p>When the {@link #setDatagramBatchSize(int) datagram batch size} is greater than one and
+ * a {@link DatagramBatch} is available for the platform, many datagrams are received and sent
+ * with a single system call; otherwise, datagrams are received and sent via the {@link DatagramChannelEndPoint}.</p>
  */
 public abstract class QuicConnection extends AbstractConnection
 {
@@ -63,9 +71,16 @@ public abstract class QuicConnection extends AbstractConnection
     private final AdaptiveExecutionStrategy strategy;
     private final Flusher flusher = new Flusher();
     private final Callback fillableCallback = new FillableCallback();
+    // Only accessed by the producer thread.
+    private final ByteBuffer[] batchBuffers = new ByteBuffer[1];
+    private final SocketAddress[] batchPeers = new SocketAddress[1];
+    private final Queue<Datagram> forwarded = new ConcurrentLinkedQueue<>();
     private int outputBufferSize = 2048;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
+    private int datagramBatchSize = 1;
+    private boolean useSegmentOffload;
+    private volatile DatagramBatch datagramBatch;
 
     protected QuicConnection(Executor executor, Scheduler scheduler, ByteBufferPool byteBufferPool, EndPoint endPoint)
     {
@@ -123,6 +138,40 @@ public abstract class QuicConnection extends AbstractConnection
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the max number of datagrams received or sent at once
+     */
+    public int getDatagramBatchSize()
+    {
+        return datagramBatchSize;
+    }
+
+    /**
+     * <p>Sets the max number of datagrams received or sent at once.</p>
+     * <p>A value of {@code 1} disables batched datagram I/O.</p>
+     *
+     * @param datagramBatchSize the max number of datagrams received or sent at once
+     */
+    public void setDatagramBatchSize(int datagramBatchSize)
+    {
+        if (datagramBatchSize < 1)
+            throw new IllegalArgumentException("Invalid datagram batch size " + datagramBatchSize);
+        this.datagramBatchSize = datagramBatchSize;
+    }
+
+    /**
+     * @return whether UDP segmentation offload (GSO/GRO) is used for batched datagram I/O
+     */
+    public boolean isUseSegmentOffload()
+    {
+        return useSegmentOffload;
+    }
+
+    public void setUseSegmentOffload(boolean useSegmentOffload)
+    {
+        this.useSegmentOffload = useSegmentOffload;
+    }
+
     public Collection<QuicSession> getQuicSessions()
     {
         return List.copyOf(sessions.values());
@@ -148,6 +197,10 @@ public abstract class QuicConnection extends AbstractConnection
     public void onOpen()
     {
         super.onOpen();
+        int maxDatagramSize = Math.max(getInputBufferSize(), getOutputBufferSize());
+        datagramBatch = DatagramBatch.newDatagramBatch(getEndPoint().getChannel(), getDatagramBatchSize(), maxDatagramSize, isUseSegmentOffload());
+        if (LOG.isDebugEnabled())
+            LOG.debug("datagram batch {} on {}", datagramBatch, this);
         LifeCycle.start(strategy);
     }
 
@@ -155,6 +208,12 @@ public abstract class QuicConnection extends AbstractConnection
     public void onClose(Throwable cause)
     {
         LifeCycle.stop(strategy);
+        IO.close(datagramBatch);
+        Datagram datagram;
+        while ((datagram = forwarded.poll()) != null)
+        {
+            byteBufferPool.release(datagram.cipherBuffer);
+        }
         super.onClose(cause);
     }
 
@@ -210,6 +269,38 @@ public abstract class QuicConnection extends AbstractConnection
 
     protected abstract QuicSession createSession(SocketAddress remoteAddress, ByteBuffer cipherBuffer) throws IOException;
 
+    /**
+     * <p>Forwards a datagram for a connection ID that is not known by this QuicConnection
+     * to the QuicConnection that owns the connection ID, if any.</p>
+     * <p>This implementation returns {@code false}.</p>
+     *
+     * @param connectionId the connection ID of the datagram
+     * @param remoteAddress the remote address of the datagram
+     * @param cipherBuffer the datagram bytes, not consumed by this method
+     * @return whether the datagram has been forwarded
+     * @see #receiveForwarded(QuicheConnectionId, SocketAddress, ByteBuffer)
+     */
+    protected boolean forward(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+    {
+        return false;
+    }
+
+    /**
+     * <p>Receives a datagram that has been forwarded by another QuicConnection.</p>
+     * <p>The datagram is processed asynchronously by the thread that receives the datagrams of this
+     * QuicConnection, possibly creating a new {@link QuicSession} like received datagrams do, and the
+     * buffer is then released to this QuicConnection's {@link ByteBufferPool}.</p>
+     *
+     * @param connectionId the connection ID of the datagram
+     * @param remoteAddress the remote address of the datagram
+     * @param cipherBuffer the datagram bytes, acquired from this QuicConnection's {@link ByteBufferPool}
+     */
+    public void receiveForwarded(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+    {
+        forwarded.offer(new Datagram(connectionId, remoteAddress, cipherBuffer));
+        strategy.dispatch();
+    }
+
     public void write(Callback callback, SocketAddress remoteAddress, ByteBuffer... buffers)
     {
         flusher.offer(callback, remoteAddress, buffers);
@@ -217,6 +308,10 @@ public abstract class QuicConnection extends AbstractConnection
 
     private Runnable receiveAndProcess()
     {
+        Runnable forwardedTask = processForwarded();
+        if (forwardedTask != null)
+            return forwardedTask;
+
         boolean interested = isFillInterested();
         if (LOG.isDebugEnabled())
             LOG.debug("receiveAndProcess() fillInterested={}", interested);
@@ -229,7 +324,7 @@ public abstract class QuicConnection extends AbstractConnection
             while (true)
             {
                 BufferUtil.clear(cipherBuffer);
-                SocketAddress remoteAddress = getEndPoint().receive(cipherBuffer);
+                SocketAddress remoteAddress = receive(cipherBuffer);
                 int fill = remoteAddress == DatagramChannelEndPoint.EOF ? -1 : cipherBuffer.remaining();
                 if (LOG.isDebugEnabled())
                     LOG.debug("filled cipher buffer with {} byte(s)", fill);
@@ -263,33 +358,17 @@ public abstract class QuicConnection extends AbstractConnection
                 QuicSession session = sessions.get(quicheConnectionId);
                 if (session == null)
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("packet is for unknown session, trying to create a new one");
-                    session = createSession(remoteAddress, cipherBuffer);
-                    if (session != null)
+                    if (forward(quicheConnectionId, remoteAddress, cipherBuffer))
                     {
                         if (LOG.isDebugEnabled())
-                            LOG.debug("session created");
-                        session.setConnectionId(quicheConnectionId);
-                        session.setIdleTimeout(getEndPoint().getIdleTimeout());
-                        sessions.put(quicheConnectionId, session);
-                        listeners.forEach(session::addEventListener);
-                        LifeCycle.start(session);
-
-                        // Session creation may have generated a task.
-                        Runnable task = session.pollTask();
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("processing creation task {} on {}", task, session);
-                        if (task != null)
-                        {
-                            byteBufferPool.release(cipherBuffer);
-                            return task;
-                        }
+                            LOG.debug("packet forwarded for connection ID {}", quicheConnectionId);
+                        continue;
                     }
-                    else
+                    Runnable task = newSession(quicheConnectionId, remoteAddress, cipherBuffer);
+                    if (task != null)
                     {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("session not created");
+                        byteBufferPool.release(cipherBuffer);
+                        return task;
                     }
                     continue;
                 }
@@ -312,6 +391,85 @@ public abstract class QuicConnection extends AbstractConnection
         }
     }
 
+    private Runnable processForwarded()
+    {
+        while (true)
+        {
+            Datagram datagram = forwarded.poll();
+            if (datagram == null)
+                return null;
+            QuicSession session = sessions.get(datagram.connectionId);
+            if (LOG.isDebugEnabled())
+                LOG.debug("processing forwarded packet for {} on {}", session, this);
+            Runnable task;
+            if (session == null)
+            {
+                // The forwarded packet may create a new session, for
+                // example if it has been retried by this QuicConnection.
+                try
+                {
+                    task = newSession(datagram.connectionId, datagram.remoteAddress, datagram.cipherBuffer);
+                }
+                catch (Throwable x)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("could not create session for forwarded packet on {}", this, x);
+                    task = null;
+                }
+            }
+            else
+            {
+                task = process(session, datagram.remoteAddress, datagram.cipherBuffer);
+            }
+            byteBufferPool.release(datagram.cipherBuffer);
+            if (task != null)
+                return task;
+        }
+    }
+
+    private Runnable newSession(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("packet is for unknown session, trying to create a new one");
+        QuicSession session = createSession(remoteAddress, cipherBuffer);
+        if (session == null)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("session not created");
+            return null;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("session created");
+        session.setConnectionId(connectionId);
+        session.setIdleTimeout(getEndPoint().getIdleTimeout());
+        sessions.put(connectionId, session);
+        listeners.forEach(session::addEventListener);
+        LifeCycle.start(session);
+
+        // Session creation may have generated a task.
+        Runnable task = session.pollTask();
+        if (LOG.isDebugEnabled())
+            LOG.debug("processing creation task {} on {}", task, session);
+        return task;
+    }
+
+    private SocketAddress receive(ByteBuffer cipherBuffer) throws IOException
+    {
+        DatagramBatch batch = datagramBatch;
+        if (batch != null)
+        {
+            // The batch buffers the datagrams received by a single
+            // system call and returns them one by one.
+            batchBuffers[0] = cipherBuffer;
+            int received = batch.receive(batchBuffers, batchPeers);
+            batchBuffers[0] = null;
+            if (received > 0)
+                return batchPeers[0];
+        }
+        return getEndPoint().receive(cipherBuffer);
+    }
+
     private Runnable process(QuicSession session, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
     {
         try
@@ -327,7 +485,6 @@ public abstract class QuicConnection extends AbstractConnection
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("process failure for {}", session, x);
-            byteBufferPool.release(cipherBuffer);
             session.onFailure(x);
             return null;
         }
@@ -363,7 +520,7 @@ public abstract class QuicConnection extends AbstractConnection
         }
 
         @Override
-        protected Action process()
+        protected Action process() throws IOException
         {
             try (AutoLock l = lock.lock())
             {
@@ -372,7 +529,22 @@ public abstract class QuicConnection extends AbstractConnection
             if (entry == null)
                 return Action.IDLE;
 
-            getEndPoint().write(this, entry.address, entry.buffers);
+            ByteBuffer[] buffers = entry.buffers;
+            DatagramBatch batch = datagramBatch;
+            if (batch != null && buffers.length > 1)
+            {
+                int sent = batch.send(entry.address, buffers);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("sent {}/{} datagram(s) in batch on {}", sent, buffers.length, QuicConnection.this);
+                if (sent == buffers.length)
+                {
+                    succeeded();
+                    return Action.SCHEDULED;
+                }
+                // Let the EndPoint write the remaining datagrams.
+                buffers = Arrays.copyOfRange(buffers, sent, buffers.length);
+            }
+            getEndPoint().write(this, entry.address, buffers);
             return Action.SCHEDULED;
         }
 
@@ -417,6 +589,20 @@ public abstract class QuicConnection extends AbstractConnection
         }
     }
 
+    private static class Datagram
+    {
+        private final QuicheConnectionId connectionId;
+        private final SocketAddress remoteAddress;
+        private final ByteBuffer cipherBuffer;
+
+        private Datagram(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+        {
+            this.connectionId = connectionId;
+            this.remoteAddress = remoteAddress;
+            this.cipherBuffer = cipherBuffer;
+        }
+    }
+
     private class FillableCallback implements Callback
     {
         @Override
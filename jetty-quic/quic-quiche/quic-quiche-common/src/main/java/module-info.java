@@ -18,5 +18,6 @@ module org.eclipse.jetty.quic.quiche
 
     exports org.eclipse.jetty.quic.quiche;
 
+    uses org.eclipse.jetty.quic.quiche.DatagramBatchBinding;
     uses org.eclipse.jetty.quic.quiche.QuicheBinding;
 }
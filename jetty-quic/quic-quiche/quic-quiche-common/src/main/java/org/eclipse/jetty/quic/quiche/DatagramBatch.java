@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.quiche;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Comparator;
+import java.util.ServiceLoader;
+
+import org.eclipse.jetty.util.TypeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Sends and receives many datagrams with a single system call, for example
+ * with {@code sendmmsg()} and {@code recvmmsg()} on Linux.</p>
+ * <p>A DatagramBatch operates on the file descriptor of a non-blocking {@link DatagramChannel},
+ * which remains responsible for the selection of I/O readiness and for reporting I/O errors:
+ * when a batched operation cannot be performed, {@link #receive(ByteBuffer[], SocketAddress[])}
+ * and {@link #send(SocketAddress, ByteBuffer[])} return {@code 0}, and callers fall back
+ * to the {@link DatagramChannel} methods.</p>
+ * <p>Receives and sends may be performed concurrently, but each of them must be performed
+ * by one thread at a time.</p>
+ */
+public abstract class DatagramBatch implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DatagramBatch.class);
+
+    /**
+     * @param channel the channel to send and receive datagrams with
+     * @param maxDatagrams the max number of datagrams sent or received per system call
+     * @param maxDatagramSize the max size of a single datagram
+     * @param segmentOffload whether to use UDP segmentation offload (GSO/GRO), when supported
+     * @return a new DatagramBatch, or null if batched datagram I/O is not available
+     */
+    public static DatagramBatch newDatagramBatch(DatagramChannel channel, int maxDatagrams, int maxDatagramSize, boolean segmentOffload)
+    {
+        DatagramBatchBinding binding = Binding.DATAGRAM_BATCH_BINDING;
+        if (binding == null || maxDatagrams <= 1)
+            return null;
+        try
+        {
+            return binding.newDatagramBatch(channel, maxDatagrams, maxDatagramSize, segmentOffload);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("could not create datagram batch for {}", channel, x);
+            return null;
+        }
+    }
+
+    /**
+     * <p>Receives up to {@code buffers.length} datagrams.</p>
+     * <p>For each datagram received, the corresponding buffer is filled in flush mode
+     * and the corresponding element of {@code peers} is set to the sender address.</p>
+     *
+     * @param buffers the buffers to fill, one per datagram
+     * @param peers the array to fill with the sender addresses
+     * @return the number of datagrams received, or {@code 0} if none could be received
+     * @throws IOException if the receive fails
+     */
+    public abstract int receive(ByteBuffer[] buffers, SocketAddress[] peers) throws IOException;
+
+    /**
+     * <p>Sends each of the given buffers as a datagram to the given address.</p>
+     * <p>The buffers that are sent are fully consumed; sending stops at the first buffer
+     * that could not be sent, for example because the socket send buffer is full.</p>
+     *
+     * @param address the address to send the datagrams to
+     * @param buffers the buffers to send, one per datagram
+     * @return the number of buffers that have been sent
+     * @throws IOException if the send fails
+     */
+    public abstract int send(SocketAddress address, ByteBuffer[] buffers) throws IOException;
+
+    /**
+     * @return the number of datagrams received that were larger than the receive buffers,
+     * and that have been discarded rather than returned truncated
+     */
+    public abstract long getTruncatedDatagrams();
+
+    /**
+     * @return whether UDP segmentation offload is in use
+     */
+    public abstract boolean isSegmentOffload();
+
+    @Override
+    public abstract void close();
+
+    private static class Binding
+    {
+        // Lazily initialized in a holder class, as bindings are subclasses of DatagramBatch.
+        private static final DatagramBatchBinding DATAGRAM_BATCH_BINDING;
+
+        static
+        {
+            DATAGRAM_BATCH_BINDING = TypeUtil.serviceStream(ServiceLoader.load(DatagramBatchBinding.class))
+                .filter(DatagramBatchBinding::isUsable)
+                .min(Comparator.comparingInt(DatagramBatchBinding::priority))
+                .orElse(null);
+            if (LOG.isDebugEnabled())
+                LOG.debug("using datagram batch binding implementation: {}", DATAGRAM_BATCH_BINDING);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.quiche;
+
+import java.io.IOException;
+import java.nio.channels.DatagramChannel;
+
+public interface DatagramBatchBinding
+{
+    boolean isUsable();
+    int priority();
+
+    /**
+     * @param channel the channel to send and receive datagrams with
+     * @param maxDatagrams the max number of datagrams sent or received per system call
+     * @param maxDatagramSize the max size of a single datagram
+     * @param segmentOffload whether to use UDP segmentation offload (GSO/GRO)
+     * @return a new {@link DatagramBatch}, or null if the channel is not supported
+     * @throws IOException if the {@link DatagramBatch} cannot be created
+     */
+    DatagramBatch newDatagramBatch(DatagramChannel channel, int maxDatagrams, int maxDatagramSize, boolean segmentOffload) throws IOException;
+}
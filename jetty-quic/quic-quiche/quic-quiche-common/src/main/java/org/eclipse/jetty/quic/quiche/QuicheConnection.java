@@ -66,7 +66,19 @@ public abstract class QuicheConnection
      */
     public static boolean negotiate(TokenMinter tokenMinter, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
     {
-        return QUICHE_BINDING.negotiate(tokenMinter, packetRead, packetToSend);
+        return negotiate(tokenMinter, null, packetRead, packetToSend);
+    }
+
+    /**
+     * Fully consumes the {@code packetRead} buffer.
+     * @param connectionIdGenerator the generator of the connection ID the server will use,
+     * or null to use a random connection ID
+     * @return true if a negotiation packet was written to the {@code packetToSend} buffer, false if negotiation failed
+     * and the {@code packetRead} buffer can be dropped.
+     */
+    public static boolean negotiate(TokenMinter tokenMinter, ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return QUICHE_BINDING.negotiate(tokenMinter, connectionIdGenerator, packetRead, packetToSend);
     }
 
     /**
@@ -182,6 +194,15 @@ public abstract class QuicheConnection
         byte[] validate(byte[] token, int len);
     }
 
+    public interface ConnectionIdGenerator
+    {
+        /**
+         * Fills the given array with the bytes of a new connection ID.
+         * @param connectionId the array to fill, {@link Quiche#QUICHE_MAX_CONN_ID_LEN} bytes long.
+         */
+        void generate(byte[] connectionId);
+    }
+
     public static class TokenValidationException extends IOException
     {
         public TokenValidationException(String msg)
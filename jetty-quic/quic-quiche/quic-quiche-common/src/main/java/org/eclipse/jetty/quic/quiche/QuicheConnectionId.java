@@ -50,6 +50,23 @@ public class QuicheConnectionId
         return connectionId;
     }
 
+    /**
+     * @return the length in bytes of this connection ID
+     */
+    public int length()
+    {
+        return dcid.length;
+    }
+
+    /**
+     * @param index the index of the byte to return
+     * @return the byte at the given index of this connection ID
+     */
+    public byte byteAt(int index)
+    {
+        return dcid[index];
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -18,6 +18,8 @@ module org.eclipse.jetty.quic.quiche.foreign.incubator
     requires org.eclipse.jetty.util;
     requires org.slf4j;
 
+    provides org.eclipse.jetty.quic.quiche.DatagramBatchBinding with
+        org.eclipse.jetty.quic.quiche.foreign.incubator.ForeignIncubatorDatagramBatchBinding;
     provides org.eclipse.jetty.quic.quiche.QuicheBinding with
         org.eclipse.jetty.quic.quiche.foreign.incubator.ForeignIncubatorQuicheBinding;
 }
@@ -0,0 +1,616 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.quiche.foreign.incubator;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.incubator.foreign.CLinker;
+import jdk.incubator.foreign.FunctionDescriptor;
+import jdk.incubator.foreign.MemoryAddress;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+import org.eclipse.jetty.quic.quiche.DatagramBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static jdk.incubator.foreign.CLinker.C_INT;
+import static jdk.incubator.foreign.CLinker.C_POINTER;
+
+/**
+ * <p>A {@link DatagramBatch} for Linux that uses {@code recvmmsg()} and {@code sendmmsg()},
+ * and optionally {@code UDP_GRO} and {@code UDP_SEGMENT}.</p>
+ * <p>The datagrams are copied to and from native memory that is allocated once,
+ * so that the kernel structures can be prepared without per-call allocations.</p>
+ * <p>The file descriptor of the {@link DatagramChannel} is obtained from the JDK internals,
+ * which requires {@code --add-exports java.base/sun.nio.ch=org.eclipse.jetty.quic.quiche.foreign.incubator}
+ * (or {@code ALL-UNNAMED} when running from the class-path).</p>
+ */
+public class ForeignIncubatorDatagramBatch extends DatagramBatch
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ForeignIncubatorDatagramBatch.class);
+
+    private static final int AF_INET = 2;
+    private static final int AF_INET6 = 10;
+    private static final int SOL_UDP = 17;
+    private static final int UDP_SEGMENT = 103;
+    private static final int UDP_GRO = 104;
+    private static final int MSG_TRUNC = 0x20;
+    private static final int MSG_DONTWAIT = 0x40;
+    // The max number of segments and bytes the kernel accepts in a single UDP_SEGMENT send.
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MAX_SEGMENTS_LENGTH = 65507;
+    private static final int GRO_BUFFER_SIZE = 65536;
+
+    // The LP64 layouts of struct mmsghdr, struct iovec, struct sockaddr_in6 and struct cmsghdr.
+    private static final int MMSGHDR_SIZE = 64;
+    private static final int MSG_NAME = 0;
+    private static final int MSG_NAMELEN = 8;
+    private static final int MSG_IOV = 16;
+    private static final int MSG_IOVLEN = 24;
+    private static final int MSG_CONTROL = 32;
+    private static final int MSG_CONTROLLEN = 40;
+    private static final int MSG_FLAGS = 48;
+    private static final int MSG_LEN = 56;
+    private static final int IOVEC_SIZE = 16;
+    private static final int SOCKADDR_SIZE = 32;
+    private static final int CMSG_HEADER_SIZE = 16;
+    private static final int CMSG_SPACE = 24;
+
+    private static final MethodHandle SENDMMSG;
+    private static final MethodHandle RECVMMSG;
+    private static final MethodHandle SETSOCKOPT;
+    private static final MethodHandle GETSOCKNAME;
+
+    static
+    {
+        MethodHandle sendmmsg = null;
+        MethodHandle recvmmsg = null;
+        MethodHandle setsockopt = null;
+        MethodHandle getsockname = null;
+        if (System.getProperty("os.name", "").startsWith("Linux"))
+        {
+            try
+            {
+                sendmmsg = downcallHandle("sendmmsg",
+                    MethodType.methodType(int.class, int.class, MemoryAddress.class, int.class, int.class),
+                    FunctionDescriptor.of(C_INT, C_INT, C_POINTER, C_INT, C_INT));
+                recvmmsg = downcallHandle("recvmmsg",
+                    MethodType.methodType(int.class, int.class, MemoryAddress.class, int.class, int.class, MemoryAddress.class),
+                    FunctionDescriptor.of(C_INT, C_INT, C_POINTER, C_INT, C_INT, C_POINTER));
+                setsockopt = downcallHandle("setsockopt",
+                    MethodType.methodType(int.class, int.class, int.class, int.class, MemoryAddress.class, int.class),
+                    FunctionDescriptor.of(C_INT, C_INT, C_INT, C_INT, C_POINTER, C_INT));
+                getsockname = downcallHandle("getsockname",
+                    MethodType.methodType(int.class, int.class, MemoryAddress.class, MemoryAddress.class),
+                    FunctionDescriptor.of(C_INT, C_INT, C_POINTER, C_POINTER));
+            }
+            catch (Throwable x)
+            {
+                LOG.debug("could not link datagram batch functions", x);
+                sendmmsg = null;
+            }
+        }
+        SENDMMSG = sendmmsg;
+        RECVMMSG = recvmmsg;
+        SETSOCKOPT = setsockopt;
+        GETSOCKNAME = getsockname;
+    }
+
+    private static MethodHandle downcallHandle(String name, MethodType type, FunctionDescriptor descriptor)
+    {
+        MemoryAddress symbol = CLinker.systemLookup().lookup(name)
+            .orElseThrow(() -> new UnsatisfiedLinkError("unresolved symbol: " + name));
+        return CLinker.getInstance().downcallHandle(symbol, type, descriptor);
+    }
+
+    static boolean isAvailable()
+    {
+        return SENDMMSG != null;
+    }
+
+    static int fdVal(DatagramChannel channel) throws ReflectiveOperationException
+    {
+        Class<?> selChImpl = Class.forName("sun.nio.ch.SelChImpl");
+        return (int)selChImpl.getMethod("getFDVal").invoke(channel);
+    }
+
+    private final ResourceScope scope = ResourceScope.newSharedScope();
+    private final int fd;
+    private final boolean ipv6;
+    private final Receiver receiver;
+    private final Sender sender;
+
+    public ForeignIncubatorDatagramBatch(DatagramChannel channel, int maxDatagrams, int maxDatagramSize, boolean segmentOffload) throws IOException
+    {
+        if (!isAvailable())
+            throw new UnsupportedOperationException("recvmmsg()/sendmmsg() not available");
+        try
+        {
+            this.fd = fdVal(channel);
+            this.ipv6 = socketFamily() == AF_INET6;
+            boolean gro = segmentOffload && setUdpOption(UDP_GRO, 1);
+            // Setting a zero segment size only verifies that UDP_SEGMENT is supported.
+            boolean gso = segmentOffload && setUdpOption(UDP_SEGMENT, 0);
+            this.receiver = new Receiver(gro ? Math.max(1, maxDatagrams / 8) : maxDatagrams, gro ? GRO_BUFFER_SIZE : maxDatagramSize, gro);
+            this.sender = new Sender(maxDatagrams, maxDatagramSize, gso);
+        }
+        catch (Throwable x)
+        {
+            scope.close();
+            throw new IOException("could not create datagram batch for " + channel, x);
+        }
+    }
+
+    private int socketFamily() throws Throwable
+    {
+        try (ResourceScope scope = ResourceScope.newConfinedScope())
+        {
+            MemorySegment address = MemorySegment.allocateNative(128, scope);
+            MemorySegment length = MemorySegment.allocateNative(C_INT, scope);
+            nativeBuffer(length).putInt(0, (int)address.byteSize());
+            int result = (int)GETSOCKNAME.invokeExact(fd, address.address(), length.address());
+            if (result < 0)
+                throw new IOException("getsockname() failed");
+            return nativeBuffer(address).getShort(0);
+        }
+    }
+
+    private boolean setUdpOption(int option, int optionValue) throws Throwable
+    {
+        try (ResourceScope scope = ResourceScope.newConfinedScope())
+        {
+            MemorySegment value = MemorySegment.allocateNative(C_INT, scope);
+            nativeBuffer(value).putInt(0, optionValue);
+            int result = (int)SETSOCKOPT.invokeExact(fd, SOL_UDP, option, value.address(), (int)value.byteSize());
+            if (LOG.isDebugEnabled())
+                LOG.debug("UDP option {}={} {} on fd {}", option, optionValue, result == 0 ? "supported" : "not supported", fd);
+            return result == 0;
+        }
+    }
+
+    private static ByteBuffer nativeBuffer(MemorySegment segment)
+    {
+        return segment.asByteBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public int receive(ByteBuffer[] buffers, SocketAddress[] peers) throws IOException
+    {
+        try
+        {
+            return receiver.receive(buffers, peers);
+        }
+        catch (IllegalStateException x)
+        {
+            // The batch has been closed concurrently.
+            return 0;
+        }
+    }
+
+    @Override
+    public int send(SocketAddress address, ByteBuffer[] buffers) throws IOException
+    {
+        try
+        {
+            return sender.send(address, buffers);
+        }
+        catch (IllegalStateException x)
+        {
+            // The batch has been closed concurrently.
+            return 0;
+        }
+    }
+
+    @Override
+    public long getTruncatedDatagrams()
+    {
+        return receiver.truncated.sum();
+    }
+
+    @Override
+    public boolean isSegmentOffload()
+    {
+        return receiver.gro || sender.gso;
+    }
+
+    @Override
+    public void close()
+    {
+        scope.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[fd=%d,ipv6=%b,gro=%b,gso=%b]", getClass().getSimpleName(), hashCode(), fd, ipv6, receiver.gro, sender.gso);
+    }
+
+    private class Receiver
+    {
+        private final int messages;
+        private final int bufferSize;
+        private final boolean gro;
+        private final MemorySegment headers;
+        private final ByteBuffer headersBuffer;
+        private final ByteBuffer namesBuffer;
+        private final ByteBuffer controlsBuffer;
+        private final ByteBuffer dataBuffer;
+        private final byte[] lastName = new byte[SOCKADDR_SIZE];
+        private int lastNameLength;
+        private InetSocketAddress lastPeer;
+        private int received;
+        private final LongAdder truncated = new LongAdder();
+        private int index;
+        private int offset;
+        private InetSocketAddress peer;
+
+        private Receiver(int messages, int bufferSize, boolean gro)
+        {
+            this.messages = messages;
+            this.bufferSize = bufferSize;
+            this.gro = gro;
+            headers = MemorySegment.allocateNative((long)messages * MMSGHDR_SIZE, 8, scope);
+            MemorySegment iovecs = MemorySegment.allocateNative((long)messages * IOVEC_SIZE, 8, scope);
+            MemorySegment names = MemorySegment.allocateNative((long)messages * SOCKADDR_SIZE, 8, scope);
+            MemorySegment controls = MemorySegment.allocateNative((long)messages * CMSG_SPACE, 8, scope);
+            MemorySegment data = MemorySegment.allocateNative((long)messages * bufferSize, 8, scope);
+            headersBuffer = nativeBuffer(headers);
+            namesBuffer = nativeBuffer(names);
+            controlsBuffer = nativeBuffer(controls);
+            dataBuffer = nativeBuffer(data);
+
+            ByteBuffer iovecsBuffer = nativeBuffer(iovecs);
+            long iovecsAddress = iovecs.address().toRawLongValue();
+            long namesAddress = names.address().toRawLongValue();
+            long controlsAddress = controls.address().toRawLongValue();
+            long dataAddress = data.address().toRawLongValue();
+            for (int i = 0; i < messages; ++i)
+            {
+                iovecsBuffer.putLong(i * IOVEC_SIZE, dataAddress + (long)i * bufferSize);
+                iovecsBuffer.putLong(i * IOVEC_SIZE + 8, bufferSize);
+                int header = i * MMSGHDR_SIZE;
+                headersBuffer.putLong(header + MSG_NAME, namesAddress + (long)i * SOCKADDR_SIZE);
+                headersBuffer.putLong(header + MSG_IOV, iovecsAddress + (long)i * IOVEC_SIZE);
+                headersBuffer.putLong(header + MSG_IOVLEN, 1);
+                headersBuffer.putLong(header + MSG_CONTROL, gro ? controlsAddress + (long)i * CMSG_SPACE : 0);
+            }
+        }
+
+        private int receive(ByteBuffer[] buffers, SocketAddress[] peers) throws IOException
+        {
+            int count = 0;
+            while (count < buffers.length)
+            {
+                if (index == received)
+                {
+                    // Do not block in the kernel once some datagram has been received.
+                    if (count > 0 || !receiveMessages())
+                        break;
+                }
+
+                int header = index * MMSGHDR_SIZE;
+                int length = headersBuffer.getInt(header + MSG_LEN);
+                if (offset == 0)
+                {
+                    // A truncated datagram is discarded, as a truncated QUIC packet cannot be processed.
+                    if ((headersBuffer.getInt(header + MSG_FLAGS) & MSG_TRUNC) != 0)
+                    {
+                        truncated.increment();
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("recvmmsg() truncated datagram discarded on fd {}", fd);
+                        ++index;
+                        continue;
+                    }
+                    peer = peer(index, headersBuffer.getInt(header + MSG_NAMELEN));
+                }
+                int segment = gro ? segmentSize(index, length) : length;
+                int chunk = Math.min(segment, length - offset);
+
+                ByteBuffer buffer = buffers[count];
+                buffer.clear();
+                int copy = Math.min(chunk, buffer.remaining());
+                buffer.put(buffer.position(), dataBuffer, index * bufferSize + offset, copy);
+                buffer.limit(copy);
+                peers[count] = peer;
+                ++count;
+
+                offset += chunk;
+                if (offset >= length)
+                {
+                    ++index;
+                    offset = 0;
+                }
+            }
+            return count;
+        }
+
+        private boolean receiveMessages() throws IOException
+        {
+            for (int i = 0; i < messages; ++i)
+            {
+                int header = i * MMSGHDR_SIZE;
+                headersBuffer.putInt(header + MSG_NAMELEN, SOCKADDR_SIZE);
+                headersBuffer.putLong(header + MSG_CONTROLLEN, gro ? CMSG_SPACE : 0);
+                headersBuffer.putInt(header + MSG_FLAGS, 0);
+            }
+            try
+            {
+                int result = (int)RECVMMSG.invokeExact(fd, headers.address(), messages, MSG_DONTWAIT, MemoryAddress.NULL);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("recvmmsg() received {} datagram(s) on fd {}", result, fd);
+                received = Math.max(0, result);
+                index = 0;
+                offset = 0;
+                return result > 0;
+            }
+            catch (Throwable x)
+            {
+                throw new IOException(x);
+            }
+        }
+
+        private int segmentSize(int index, int length)
+        {
+            int header = index * MMSGHDR_SIZE;
+            if (headersBuffer.getLong(header + MSG_CONTROLLEN) < CMSG_HEADER_SIZE + 4)
+                return length;
+            int control = index * CMSG_SPACE;
+            if (controlsBuffer.getInt(control + 8) != SOL_UDP || controlsBuffer.getInt(control + 12) != UDP_GRO)
+                return length;
+            int segment = controlsBuffer.getInt(control + CMSG_HEADER_SIZE);
+            return segment > 0 ? segment : length;
+        }
+
+        private InetSocketAddress peer(int index, int nameLength) throws IOException
+        {
+            int name = index * SOCKADDR_SIZE;
+            nameLength = Math.min(nameLength, SOCKADDR_SIZE);
+            if (nameLength == lastNameLength && lastPeer != null)
+            {
+                boolean same = true;
+                for (int i = 0; i < nameLength && same; ++i)
+                {
+                    same = namesBuffer.get(name + i) == lastName[i];
+                }
+                if (same)
+                    return lastPeer;
+            }
+
+            int family = namesBuffer.getShort(name);
+            short networkPort = namesBuffer.getShort(name + 2);
+            if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)
+                networkPort = Short.reverseBytes(networkPort);
+            int port = Short.toUnsignedInt(networkPort);
+            byte[] bytes;
+            int scopeId = 0;
+            if (family == AF_INET)
+            {
+                bytes = new byte[4];
+                namesBuffer.get(name + 4, bytes);
+            }
+            else if (family == AF_INET6)
+            {
+                bytes = new byte[16];
+                namesBuffer.get(name + 8, bytes);
+                scopeId = namesBuffer.getInt(name + 24);
+            }
+            else
+            {
+                throw new IOException("unsupported address family " + family);
+            }
+
+            InetAddress address = InetAddress.getByAddress(bytes);
+            if (scopeId != 0 && address instanceof Inet6Address)
+                address = Inet6Address.getByAddress(null, bytes, scopeId);
+            lastPeer = new InetSocketAddress(address, port);
+            lastNameLength = nameLength;
+            namesBuffer.get(name, lastName, 0, nameLength);
+            return lastPeer;
+        }
+    }
+
+    private class Sender
+    {
+        private final int messages;
+        private final MemorySegment headers;
+        private final ByteBuffer headersBuffer;
+        private final ByteBuffer iovecsBuffer;
+        private final ByteBuffer nameBuffer;
+        private final ByteBuffer controlsBuffer;
+        private final ByteBuffer dataBuffer;
+        private final long dataAddress;
+        private final long controlsAddress;
+        private final long nameAddress;
+        private final int[] segments;
+        private SocketAddress lastAddress;
+        private int nameLength;
+        private final boolean gso;
+
+        private Sender(int messages, int maxDatagramSize, boolean gso)
+        {
+            this.messages = messages;
+            this.gso = gso;
+            this.segments = new int[messages];
+            headers = MemorySegment.allocateNative((long)messages * MMSGHDR_SIZE, 8, scope);
+            MemorySegment iovecs = MemorySegment.allocateNative((long)messages * IOVEC_SIZE, 8, scope);
+            MemorySegment name = MemorySegment.allocateNative(SOCKADDR_SIZE, 8, scope);
+            MemorySegment controls = MemorySegment.allocateNative((long)messages * CMSG_SPACE, 8, scope);
+            MemorySegment data = MemorySegment.allocateNative((long)messages * maxDatagramSize, 8, scope);
+            headersBuffer = nativeBuffer(headers);
+            iovecsBuffer = nativeBuffer(iovecs);
+            nameBuffer = nativeBuffer(name);
+            controlsBuffer = nativeBuffer(controls);
+            dataBuffer = nativeBuffer(data);
+            dataAddress = data.address().toRawLongValue();
+            controlsAddress = controls.address().toRawLongValue();
+            nameAddress = name.address().toRawLongValue();
+
+            long iovecsAddress = iovecs.address().toRawLongValue();
+            for (int i = 0; i < messages; ++i)
+            {
+                int header = i * MMSGHDR_SIZE;
+                headersBuffer.putLong(header + MSG_IOV, iovecsAddress + (long)i * IOVEC_SIZE);
+                headersBuffer.putLong(header + MSG_IOVLEN, 1);
+                int control = i * CMSG_SPACE;
+                controlsBuffer.putLong(control, CMSG_HEADER_SIZE + 2);
+                controlsBuffer.putInt(control + 8, SOL_UDP);
+                controlsBuffer.putInt(control + 12, UDP_SEGMENT);
+            }
+        }
+
+        private int send(SocketAddress address, ByteBuffer[] buffers) throws IOException
+        {
+            if (!address.equals(lastAddress))
+            {
+                nameLength = encode((InetSocketAddress)address);
+                lastAddress = address;
+            }
+
+            int capacity = dataBuffer.capacity();
+            int offset = 0;
+            int count = 0;
+            int index = 0;
+            while (index < buffers.length && count < messages)
+            {
+                int start = offset;
+                int segmentSize = buffers[index].remaining();
+                int length = 0;
+                int segmentCount = 0;
+                while (index < buffers.length)
+                {
+                    ByteBuffer buffer = buffers[index];
+                    int remaining = buffer.remaining();
+                    if (offset + remaining > capacity)
+                        break;
+                    if (segmentCount > 0 && (!gso || segmentSize == 0 || remaining > segmentSize ||
+                        segmentCount == MAX_SEGMENTS || length + remaining > MAX_SEGMENTS_LENGTH))
+                        break;
+                    dataBuffer.put(offset, buffer, buffer.position(), remaining);
+                    offset += remaining;
+                    length += remaining;
+                    ++segmentCount;
+                    ++index;
+                    // Only the last segment may be shorter.
+                    if (remaining < segmentSize)
+                        break;
+                }
+                if (segmentCount == 0)
+                    break;
+
+                int header = count * MMSGHDR_SIZE;
+                headersBuffer.putLong(header + MSG_NAME, nameAddress);
+                headersBuffer.putInt(header + MSG_NAMELEN, nameLength);
+                iovecsBuffer.putLong(count * IOVEC_SIZE, dataAddress + start);
+                iovecsBuffer.putLong(count * IOVEC_SIZE + 8, length);
+                if (segmentCount > 1)
+                {
+                    controlsBuffer.putShort(count * CMSG_SPACE + CMSG_HEADER_SIZE, (short)segmentSize);
+                    headersBuffer.putLong(header + MSG_CONTROL, controlsAddress + (long)count * CMSG_SPACE);
+                    headersBuffer.putLong(header + MSG_CONTROLLEN, CMSG_SPACE);
+                }
+                else
+                {
+                    headersBuffer.putLong(header + MSG_CONTROL, 0);
+                    headersBuffer.putLong(header + MSG_CONTROLLEN, 0);
+                }
+                headersBuffer.putInt(header + MSG_FLAGS, 0);
+                segments[count] = segmentCount;
+                ++count;
+            }
+            if (count == 0)
+                return 0;
+
+            int result;
+            try
+            {
+                result = (int)SENDMMSG.invokeExact(fd, headers.address(), count, MSG_DONTWAIT);
+            }
+            catch (Throwable x)
+            {
+                throw new IOException(x);
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("sendmmsg() sent {}/{} message(s) on fd {}", result, count, fd);
+
+            if (result <= 0)
+            {
+                // The socket buffer may be full or the send failed:
+                // let the DatagramChannel retry and report the failure.
+                return 0;
+            }
+
+            int sent = 0;
+            for (int i = 0; i < result; ++i)
+            {
+                sent += segments[i];
+            }
+            for (int i = 0; i < sent; ++i)
+            {
+                ByteBuffer buffer = buffers[i];
+                buffer.position(buffer.limit());
+            }
+            return sent;
+        }
+
+        private int encode(InetSocketAddress address) throws IOException
+        {
+            InetAddress inetAddress = address.getAddress();
+            if (inetAddress == null)
+                throw new IOException("unresolved address " + address);
+            byte[] bytes = inetAddress.getAddress();
+            short port = (short)address.getPort();
+            if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)
+                port = Short.reverseBytes(port);
+            for (int i = 0; i < SOCKADDR_SIZE; ++i)
+            {
+                nameBuffer.put(i, (byte)0);
+            }
+            if (ipv6)
+            {
+                if (inetAddress instanceof Inet4Address)
+                {
+                    // IPv4-mapped IPv6 address.
+                    byte[] mapped = new byte[16];
+                    mapped[10] = (byte)0xFF;
+                    mapped[11] = (byte)0xFF;
+                    System.arraycopy(bytes, 0, mapped, 12, 4);
+                    bytes = mapped;
+                }
+                nameBuffer.putShort(0, (short)AF_INET6);
+                nameBuffer.putShort(2, port);
+                nameBuffer.put(8, bytes);
+                if (inetAddress instanceof Inet6Address)
+                    nameBuffer.putInt(24, ((Inet6Address)inetAddress).getScopeId());
+                return 28;
+            }
+            if (!(inetAddress instanceof Inet4Address))
+                throw new IOException("cannot send to " + address + " from an IPv4 socket");
+            nameBuffer.putShort(0, (short)AF_INET);
+            nameBuffer.putShort(2, port);
+            nameBuffer.put(4, bytes);
+            return 16;
+        }
+    }
+}
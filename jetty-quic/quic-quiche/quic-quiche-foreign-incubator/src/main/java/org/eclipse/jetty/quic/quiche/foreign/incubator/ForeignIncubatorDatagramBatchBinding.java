@@ -0,0 +1,60 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.quiche.foreign.incubator;
+
+import java.io.IOException;
+import java.nio.channels.DatagramChannel;
+
+import org.eclipse.jetty.quic.quiche.DatagramBatch;
+import org.eclipse.jetty.quic.quiche.DatagramBatchBinding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ForeignIncubatorDatagramBatchBinding implements DatagramBatchBinding
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ForeignIncubatorDatagramBatchBinding.class);
+
+    @Override
+    public boolean isUsable()
+    {
+        try
+        {
+            if (!ForeignIncubatorDatagramBatch.isAvailable())
+                return false;
+            // Make sure the file descriptor of a DatagramChannel can be accessed.
+            try (DatagramChannel channel = DatagramChannel.open())
+            {
+                ForeignIncubatorDatagramBatch.fdVal(channel);
+            }
+            return true;
+        }
+        catch (Throwable x)
+        {
+            LOG.debug("foreign incubator datagram batch binding is not usable", x);
+            return false;
+        }
+    }
+
+    @Override
+    public int priority()
+    {
+        return 100;
+    }
+
+    @Override
+    public DatagramBatch newDatagramBatch(DatagramChannel channel, int maxDatagrams, int maxDatagramSize, boolean segmentOffload) throws IOException
+    {
+        return new ForeignIncubatorDatagramBatch(channel, maxDatagrams, maxDatagramSize, segmentOffload);
+    }
+}
@@ -230,7 +230,7 @@ public class ForeignIncubatorQuicheConnection extends QuicheConnection
         return quicheConfig;
     }
 
-    public static boolean negotiate(TokenMinter tokenMinter, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    public static boolean negotiate(TokenMinter tokenMinter, ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
     {
         try (ResourceScope scope = ResourceScope.newConfinedScope())
         {
@@ -318,7 +318,10 @@ public class ForeignIncubatorQuicheConnection extends QuicheConnection
                 token.asByteBuffer().put(tokenBytes);
 
                 byte[] newCid = new byte[QUICHE_MAX_CONN_ID_LEN];
-                SECURE_RANDOM.nextBytes(newCid);
+                if (connectionIdGenerator == null)
+                    SECURE_RANDOM.nextBytes(newCid);
+                else
+                    connectionIdGenerator.generate(newCid);
                 MemorySegment newCidSegment = MemorySegment.allocateNative(newCid.length, scope);
                 newCidSegment.asByteBuffer().put(newCid);
 
@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.quiche.foreign.incubator;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.quic.quiche.DatagramBatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DatagramBatchTest
+{
+    private DatagramChannel client;
+    private DatagramChannel server;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        assumeTrue(new ForeignIncubatorDatagramBatchBinding().isUsable());
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        client = DatagramChannel.open();
+        client.configureBlocking(false);
+        client.bind(new InetSocketAddress(loopback, 0));
+        server = DatagramChannel.open();
+        server.configureBlocking(false);
+        server.bind(new InetSocketAddress(loopback, 0));
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.close();
+        if (server != null)
+            server.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testSendReceive(boolean segmentOffload) throws Exception
+    {
+        int datagrams = 20;
+        int size = 1200;
+        try (DatagramBatch clientBatch = DatagramBatch.newDatagramBatch(client, 8, 2048, segmentOffload);
+             DatagramBatch serverBatch = DatagramBatch.newDatagramBatch(server, 8, 2048, segmentOffload))
+        {
+            assertThat(clientBatch, notNullValue());
+            assertThat(serverBatch, notNullValue());
+
+            // The last datagram is shorter, as it happens with QUIC packets.
+            ByteBuffer[] buffers = new ByteBuffer[datagrams];
+            for (int i = 0; i < datagrams; ++i)
+            {
+                byte[] bytes = new byte[i == datagrams - 1 ? size / 3 : size];
+                for (int j = 0; j < bytes.length; ++j)
+                {
+                    bytes[j] = (byte)(i + j);
+                }
+                buffers[i] = ByteBuffer.wrap(bytes);
+            }
+
+            SocketAddress serverAddress = server.getLocalAddress();
+            int sent = 0;
+            while (sent < datagrams)
+            {
+                ByteBuffer[] remaining = new ByteBuffer[datagrams - sent];
+                System.arraycopy(buffers, sent, remaining, 0, remaining.length);
+                int count = clientBatch.send(serverAddress, remaining);
+                assertTrue(count > 0);
+                sent += count;
+            }
+            for (ByteBuffer buffer : buffers)
+            {
+                assertThat(buffer.hasRemaining(), is(false));
+            }
+
+            List<ByteBuffer> received = new ArrayList<>();
+            ByteBuffer[] receiveBuffers = new ByteBuffer[5];
+            SocketAddress[] peers = new SocketAddress[receiveBuffers.length];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < datagrams && System.nanoTime() < deadline)
+            {
+                for (int i = 0; i < receiveBuffers.length; ++i)
+                {
+                    receiveBuffers[i] = ByteBuffer.allocateDirect(2048);
+                }
+                int count = serverBatch.receive(receiveBuffers, peers);
+                for (int i = 0; i < count; ++i)
+                {
+                    assertThat(peers[i], is(client.getLocalAddress()));
+                    received.add(receiveBuffers[i]);
+                }
+                if (count == 0)
+                    Thread.sleep(10);
+            }
+
+            assertThat(received.size(), is(datagrams));
+            for (int i = 0; i < datagrams; ++i)
+            {
+                ByteBuffer buffer = received.get(i);
+                assertThat(buffer.remaining(), is(i == datagrams - 1 ? size / 3 : size));
+                for (int j = 0; j < buffer.remaining(); ++j)
+                {
+                    assertThat(buffer.get(j), is((byte)(i + j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedDatagramIsDiscarded() throws Exception
+    {
+        try (DatagramBatch serverBatch = DatagramBatch.newDatagramBatch(server, 8, 1024, false))
+        {
+            assertThat(serverBatch, notNullValue());
+
+            SocketAddress serverAddress = server.getLocalAddress();
+            client.send(ByteBuffer.allocate(1500), serverAddress);
+            client.send(ByteBuffer.wrap(new byte[]{1, 2, 3}), serverAddress);
+
+            ByteBuffer[] receiveBuffers = new ByteBuffer[]{ByteBuffer.allocateDirect(1024), ByteBuffer.allocateDirect(1024)};
+            SocketAddress[] peers = new SocketAddress[receiveBuffers.length];
+            int count = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (count == 0 && System.nanoTime() < deadline)
+            {
+                count = serverBatch.receive(receiveBuffers, peers);
+                if (count == 0)
+                    Thread.sleep(10);
+            }
+
+            // The datagram larger than the receive buffer is discarded.
+            assertThat(count, is(1));
+            assertThat(receiveBuffers[0].remaining(), is(3));
+            assertThat(serverBatch.getTruncatedDatagrams(), is(1L));
+        }
+    }
+}
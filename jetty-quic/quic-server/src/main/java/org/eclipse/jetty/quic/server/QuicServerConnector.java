@@ -16,15 +16,18 @@ package org.eclipse.jetty.quic.server;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.EventListener;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
@@ -38,6 +41,7 @@ import org.eclipse.jetty.quic.common.QuicSessionContainer;
 import org.eclipse.jetty.quic.common.QuicStreamEndPoint;
 import org.eclipse.jetty.quic.quiche.QuicheConfig;
 import org.eclipse.jetty.quic.quiche.SSLKeyPair;
+import org.eclipse.jetty.quic.server.internal.ShardConnectionIdGenerator;
 import org.eclipse.jetty.server.AbstractNetworkConnector;
 import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Server;
@@ -51,6 +55,14 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * The protocol is negotiated during the connection establishment by {@link QuicSession}, and for each QUIC stream
  * managed by a {@link QuicSession} a {@link ConnectionFactory} is used to create a {@link Connection} for the
  * correspondent {@link QuicStreamEndPoint}.</p>
+ * <p>This connector may listen on many {@link #setShards(int) shards}: each shard is a {@link DatagramChannel}
+ * bound to the same port with {@code SO_REUSEPORT}, with its own selector and {@link ServerQuicConnection},
+ * so that QUIC traffic is received by as many threads as shards.
+ * The kernel distributes the datagrams to the shards by hashing the client address, and the connection IDs
+ * generated by the server encode the shard, so that datagrams received by a different shard, for example
+ * after a change of the client address, are forwarded to the shard that owns the QUIC connection.
+ * Likewise, the datagrams sent by a client after a retry are forwarded to the shard that sent the retry,
+ * so that the QUIC connection is accepted by the shard encoded in its connection ID.</p>
  *
  * @see QuicConfiguration
  */
@@ -58,16 +70,21 @@ public class QuicServerConnector extends AbstractNetworkConnector
 {
     private final QuicConfiguration quicConfiguration = new QuicConfiguration();
     private final QuicSessionContainer container = new QuicSessionContainer();
-    private final ServerDatagramSelectorManager selectorManager;
+    private ServerDatagramSelectorManager selectorManager;
     private final SslContextFactory.Server sslContextFactory;
     private File privateKeyFile;
     private File certificateChainFile;
     private volatile DatagramChannel datagramChannel;
+    private volatile List<DatagramChannel> datagramChannels = List.of();
+    private volatile AtomicReferenceArray<ServerQuicConnection> shardConnections = new AtomicReferenceArray<>(0);
+    private int shards = 1;
     private volatile int localPort = -1;
     private int inputBufferSize = 2048;
     private int outputBufferSize = 2048;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
+    private int datagramBatchSize = 1;
+    private boolean useSegmentOffload;
 
     public QuicServerConnector(Server server, SslContextFactory.Server sslContextFactory, ConnectionFactory... factories)
     {
@@ -143,6 +160,73 @@ public class QuicServerConnector extends AbstractNetworkConnector
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the number of {@link DatagramChannel}s listening on the same port
+     */
+    public int getShards()
+    {
+        return shards;
+    }
+
+    /**
+     * <p>Sets the number of {@link DatagramChannel}s listening on the same port with
+     * {@code SO_REUSEPORT}, each served by its own selector thread.</p>
+     *
+     * @param shards the number of {@link DatagramChannel}s listening on the same port
+     */
+    public void setShards(int shards)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (shards < 1 || shards > ShardConnectionIdGenerator.MAX_SHARDS)
+            throw new IllegalArgumentException("Invalid number of shards " + shards);
+        if (shards != this.shards)
+        {
+            removeBean(selectorManager);
+            selectorManager = new ServerDatagramSelectorManager(getExecutor(), getScheduler(), shards);
+            addBean(selectorManager);
+            this.shards = shards;
+        }
+    }
+
+    ServerQuicConnection getShardConnection(int shard)
+    {
+        AtomicReferenceArray<ServerQuicConnection> connections = shardConnections;
+        return shard >= 0 && shard < connections.length() ? connections.get(shard) : null;
+    }
+
+    /**
+     * @return the max number of datagrams received or sent with a single system call
+     */
+    public int getDatagramBatchSize()
+    {
+        return datagramBatchSize;
+    }
+
+    /**
+     * <p>Sets the max number of datagrams received or sent with a single system call,
+     * when supported by the platform; a value of {@code 1} disables batched datagram I/O.</p>
+     *
+     * @param datagramBatchSize the max number of datagrams received or sent with a single system call
+     */
+    public void setDatagramBatchSize(int datagramBatchSize)
+    {
+        this.datagramBatchSize = datagramBatchSize;
+    }
+
+    /**
+     * @return whether UDP segmentation offload (GSO/GRO) is used for batched datagram I/O
+     */
+    public boolean isUseSegmentOffload()
+    {
+        return useSegmentOffload;
+    }
+
+    public void setUseSegmentOffload(boolean useSegmentOffload)
+    {
+        this.useSegmentOffload = useSegmentOffload;
+    }
+
     @Override
     public boolean isOpen()
     {
@@ -156,7 +240,12 @@ public class QuicServerConnector extends AbstractNetworkConnector
         for (EventListener l : getBeans(SelectorManager.SelectorManagerListener.class))
             selectorManager.addEventListener(l);
         super.doStart();
-        selectorManager.accept(datagramChannel);
+        List<DatagramChannel> channels = datagramChannels;
+        for (int i = 0; i < channels.size(); ++i)
+        {
+            // The shard index is passed as attachment to newConnection().
+            selectorManager.accept(channels.get(i), i);
+        }
 
         Set<String> aliases = sslContextFactory.getAliases();
         if (aliases.isEmpty())
@@ -183,21 +272,54 @@ public class QuicServerConnector extends AbstractNetworkConnector
     {
         if (datagramChannel == null)
         {
-            datagramChannel = openDatagramChannel();
-            datagramChannel.configureBlocking(false);
-            localPort = datagramChannel.socket().getLocalPort();
-            if (localPort <= 0)
-                throw new IOException("DatagramChannel not bound");
-            addBean(datagramChannel);
+            List<DatagramChannel> channels = new ArrayList<>();
+            try
+            {
+                DatagramChannel channel = openDatagramChannel();
+                channels.add(channel);
+                channel.configureBlocking(false);
+                int port = channel.socket().getLocalPort();
+                if (port <= 0)
+                    throw new IOException("DatagramChannel not bound");
+                // The other shards bind to the actual address, in case the port was 0.
+                InetSocketAddress localAddress = (InetSocketAddress)channel.getLocalAddress();
+                for (int i = 1; i < getShards(); ++i)
+                {
+                    DatagramChannel shardChannel = openDatagramChannel(localAddress);
+                    channels.add(shardChannel);
+                    shardChannel.configureBlocking(false);
+                }
+                localPort = port;
+            }
+            catch (IOException | RuntimeException x)
+            {
+                channels.forEach(IO::close);
+                throw x;
+            }
+            channels.forEach(this::addBean);
+            shardConnections = new AtomicReferenceArray<>(channels.size());
+            datagramChannels = List.copyOf(channels);
+            datagramChannel = channels.get(0);
         }
     }
 
     protected DatagramChannel openDatagramChannel() throws IOException
     {
         InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
+        return openDatagramChannel(bindAddress);
+    }
+
+    protected DatagramChannel openDatagramChannel(InetSocketAddress bindAddress) throws IOException
+    {
         DatagramChannel datagramChannel = DatagramChannel.open();
         try
         {
+            if (getShards() > 1)
+            {
+                if (!datagramChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+                    throw new UnsupportedOperationException("SO_REUSEPORT is not supported, cannot listen with " + getShards() + " shards");
+                datagramChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
             datagramChannel.bind(bindAddress);
             return datagramChannel;
         }
@@ -246,7 +368,8 @@ public class QuicServerConnector extends AbstractNetworkConnector
         // We want the DatagramChannel to be stopped by the SelectorManager.
         super.doStop();
 
-        removeBean(datagramChannel);
+        datagramChannels.forEach(this::removeBean);
+        datagramChannels = List.of();
         datagramChannel = null;
         localPort = -2;
 
@@ -280,6 +403,16 @@ public class QuicServerConnector extends AbstractNetworkConnector
         return datagramChannel;
     }
 
+    /**
+     * @param endPoint the {@link DatagramChannelEndPoint} of the shard
+     * @param shard the index of the shard
+     * @return a new {@link ServerQuicConnection} that serves the given shard
+     */
+    protected ServerQuicConnection newServerQuicConnection(EndPoint endPoint, int shard)
+    {
+        return new ServerQuicConnection(this, endPoint, shard);
+    }
+
     @Override
     protected void accept(int acceptorID)
     {
@@ -304,12 +437,16 @@ public class QuicServerConnector extends AbstractNetworkConnector
         @Override
         public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
         {
-            ServerQuicConnection connection = new ServerQuicConnection(QuicServerConnector.this, endpoint);
+            int shard = attachment instanceof Integer ? (Integer)attachment : 0;
+            ServerQuicConnection connection = newServerQuicConnection(endpoint, shard);
+            shardConnections.set(shard, connection);
             connection.addEventListener(container);
             connection.setInputBufferSize(getInputBufferSize());
             connection.setOutputBufferSize(getOutputBufferSize());
             connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
             connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+            connection.setDatagramBatchSize(getDatagramBatchSize());
+            connection.setUseSegmentOffload(isUseSegmentOffload());
             return connection;
         }
 
@@ -323,6 +460,12 @@ public class QuicServerConnector extends AbstractNetworkConnector
         @Override
         protected void endPointClosed(EndPoint endpoint)
         {
+            Connection connection = endpoint.getConnection();
+            if (connection instanceof ServerQuicConnection)
+            {
+                ServerQuicConnection serverQuicConnection = (ServerQuicConnection)connection;
+                shardConnections.compareAndSet(serverQuicConnection.getShard(), serverQuicConnection, null);
+            }
             onEndPointClosed(endpoint);
             super.endPointClosed(endpoint);
         }
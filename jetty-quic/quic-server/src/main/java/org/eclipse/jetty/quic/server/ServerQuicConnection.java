@@ -25,6 +25,8 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.quic.common.QuicConnection;
 import org.eclipse.jetty.quic.common.QuicSession;
 import org.eclipse.jetty.quic.quiche.QuicheConnection;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
+import org.eclipse.jetty.quic.server.internal.ShardConnectionIdGenerator;
 import org.eclipse.jetty.quic.server.internal.SimpleTokenMinter;
 import org.eclipse.jetty.quic.server.internal.SimpleTokenValidator;
 import org.eclipse.jetty.util.BufferUtil;
@@ -42,12 +44,30 @@ public class ServerQuicConnection extends QuicConnection
 
     private final QuicServerConnector connector;
     private final SessionTimeouts sessionTimeouts;
+    private final int shard;
+    private final ShardConnectionIdGenerator connectionIdGenerator;
 
     protected ServerQuicConnection(QuicServerConnector connector, EndPoint endPoint)
+    {
+        this(connector, endPoint, 0);
+    }
+
+    protected ServerQuicConnection(QuicServerConnector connector, EndPoint endPoint, int shard)
     {
         super(connector.getExecutor(), connector.getScheduler(), connector.getByteBufferPool(), endPoint);
         this.connector = connector;
         this.sessionTimeouts = new SessionTimeouts(connector.getScheduler());
+        this.shard = shard;
+        // Connection IDs only need to encode the shard if there are many.
+        this.connectionIdGenerator = connector.getShards() > 1 ? new ShardConnectionIdGenerator(shard) : null;
+    }
+
+    /**
+     * @return the index of the shard of the {@link QuicServerConnector} served by this connection
+     */
+    public int getShard()
+    {
+        return shard;
     }
 
     @Override
@@ -68,7 +88,7 @@ public class ServerQuicConnection extends QuicConnection
             ByteBuffer negotiationBuffer = byteBufferPool.acquire(getOutputBufferSize(), true);
             int pos = BufferUtil.flipToFill(negotiationBuffer);
             // TODO make the token minter configurable
-            if (!QuicheConnection.negotiate(new SimpleTokenMinter((InetSocketAddress)remoteAddress), cipherBuffer, negotiationBuffer))
+            if (!QuicheConnection.negotiate(new SimpleTokenMinter((InetSocketAddress)remoteAddress), connectionIdGenerator, cipherBuffer, negotiationBuffer))
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("QUIC connection negotiation failed, dropping packet");
@@ -91,6 +111,29 @@ public class ServerQuicConnection extends QuicConnection
         }
     }
 
+    @Override
+    protected boolean forward(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+    {
+        if (connectionIdGenerator == null)
+            return false;
+        // Long header packets are forwarded too: after a retry, the client uses the connection ID
+        // generated by the shard that sent the retry, and that shard must accept the connection so
+        // that the session is found where the connection ID says. The first packet of a client may
+        // carry a random connection ID, which is then consistently handled by the same shard.
+        int owner = ShardConnectionIdGenerator.shardOf(connectionId);
+        if (owner == shard)
+            return false;
+        ServerQuicConnection connection = connector.getShardConnection(owner);
+        if (connection == null)
+            return false;
+        if (LOG.isDebugEnabled())
+            LOG.debug("forwarding packet for connection ID {} from shard {} to shard {}", connectionId, shard, owner);
+        ByteBuffer buffer = connection.getByteBufferPool().acquire(cipherBuffer.remaining(), connection.isUseInputDirectByteBuffers());
+        BufferUtil.append(buffer, cipherBuffer.slice());
+        connection.receiveForwarded(connectionId, remoteAddress, buffer);
+        return true;
+    }
+
     public void schedule(ServerQuicSession session)
     {
         sessionTimeouts.schedule(session);
@@ -99,8 +142,8 @@ public class ServerQuicConnection extends QuicConnection
     @Override
     public boolean onIdleExpired()
     {
-        // The current server architecture only has one listening
-        // DatagramChannelEndPoint, so we ignore idle timeouts.
+        // The listening DatagramChannelEndPoints live as long
+        // as the connector, so we ignore idle timeouts.
         return false;
     }
 
@@ -108,8 +151,8 @@ public class ServerQuicConnection extends QuicConnection
     public void outwardClose(QuicSession session, Throwable failure)
     {
         super.outwardClose(session, failure);
-        // Do nothing else, as the current architecture only has one
-        // listening DatagramChannelEndPoint, so it must not be closed.
+        // Do nothing else, as the listening DatagramChannelEndPoint
+        // is shared by many sessions, so it must not be closed.
     }
 
     private class SessionTimeouts extends CyclicTimeouts<ServerQuicSession>
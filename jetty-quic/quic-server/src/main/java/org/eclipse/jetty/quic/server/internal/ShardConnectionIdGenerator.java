@@ -0,0 +1,56 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.server.internal;
+
+import java.security.SecureRandom;
+
+import org.eclipse.jetty.quic.quiche.QuicheConnection;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
+
+/**
+ * <p>Generates random connection IDs whose first byte is the index of the shard
+ * that owns the connection, so that the packets of a connection can be routed to
+ * its shard even if they are received by a different shard, for example after
+ * a change of the client address.</p>
+ */
+public class ShardConnectionIdGenerator implements QuicheConnection.ConnectionIdGenerator
+{
+    public static final int MAX_SHARDS = 256;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final int shard;
+
+    public ShardConnectionIdGenerator(int shard)
+    {
+        if (shard < 0 || shard >= MAX_SHARDS)
+            throw new IllegalArgumentException("Invalid shard " + shard);
+        this.shard = shard;
+    }
+
+    @Override
+    public void generate(byte[] connectionId)
+    {
+        SECURE_RANDOM.nextBytes(connectionId);
+        connectionId[0] = (byte)shard;
+    }
+
+    /**
+     * @param connectionId the connection ID generated by a {@code ShardConnectionIdGenerator}
+     * @return the index of the shard encoded in the given connection ID, or -1 if the connection ID is empty
+     */
+    public static int shardOf(QuicheConnectionId connectionId)
+    {
+        return connectionId.length() == 0 ? -1 : connectionId.byteAt(0) & 0xFF;
+    }
+}
@@ -15,11 +15,22 @@ package org.eclipse.jetty.quic.server;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.quic.common.QuicSession;
+import org.eclipse.jetty.quic.quiche.Quiche;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
+import org.eclipse.jetty.quic.server.internal.ShardConnectionIdGenerator;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Request;
@@ -29,8 +40,166 @@ import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class ServerQuicConnectorTest
 {
+    @Test
+    public void testShards() throws Exception
+    {
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath("src/test/resources/keystore.p12");
+        sslContextFactory.setKeyStorePassword("storepwd");
+
+        Server server = new Server();
+        QuicServerConnector connector = new QuicServerConnector(server, sslContextFactory, new HttpConnectionFactory());
+        int shards = 4;
+        connector.setShards(shards);
+        server.addConnector(connector);
+
+        server.start();
+        try
+        {
+            assertThat(connector.getLocalPort(), greaterThan(0));
+            for (int i = 0; i < shards; ++i)
+            {
+                int shard = i;
+                await().atMost(5, TimeUnit.SECONDS).until(() -> connector.getShardConnection(shard), notNullValue());
+                ServerQuicConnection connection = connector.getShardConnection(shard);
+                assertEquals(shard, connection.getShard());
+                assertEquals(connector.getLocalPort(), connection.getEndPoint().getLocalAddress().getPort());
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testShortHeaderPacketForwardedToOwnerShard() throws Exception
+    {
+        // A short header packet for a connection owned by shard 2.
+        ByteBuffer packet = ByteBuffer.allocate(64);
+        packet.put((byte)0x40);
+        packet.put(newConnectionId(2));
+        while (packet.hasRemaining())
+        {
+            packet.put((byte)packet.position());
+        }
+        packet.flip();
+
+        testPacketForwardedToOwnerShard(packet, 2);
+    }
+
+    @Test
+    public void testRetriedInitialPacketForwardedToOwnerShard() throws Exception
+    {
+        // A QUIC v1 Initial long header packet, sent after a retry
+        // by shard 3, carrying the connection ID minted by shard 3.
+        ByteBuffer packet = ByteBuffer.allocate(1200);
+        packet.put((byte)0xC0);
+        packet.putInt(1);
+        packet.put((byte)Quiche.QUICHE_MAX_CONN_ID_LEN);
+        packet.put(newConnectionId(3));
+        packet.put((byte)8);
+        packet.put(new byte[8]);
+        // Token.
+        packet.put((byte)16);
+        packet.put(new byte[16]);
+        // Length of the rest of the packet as a 2 bytes variable length integer.
+        int length = packet.remaining() - 2;
+        packet.putShort((short)(0x4000 | length));
+        packet.position(packet.limit());
+        packet.flip();
+
+        testPacketForwardedToOwnerShard(packet, 3);
+    }
+
+    private void testPacketForwardedToOwnerShard(ByteBuffer packet, int owner) throws Exception
+    {
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath("src/test/resources/keystore.p12");
+        sslContextFactory.setKeyStorePassword("storepwd");
+
+        // Records the shards that try to create a session for a packet.
+        BlockingQueue<Integer> creations = new LinkedBlockingQueue<>();
+        BlockingQueue<ByteBuffer> packets = new LinkedBlockingQueue<>();
+        Server server = new Server();
+        QuicServerConnector connector = new QuicServerConnector(server, sslContextFactory, new HttpConnectionFactory())
+        {
+            @Override
+            protected ServerQuicConnection newServerQuicConnection(EndPoint endPoint, int shard)
+            {
+                return new ServerQuicConnection(this, endPoint, shard)
+                {
+                    @Override
+                    protected QuicSession createSession(SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+                    {
+                        creations.offer(getShard());
+                        packets.offer(ByteBuffer.allocate(cipherBuffer.remaining()).put(cipherBuffer.slice()).flip());
+                        return null;
+                    }
+                };
+            }
+        };
+        int shards = 4;
+        connector.setShards(shards);
+        server.addConnector(connector);
+
+        server.start();
+        try
+        {
+            for (int i = 0; i < shards; ++i)
+            {
+                int shard = i;
+                await().atMost(5, TimeUnit.SECONDS).until(() -> connector.getShardConnection(shard), notNullValue());
+            }
+
+            QuicheConnectionId connectionId = QuicheConnectionId.fromPacket(packet);
+            assertNotNull(connectionId);
+            assertEquals(owner, ShardConnectionIdGenerator.shardOf(connectionId));
+            SocketAddress remoteAddress = new InetSocketAddress("localhost", 12345);
+
+            // The owner shard does not forward the packet.
+            ServerQuicConnection ownerConnection = connector.getShardConnection(owner);
+            assertFalse(ownerConnection.forward(connectionId, remoteAddress, packet));
+
+            // Another shard forwards the packet to the owner shard.
+            ServerQuicConnection connection = connector.getShardConnection((owner + 1) % shards);
+            int remaining = packet.remaining();
+            assertTrue(connection.forward(connectionId, remoteAddress, packet));
+            // The packet is not consumed by forward().
+            assertEquals(remaining, packet.remaining());
+
+            // The owner shard processes the forwarded packet, and tries to create the session.
+            Integer creator = creations.poll(5, TimeUnit.SECONDS);
+            assertNotNull(creator);
+            assertEquals(owner, creator);
+            assertEquals(packet, packets.poll(5, TimeUnit.SECONDS));
+            assertNull(creations.poll(1, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private static byte[] newConnectionId(int shard)
+    {
+        byte[] connectionId = new byte[Quiche.QUICHE_MAX_CONN_ID_LEN];
+        new ShardConnectionIdGenerator(shard).generate(connectionId);
+        return connectionId;
+    }
+
     @Disabled
     @Test
     public void testSmall() throws Exception
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -31,17 +32,23 @@ import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.servlet.MultipartConfigElement;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Part;
 
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.ByteArrayOutputStream2;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.QuotedStringTokenizer;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +81,17 @@ import org.slf4j.LoggerFactory;
  *                      +---------------> DELETING -------------------+
  *                        deleteParts()               parsing thread
  * }</pre>
+ * <p>
+ * Parsing is either blocking, on the first call to {@link #getParts()} or {@link #getPart(String)}, or
+ * asynchronous via {@link #parseAsync()}, where a {@link ReadListener} drives the parser as content arrives,
+ * so that no thread is blocked while large uploads are received.
+ * </p>
+ * <p>
+ * Parts are kept in memory until they exceed the {@link MultipartConfigElement#getFileSizeThreshold()} or
+ * until the optional {@link MemoryBudget}, shared by concurrent uploads, is exhausted; they are then spooled
+ * to a temporary file through a {@link FileChannel}, aggregating writes in a buffer taken from the
+ * {@link #setByteBufferPool(ByteBufferPool) ByteBufferPool}.
+ * </p>
  * @see <a href="https://tools.ietf.org/html/rfc7578">https://tools.ietf.org/html/rfc7578</a>
  */
 public class MultiPartFormInputStream
@@ -87,11 +105,17 @@ public class MultiPartFormInputStream
         DELETED
     }
 
+    /**
+     * The name of the {@link Server} or context attribute holding the {@link MemoryBudget}
+     * shared by the multipart requests parsed by {@link Request#getParts()}.
+     */
+    public static final String MEMORY_BUDGET_ATTRIBUTE = "org.eclipse.jetty.server.MultiPartFormInputStream.memoryBudget";
     private static final Logger LOG = LoggerFactory.getLogger(MultiPartFormInputStream.class);
 
     private final AutoLock _lock = new AutoLock();
     private final MultiMap<Part> _parts = new MultiMap<>();
     private final InputStream _in;
+    private final ServletInputStream _servletIn;
     private final MultipartConfigElement _config;
     private final File _contextTmpDir;
     private final String _contentType;
@@ -100,6 +124,9 @@ public class MultiPartFormInputStream
     private volatile boolean _deleteOnExit;
     private volatile boolean _writeFilesWithFilenames;
     private volatile int _bufferSize = 16 * 1024;
+    private volatile ByteBufferPool _byteBufferPool;
+    private volatile MemoryBudget _memoryBudget;
+    private long _total;
     private State state = State.UNPARSED;
 
     public class MultiPart implements Part
@@ -113,6 +140,9 @@ public class MultiPartFormInputStream
         protected MultiMap<String> _headers;
         protected long _size = 0;
         protected boolean _temporary = true;
+        private FileChannel _channel;
+        private ByteBuffer _fileBuffer;
+        private long _reserved;
 
         public MultiPart(String name, String filename)
         {
@@ -150,35 +180,131 @@ public class MultiPartFormInputStream
 
         protected void close() throws IOException
         {
-            _out.close();
+            if (_channel != null)
+            {
+                try
+                {
+                    flushFileBuffer();
+                }
+                finally
+                {
+                    closeChannel();
+                }
+            }
+            else if (_out != null)
+            {
+                _out.close();
+            }
         }
 
         protected void write(int b) throws IOException
         {
-            if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + 1 > MultiPartFormInputStream.this._config.getMaxFileSize())
-                throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
-
-            if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
-                _size + 1 > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
-                createFile();
-
-            _out.write(b);
-            _size++;
+            write(ByteBuffer.wrap(new byte[]{(byte)b}));
         }
 
         protected void write(byte[] bytes, int offset, int length) throws IOException
         {
+            write(ByteBuffer.wrap(bytes, offset, length));
+        }
+
+        /**
+         * <p>Writes the given content to this part, spooling the part to a file
+         * if it exceeds the file size threshold or the memory budget.</p>
+         *
+         * @param buffer the content to write, fully consumed by this method
+         * @throws IOException if the content cannot be written
+         */
+        protected void write(ByteBuffer buffer) throws IOException
+        {
+            int length = buffer.remaining();
             if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + length > MultiPartFormInputStream.this._config.getMaxFileSize())
                 throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
 
-            if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
-                _size + length > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
-                createFile();
+            if (_file == null)
+            {
+                long threshold = MultiPartFormInputStream.this._config.getFileSizeThreshold();
+                if ((threshold > 0 && _size + length > threshold) || !reserve(length))
+                    createFile();
+            }
 
-            _out.write(bytes, offset, length);
+            if (_channel != null)
+                writeToFile(buffer);
+            else
+                BufferUtil.writeTo(buffer, _out);
             _size += length;
         }
 
+        private boolean reserve(long length)
+        {
+            MemoryBudget budget = _memoryBudget;
+            if (budget == null)
+                return true;
+            if (!budget.tryAcquire(length))
+                return false;
+            _reserved += length;
+            return true;
+        }
+
+        private void release()
+        {
+            MemoryBudget budget = _memoryBudget;
+            if (budget != null && _reserved > 0)
+                budget.release(_reserved);
+            _reserved = 0;
+        }
+
+        private void writeToFile(ByteBuffer buffer) throws IOException
+        {
+            if (_fileBuffer == null)
+                _fileBuffer = acquireFileBuffer();
+
+            while (buffer.hasRemaining())
+            {
+                // Large writes bypass the aggregation buffer when it is empty.
+                if (_fileBuffer.position() == 0 && buffer.remaining() >= _fileBuffer.capacity())
+                {
+                    while (buffer.hasRemaining())
+                    {
+                        _channel.write(buffer);
+                    }
+                    return;
+                }
+
+                int length = Math.min(buffer.remaining(), _fileBuffer.remaining());
+                ByteBuffer slice = buffer.slice();
+                slice.limit(length);
+                _fileBuffer.put(slice);
+                buffer.position(buffer.position() + length);
+
+                if (!_fileBuffer.hasRemaining())
+                    flushFileBuffer();
+            }
+        }
+
+        private void flushFileBuffer() throws IOException
+        {
+            if (_fileBuffer == null || _fileBuffer.position() == 0)
+                return;
+            _fileBuffer.flip();
+            while (_fileBuffer.hasRemaining())
+            {
+                _channel.write(_fileBuffer);
+            }
+            _fileBuffer.clear();
+        }
+
+        private void closeChannel() throws IOException
+        {
+            ByteBuffer buffer = _fileBuffer;
+            _fileBuffer = null;
+            if (buffer != null)
+                releaseFileBuffer(buffer);
+            FileChannel channel = _channel;
+            _channel = null;
+            if (channel != null)
+                channel.close();
+        }
+
         @Override
         public void write(String fileName) throws IOException
         {
@@ -201,6 +327,7 @@ public class MultiPartFormInputStream
                 finally
                 {
                     _bout = null;
+                    release();
                 }
             }
             else
@@ -219,19 +346,17 @@ public class MultiPartFormInputStream
             Path parent = MultiPartFormInputStream.this._tmpDir;
             Path tempFile = Files.createTempFile(parent, "MultiPart", "");
             _file = tempFile.toFile();
+            _channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
 
-            OutputStream fos = Files.newOutputStream(tempFile, StandardOpenOption.WRITE);
-            BufferedOutputStream bos = new BufferedOutputStream(fos);
-
-            if (_size > 0 && _out != null)
+            if (_size > 0 && _bout != null)
             {
                 // already written some bytes, so need to copy them into the file
-                _out.flush();
-                _bout.writeTo(bos);
-                _out.close();
+                writeToFile(ByteBuffer.wrap(_bout.getBuf(), 0, _bout.size()));
+                _bout.close();
             }
             _bout = null;
-            _out = bos;
+            _out = null;
+            release();
         }
 
         protected void setHeaders(MultiMap<String> headers)
@@ -312,6 +437,8 @@ public class MultiPartFormInputStream
         @Override
         public void delete() throws IOException
         {
+            release();
+            closeChannel();
             if (_file != null && _file.exists())
                 if (!_file.delete())
                     throw new IOException("Could Not Delete File");
@@ -324,6 +451,8 @@ public class MultiPartFormInputStream
          */
         public void cleanUp() throws IOException
         {
+            release();
+            closeChannel();
             if (_temporary)
                 delete();
         }
@@ -367,13 +496,18 @@ public class MultiPartFormInputStream
 
         if (in instanceof ServletInputStream)
         {
-            if (((ServletInputStream)in).isFinished())
+            _servletIn = (ServletInputStream)in;
+            if (_servletIn.isFinished())
             {
                 _in = null;
                 state = State.PARSED;
                 return;
             }
         }
+        else
+        {
+            _servletIn = null;
+        }
 
         _in = new BufferedInputStream(in);
     }
@@ -462,7 +596,7 @@ public class MultiPartFormInputStream
     {
         parse();
         throwIfError();
-        return _parts.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        return getPartsList();
     }
 
     /**
@@ -500,6 +634,49 @@ public class MultiPartFormInputStream
         }
     }
 
+    /**
+     * <p>Parses the multipart content asynchronously, reading it from the {@link ServletInputStream}
+     * via a {@link ReadListener}, so the request must be in asynchronous mode.</p>
+     * <p>Once the returned future is completed, {@link #getParts()} and {@link #getPart(String)}
+     * return the parsed parts without blocking.</p>
+     *
+     * @return a future completed with the parts when the multipart content has been fully parsed
+     */
+    public CompletableFuture<Collection<Part>> parseAsync()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            switch (state)
+            {
+                case UNPARSED:
+                    if (_servletIn == null)
+                        return CompletableFuture.failedFuture(new IllegalStateException("Not a ServletInputStream"));
+                    state = State.PARSING;
+                    break;
+
+                case PARSED:
+                    if (_err != null)
+                        return CompletableFuture.failedFuture(_err);
+                    return CompletableFuture.completedFuture(getPartsList());
+
+                default:
+                    return CompletableFuture.failedFuture(new IOException(state.name()));
+            }
+        }
+
+        AsyncParser asyncParser = new AsyncParser();
+        try
+        {
+            asyncParser._parser = newParser();
+            _servletIn.setReadListener(asyncParser);
+        }
+        catch (Throwable x)
+        {
+            asyncParser.fail(x);
+        }
+        return asyncParser._future;
+    }
+
     /**
      * Parse, if necessary, the multipart stream.
      */
@@ -516,6 +693,11 @@ public class MultiPartFormInputStream
                 case PARSED:
                     return;
 
+                case PARSING:
+                    // Only fail this caller, the parsing in progress, for example
+                    // via parseAsync(), must not be affected by this failure.
+                    throw new IllegalStateException("Multipart content is being parsed");
+
                 default:
                     _err = new IOException(state.name());
                     return;
@@ -525,65 +707,20 @@ public class MultiPartFormInputStream
         MultiPartParser parser = null;
         try
         {
-            // Sort out the location to which to write files:
-            // If there is a MultiPartConfigElement.location, use it
-            // otherwise default to the context tmp dir
-            if (StringUtil.isBlank(_config.getLocation()))
-                _tmpDir = _contextTmpDir.toPath();
-            else
-            {
-                // If the MultiPartConfigElement.location is
-                // relative, make it relative to the context tmp dir
-                Path location = FileSystems.getDefault().getPath(_config.getLocation());
-                _tmpDir = (location.isAbsolute() ? location : _contextTmpDir.toPath().resolve(location));
-            }
-
-            if (!Files.exists(_tmpDir))
-                Files.createDirectories(_tmpDir);
-
-            String contentTypeBoundary = "";
-            int bstart = _contentType.indexOf("boundary=");
-            if (bstart >= 0)
-            {
-                int bend = _contentType.indexOf(";", bstart);
-                bend = (bend < 0 ? _contentType.length() : bend);
-                contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
-            }
-
-            parser = new MultiPartParser(new Handler(), contentTypeBoundary);
+            parser = newParser();
             byte[] data = new byte[_bufferSize];
             int len;
-            long total = 0;
 
             while (true)
             {
-                try (AutoLock l = _lock.lock())
-                {
-                    if (state != State.PARSING)
-                    {
-                        _err = new IOException(state.name());
-                        return;
-                    }
-                }
+                if (!isParsing())
+                    return;
 
                 len = _in.read(data);
                 if (len > 0)
                 {
-                    // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
-                    total += len;
-                    if (_config.getMaxRequestSize() > 0 && total > _config.getMaxRequestSize())
-                    {
-                        _err = new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
-                        return;
-                    }
-
-                    ByteBuffer buffer = BufferUtil.toBuffer(data);
-                    buffer.limit(len);
-                    if (parser.parse(buffer, false))
+                    if (parse(parser, data, len))
                         break;
-
-                    if (buffer.hasRemaining())
-                        throw new IllegalStateException("Buffer did not fully consume");
                 }
                 else if (len == -1)
                 {
@@ -592,25 +729,7 @@ public class MultiPartFormInputStream
                 }
             }
 
-            // check for exceptions
-            if (_err != null)
-            {
-                return;
-            }
-
-            // check we read to the end of the message
-            if (parser.getState() != MultiPartParser.State.END)
-            {
-                if (parser.getState() == MultiPartParser.State.PREAMBLE)
-                    _err = new IOException("Missing initial multi part boundary");
-                else
-                    _err = new IOException("Incomplete Multipart");
-            }
-
-            if (LOG.isDebugEnabled())
-            {
-                LOG.debug("Parsing Complete {} err={}", parser, _err);
-            }
+            checkParsed(parser);
         }
         catch (Throwable e)
         {
@@ -622,27 +741,198 @@ public class MultiPartFormInputStream
         }
         finally
         {
-            boolean cleanup = false;
-            try (AutoLock l = _lock.lock())
+            parsed();
+        }
+    }
+
+    private MultiPartParser newParser() throws IOException
+    {
+        // Sort out the location to which to write files:
+        // If there is a MultiPartConfigElement.location, use it
+        // otherwise default to the context tmp dir
+        if (StringUtil.isBlank(_config.getLocation()))
+            _tmpDir = _contextTmpDir.toPath();
+        else
+        {
+            // If the MultiPartConfigElement.location is
+            // relative, make it relative to the context tmp dir
+            Path location = FileSystems.getDefault().getPath(_config.getLocation());
+            _tmpDir = (location.isAbsolute() ? location : _contextTmpDir.toPath().resolve(location));
+        }
+
+        if (!Files.exists(_tmpDir))
+            Files.createDirectories(_tmpDir);
+
+        String contentTypeBoundary = "";
+        int bstart = _contentType.indexOf("boundary=");
+        if (bstart >= 0)
+        {
+            int bend = _contentType.indexOf(";", bstart);
+            bend = (bend < 0 ? _contentType.length() : bend);
+            contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
+        }
+
+        return new MultiPartParser(new Handler(), contentTypeBoundary);
+    }
+
+    private boolean isParsing()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (state == State.PARSING)
+                return true;
+            _err = new IOException(state.name());
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the parser has completed the message
+     */
+    private boolean parse(MultiPartParser parser, byte[] data, int len)
+    {
+        // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
+        _total += len;
+        if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize())
+            throw new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
+
+        ByteBuffer buffer = BufferUtil.toBuffer(data);
+        buffer.limit(len);
+        if (parser.parse(buffer, false))
+            return true;
+
+        if (buffer.hasRemaining())
+            throw new IllegalStateException("Buffer did not fully consume");
+        return false;
+    }
+
+    private void checkParsed(MultiPartParser parser)
+    {
+        // check for exceptions
+        if (_err != null)
+            return;
+
+        // check we read to the end of the message
+        if (parser.getState() != MultiPartParser.State.END)
+        {
+            if (parser.getState() == MultiPartParser.State.PREAMBLE)
+                _err = new IOException("Missing initial multi part boundary");
+            else
+                _err = new IOException("Incomplete Multipart");
+        }
+
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Parsing Complete {} err={}", parser, _err);
+        }
+    }
+
+    private void parsed()
+    {
+        boolean cleanup = false;
+        try (AutoLock l = _lock.lock())
+        {
+            switch (state)
             {
-                switch (state)
-                {
-                    case PARSING:
-                        state = State.PARSED;
-                        break;
+                case PARSING:
+                    state = State.PARSED;
+                    break;
 
-                    case DELETING:
-                        state = State.DELETED;
-                        cleanup = true;
-                        break;
+                case DELETING:
+                    state = State.DELETED;
+                    cleanup = true;
+                    break;
+
+                default:
+                    _err = new IllegalStateException(state.name());
+            }
+        }
+
+        if (cleanup)
+            delete();
+    }
+
+    private List<Part> getPartsList()
+    {
+        return _parts.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private class AsyncParser implements ReadListener
+    {
+        private final CompletableFuture<Collection<Part>> _future = new CompletableFuture<>();
+        private final byte[] _data = new byte[_bufferSize];
+        private MultiPartParser _parser;
+        private boolean _done;
+
+        @Override
+        public void onDataAvailable()
+        {
+            try
+            {
+                while (!_done && _servletIn.isReady())
+                {
+                    if (!isParsing())
+                    {
+                        fail(_err);
+                        return;
+                    }
 
-                    default:
-                        _err = new IllegalStateException(state.name());
+                    int len = _servletIn.read(_data);
+                    if (len > 0)
+                    {
+                        if (parse(_parser, _data, len))
+                            succeed();
+                    }
+                    else if (len == -1)
+                    {
+                        onAllDataRead();
+                    }
                 }
             }
+            catch (Throwable x)
+            {
+                fail(x);
+            }
+        }
 
-            if (cleanup)
-                delete();
+        @Override
+        public void onAllDataRead()
+        {
+            if (_done)
+                return;
+            _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+            succeed();
+        }
+
+        @Override
+        public void onError(Throwable failure)
+        {
+            fail(failure);
+        }
+
+        private void succeed()
+        {
+            if (_done)
+                return;
+            _done = true;
+            checkParsed(_parser);
+            parsed();
+            if (_err != null)
+                _future.completeExceptionally(_err);
+            else
+                _future.complete(getPartsList());
+        }
+
+        private void fail(Throwable failure)
+        {
+            if (_done)
+                return;
+            _done = true;
+            _err = failure;
+            if (_parser != null)
+                _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+            parsed();
+            _future.completeExceptionally(failure);
         }
     }
 
@@ -753,7 +1043,7 @@ public class MultiPartFormInputStream
             {
                 try
                 {
-                    _part.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    _part.write(buffer);
                 }
                 catch (IOException e)
                 {
@@ -886,4 +1176,117 @@ public class MultiPartFormInputStream
     {
         _bufferSize = bufferSize;
     }
+
+    /**
+     * @return the pool of the buffers used to write parts to files, or null if buffers are not pooled
+     */
+    public ByteBufferPool getByteBufferPool()
+    {
+        return _byteBufferPool;
+    }
+
+    /**
+     * @param byteBufferPool the pool of direct buffers used to write parts to files
+     */
+    public void setByteBufferPool(ByteBufferPool byteBufferPool)
+    {
+        _byteBufferPool = byteBufferPool;
+    }
+
+    /**
+     * @return the memory budget shared with other multipart requests, or null if there is none
+     */
+    public MemoryBudget getMemoryBudget()
+    {
+        return _memoryBudget;
+    }
+
+    /**
+     * @param memoryBudget the memory budget shared with other multipart requests,
+     * parts are written to files when it is exhausted
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget)
+    {
+        _memoryBudget = memoryBudget;
+    }
+
+    private ByteBuffer acquireFileBuffer()
+    {
+        ByteBufferPool pool = _byteBufferPool;
+        ByteBuffer buffer = pool == null ? ByteBuffer.allocate(_bufferSize) : pool.acquire(_bufferSize, true);
+        buffer.clear();
+        return buffer;
+    }
+
+    private void releaseFileBuffer(ByteBuffer buffer)
+    {
+        ByteBufferPool pool = _byteBufferPool;
+        if (pool != null)
+            pool.release(buffer);
+    }
+
+    /**
+     * <p>A limit to the memory used by the in-memory parts of concurrent multipart requests.</p>
+     * <p>A part that cannot reserve memory from the budget is written to a file,
+     * regardless of the {@link MultipartConfigElement#getFileSizeThreshold()}.
+     * The memory is returned to the budget when the part is written to a file or deleted.</p>
+     *
+     * @see #MEMORY_BUDGET_ATTRIBUTE
+     */
+    @ManagedObject("The memory budget of multipart requests")
+    public static class MemoryBudget
+    {
+        private final AtomicLong _usedMemory = new AtomicLong();
+        private final long _maxMemory;
+
+        /**
+         * @param maxMemory the max number of bytes of part content that may be held in memory
+         */
+        public MemoryBudget(long maxMemory)
+        {
+            _maxMemory = maxMemory;
+        }
+
+        @ManagedAttribute("The max number of bytes of part content held in memory")
+        public long getMaxMemory()
+        {
+            return _maxMemory;
+        }
+
+        @ManagedAttribute("The number of bytes of part content held in memory")
+        public long getUsedMemory()
+        {
+            return _usedMemory.get();
+        }
+
+        /**
+         * @param bytes the number of bytes to reserve
+         * @return whether the bytes have been reserved
+         */
+        public boolean tryAcquire(long bytes)
+        {
+            while (true)
+            {
+                long used = _usedMemory.get();
+                if (used + bytes > _maxMemory)
+                    return false;
+                if (_usedMemory.compareAndSet(used, used + bytes))
+                    return true;
+            }
+        }
+
+        /**
+         * @param bytes the number of bytes previously reserved with {@link #tryAcquire(long)}
+         */
+        public void release(long bytes)
+        {
+            _usedMemory.addAndGet(-bytes);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%d/%d]", getClass().getSimpleName(), hashCode(), getUsedMemory(), getMaxMemory());
+        }
+    }
 }
@@ -37,6 +37,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import javax.servlet.AsyncContext;
 import javax.servlet.AsyncListener;
@@ -2283,6 +2285,50 @@ public class Request implements HttpServletRequest
         return getParts(null);
     }
 
+    /**
+     * <p>Parses the multipart content without blocking, reading it with a {@link javax.servlet.ReadListener},
+     * so the request must have been put in asynchronous mode with {@link #startAsync()}.</p>
+     * <p>Once the returned future is completed, {@link #getParts()}, {@link #getPart(String)} and the
+     * parameter methods return without blocking.</p>
+     *
+     * @return a future completed with the parts
+     * @see MultiPartFormInputStream#parseAsync()
+     */
+    public CompletableFuture<Collection<Part>> getPartsAsync()
+    {
+        String contentType = getContentType();
+        if (contentType == null || !MimeTypes.Type.MULTIPART_FORM_DATA.is(HttpField.valueParameters(contentType, null)))
+            return CompletableFuture.failedFuture(new ServletException("Unsupported Content-Type [" + contentType + "], expected [multipart/form-data]"));
+
+        try
+        {
+            if (_multiParts != null)
+                return CompletableFuture.completedFuture(getParts(null));
+
+            MultipartConfigElement config = (MultipartConfigElement)getAttribute(__MULTIPART_CONFIG_ELEMENT);
+            if (config == null)
+                throw new IllegalStateException("No multipart config for servlet");
+
+            _multiParts = newMultiParts(config);
+            return _multiParts.parseAsync().thenApply(parts ->
+            {
+                try
+                {
+                    extractMultiPartParameters(parts, null);
+                    return parts;
+                }
+                catch (IOException x)
+                {
+                    throw new CompletionException(x);
+                }
+            });
+        }
+        catch (Throwable x)
+        {
+            return CompletableFuture.failedFuture(x);
+        }
+    }
+
     private Collection<Part> getParts(MultiMap<String> params) throws IOException
     {
         if (_multiParts == null)
@@ -2292,71 +2338,84 @@ public class Request implements HttpServletRequest
                 throw new IllegalStateException("No multipart config for servlet");
 
             _multiParts = newMultiParts(config);
-            Collection<Part> parts = _multiParts.getParts();
+            extractMultiPartParameters(_multiParts.getParts(), params);
+        }
+
+        return _multiParts.getParts();
+    }
 
-            String formCharset = null;
-            Part charsetPart = _multiParts.getPart("_charset_");
-            if (charsetPart != null)
+    private void extractMultiPartParameters(Collection<Part> parts, MultiMap<String> params) throws IOException
+    {
+        String formCharset = null;
+        Part charsetPart = _multiParts.getPart("_charset_");
+        if (charsetPart != null)
+        {
+            try (InputStream is = charsetPart.getInputStream())
             {
-                try (InputStream is = charsetPart.getInputStream())
-                {
-                    ByteArrayOutputStream os = new ByteArrayOutputStream();
-                    IO.copy(is, os);
-                    formCharset = new String(os.toByteArray(), StandardCharsets.UTF_8);
-                }
+                ByteArrayOutputStream os = new ByteArrayOutputStream();
+                IO.copy(is, os);
+                formCharset = new String(os.toByteArray(), StandardCharsets.UTF_8);
             }
+        }
 
-            /*
-            Select Charset to use for this part. (NOTE: charset behavior is for the part value only and not the part header/field names)
-                1. Use the part specific charset as provided in that part's Content-Type header; else
-                2. Use the overall default charset. Determined by:
-                    a. if part name _charset_ exists, use that part's value.
-                    b. if the request.getCharacterEncoding() returns a value, use that.
-                        (note, this can be either from the charset field on the request Content-Type
-                        header, or from a manual call to request.setCharacterEncoding())
-                    c. use utf-8.
-             */
-            Charset defaultCharset;
-            if (formCharset != null)
-                defaultCharset = Charset.forName(formCharset);
-            else if (getCharacterEncoding() != null)
-                defaultCharset = Charset.forName(getCharacterEncoding());
-            else
-                defaultCharset = StandardCharsets.UTF_8;
+        /*
+        Select Charset to use for this part. (NOTE: charset behavior is for the part value only and not the part header/field names)
+            1. Use the part specific charset as provided in that part's Content-Type header; else
+            2. Use the overall default charset. Determined by:
+                a. if part name _charset_ exists, use that part's value.
+                b. if the request.getCharacterEncoding() returns a value, use that.
+                    (note, this can be either from the charset field on the request Content-Type
+                    header, or from a manual call to request.setCharacterEncoding())
+                c. use utf-8.
+         */
+        Charset defaultCharset;
+        if (formCharset != null)
+            defaultCharset = Charset.forName(formCharset);
+        else if (getCharacterEncoding() != null)
+            defaultCharset = Charset.forName(getCharacterEncoding());
+        else
+            defaultCharset = StandardCharsets.UTF_8;
 
-            ByteArrayOutputStream os = null;
-            for (Part p : parts)
+        ByteArrayOutputStream os = null;
+        for (Part p : parts)
+        {
+            if (p.getSubmittedFileName() == null)
             {
-                if (p.getSubmittedFileName() == null)
+                // Servlet Spec 3.0 pg 23, parts without filename must be put into params.
+                String charset = null;
+                if (p.getContentType() != null)
+                    charset = MimeTypes.getCharsetFromContentType(p.getContentType());
+
+                try (InputStream is = p.getInputStream())
                 {
-                    // Servlet Spec 3.0 pg 23, parts without filename must be put into params.
-                    String charset = null;
-                    if (p.getContentType() != null)
-                        charset = MimeTypes.getCharsetFromContentType(p.getContentType());
+                    if (os == null)
+                        os = new ByteArrayOutputStream();
+                    IO.copy(is, os);
 
-                    try (InputStream is = p.getInputStream())
-                    {
-                        if (os == null)
-                            os = new ByteArrayOutputStream();
-                        IO.copy(is, os);
-
-                        String content = new String(os.toByteArray(), charset == null ? defaultCharset : Charset.forName(charset));
-                        if (_contentParameters == null)
-                            _contentParameters = params == null ? new MultiMap<>() : params;
-                        _contentParameters.add(p.getName(), content);
-                    }
-                    os.reset();
+                    String content = new String(os.toByteArray(), charset == null ? defaultCharset : Charset.forName(charset));
+                    if (_contentParameters == null)
+                        _contentParameters = params == null ? new MultiMap<>() : params;
+                    _contentParameters.add(p.getName(), content);
                 }
+                os.reset();
             }
         }
-
-        return _multiParts.getParts();
     }
 
     private MultiPartFormInputStream newMultiParts(MultipartConfigElement config) throws IOException
     {
-        return new MultiPartFormInputStream(getInputStream(), getContentType(), config,
+        MultiPartFormInputStream multiParts = new MultiPartFormInputStream(getInputStream(), getContentType(), config,
             (_context != null ? (File)_context.getAttribute("javax.servlet.context.tempdir") : null));
+        if (_channel != null)
+        {
+            multiParts.setByteBufferPool(_channel.getByteBufferPool());
+            Object budget = _context == null ? null : _context.getAttribute(MultiPartFormInputStream.MEMORY_BUDGET_ATTRIBUTE);
+            if (budget == null)
+                budget = _channel.getServer().getAttribute(MultiPartFormInputStream.MEMORY_BUDGET_ATTRIBUTE);
+            if (budget instanceof MultiPartFormInputStream.MemoryBudget)
+                multiParts.setMemoryBudget((MultiPartFormInputStream.MemoryBudget)budget);
+        }
+        return multiParts;
     }
 
     @Override
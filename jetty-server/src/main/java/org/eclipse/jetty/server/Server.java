@@ -46,6 +46,7 @@ import org.eclipse.jetty.util.Attributes;
 import org.eclipse.jetty.util.Jetty;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.Uptime;
@@ -436,6 +437,7 @@ public class Server extends HandlerWrapper implements Attributes
 
             mex.ifExceptionThrow();
             LOG.info(String.format("Started %s @%dms", this, Uptime.getUptime()));
+            StartupTimings.report();
         }
         catch (Throwable th)
         {
@@ -26,6 +26,7 @@ import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.RetainableByteBufferPool;
 import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
 import org.eclipse.jetty.io.ssl.SslHandshakeListener;
 import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
@@ -178,12 +179,16 @@ public class SslConnectionFactory extends AbstractConnectionFactory implements C
         if (connection instanceof SslConnection)
         {
             SslConnection sslConnection = (SslConnection)connection;
+            SslHandshakeExecutor handshakeExecutor = getBean(SslHandshakeExecutor.class);
             if (connector instanceof ContainerLifeCycle)
             {
                 ContainerLifeCycle container = (ContainerLifeCycle)connector;
                 container.getBeans(SslHandshakeListener.class).forEach(sslConnection::addHandshakeListener);
+                if (handshakeExecutor == null)
+                    handshakeExecutor = container.getBean(SslHandshakeExecutor.class);
             }
             getBeans(SslHandshakeListener.class).forEach(sslConnection::addHandshakeListener);
+            sslConnection.setHandshakeExecutor(handshakeExecutor);
         }
         return super.configure(connection, connector, endPoint);
     }
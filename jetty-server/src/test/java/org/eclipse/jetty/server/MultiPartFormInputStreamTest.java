@@ -24,13 +24,17 @@ import java.util.Base64;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Part;
 
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.server.MultiPartFormInputStream.MemoryBudget;
 import org.eclipse.jetty.server.MultiPartFormInputStream.MultiPart;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.IO;
@@ -39,11 +43,14 @@ import org.junit.jupiter.api.Test;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -643,6 +650,139 @@ public class MultiPartFormInputStreamTest
         assertFalse(_tmpDir.exists());
     }
 
+    @Test
+    public void testParseAsync() throws Exception
+    {
+        byte[] content = createMultipartRequestString("myFile").getBytes();
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ChunkedServletInputStream(content, 7), _contentType, config, _tmpDir);
+
+        Collection<Part> parts = mpis.parseAsync().get(5, TimeUnit.SECONDS);
+        assertThat(parts.size(), is(2));
+        assertThat(mpis.getParts().size(), is(2));
+
+        Part field1 = mpis.getPart("field1");
+        assertThat(IO.toString(field1.getInputStream()), is("Joe Blow"));
+        Part stuff = mpis.getPart("stuff");
+        assertThat(IO.toString(stuff.getInputStream()), startsWith("myFile000"));
+
+        mpis.deleteParts();
+    }
+
+    @Test
+    public void testGetPartsDuringParseAsync() throws Exception
+    {
+        byte[] content = createMultipartRequestString("myFile").getBytes();
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
+        AtomicReference<ReadListener> listenerRef = new AtomicReference<>();
+        ChunkedServletInputStream input = new ChunkedServletInputStream(content, 7)
+        {
+            @Override
+            public void setReadListener(ReadListener readListener)
+            {
+                // Do not read yet, so the asynchronous parsing is in progress.
+                listenerRef.set(readListener);
+            }
+        };
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(input, _contentType, config, _tmpDir);
+
+        CompletableFuture<Collection<Part>> completable = mpis.parseAsync();
+        assertNotNull(listenerRef.get());
+
+        // The concurrent synchronous call fails, but not the asynchronous parsing.
+        assertThrows(IllegalStateException.class, mpis::getParts);
+        assertThrows(IllegalStateException.class, () -> mpis.getPart("field1"));
+
+        ReadListener listener = listenerRef.get();
+        listener.onDataAvailable();
+        listener.onAllDataRead();
+
+        Collection<Part> parts = completable.get(5, TimeUnit.SECONDS);
+        assertThat(parts.size(), is(2));
+        assertThat(mpis.getParts().size(), is(2));
+
+        mpis.deleteParts();
+    }
+
+    @Test
+    public void testParseAsyncRequestTooBig()
+    {
+        byte[] content = createMultipartRequestString("myFile").getBytes();
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 60, 50);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ChunkedServletInputStream(content, 16), _contentType, config, _tmpDir);
+
+        ExecutionException x = assertThrows(ExecutionException.class, () -> mpis.parseAsync().get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(IllegalStateException.class));
+        assertThat(x.getCause().getMessage(), containsString("Request exceeds maxRequestSize"));
+
+        mpis.deleteParts();
+        String[] fileList = _tmpDir.list();
+        assertNotNull(fileList);
+        assertThat(fileList.length, is(0));
+    }
+
+    @Test
+    public void testMemoryBudgetSpoolsToFile() throws Exception
+    {
+        MemoryBudget budget = new MemoryBudget(16);
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 1024);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ByteArrayInputStream(_multi.getBytes()), _contentType, config, _tmpDir);
+        mpis.setMemoryBudget(budget);
+
+        assertThat(mpis.getParts().size(), is(2));
+
+        // The first part fits in the budget and stays in memory.
+        MultiPart field1 = (MultiPart)mpis.getPart("field1");
+        assertNull(field1.getFile());
+        assertThat(budget.getUsedMemory(), is(8L));
+
+        // The second part is below the threshold, but does not fit in the budget.
+        MultiPart stuff = (MultiPart)mpis.getPart("stuff");
+        assertNotNull(stuff.getFile());
+        assertThat(IO.toString(stuff.getInputStream()), startsWith("stuff.txt000"));
+
+        mpis.deleteParts();
+        assertThat(budget.getUsedMemory(), is(0L));
+    }
+
+    @Test
+    public void testSpoolToFileWithPooledBuffers() throws Exception
+    {
+        byte[] data = new byte[256 * 1024];
+        for (int i = 0; i < data.length; ++i)
+        {
+            data[i] = (byte)('a' + i % 26);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"upload\"; filename=\"upload.bin\"\r\n" +
+            "\r\n").getBytes(ISO_8859_1));
+        body.write(data);
+        body.write("\r\n--AaB03x--\r\n".getBytes(ISO_8859_1));
+
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, -1, -1, 1024);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ByteArrayInputStream(body.toByteArray()), _contentType, config, _tmpDir);
+        mpis.setBufferSize(1000);
+        mpis.setByteBufferPool(bufferPool);
+
+        MultiPart upload = (MultiPart)mpis.getPart("upload");
+        assertNotNull(upload.getFile());
+        assertThat(upload.getSize(), is((long)data.length));
+        try (InputStream input = upload.getInputStream())
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            IO.copy(input, output);
+            assertArrayEquals(data, output.toByteArray());
+        }
+
+        // The direct buffer used to write the file has been returned to the pool.
+        assertThat(bufferPool.getDirectByteBufferCount(), greaterThan(0L));
+
+        mpis.deleteParts();
+        assertFalse(upload.getFile().exists());
+    }
+
     @Test
     public void testLFOnlyRequest() throws Exception
     {
@@ -1097,6 +1237,56 @@ public class MultiPartFormInputStreamTest
         assertThat(part2, notNullValue());
     }
 
+    private static class ChunkedServletInputStream extends ServletInputStream
+    {
+        private final ByteArrayInputStream _content;
+        private final int _chunkSize;
+
+        private ChunkedServletInputStream(byte[] content, int chunkSize)
+        {
+            _content = new ByteArrayInputStream(content);
+            _chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _content.available() == 0;
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return !isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener)
+        {
+            try
+            {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            }
+            catch (IOException x)
+            {
+                readListener.onError(x);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            return _content.read(b, off, Math.min(len, _chunkSize));
+        }
+
+        @Override
+        public int read()
+        {
+            return _content.read();
+        }
+    }
+
     private static String createMultipartRequestString(String filename)
     {
         int length = filename.length();
@@ -0,0 +1,161 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Part;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * <p>Measures the throughput of multipart uploads spooled to disk, comparing
+ * unpooled heap buffers with pooled direct buffers and blocking with asynchronous parsing.</p>
+ */
+@Tag("stress")
+public class MultiPartFormInputStreamThroughputTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MultiPartFormInputStreamThroughputTest.class);
+    private static final String CONTENT_TYPE = "multipart/form-data, boundary=AaB03x";
+    private static final int UPLOAD_SIZE = 64 * 1024 * 1024;
+    private static final int ITERATIONS = 8;
+
+    public static Stream<Arguments> modes()
+    {
+        return Stream.of(
+            Arguments.of(false, false),
+            Arguments.of(true, false),
+            Arguments.of(true, true)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("modes")
+    public void testUploadThroughput(boolean pooled, boolean async) throws Exception
+    {
+        byte[] body = newBody();
+        Path tmpDir = MavenTestingUtils.getTargetTestingPath(getClass().getSimpleName());
+        MultipartConfigElement config = new MultipartConfigElement(tmpDir.toString(), -1, -1, 1024);
+        ArrayByteBufferPool bufferPool = pooled ? new ArrayByteBufferPool() : null;
+
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            InputStream input = async ? new ChunkedServletInputStream(body, 64 * 1024) : new ByteArrayInputStream(body);
+            MultiPartFormInputStream mpis = new MultiPartFormInputStream(input, CONTENT_TYPE, config, tmpDir.toFile());
+            mpis.setBufferSize(64 * 1024);
+            mpis.setByteBufferPool(bufferPool);
+
+            long begin = System.nanoTime();
+            Collection<Part> parts = async ? mpis.parseAsync().get(30, TimeUnit.SECONDS) : mpis.getParts();
+            // The first iterations warm up the JIT.
+            if (i >= ITERATIONS / 2)
+                elapsed += System.nanoTime() - begin;
+
+            assertThat(parts.size(), is(1));
+            assertThat(parts.iterator().next().getSize(), is((long)UPLOAD_SIZE));
+            mpis.deleteParts();
+        }
+
+        long bytes = (long)UPLOAD_SIZE * (ITERATIONS - ITERATIONS / 2);
+        double throughput = bytes / (1024.0 * 1024.0) / (elapsed / 1_000_000_000.0);
+        LOG.info("pooled={} async={} throughput={} MiB/s", pooled, async, String.format("%.1f", throughput));
+    }
+
+    private static byte[] newBody() throws IOException
+    {
+        byte[] data = new byte[UPLOAD_SIZE];
+        for (int i = 0; i < data.length; ++i)
+        {
+            data[i] = (byte)('a' + i % 26);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(UPLOAD_SIZE + 256);
+        body.write(("--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"upload\"; filename=\"upload.bin\"\r\n" +
+            "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        body.write(data);
+        body.write("\r\n--AaB03x--\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        return body.toByteArray();
+    }
+
+    private static class ChunkedServletInputStream extends ServletInputStream
+    {
+        private final ByteArrayInputStream _content;
+        private final int _chunkSize;
+
+        private ChunkedServletInputStream(byte[] content, int chunkSize)
+        {
+            _content = new ByteArrayInputStream(content);
+            _chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _content.available() == 0;
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return !isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener)
+        {
+            try
+            {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            }
+            catch (IOException x)
+            {
+                readListener.onError(x);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            return _content.read(b, off, Math.min(len, _chunkSize));
+        }
+
+        @Override
+        public int read()
+        {
+            return _content.read();
+        }
+    }
+}
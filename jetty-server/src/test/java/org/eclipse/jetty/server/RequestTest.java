@@ -34,10 +34,13 @@ import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
+import javax.servlet.AsyncContext;
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletException;
 import javax.servlet.ServletInputStream;
@@ -412,6 +415,77 @@ public class RequestTest
         assertThat(response, containsString(" 200 OK"));
     }
 
+    @Test
+    public void testMultiPartAsync() throws Exception
+    {
+        Path testTmpDir = workDir.getEmptyPathDir();
+        CompletableFuture<Integer> partsCount = new CompletableFuture<>();
+        CountDownLatch handleLatch = new CountDownLatch(1);
+
+        ContextHandler contextHandler = new ContextHandler();
+        contextHandler.setContextPath("/foo");
+        contextHandler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                MultipartConfigElement mpce = new MultipartConfigElement(testTmpDir.toString(), -1, -1, 2);
+                request.setAttribute(Request.__MULTIPART_CONFIG_ELEMENT, mpce);
+                AsyncContext asyncContext = request.startAsync();
+                baseRequest.getPartsAsync().whenComplete((parts, failure) ->
+                {
+                    if (failure == null)
+                    {
+                        partsCount.complete(parts.size());
+                        response.setHeader("field1", request.getParameter("field1"));
+                        response.setStatus(200);
+                    }
+                    else
+                    {
+                        partsCount.completeExceptionally(failure);
+                        response.setStatus(500);
+                    }
+                    asyncContext.complete();
+                });
+                handleLatch.countDown();
+            }
+        });
+        _server.stop();
+        _server.setHandler(contextHandler);
+        _server.start();
+
+        String multipart = "--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"field1\"\r\n" +
+            "\r\n" +
+            "Joe Blow\r\n" +
+            "--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"stuff\"; filename=\"foo.upload\"\r\n" +
+            "Content-Type: text/plain;charset=ISO-8859-1\r\n" +
+            "\r\n" +
+            "000000000000000000000000000000000000000000000000000\r\n" +
+            "--AaB03x--\r\n";
+
+        String header = "POST /foo/x.html HTTP/1.1\r\n" +
+            "Host: whatever\r\n" +
+            "Content-Type: multipart/form-data; boundary=\"AaB03x\"\r\n" +
+            "Content-Length: " + multipart.getBytes().length + "\r\n" +
+            "Connection: close\r\n" +
+            "\r\n";
+
+        // Send the content in two steps, so that the parser must wait for more content.
+        LocalEndPoint endPoint = _connector.connect();
+        endPoint.addInput(header + multipart.substring(0, 60));
+        assertTrue(handleLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(partsCount.isDone());
+        endPoint.addInput(multipart.substring(60));
+
+        String response = endPoint.getResponse();
+        assertThat(response, startsWith("HTTP/1.1 200"));
+        assertThat(response, containsString("field1: Joe Blow"));
+        assertThat(partsCount.get(5, TimeUnit.SECONDS), is(2));
+    }
+
     @Test
     public void testMultiPart() throws Exception
     {
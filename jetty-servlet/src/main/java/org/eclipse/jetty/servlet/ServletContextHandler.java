@@ -64,6 +64,7 @@ import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.server.session.SessionHandler;
 import org.eclipse.jetty.util.DecoratedObjectFactory;
 import org.eclipse.jetty.util.DeprecationWarning;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -389,7 +390,12 @@ public class ServletContextHandler extends ContextHandler
 
         // OK to Initialize servlet handler now that all relevant object trees have been started
         if (_servletHandler != null)
-            _servletHandler.initialize();
+        {
+            try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.SERVLET_INIT, this))
+            {
+                _servletHandler.initialize();
+            }
+        }
     }
 
     @Override
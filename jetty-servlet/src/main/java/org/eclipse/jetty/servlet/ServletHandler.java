@@ -114,9 +114,16 @@ public class ServletHandler extends ScopedHandler
     private final List<ListenerHolder> _listeners = new ArrayList<>();
     private boolean _initialized = false;
 
+    /**
+     * @deprecated filter chains are no longer cached by path, this field is not used.
+     */
+    @Deprecated
     @SuppressWarnings("unchecked")
     protected final ConcurrentMap<String, FilterChain>[] _chainCache = new ConcurrentMap[FilterMapping.ALL];
 
+    @SuppressWarnings("unchecked")
+    private final ConcurrentMap<Object, ChainSelector>[] _chainSelectors = new ConcurrentMap[FilterMapping.ALL];
+
     /**
      * Constructor.
      */
@@ -189,11 +196,11 @@ public class ServletHandler extends ScopedHandler
 
             if (isFilterChainsCached())
             {
-                _chainCache[FilterMapping.REQUEST] = new ConcurrentHashMap<>();
-                _chainCache[FilterMapping.FORWARD] = new ConcurrentHashMap<>();
-                _chainCache[FilterMapping.INCLUDE] = new ConcurrentHashMap<>();
-                _chainCache[FilterMapping.ERROR] = new ConcurrentHashMap<>();
-                _chainCache[FilterMapping.ASYNC] = new ConcurrentHashMap<>();
+                _chainSelectors[FilterMapping.REQUEST] = new ConcurrentHashMap<>();
+                _chainSelectors[FilterMapping.FORWARD] = new ConcurrentHashMap<>();
+                _chainSelectors[FilterMapping.INCLUDE] = new ConcurrentHashMap<>();
+                _chainSelectors[FilterMapping.ERROR] = new ConcurrentHashMap<>();
+                _chainSelectors[FilterMapping.ASYNC] = new ConcurrentHashMap<>();
             }
 
             if (_contextHandler == null)
@@ -540,21 +547,65 @@ public class ServletHandler extends ScopedHandler
     protected FilterChain getFilterChain(Request baseRequest, String pathInContext, ServletHolder servletHolder)
     {
         Objects.requireNonNull(servletHolder);
-        String key = pathInContext == null ? servletHolder.getName() : pathInContext;
         int dispatch = FilterMapping.dispatch(baseRequest.getDispatcherType());
 
-        if (_filterChainsCached)
+        if (!_filterChainsCached)
+            return newFilterChain(pathInContext, servletHolder, dispatch);
+
+        // Chains are not cached by path, as paths may have a high cardinality (e.g. /orders/12345),
+        // but by the servlet mapping that matched the path, which determines most path mapped filters.
+        ChainSelector selector = null;
+        Map<Object, ChainSelector> selectors = _chainSelectors[dispatch];
+        ServletPathMapping servletPathMapping = pathInContext == null ? null : baseRequest.getServletPathMapping();
+        String pattern = servletPathMapping == null ? null : servletPathMapping.getPattern();
+        if (pattern != null)
+        {
+            selector = selectors.get(pattern);
+            if (selector == null)
+                selector = cacheChainSelector(selectors, pattern, new ChainSelector(servletHolder, new ServletPathSpec(pattern), dispatch));
+            if (!selector.selects(pathInContext, servletHolder))
+                selector = null;
+        }
+        if (selector == null)
         {
-            FilterChain chain = _chainCache[dispatch].get(key);
-            if (chain != null)
-                return chain;
+            selector = selectors.get(servletHolder);
+            if (selector == null)
+                selector = cacheChainSelector(selectors, servletHolder, new ChainSelector(servletHolder, null, dispatch));
         }
+        return selector.getFilterChain(pathInContext);
+    }
 
+    private ChainSelector cacheChainSelector(Map<Object, ChainSelector> selectors, Object key, ChainSelector selector)
+    {
+        ChainSelector existing = selectors.putIfAbsent(key, selector);
+        if (existing != null)
+            return existing;
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} cached filter chain selector {}", this, selector);
+        return selector;
+    }
+
+    private FilterChain newFilterChain(String pathInContext, ServletHolder servletHolder, int dispatch)
+    {
         // Build the filter chain from the inside out.
         // ie first wrap the servlet with the last filter to be applied.
         // The mappings lists have been reversed to make this simple and fast.
-        FilterChain chain = null;
+        FilterChain chain = newNameFilterChain(servletHolder, dispatch);
 
+        if (pathInContext != null && _filterPathMappings != null)
+        {
+            for (FilterMapping mapping : _filterPathMappings)
+            {
+                if (mapping.appliesTo(pathInContext, dispatch))
+                    chain = newFilterChain(mapping.getFilterHolder(), chain == null ? new ChainEnd(servletHolder) : chain);
+            }
+        }
+        return chain;
+    }
+
+    private FilterChain newNameFilterChain(ServletHolder servletHolder, int dispatch)
+    {
+        FilterChain chain = null;
         if (_filterNameMappings != null && !_filterNameMappings.isEmpty())
         {
             if (_wildFilterNameMappings != null)
@@ -571,31 +622,6 @@ public class ServletHandler extends ScopedHandler
                 }
             }
         }
-
-        if (pathInContext != null && _filterPathMappings != null)
-        {
-            for (FilterMapping mapping : _filterPathMappings)
-            {
-                if (mapping.appliesTo(pathInContext, dispatch))
-                    chain = newFilterChain(mapping.getFilterHolder(), chain == null ? new ChainEnd(servletHolder) : chain);
-            }
-        }
-
-        if (_filterChainsCached)
-        {
-            final Map<String, FilterChain> cache = _chainCache[dispatch];
-            // Do we have too many cached chains?
-            if (_maxFilterChainsCacheSize > 0 && cache.size() >= _maxFilterChainsCacheSize)
-            {
-                // flush the cache
-                LOG.debug("{} flushed filter chain cache for {}", this, baseRequest.getDispatcherType());
-                cache.clear();
-            }
-            chain = chain == null ? new ChainEnd(servletHolder) : chain;
-            // flush the cache
-            LOG.debug("{} cached filter chain for {}: {}", this, baseRequest.getDispatcherType(), chain);
-            cache.put(key, chain);
-        }
         return chain;
     }
 
@@ -612,13 +638,13 @@ public class ServletHandler extends ScopedHandler
 
     protected void invalidateChainsCache()
     {
-        if (_chainCache[FilterMapping.REQUEST] != null)
+        if (_chainSelectors[FilterMapping.REQUEST] != null)
         {
-            _chainCache[FilterMapping.REQUEST].clear();
-            _chainCache[FilterMapping.FORWARD].clear();
-            _chainCache[FilterMapping.INCLUDE].clear();
-            _chainCache[FilterMapping.ERROR].clear();
-            _chainCache[FilterMapping.ASYNC].clear();
+            _chainSelectors[FilterMapping.REQUEST].clear();
+            _chainSelectors[FilterMapping.FORWARD].clear();
+            _chainSelectors[FilterMapping.INCLUDE].clear();
+            _chainSelectors[FilterMapping.ERROR].clear();
+            _chainSelectors[FilterMapping.ASYNC].clear();
         }
     }
 
@@ -1362,10 +1388,10 @@ public class ServletHandler extends ScopedHandler
             _servletPathMap = pm;
 
             // flush filter chain cache
-            for (int i = _chainCache.length; i-- > 0; )
+            for (int i = _chainSelectors.length; i-- > 0; )
             {
-                if (_chainCache[i] != null)
-                    _chainCache[i].clear();
+                if (_chainSelectors[i] != null)
+                    _chainSelectors[i].clear();
             }
 
             if (LOG.isDebugEnabled())
@@ -1474,8 +1500,10 @@ public class ServletHandler extends ScopedHandler
 
     /**
      * Set the maximum filter chain cache size.
-     * Filter chains are cached if {@link #isFilterChainsCached()} is true. If the max cache size
-     * is greater than zero, then the cache is flushed whenever it grows to be this size.
+     * Filter chains are cached if {@link #isFilterChainsCached()} is true, once per servlet mapping
+     * and combination of path mapped filters matching the request path, rather than once per path.
+     * If the max cache size is greater than zero, then no more chains are cached for a servlet
+     * mapping once it has cached this many, and further combinations are built for each request.
      *
      * @param maxFilterChainsCacheSize the maximum number of entries in a filter chain cache.
      */
@@ -1577,6 +1605,196 @@ public class ServletHandler extends ScopedHandler
         }
     }
 
+    /**
+     * <p>Selects the filter chains for the paths matched by a servlet mapping, for a dispatch type.</p>
+     * <p>The path mapped filters are classified once against the servlet mapping as either always,
+     * never or maybe applying, and only the latter are matched against the path of each request.
+     * Chains are cached by the set of matching filters, so their number is bounded by the combinations
+     * of filters that can apply to the servlet mapping rather than by the number of distinct paths.</p>
+     */
+    private class ChainSelector
+    {
+        private final ServletHolder _servletHolder;
+        private final ServletPathSpec _servletPathSpec;
+        private final int _dispatch;
+        private final FilterChain _nameChain;
+        private final FilterMapping[] _pathMappings;
+        private final int[] _maybe;
+        private final long _always;
+        private final FilterChain _chain;
+        private final ConcurrentMap<Long, FilterChain> _chains;
+
+        private ChainSelector(ServletHolder servletHolder, ServletPathSpec servletPathSpec, int dispatch)
+        {
+            _servletHolder = servletHolder;
+            _servletPathSpec = servletPathSpec;
+            _dispatch = dispatch;
+            _nameChain = newNameFilterChain(servletHolder, dispatch);
+
+            List<FilterMapping> pathMappings = new ArrayList<>();
+            List<Integer> maybe = new ArrayList<>();
+            long always = 0;
+            if (_filterPathMappings != null)
+            {
+                for (FilterMapping mapping : _filterPathMappings)
+                {
+                    Boolean applies = applies(mapping);
+                    if (Boolean.FALSE.equals(applies))
+                        continue;
+                    if (applies == null)
+                        maybe.add(pathMappings.size());
+                    else if (pathMappings.size() < Long.SIZE)
+                        always |= 1L << pathMappings.size();
+                    pathMappings.add(mapping);
+                }
+            }
+            _pathMappings = pathMappings.toArray(new FilterMapping[0]);
+            _maybe = maybe.stream().mapToInt(Integer::intValue).toArray();
+            _always = always;
+
+            if (_pathMappings.length > Long.SIZE)
+            {
+                // Too many filters to key the chains, build them for every request.
+                _chain = null;
+                _chains = null;
+            }
+            else if (_maybe.length == 0)
+            {
+                _chain = newChain(_always);
+                _chains = null;
+            }
+            else
+            {
+                _chain = null;
+                _chains = new ConcurrentHashMap<>();
+            }
+        }
+
+        /**
+         * @param mapping the path filter mapping
+         * @return true if the mapping applies to all the paths of the servlet mapping,
+         * false if it applies to none of them, null if it depends on the path
+         */
+        private Boolean applies(FilterMapping mapping)
+        {
+            if (!mapping.appliesTo(_dispatch))
+                return false;
+            if (_servletPathSpec == null)
+                return null;
+            Boolean applies = false;
+            for (String pathSpec : mapping.getPathSpecs())
+            {
+                if (pathSpec == null)
+                    continue;
+                Boolean matches = matches(pathSpec);
+                if (Boolean.TRUE.equals(matches))
+                    return true;
+                if (matches == null)
+                    applies = null;
+            }
+            return applies;
+        }
+
+        private Boolean matches(String pathSpec)
+        {
+            if ("/*".equals(pathSpec))
+                return true;
+            if (!pathSpec.startsWith("/") && !pathSpec.startsWith("*."))
+                return null;
+
+            switch (_servletPathSpec.getGroup())
+            {
+                case EXACT:
+                    return ServletPathSpec.match(pathSpec, _servletPathSpec.getDeclaration(), true);
+                case ROOT:
+                    return ServletPathSpec.match(pathSpec, "/", true);
+                case PREFIX_GLOB:
+                {
+                    if (pathSpec.startsWith("*."))
+                        return null;
+                    String prefix = _servletPathSpec.getPrefix();
+                    if (pathSpec.endsWith("/*"))
+                    {
+                        String filterPrefix = pathSpec.substring(0, pathSpec.length() - 2);
+                        if (prefix.equals(filterPrefix) || prefix.startsWith(filterPrefix + "/"))
+                            return true;
+                        if (filterPrefix.startsWith(prefix + "/"))
+                            return null;
+                        return false;
+                    }
+                    if (pathSpec.equals(prefix) || pathSpec.startsWith(prefix + "/"))
+                        return null;
+                    return false;
+                }
+                case SUFFIX_GLOB:
+                    return pathSpec.equals(_servletPathSpec.getDeclaration()) ? true : null;
+                default:
+                    return null;
+            }
+        }
+
+        private boolean selects(String pathInContext, ServletHolder servletHolder)
+        {
+            return _servletHolder == servletHolder && _servletPathSpec.matches(pathInContext);
+        }
+
+        private FilterChain getFilterChain(String pathInContext)
+        {
+            if (_chain != null)
+                return _chain;
+
+            if (_chains == null)
+            {
+                FilterChain chain = newFilterChain(pathInContext, _servletHolder, _dispatch);
+                return chain == null ? new ChainEnd(_servletHolder) : chain;
+            }
+
+            long key = _always;
+            if (pathInContext != null)
+            {
+                for (int i : _maybe)
+                {
+                    if (_pathMappings[i].appliesTo(pathInContext, _dispatch))
+                        key |= 1L << i;
+                }
+            }
+
+            FilterChain chain = _chains.get(key);
+            if (chain == null)
+            {
+                chain = newChain(key);
+                if (_maxFilterChainsCacheSize <= 0 || _chains.size() < _maxFilterChainsCacheSize)
+                {
+                    FilterChain existing = _chains.putIfAbsent(key, chain);
+                    if (existing != null)
+                        chain = existing;
+                    else if (LOG.isDebugEnabled())
+                        LOG.debug("{} cached filter chain for {}: {}", ServletHandler.this, this, chain);
+                }
+            }
+            return chain;
+        }
+
+        private FilterChain newChain(long key)
+        {
+            // The path mappings are reversed, so the chain is built from the inside out.
+            FilterChain chain = _nameChain;
+            for (int i = 0; i < _pathMappings.length; i++)
+            {
+                if ((key & (1L << i)) != 0)
+                    chain = newFilterChain(_pathMappings[i].getFilterHolder(), chain == null ? new ChainEnd(_servletHolder) : chain);
+            }
+            return chain == null ? new ChainEnd(_servletHolder) : chain;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,%s,%d}", getClass().getSimpleName(), hashCode(),
+                _servletPathSpec == null ? null : _servletPathSpec.getDeclaration(), _servletHolder, _dispatch);
+        }
+    }
+
     static class Chain implements FilterChain
     {
         private final FilterHolder _filterHolder;
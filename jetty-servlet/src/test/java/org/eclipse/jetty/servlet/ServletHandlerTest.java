@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -33,10 +34,15 @@ import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
 
 import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServletPathMapping;
 import org.eclipse.jetty.util.component.Container;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -49,6 +55,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ServletHandlerTest
 {
+    private static final Logger LOG = LoggerFactory.getLogger(ServletHandlerTest.class);
+
     FilterHolder fh1 = new FilterHolder(new Source(Source.Origin.DESCRIPTOR, "foo.xml"));
     FilterMapping fm1 = new FilterMapping();
 
@@ -835,6 +843,147 @@ public class ServletHandlerTest
         assertThat(connector.getResponse("GET /other.bob HTTP/1.0\r\n\r\n"), containsString("path-/*-path-*.bob-default"));
     }
 
+    @Test
+    public void testFilterChainCacheHighCardinalityPaths() throws Exception
+    {
+        Server server = new Server();
+        AtomicInteger chains = new AtomicInteger();
+        ServletHandler handler = new ServletHandler()
+        {
+            @Override
+            protected FilterChain newFilterChain(FilterHolder filterHolder, FilterChain chain)
+            {
+                chains.incrementAndGet();
+                return super.newFilterChain(filterHolder, chain);
+            }
+        };
+        handler.setMaxFilterChainsCacheSize(16);
+        server.setHandler(handler);
+
+        ServletHolder orders = new ServletHolder(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                resp.getOutputStream().println("ORDERS");
+            }
+        });
+        handler.addServletWithMapping(orders, "/orders/*");
+
+        for (final String mapping : new String[]{"/*", "/orders/*", "/orders/special/*", "*.json", "/other/*"})
+        {
+            handler.addFilterWithMapping(new FilterHolder((TestFilter)(request, response, chain) ->
+            {
+                response.getOutputStream().print("path-" + mapping + "-");
+                chain.doFilter(request, response);
+            }), mapping, EnumSet.of(DispatcherType.REQUEST));
+        }
+
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        server.start();
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertThat(connector.getResponse("GET /orders/" + i + " HTTP/1.0\r\n\r\n"),
+                containsString("path-/*-path-/orders/*-ORDERS"));
+            assertThat(connector.getResponse("GET /orders/" + i + ".json HTTP/1.0\r\n\r\n"),
+                containsString("path-/*-path-/orders/*-path-*.json-ORDERS"));
+            assertThat(connector.getResponse("GET /orders/special/" + i + " HTTP/1.0\r\n\r\n"),
+                containsString("path-/*-path-/orders/*-path-/orders/special/*-ORDERS"));
+        }
+
+        // One chain per combination of matching filters, rather than one per path.
+        assertThat(chains.get(), is(2 + 3 + 3));
+    }
+
+    @Test
+    public void testFilterChainCacheMaxSize() throws Exception
+    {
+        Server server = new Server();
+        ServletHandler handler = new ServletHandler();
+        handler.setMaxFilterChainsCacheSize(1);
+        server.setHandler(handler);
+
+        ServletHolder def = new ServletHolder(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                resp.getOutputStream().println("default");
+            }
+        });
+        handler.addServletWithMapping(def, "/");
+
+        for (final String mapping : new String[]{"/a/*", "/b/*", "*.bob"})
+        {
+            handler.addFilterWithMapping(new FilterHolder((TestFilter)(request, response, chain) ->
+            {
+                response.getOutputStream().print("path-" + mapping + "-");
+                chain.doFilter(request, response);
+            }), mapping, EnumSet.of(DispatcherType.REQUEST));
+        }
+
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        server.start();
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertThat(connector.getResponse("GET /a/x HTTP/1.0\r\n\r\n"), containsString("\r\n\r\npath-/a/*-default"));
+            assertThat(connector.getResponse("GET /b/x.bob HTTP/1.0\r\n\r\n"), containsString("\r\n\r\npath-/b/*-path-*.bob-default"));
+            assertThat(connector.getResponse("GET /c/x HTTP/1.0\r\n\r\n"), containsString("\r\n\r\ndefault"));
+        }
+    }
+
+    @Tag("stress")
+    @Test
+    public void testFilterChainCacheBenchmark() throws Exception
+    {
+        Server server = new Server();
+        ServletHandler handler = new ServletHandler();
+        server.setHandler(handler);
+
+        ServletHolder orders = new ServletHolder(new HttpServlet() {});
+        handler.addServletWithMapping(orders, "/orders/*");
+        handler.addServletWithMapping(new ServletHolder(new HttpServlet() {}), "/");
+        for (String mapping : new String[]{"/*", "/orders/*", "/orders/special/*", "*.json", "/other/*", "/static/*", "*.css"})
+        {
+            handler.addFilterWithMapping(new FilterHolder(new SomeFilter()), mapping, EnumSet.of(DispatcherType.REQUEST));
+        }
+        server.start();
+
+        String[] paths = new String[100_000];
+        ServletPathMapping[] mappings = new ServletPathMapping[paths.length];
+        for (int i = 0; i < paths.length; i++)
+        {
+            paths[i] = "/orders/" + i + (i % 3 == 0 ? ".json" : "");
+            mappings[i] = handler.getMappedServlet(paths[i]).getServletPathMapping(paths[i]);
+        }
+        Request request = new Request(null, null);
+        request.setDispatcherType(DispatcherType.REQUEST);
+
+        for (boolean cached : new boolean[]{false, true, false, true})
+        {
+            handler.setFilterChainsCached(cached);
+            long begin = System.nanoTime();
+            int iterations = 20;
+            for (int i = 0; i < iterations; i++)
+            {
+                for (int p = 0; p < paths.length; p++)
+                {
+                    request.setServletPathMapping(mappings[p]);
+                    assertNotNull(handler.getFilterChain(request, paths[p], orders));
+                }
+            }
+            long elapsed = System.nanoTime() - begin;
+            LOG.info("cached={} {} ns/request", cached, elapsed / (iterations * paths.length));
+        }
+        server.stop();
+    }
+
     @Test
     public void testDurable() throws Exception
     {
@@ -302,8 +302,10 @@ public class Main
         // the various start inis
         // and then the raw command line arguments
         StartLog.debug("Parsing collected arguments");
+        long begin = System.nanoTime();
         StartArgs args = new StartArgs(baseHome);
         args.parse(baseHome.getConfigSources());
+        args.addStartupTiming("parse arguments", System.nanoTime() - begin);
 
         Props props = baseHome.getConfigSources().getProps();
         Prop home = props.getProp(BaseHome.JETTY_HOME);
@@ -320,6 +322,7 @@ public class Main
             base.source);
 
         // 3) Module Registration
+        begin = System.nanoTime();
         Modules modules = new Modules(baseHome, args);
         StartLog.debug("Registering all modules");
         modules.registerAll();
@@ -354,7 +357,10 @@ public class Main
             module.setSkipFilesValidation(true);
         }
 
+        args.addStartupTiming("module resolution", System.nanoTime() - begin);
+
         // 5) Lib & XML Expansion / Resolution
+        begin = System.nanoTime();
         args.expandSystemProperties();
         args.expandLibs();
         args.expandModules(activeModules);
@@ -367,6 +373,7 @@ public class Main
 
         // 8) Resolve Property Files
         args.resolvePropertyFiles();
+        args.addStartupTiming("module expansion", System.nanoTime() - begin);
 
         return args;
     }
@@ -464,6 +471,12 @@ public class Main
             return;
         }
 
+        // The server side phases are reported by the server itself once started
+        if (args.isStartupReport())
+        {
+            args.dumpStartupTimings(System.err);
+        }
+
         // execute Jetty in another JVM
         if (args.isExec())
         {
@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
@@ -58,6 +59,7 @@ public class StartArgs
     private static final String JETTY_VERSION_KEY = "jetty.version";
     private static final String JETTY_TAG_NAME_KEY = "jetty.tag.version";
     private static final String JETTY_BUILDNUM_KEY = "jetty.build";
+    private static final String STARTUP_REPORT_KEY = "jetty.startup.report";
 
     static
     {
@@ -218,6 +220,17 @@ public class StartArgs
     private String execProperties;
     private boolean approveAllLicenses = false;
 
+    /**
+     * --cds-archive=[filename]
+     */
+    private String cdsArchive;
+
+    /**
+     * --startup-report
+     */
+    private boolean startupReport = false;
+    private final Map<String, Long> startupTimings = new LinkedHashMap<>();
+
     public StartArgs(BaseHome baseHome)
     {
         this.baseHome = baseHome;
@@ -698,6 +711,9 @@ public class StartArgs
                 }
             }
 
+            if (cdsArchive != null)
+                addCdsArgs(cmd);
+
             // System Properties
             for (String propKey : systemPropertySource.keySet())
             {
@@ -813,6 +829,67 @@ public class StartArgs
         return cmd;
     }
 
+    private void addCdsArgs(CommandLineBuilder cmd)
+    {
+        Path archive = getCdsArchivePath();
+        if (Files.exists(archive))
+        {
+            StartLog.debug("Using class data sharing archive %s", archive);
+            cmd.addRawArg("-Xshare:auto");
+            cmd.addRawArg("-XX:SharedArchiveFile=" + archive);
+        }
+        else if (JavaVersion.VERSION.getPlatform() >= 13)
+        {
+            // Training run: the JVM dumps the loaded classes into the archive when it exits.
+            StartLog.info("Class data sharing archive %s will be generated at exit", baseHome.toShortForm(archive));
+            cmd.addRawArg("-XX:ArchiveClassesAtExit=" + archive);
+        }
+        else
+        {
+            StartLog.warn("Class data sharing archive generation requires Java 13+, ignoring --cds-archive");
+        }
+    }
+
+    /**
+     * @return the absolute path of the {@code --cds-archive}, resolved against {@code ${jetty.base}}, or null if not set
+     */
+    public Path getCdsArchivePath()
+    {
+        if (cdsArchive == null)
+            return null;
+        return baseHome.getBasePath(properties.expand(cdsArchive)).toAbsolutePath();
+    }
+
+    /**
+     * Records the elapsed time of a start.jar phase, reported when {@code --startup-report} is used.
+     *
+     * @param phase the phase name
+     * @param nanos the elapsed time of the phase, in nanoseconds
+     */
+    public void addStartupTiming(String phase, long nanos)
+    {
+        startupTimings.merge(phase, nanos, Long::sum);
+    }
+
+    public Map<String, Long> getStartupTimings()
+    {
+        return startupTimings;
+    }
+
+    public void dumpStartupTimings(PrintStream out)
+    {
+        out.println();
+        out.println("Startup Timings:");
+        out.println("----------------");
+        long total = 0;
+        for (Map.Entry<String, Long> entry : startupTimings.entrySet())
+        {
+            total += entry.getValue();
+            out.printf(" %-24s %6d ms%n", entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+        out.printf(" %-24s %6d ms%n", "total", TimeUnit.NANOSECONDS.toMillis(total));
+    }
+
     public String getMainClassname()
     {
         String mainClass = System.getProperty("jetty.server", isJPMS() ? MODULE_MAIN_CLASS : MAIN_CLASS);
@@ -953,6 +1030,11 @@ public class StartArgs
         return MAIN_CLASS.equals(getMainClassname());
     }
 
+    public boolean isStartupReport()
+    {
+        return startupReport;
+    }
+
     public boolean isHelp()
     {
         return help;
@@ -1197,6 +1279,26 @@ public class StartArgs
             return;
         }
 
+        // Record (or use) a class data sharing archive, requires a forked JVM
+        if (arg.startsWith("--cds-archive="))
+        {
+            cdsArchive = Props.getValue(arg);
+            if (Utils.isBlank(cdsArchive))
+                throw new UsageException(UsageException.ERR_BAD_ARG, "--cds-archive requires a filename in %s", source);
+            exec = true;
+            return;
+        }
+
+        // Report the elapsed time of the startup phases
+        if ("--startup-report".equals(arg))
+        {
+            startupReport = true;
+            systemPropertySource.put(STARTUP_REPORT_KEY, source);
+            setProperty(STARTUP_REPORT_KEY, "true", source);
+            System.setProperty(STARTUP_REPORT_KEY, "true");
+            return;
+        }
+
         // Enable forked execution of Jetty server
         if ("--approve-all-licenses".equals(arg))
         {
@@ -28,6 +28,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -129,4 +130,75 @@ public class MainTest
         );
         assertThat(commandLine, containsString(expectedExpansion));
     }
+
+    @Test
+    public void testCdsArchiveTraining() throws Exception
+    {
+        List<String> cmdLineArgs = new ArrayList<>();
+
+        Path homePath = MavenTestingUtils.getTestResourceDir("dist-home").toPath().toRealPath();
+        cmdLineArgs.add("jetty.home=" + homePath);
+        cmdLineArgs.add("user.dir=" + homePath);
+        cmdLineArgs.add("--cds-archive=target/cds-does-not-exist.jsa");
+
+        Main main = new Main();
+        StartArgs args = main.processCommandLine(cmdLineArgs.toArray(new String[0]));
+
+        assertThat("--cds-archive implies --exec", args.isExec(), is(true));
+        Path archive = args.getCdsArchivePath();
+        assertThat(archive.toString(), containsString("cds-does-not-exist.jsa"));
+
+        String commandLine = args.getMainArgs(StartArgs.ALL_PARTS).toString("\n");
+        assertThat(commandLine, containsString("-XX:ArchiveClassesAtExit=" + archive));
+        assertThat(commandLine, not(containsString("-XX:SharedArchiveFile=")));
+    }
+
+    @Test
+    public void testCdsArchiveExisting() throws Exception
+    {
+        Path homePath = MavenTestingUtils.getTestResourceDir("dist-home").toPath().toRealPath();
+        Path archive = MavenTestingUtils.getTargetTestingPath("testCdsArchiveExisting").resolve("jetty.jsa");
+        FS.ensureDirectoryExists(archive.getParent());
+        FS.touch(archive);
+
+        List<String> cmdLineArgs = new ArrayList<>();
+        cmdLineArgs.add("jetty.home=" + homePath);
+        cmdLineArgs.add("user.dir=" + homePath);
+        cmdLineArgs.add("--cds-archive=" + archive);
+
+        Main main = new Main();
+        StartArgs args = main.processCommandLine(cmdLineArgs.toArray(new String[0]));
+
+        String commandLine = args.getMainArgs(StartArgs.ALL_PARTS).toString("\n");
+        assertThat(commandLine, containsString("-XX:SharedArchiveFile=" + archive));
+        assertThat(commandLine, not(containsString("-XX:ArchiveClassesAtExit=")));
+    }
+
+    @Test
+    public void testStartupReport() throws Exception
+    {
+        List<String> cmdLineArgs = new ArrayList<>();
+
+        Path homePath = MavenTestingUtils.getTestResourceDir("dist-home").toPath().toRealPath();
+        cmdLineArgs.add("jetty.home=" + homePath);
+        cmdLineArgs.add("user.dir=" + homePath);
+        cmdLineArgs.add("--exec");
+        cmdLineArgs.add("--startup-report");
+
+        try
+        {
+            Main main = new Main();
+            StartArgs args = main.processCommandLine(cmdLineArgs.toArray(new String[0]));
+
+            assertThat(args.isStartupReport(), is(true));
+            assertThat(args.getStartupTimings().keySet(), hasItem("module resolution"));
+
+            String commandLine = args.getMainArgs(StartArgs.ALL_PARTS).toString("\n");
+            assertThat(commandLine, containsString("-Djetty.startup.report=true"));
+        }
+        finally
+        {
+            System.clearProperty("jetty.startup.report");
+        }
+    }
 }
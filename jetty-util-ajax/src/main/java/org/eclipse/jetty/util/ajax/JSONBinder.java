@@ -0,0 +1,849 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>A non-blocking JSON parser that binds JSON objects to Java objects of a given type.</p>
+ * <p>The Java type must have a public no-arguments constructor, and JSON object fields
+ * are bound via the public setter methods of the type, as {@link JSONPojoConvertor} does.
+ * Differently from {@link JSONPojoConvertor}, the JSON is not parsed to an intermediate
+ * {@code Map}: the setters are invoked via {@link MethodHandle}s as the JSON is parsed
+ * by a {@link JSONStreamParser}, and primitive values are passed to the setters without
+ * boxing. Field names are matched against the UTF-8 bytes of the JSON, so they are
+ * not converted to {@code String}s.</p>
+ * <p>Supported property types are:</p>
+ * <ul>
+ * <li>primitive types, their wrappers, {@code String} and enums</li>
+ * <li>other types with a public no-arguments constructor, bound recursively from JSON objects</li>
+ * <li>arrays, {@code List}s, {@code Set}s and {@code Collection}s of the above types,
+ * bound from JSON arrays</li>
+ * <li>{@code Object} and {@code Map}, bound to the same {@code Map}s, {@code List}s,
+ * {@code Long}s, {@code Double}s, {@code String}s and {@code Boolean}s produced by {@link AsyncJSON}</li>
+ * </ul>
+ * <p>JSON object fields without a corresponding setter are skipped.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * JSONBinder&lt;Person&gt; binder = new JSONBinder&lt;&gt;(Person.class);
+ *
+ * // Feed the binder with partial JSON string content.
+ * binder.parse(chunk1);
+ * binder.parse(chunk2);
+ *
+ * // Tell the binder that the JSON string content
+ * // is terminated and get the Java object back.
+ * Person person = binder.complete();
+ * </pre>
+ * <p>After the call to {@link #complete()} the binder can be reused to parse
+ * another JSON string.</p>
+ *
+ * @param <T> the type of the Java objects bound from JSON
+ */
+public class JSONBinder<T>
+{
+    private static final ClassValue<Binding> BINDINGS = new ClassValue<>()
+    {
+        @Override
+        protected Binding computeValue(Class<?> type)
+        {
+            return new Binding(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Builder builder;
+    private final JSONStreamParser parser;
+
+    public JSONBinder(Class<T> type)
+    {
+        this.type = type;
+        this.builder = new Builder(Target.of(type, type));
+        this.parser = new JSONStreamParser(builder);
+    }
+
+    /**
+     * @return the type of the Java objects bound from JSON
+     */
+    public Class<T> getType()
+    {
+        return type;
+    }
+
+    /**
+     * <p>Feeds the binder with the given bytes chunk.</p>
+     *
+     * @param bytes the bytes to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed or cannot be bound
+     */
+    public boolean parse(byte[] bytes)
+    {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * <p>Feeds the binder with the given buffer chunk.</p>
+     *
+     * @param buffer the buffer to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed or cannot be bound
+     */
+    public boolean parse(ByteBuffer buffer)
+    {
+        try
+        {
+            return parser.parse(buffer);
+        }
+        catch (Throwable x)
+        {
+            builder.reset();
+            throw x;
+        }
+    }
+
+    /**
+     * <p>Signals to the binder that the parse data is complete, and returns
+     * the Java object bound from the JSON chunks passed to the {@code parse()} methods.</p>
+     *
+     * @return the Java object bound from JSON
+     * @throws IllegalArgumentException if the JSON is malformed or cannot be bound
+     * @throws IllegalStateException if the no JSON was passed to the {@code parse()} methods
+     */
+    public T complete()
+    {
+        try
+        {
+            parser.complete();
+            Object result = builder.result;
+            if (result != null && !type.isInstance(result))
+                throw new IllegalArgumentException("Cannot bind " + result.getClass().getSimpleName() + " to " + type.getName());
+            return type.cast(result);
+        }
+        finally
+        {
+            builder.reset();
+        }
+    }
+
+    private static String toString(ByteBuffer utf8)
+    {
+        return BufferUtil.toUTF8String(utf8);
+    }
+
+    private static RuntimeException newCannotBind(Target target, String json)
+    {
+        return new IllegalArgumentException("cannot bind JSON " + json + " to " + target.type.getName());
+    }
+
+    private enum Kind
+    {
+        LONG, DOUBLE, BOOLEAN, STRING, ENUM, BEAN, ARRAY, COLLECTION, GENERIC
+    }
+
+    /**
+     * <p>Describes how a JSON value is converted to a Java type.</p>
+     */
+    private static class Target
+    {
+        private static final Target GENERIC = new Target(Kind.GENERIC, Object.class, null);
+
+        private final Kind kind;
+        private final Class<?> type;
+        private final Target element;
+
+        private Target(Kind kind, Class<?> type, Target element)
+        {
+            this.kind = kind;
+            this.type = type;
+            this.element = element;
+        }
+
+        private static Target of(Class<?> type, Type genericType)
+        {
+            Class<?> boxed = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+            if (boxed == Long.class || boxed == Integer.class || boxed == Short.class || boxed == Byte.class)
+                return new Target(Kind.LONG, type, null);
+            if (boxed == Double.class || boxed == Float.class)
+                return new Target(Kind.DOUBLE, type, null);
+            if (boxed == Boolean.class)
+                return new Target(Kind.BOOLEAN, type, null);
+            if (type == String.class || type == CharSequence.class)
+                return new Target(Kind.STRING, type, null);
+            if (type.isEnum())
+                return new Target(Kind.ENUM, type, null);
+            if (type == Object.class || type == Map.class)
+                return GENERIC;
+            if (type.isArray())
+                return new Target(Kind.ARRAY, type, of(type.getComponentType(), type.getComponentType()));
+            if (type == List.class || type == Collection.class || type == Set.class)
+            {
+                Target element = GENERIC;
+                if (genericType instanceof ParameterizedType)
+                {
+                    Type argument = ((ParameterizedType)genericType).getActualTypeArguments()[0];
+                    if (argument instanceof Class)
+                        element = of((Class<?>)argument, argument);
+                }
+                return new Target(Kind.COLLECTION, type, element);
+            }
+            return new Target(Kind.BEAN, type, null);
+        }
+
+        private Object fromLong(long value)
+        {
+            if (kind == Kind.GENERIC)
+                return value;
+            if (kind == Kind.DOUBLE)
+                return fromDouble(value);
+            if (kind != Kind.LONG)
+                throw newCannotBind(this, "number");
+            if (type == Long.class || type == long.class)
+                return value;
+            if (type == Integer.class || type == int.class)
+                return (int)value;
+            if (type == Short.class || type == short.class)
+                return (short)value;
+            return (byte)value;
+        }
+
+        private Object fromDouble(double value)
+        {
+            if (kind == Kind.GENERIC)
+                return value;
+            if (kind != Kind.DOUBLE)
+                throw newCannotBind(this, "number");
+            if (type == Float.class || type == float.class)
+                return (float)value;
+            return value;
+        }
+
+        private Object fromBoolean(boolean value)
+        {
+            if (kind != Kind.BOOLEAN && kind != Kind.GENERIC)
+                throw newCannotBind(this, "boolean");
+            return value;
+        }
+
+        private Object fromString(ByteBuffer value)
+        {
+            switch (kind)
+            {
+                case STRING:
+                case GENERIC:
+                    return JSONBinder.toString(value);
+                case ENUM:
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    Object result = Enum.valueOf((Class<Enum>)type, JSONBinder.toString(value));
+                    return result;
+                default:
+                    throw newCannotBind(this, "string");
+            }
+        }
+
+        private Object fromNull()
+        {
+            if (type.isPrimitive())
+                throw newCannotBind(this, "null");
+            return null;
+        }
+    }
+
+    /**
+     * <p>A setter of a Java bean property.</p>
+     */
+    private static class Property
+    {
+        private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+        private static final MethodType LONG_SETTER = MethodType.methodType(void.class, Object.class, long.class);
+        private static final MethodType DOUBLE_SETTER = MethodType.methodType(void.class, Object.class, double.class);
+        private static final MethodType BOOLEAN_SETTER = MethodType.methodType(void.class, Object.class, boolean.class);
+
+        private final byte[] name;
+        private final Target target;
+        private final MethodHandle setter;
+        private final MethodHandle longSetter;
+        private final MethodHandle doubleSetter;
+        private final MethodHandle booleanSetter;
+
+        private Property(String name, Method method) throws IllegalAccessException
+        {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            Class<?> type = method.getParameterTypes()[0];
+            this.target = Target.of(type, method.getGenericParameterTypes()[0]);
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+            this.setter = handle.asType(OBJECT_SETTER);
+            boolean primitive = type.isPrimitive();
+            this.longSetter = primitive && target.kind == Kind.LONG ? MethodHandles.explicitCastArguments(handle, LONG_SETTER) : null;
+            this.doubleSetter = primitive && target.kind == Kind.DOUBLE ? MethodHandles.explicitCastArguments(handle, DOUBLE_SETTER) : null;
+            this.booleanSetter = primitive && target.kind == Kind.BOOLEAN ? handle.asType(BOOLEAN_SETTER) : null;
+        }
+
+        private boolean matches(ByteBuffer buffer)
+        {
+            int length = buffer.remaining();
+            if (length != name.length)
+                return false;
+            int position = buffer.position();
+            for (int i = 0; i < length; ++i)
+            {
+                if (buffer.get(position + i) != name[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private void set(Object bean, Object value)
+        {
+            try
+            {
+                setter.invokeExact(bean, value);
+            }
+            catch (RuntimeException | Error x)
+            {
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+        }
+
+        private void setLong(Object bean, long value)
+        {
+            try
+            {
+                if (longSetter != null)
+                    longSetter.invokeExact(bean, value);
+                else if (doubleSetter != null)
+                    doubleSetter.invokeExact(bean, (double)value);
+                else
+                    setter.invokeExact(bean, target.fromLong(value));
+            }
+            catch (RuntimeException | Error x)
+            {
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+        }
+
+        private void setDouble(Object bean, double value)
+        {
+            try
+            {
+                if (doubleSetter != null)
+                    doubleSetter.invokeExact(bean, value);
+                else
+                    setter.invokeExact(bean, target.fromDouble(value));
+            }
+            catch (RuntimeException | Error x)
+            {
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+        }
+
+        private void setBoolean(Object bean, boolean value)
+        {
+            try
+            {
+                if (booleanSetter != null)
+                    booleanSetter.invokeExact(bean, value);
+                else
+                    setter.invokeExact(bean, target.fromBoolean(value));
+            }
+            catch (RuntimeException | Error x)
+            {
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+        }
+    }
+
+    /**
+     * <p>The constructor and the properties of a Java bean type.</p>
+     */
+    private static class Binding
+    {
+        private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+
+        private final Class<?> type;
+        private final MethodHandle constructor;
+        private final Property[] properties;
+
+        private Binding(Class<?> type)
+        {
+            try
+            {
+                this.type = type;
+                this.constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+                List<Property> properties = new ArrayList<>();
+                for (Method method : type.getMethods())
+                {
+                    if (Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class)
+                        continue;
+                    String name = method.getName();
+                    if (method.getParameterCount() == 1 && name.startsWith("set") && name.length() > 3)
+                    {
+                        name = name.substring(3, 4).toLowerCase(Locale.ENGLISH) + name.substring(4);
+                        properties.add(new Property(name, method));
+                    }
+                }
+                this.properties = properties.toArray(new Property[0]);
+            }
+            catch (NoSuchMethodException | IllegalAccessException x)
+            {
+                throw new IllegalArgumentException("cannot bind JSON to " + type.getName(), x);
+            }
+        }
+
+        private Object newInstance()
+        {
+            try
+            {
+                return (Object)constructor.invokeExact();
+            }
+            catch (RuntimeException | Error x)
+            {
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+        }
+
+        private Property getProperty(ByteBuffer name)
+        {
+            for (Property property : properties)
+            {
+                if (property.matches(name))
+                    return property;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * <p>A JSON object or array being built.</p>
+     */
+    private abstract static class Frame
+    {
+        /**
+         * @return the target of the next value in this frame, or {@code null} if the value must be skipped
+         */
+        abstract Target next();
+
+        abstract void add(Object value);
+
+        abstract Object end();
+
+        void name(ByteBuffer name)
+        {
+            throw new IllegalStateException();
+        }
+
+        boolean addLong(long value)
+        {
+            return false;
+        }
+
+        boolean addDouble(double value)
+        {
+            return false;
+        }
+
+        boolean addBoolean(boolean value)
+        {
+            return false;
+        }
+    }
+
+    private static class BeanFrame extends Frame
+    {
+        private final Object bean;
+        private final Binding binding;
+        private Property property;
+
+        private BeanFrame(Binding binding)
+        {
+            this.binding = binding;
+            this.bean = binding.newInstance();
+        }
+
+        @Override
+        void name(ByteBuffer name)
+        {
+            property = binding.getProperty(name);
+        }
+
+        @Override
+        Target next()
+        {
+            return property == null ? null : property.target;
+        }
+
+        @Override
+        void add(Object value)
+        {
+            property.set(bean, value);
+            property = null;
+        }
+
+        @Override
+        boolean addLong(long value)
+        {
+            property.setLong(bean, value);
+            property = null;
+            return true;
+        }
+
+        @Override
+        boolean addDouble(double value)
+        {
+            property.setDouble(bean, value);
+            property = null;
+            return true;
+        }
+
+        @Override
+        boolean addBoolean(boolean value)
+        {
+            property.setBoolean(bean, value);
+            property = null;
+            return true;
+        }
+
+        @Override
+        Object end()
+        {
+            return bean;
+        }
+    }
+
+    private static class MapFrame extends Frame
+    {
+        private final Map<String, Object> map = new HashMap<>();
+        private String name;
+
+        @Override
+        void name(ByteBuffer name)
+        {
+            this.name = JSONBinder.toString(name);
+        }
+
+        @Override
+        Target next()
+        {
+            return Target.GENERIC;
+        }
+
+        @Override
+        void add(Object value)
+        {
+            map.put(name, value);
+        }
+
+        @Override
+        Object end()
+        {
+            return map;
+        }
+    }
+
+    private static class ArrayFrame extends Frame
+    {
+        private final Target target;
+        private final List<Object> list = new ArrayList<>();
+
+        private ArrayFrame(Target target)
+        {
+            this.target = target;
+        }
+
+        @Override
+        Target next()
+        {
+            return target.element;
+        }
+
+        @Override
+        void add(Object value)
+        {
+            list.add(value);
+        }
+
+        @Override
+        Object end()
+        {
+            switch (target.kind)
+            {
+                case ARRAY:
+                {
+                    Class<?> componentType = target.type.getComponentType();
+                    Object array = Array.newInstance(componentType, list.size());
+                    for (int i = 0; i < list.size(); ++i)
+                    {
+                        Array.set(array, i, list.get(i));
+                    }
+                    return array;
+                }
+                case COLLECTION:
+                {
+                    if (target.type == Set.class)
+                        return new HashSet<>(list);
+                    return list;
+                }
+                default:
+                {
+                    return list;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Skips a JSON object or array that has no corresponding Java property.</p>
+     */
+    private static class SkipFrame extends Frame
+    {
+        private int depth = 1;
+
+        @Override
+        Target next()
+        {
+            return null;
+        }
+
+        @Override
+        void add(Object value)
+        {
+        }
+
+        @Override
+        void name(ByteBuffer name)
+        {
+        }
+
+        @Override
+        Object end()
+        {
+            return null;
+        }
+    }
+
+    private static class Builder implements JSONStreamParser.Listener
+    {
+        private final List<Frame> frames = new ArrayList<>();
+        private final Target target;
+        private Object result;
+
+        private Builder(Target target)
+        {
+            this.target = target;
+        }
+
+        private void reset()
+        {
+            frames.clear();
+            result = null;
+        }
+
+        private Frame top()
+        {
+            return frames.isEmpty() ? null : frames.get(frames.size() - 1);
+        }
+
+        /**
+         * @return the target of the next value, or {@code null} if the value must be skipped
+         */
+        private Target next()
+        {
+            Frame top = top();
+            return top == null ? target : top.next();
+        }
+
+        private void add(Object value)
+        {
+            Frame top = top();
+            if (top == null)
+                result = value;
+            else
+                top.add(value);
+        }
+
+        private boolean skip()
+        {
+            Frame top = top();
+            if (top instanceof SkipFrame)
+            {
+                ++((SkipFrame)top).depth;
+                return true;
+            }
+            if (next() == null)
+            {
+                frames.add(new SkipFrame());
+                return true;
+            }
+            return false;
+        }
+
+        private void end()
+        {
+            Frame top = frames.remove(frames.size() - 1);
+            if (top instanceof SkipFrame)
+            {
+                SkipFrame skip = (SkipFrame)top;
+                if (--skip.depth > 0)
+                    frames.add(skip);
+                return;
+            }
+            add(top.end());
+        }
+
+        @Override
+        public void onObjectStart()
+        {
+            if (skip())
+                return;
+            Target next = next();
+            switch (next.kind)
+            {
+                case BEAN:
+                    frames.add(new BeanFrame(BINDINGS.get(next.type)));
+                    break;
+                case GENERIC:
+                    frames.add(new MapFrame());
+                    break;
+                default:
+                    throw newCannotBind(next, "object");
+            }
+        }
+
+        @Override
+        public void onObjectEnd()
+        {
+            end();
+        }
+
+        @Override
+        public void onArrayStart()
+        {
+            if (skip())
+                return;
+            Target next = next();
+            switch (next.kind)
+            {
+                case ARRAY:
+                case COLLECTION:
+                    frames.add(new ArrayFrame(next));
+                    break;
+                case GENERIC:
+                    frames.add(new ArrayFrame(new Target(Kind.COLLECTION, List.class, Target.GENERIC)));
+                    break;
+                default:
+                    throw newCannotBind(next, "array");
+            }
+        }
+
+        @Override
+        public void onArrayEnd()
+        {
+            end();
+        }
+
+        @Override
+        public void onName(ByteBuffer name)
+        {
+            top().name(name);
+        }
+
+        @Override
+        public void onString(ByteBuffer value)
+        {
+            Target next = next();
+            if (next != null)
+                add(next.fromString(value));
+        }
+
+        @Override
+        public void onNumber(long value)
+        {
+            Target next = next();
+            if (next == null)
+                return;
+            Frame top = top();
+            if (top == null || !top.addLong(value))
+                add(next.fromLong(value));
+        }
+
+        @Override
+        public void onNumber(double value)
+        {
+            Target next = next();
+            if (next == null)
+                return;
+            Frame top = top();
+            if (top == null || !top.addDouble(value))
+                add(next.fromDouble(value));
+        }
+
+        @Override
+        public void onBoolean(boolean value)
+        {
+            Target next = next();
+            if (next == null)
+                return;
+            Frame top = top();
+            if (top == null || !top.addBoolean(value))
+                add(next.fromBoolean(value));
+        }
+
+        @Override
+        public void onNull()
+        {
+            Target next = next();
+            if (next != null)
+                add(next.fromNull());
+        }
+    }
+}
@@ -0,0 +1,857 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.TypeUtil;
+
+/**
+ * <p>A non-blocking, event based JSON parser that can parse partial JSON strings.</p>
+ * <p>Differently from {@link AsyncJSON}, this parser does not build a tree of
+ * {@code Map}s and {@code List}s, but notifies a {@link Listener} of the JSON
+ * tokens as they are parsed, so that applications can build their own data
+ * structures (see for example {@link JSONBinder}).</p>
+ * <p>JSON strings and field names are notified as {@link ByteBuffer}s containing
+ * the UTF-8 bytes of the string: when the string does not contain escape sequences
+ * and is entirely contained in the buffer passed to {@link #parse(ByteBuffer)},
+ * the notified buffer is a view of the parsed buffer and no bytes are copied.
+ * The notified buffers are only valid for the duration of the listener method call.</p>
+ * <p>Integer numbers that fit in a {@code long} are notified without boxing via
+ * {@link Listener#onNumber(long)}, other numbers via {@link Listener#onNumber(double)}.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * JSONStreamParser parser = new JSONStreamParser(listener);
+ *
+ * // Feed the parser with partial JSON string content.
+ * parser.parse(chunk1);
+ * parser.parse(chunk2);
+ *
+ * // Tell the parser that the JSON string content is terminated.
+ * parser.complete();
+ * </pre>
+ * <p>After the call to {@link #complete()} the parser can be reused to parse
+ * another JSON string.</p>
+ */
+public class JSONStreamParser
+{
+    /**
+     * <p>Listener for JSON parsing events.</p>
+     */
+    public interface Listener
+    {
+        /**
+         * <p>Callback method invoked when a JSON <code>{</code> is parsed.</p>
+         */
+        default void onObjectStart()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>}</code> is parsed.</p>
+         */
+        default void onObjectEnd()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>[</code> is parsed.</p>
+         */
+        default void onArrayStart()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>]</code> is parsed.</p>
+         */
+        default void onArrayEnd()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON object field name is parsed.</p>
+         *
+         * @param name the UTF-8 bytes of the field name, only valid during this call
+         */
+        default void onName(ByteBuffer name)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON string value is parsed.</p>
+         *
+         * @param value the UTF-8 bytes of the string, only valid during this call
+         */
+        default void onString(ByteBuffer value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON integer number that fits in a {@code long} is parsed.</p>
+         *
+         * @param value the number value
+         */
+        default void onNumber(long value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON non-integer number, or an integer
+         * number that does not fit in a {@code long}, is parsed.</p>
+         *
+         * @param value the number value
+         */
+        default void onNumber(double value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON {@code true} or {@code false} literal is parsed.</p>
+         *
+         * @param value the boolean value
+         */
+        default void onBoolean(boolean value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON {@code null} literal is parsed.</p>
+         */
+        default void onNull()
+        {
+        }
+    }
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final Listener listener;
+    private byte[] containers = new byte[16];
+    private int depth;
+    private State state = State.VALUE;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private ByteBuffer tokenView = ByteBuffer.wrap(token);
+    private ByteBuffer source;
+    private ByteBuffer sourceView;
+    private boolean fieldName;
+    private boolean copying;
+    private int unicode;
+    private int unicodeDigits;
+    private int highSurrogate = -1;
+    private NumberState numberState;
+    private boolean negative;
+    private boolean integral;
+    private long number;
+    private byte[] literal;
+    private int literalIndex;
+
+    public JSONStreamParser(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the listener notified of the JSON parsing events
+     */
+    public Listener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * <p>Feeds the parser with the given bytes chunk.</p>
+     *
+     * @param bytes the bytes to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public boolean parse(byte[] bytes)
+    {
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * <p>Feeds the parser with the given bytes chunk.</p>
+     *
+     * @param bytes the bytes to parse
+     * @param offset the offset to start parsing from
+     * @param length the number of bytes to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public boolean parse(byte[] bytes, int offset, int length)
+    {
+        return parse(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * <p>Feeds the parser with the given buffer chunk.</p>
+     * <p>The buffer is consumed entirely, unless an exception is thrown.</p>
+     *
+     * @param buffer the buffer to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public boolean parse(ByteBuffer buffer)
+    {
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                switch (state)
+                {
+                    case VALUE:
+                    case FIRST_VALUE:
+                        parseValue(buffer);
+                        break;
+                    case FIELD:
+                    case FIRST_FIELD:
+                        parseField(buffer);
+                        break;
+                    case COLON:
+                        parseColon(buffer);
+                        break;
+                    case AFTER_VALUE:
+                        parseAfterValue(buffer);
+                        break;
+                    case STRING:
+                        parseString(buffer);
+                        break;
+                    case ESCAPE:
+                        parseEscape(buffer);
+                        break;
+                    case UNICODE:
+                        parseUnicode(buffer);
+                        break;
+                    case NUMBER:
+                        parseNumber(buffer);
+                        break;
+                    case LITERAL:
+                        parseLiteral(buffer);
+                        break;
+                    case DONE:
+                        parseDone(buffer);
+                        break;
+                    default:
+                        throw new IllegalStateException("invalid state " + state);
+                }
+            }
+            return state == State.DONE;
+        }
+        catch (Throwable x)
+        {
+            reset();
+            throw x;
+        }
+        finally
+        {
+            source = null;
+            sourceView = null;
+        }
+    }
+
+    /**
+     * <p>Signals to the parser that the parse data is complete.</p>
+     *
+     * @throws IllegalArgumentException if the JSON is malformed or incomplete
+     * @throws IllegalStateException if the no JSON was passed to the {@code parse()} methods
+     */
+    public void complete()
+    {
+        try
+        {
+            if (state == State.NUMBER && depth == 0)
+                endNumber(BufferUtil.EMPTY_BUFFER);
+            if (state == State.VALUE && depth == 0)
+                throw new IllegalStateException("no JSON parsed");
+            if (state != State.DONE)
+                throw newInvalidJSON(BufferUtil.EMPTY_BUFFER, "incomplete JSON");
+        }
+        finally
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        depth = 0;
+        state = State.VALUE;
+        tokenLength = 0;
+        copying = false;
+        highSurrogate = -1;
+        source = null;
+        sourceView = null;
+    }
+
+    private void parseValue(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        switch (currentByte)
+        {
+            case '{':
+                push(currentByte);
+                state = State.FIRST_FIELD;
+                listener.onObjectStart();
+                break;
+            case '[':
+                push(currentByte);
+                state = State.FIRST_VALUE;
+                listener.onArrayStart();
+                break;
+            case ']':
+                if (state != State.FIRST_VALUE)
+                    throw newInvalidJSON(buffer, "invalid array");
+                --depth;
+                endValue();
+                listener.onArrayEnd();
+                break;
+            case '"':
+                fieldName = false;
+                state = State.STRING;
+                break;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                beginNumber(buffer, currentByte);
+                break;
+            case 't':
+                beginLiteral(TRUE);
+                break;
+            case 'f':
+                beginLiteral(FALSE);
+                break;
+            case 'n':
+                beginLiteral(NULL);
+                break;
+            default:
+                if (!isWhitespace(currentByte))
+                    throw newInvalidJSON(buffer, "unrecognized JSON value");
+                break;
+        }
+    }
+
+    private void parseField(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        switch (currentByte)
+        {
+            case '"':
+                fieldName = true;
+                state = State.STRING;
+                break;
+            case '}':
+                if (state != State.FIRST_FIELD)
+                    throw newInvalidJSON(buffer, "invalid object field");
+                --depth;
+                endValue();
+                listener.onObjectEnd();
+                break;
+            default:
+                if (!isWhitespace(currentByte))
+                    throw newInvalidJSON(buffer, "invalid object field");
+                break;
+        }
+    }
+
+    private void parseColon(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        if (currentByte == ':')
+            state = State.VALUE;
+        else if (!isWhitespace(currentByte))
+            throw newInvalidJSON(buffer, "invalid object field");
+    }
+
+    private void parseAfterValue(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        byte container = containers[depth - 1];
+        switch (currentByte)
+        {
+            case ',':
+                state = container == '{' ? State.FIELD : State.VALUE;
+                break;
+            case '}':
+                if (container != '{')
+                    throw newInvalidJSON(buffer, "invalid array");
+                --depth;
+                endValue();
+                listener.onObjectEnd();
+                break;
+            case ']':
+                if (container != '[')
+                    throw newInvalidJSON(buffer, "invalid object");
+                --depth;
+                endValue();
+                listener.onArrayEnd();
+                break;
+            default:
+                if (!isWhitespace(currentByte))
+                    throw newInvalidJSON(buffer, container == '{' ? "invalid object" : "invalid array");
+                break;
+        }
+    }
+
+    private void parseDone(ByteBuffer buffer)
+    {
+        if (!isWhitespace(buffer.get()))
+            throw newInvalidJSON(buffer, "invalid character after JSON data");
+    }
+
+    private void parseString(ByteBuffer buffer)
+    {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; ++i)
+        {
+            byte currentByte = buffer.get(i);
+            if (currentByte == '"')
+            {
+                buffer.position(i + 1);
+                if (copying)
+                {
+                    append(buffer, start, i);
+                    flushHighSurrogate();
+                    endString(tokenView());
+                }
+                else
+                {
+                    endString(view(buffer, start, i));
+                }
+                return;
+            }
+            if (currentByte == '\\')
+            {
+                append(buffer, start, i);
+                copying = true;
+                buffer.position(i + 1);
+                state = State.ESCAPE;
+                return;
+            }
+            if (currentByte >= 0 && currentByte < 0x20)
+            {
+                buffer.position(i + 1);
+                throw newInvalidJSON(buffer, "invalid control character in string");
+            }
+        }
+        // The string continues in the next chunk, copy what we have.
+        append(buffer, start, limit);
+        copying = true;
+        buffer.position(limit);
+    }
+
+    private void endString(ByteBuffer value)
+    {
+        copying = false;
+        if (fieldName)
+        {
+            state = State.COLON;
+            listener.onName(value);
+        }
+        else
+        {
+            endValue();
+            listener.onString(value);
+        }
+        tokenLength = 0;
+    }
+
+    private void parseEscape(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        state = State.STRING;
+        switch (currentByte)
+        {
+            case '"':
+            case '\\':
+            case '/':
+                appendEscape(currentByte);
+                break;
+            case 'b':
+                appendEscape((byte)'\b');
+                break;
+            case 'f':
+                appendEscape((byte)'\f');
+                break;
+            case 'n':
+                appendEscape((byte)'\n');
+                break;
+            case 'r':
+                appendEscape((byte)'\r');
+                break;
+            case 't':
+                appendEscape((byte)'\t');
+                break;
+            case 'u':
+                unicode = 0;
+                unicodeDigits = 0;
+                state = State.UNICODE;
+                break;
+            default:
+                throw newInvalidJSON(buffer, "invalid escape sequence");
+        }
+    }
+
+    private void appendEscape(byte b)
+    {
+        flushHighSurrogate();
+        append(b);
+    }
+
+    private void parseUnicode(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        try
+        {
+            unicode = (unicode << 4) + TypeUtil.convertHexDigit(currentByte);
+        }
+        catch (Throwable x)
+        {
+            throw newInvalidJSON(buffer, "invalid hex digit");
+        }
+        if (++unicodeDigits < 4)
+            return;
+
+        state = State.STRING;
+        if (Character.isHighSurrogate((char)unicode))
+        {
+            flushHighSurrogate();
+            highSurrogate = unicode;
+        }
+        else if (Character.isLowSurrogate((char)unicode) && highSurrogate >= 0)
+        {
+            appendCodePoint(Character.toCodePoint((char)highSurrogate, (char)unicode));
+            highSurrogate = -1;
+        }
+        else
+        {
+            flushHighSurrogate();
+            appendCodePoint(unicode);
+        }
+    }
+
+    private void flushHighSurrogate()
+    {
+        if (highSurrogate >= 0)
+        {
+            // Unpaired surrogate, replace it.
+            appendCodePoint(0xFFFD);
+            highSurrogate = -1;
+        }
+    }
+
+    private void appendCodePoint(int codePoint)
+    {
+        if (Character.isSurrogate((char)codePoint))
+            codePoint = 0xFFFD;
+        if (codePoint < 0x80)
+        {
+            append((byte)codePoint);
+        }
+        else if (codePoint < 0x800)
+        {
+            append((byte)(0xC0 | (codePoint >> 6)));
+            append((byte)(0x80 | (codePoint & 0x3F)));
+        }
+        else if (codePoint < 0x10000)
+        {
+            append((byte)(0xE0 | (codePoint >> 12)));
+            append((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+            append((byte)(0x80 | (codePoint & 0x3F)));
+        }
+        else
+        {
+            append((byte)(0xF0 | (codePoint >> 18)));
+            append((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+            append((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+            append((byte)(0x80 | (codePoint & 0x3F)));
+        }
+    }
+
+    private void beginNumber(ByteBuffer buffer, byte currentByte)
+    {
+        state = State.NUMBER;
+        tokenLength = 0;
+        number = 0;
+        integral = true;
+        negative = currentByte == '-';
+        numberState = NumberState.START;
+        appendNumber(buffer, currentByte);
+    }
+
+    private void parseNumber(ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining())
+        {
+            byte currentByte = buffer.get(buffer.position());
+            if (!appendNumber(buffer, currentByte))
+            {
+                endNumber(buffer);
+                return;
+            }
+            buffer.position(buffer.position() + 1);
+        }
+    }
+
+    /**
+     * @param buffer the buffer being parsed
+     * @param currentByte the byte to append to the number
+     * @return whether the byte is part of the number
+     */
+    private boolean appendNumber(ByteBuffer buffer, byte currentByte)
+    {
+        NumberState next = numberState.next(currentByte);
+        if (next == null)
+            return false;
+        if (next == NumberState.ERROR)
+            throw newInvalidJSON(buffer, "invalid number");
+
+        if (integral)
+        {
+            if (next == NumberState.INTEGER || next == NumberState.ZERO)
+            {
+                int digit = currentByte - '0';
+                if (number > (Long.MAX_VALUE - digit) / 10)
+                    integral = false;
+                else
+                    number = number * 10 + digit;
+            }
+            else if (next != NumberState.SIGN)
+            {
+                integral = false;
+            }
+        }
+        numberState = next;
+        append(currentByte);
+        return true;
+    }
+
+    private void endNumber(ByteBuffer buffer)
+    {
+        if (!numberState.isTerminal())
+            throw newInvalidJSON(buffer, "invalid number");
+        endValue();
+        if (integral)
+            listener.onNumber(negative ? -number : number);
+        else
+            listener.onNumber(Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.US_ASCII)));
+        tokenLength = 0;
+    }
+
+    private void beginLiteral(byte[] literal)
+    {
+        this.literal = literal;
+        this.literalIndex = 1;
+        state = State.LITERAL;
+    }
+
+    private void parseLiteral(ByteBuffer buffer)
+    {
+        byte currentByte = buffer.get();
+        if (currentByte != literal[literalIndex])
+            throw newInvalidJSON(buffer, "invalid '" + new String(literal, StandardCharsets.US_ASCII) + "' literal");
+        if (++literalIndex < literal.length)
+            return;
+
+        endValue();
+        if (literal == TRUE)
+            listener.onBoolean(true);
+        else if (literal == FALSE)
+            listener.onBoolean(false);
+        else
+            listener.onNull();
+    }
+
+    private void endValue()
+    {
+        state = depth == 0 ? State.DONE : State.AFTER_VALUE;
+    }
+
+    private void push(byte container)
+    {
+        if (depth == containers.length)
+            containers = Arrays.copyOf(containers, depth * 2);
+        containers[depth++] = container;
+    }
+
+    private ByteBuffer view(ByteBuffer buffer, int start, int end)
+    {
+        if (source != buffer)
+        {
+            source = buffer;
+            sourceView = buffer.duplicate();
+        }
+        sourceView.clear();
+        sourceView.limit(end);
+        sourceView.position(start);
+        return sourceView;
+    }
+
+    private ByteBuffer tokenView()
+    {
+        tokenView.clear();
+        tokenView.limit(tokenLength);
+        return tokenView;
+    }
+
+    private void append(byte b)
+    {
+        ensureCapacity(1);
+        token[tokenLength++] = b;
+    }
+
+    private void append(ByteBuffer buffer, int start, int end)
+    {
+        int length = end - start;
+        if (length == 0)
+            return;
+        flushHighSurrogate();
+        ensureCapacity(length);
+        if (buffer.hasArray())
+        {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + start, token, tokenLength, length);
+        }
+        else
+        {
+            for (int i = start; i < end; ++i)
+            {
+                token[tokenLength + i - start] = buffer.get(i);
+            }
+        }
+        tokenLength += length;
+    }
+
+    private void ensureCapacity(int length)
+    {
+        if (tokenLength + length > token.length)
+        {
+            token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLength + length));
+            tokenView = ByteBuffer.wrap(token);
+        }
+    }
+
+    protected RuntimeException newInvalidJSON(ByteBuffer buffer, String message)
+    {
+        return new IllegalArgumentException(String.format("%s at position %d: %s", message, buffer.position(), BufferUtil.toDetailString(buffer)));
+    }
+
+    private static boolean isWhitespace(byte ws)
+    {
+        switch (ws)
+        {
+            case ' ':
+            case '\n':
+            case '\r':
+            case '\t':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private enum State
+    {
+        VALUE, FIRST_VALUE, FIELD, FIRST_FIELD, COLON, AFTER_VALUE, STRING, ESCAPE, UNICODE, NUMBER, LITERAL, DONE
+    }
+
+    /**
+     * <p>The states of the JSON number grammar
+     * {@code -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?}.</p>
+     */
+    private enum NumberState
+    {
+        START, SIGN, ZERO, INTEGER, DOT, FRACTION, EXPONENT, EXPONENT_SIGN, EXPONENT_DIGITS, ERROR;
+
+        /**
+         * @param b the next byte
+         * @return the next state, {@code null} if the byte terminates the number, or {@link #ERROR}
+         */
+        private NumberState next(byte b)
+        {
+            boolean digit = b >= '0' && b <= '9';
+            switch (this)
+            {
+                case START:
+                    if (b == '-')
+                        return SIGN;
+                    if (b == '0')
+                        return ZERO;
+                    return digit ? INTEGER : ERROR;
+                case SIGN:
+                    if (b == '0')
+                        return ZERO;
+                    return digit ? INTEGER : ERROR;
+                case ZERO:
+                    if (digit)
+                        return ERROR;
+                    return afterInteger(b);
+                case INTEGER:
+                    if (digit)
+                        return INTEGER;
+                    return afterInteger(b);
+                case DOT:
+                    return digit ? FRACTION : ERROR;
+                case FRACTION:
+                    if (digit)
+                        return FRACTION;
+                    return b == 'e' || b == 'E' ? EXPONENT : terminator(b);
+                case EXPONENT:
+                    if (b == '+' || b == '-')
+                        return EXPONENT_SIGN;
+                    return digit ? EXPONENT_DIGITS : ERROR;
+                case EXPONENT_SIGN:
+                case EXPONENT_DIGITS:
+                    return digit ? EXPONENT_DIGITS : (this == EXPONENT_SIGN ? ERROR : terminator(b));
+                default:
+                    return ERROR;
+            }
+        }
+
+        private static NumberState afterInteger(byte b)
+        {
+            if (b == '.')
+                return DOT;
+            if (b == 'e' || b == 'E')
+                return EXPONENT;
+            return terminator(b);
+        }
+
+        private static NumberState terminator(byte b)
+        {
+            // Letters, signs and dots cannot follow a number.
+            if (b == '.' || b == '+' || b == '-' || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z'))
+                return ERROR;
+            return null;
+        }
+
+        private boolean isTerminal()
+        {
+            return this == ZERO || this == INTEGER || this == FRACTION || this == EXPONENT_DIGITS;
+        }
+    }
+}
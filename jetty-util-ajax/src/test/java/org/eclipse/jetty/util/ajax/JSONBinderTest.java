@@ -0,0 +1,182 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JSONBinderTest
+{
+    private static final String BAR_JSON = "{" +
+        "\"title\":\"Title\"," +
+        "\"nullTest\":null," +
+        "\"unknown\":{\"a\":[1,{\"b\":2}],\"c\":\"d\"}," +
+        "\"baz\":{\"message\":\"Message\",\"boolean2\":true,\"foo\":{" +
+        "\"name\":\"Foo\",\"int1\":1,\"int2\":2,\"long1\":3,\"long2\":4,\"float1\":5.5,\"float2\":6,\"double1\":7.5,\"double2\":8" +
+        "}}," +
+        "\"boolean1\":true," +
+        "\"bazs\":[{\"message\":\"m1\"},{\"message\":\"m2\",\"unknown\":[[]]}]," +
+        "\"color\":\"Blue\"" +
+        "}";
+
+    @Test
+    public void testBindBean()
+    {
+        JSONBinder<Bar> binder = new JSONBinder<>(Bar.class);
+
+        assertTrue(binder.parse(BAR_JSON.getBytes(UTF_8)));
+        assertBar(binder.complete());
+
+        // Parse byte by byte, reusing the binder.
+        for (byte b : BAR_JSON.getBytes(UTF_8))
+        {
+            binder.parse(new byte[]{b});
+        }
+        assertBar(binder.complete());
+    }
+
+    private void assertBar(Bar bar)
+    {
+        assertEquals("Title", bar.getTitle());
+        assertThat(bar.getNullTest(), nullValue());
+        assertTrue(bar.isBoolean1());
+        assertThat(bar.getColor(), is(Color.Blue));
+
+        Baz baz = bar.getBaz();
+        assertEquals("Message", baz.getMessage());
+        assertThat(baz.isBoolean2(), is(true));
+
+        Foo foo = baz.getFoo();
+        assertEquals("Foo", foo.getName());
+        assertEquals(1, foo.getInt1());
+        assertEquals(2, foo.getInt2());
+        assertEquals(3L, foo.getLong1());
+        assertEquals(4L, foo.getLong2());
+        assertEquals(5.5F, foo.getFloat1());
+        assertEquals(6F, foo.getFloat2());
+        assertEquals(7.5D, foo.getDouble1());
+        assertEquals(8D, foo.getDouble2());
+
+        Baz[] bazs = bar.getBazs();
+        assertEquals(2, bazs.length);
+        assertEquals("m1", bazs[0].getMessage());
+        assertEquals("m2", bazs[1].getMessage());
+    }
+
+    @Test
+    public void testBindCollections()
+    {
+        String json = "{\"ints\":[1,2,3],\"names\":[\"a\",\"b\",\"a\"],\"bazs\":[{\"message\":\"m\"}],\"extra\":{\"x\":[1,\"y\"]},\"any\":2.5}";
+        JSONBinder<Collections> binder = new JSONBinder<>(Collections.class);
+        binder.parse(json.getBytes(UTF_8));
+        Collections collections = binder.complete();
+
+        assertArrayEquals(new int[]{1, 2, 3}, collections.ints);
+        assertThat(collections.names, containsInAnyOrder("a", "b"));
+        assertThat(collections.bazs.size(), is(1));
+        assertThat(collections.bazs.get(0), instanceOf(Baz.class));
+        assertEquals("m", collections.bazs.get(0).getMessage());
+        assertThat((List<?>)collections.extra.get("x"), contains(1L, "y"));
+        assertEquals(2.5D, collections.any);
+    }
+
+    @Test
+    public void testBindGeneric()
+    {
+        JSONBinder<Map> binder = new JSONBinder<>(Map.class);
+        binder.parse("{\"a\":[true,null,{\"b\":\"c\"}]}".getBytes(UTF_8));
+        Map<?, ?> map = binder.complete();
+        List<?> list = (List<?>)map.get("a");
+        assertThat(list.get(0), is(true));
+        assertThat(list.get(1), nullValue());
+        assertThat(list.get(2), is(Map.of("b", "c")));
+
+        assertThrows(IllegalArgumentException.class, () ->
+        {
+            binder.parse("[]".getBytes(UTF_8));
+            binder.complete();
+        });
+    }
+
+    @Test
+    public void testBindArray()
+    {
+        JSONBinder<String[]> binder = new JSONBinder<>(String[].class);
+        binder.parse("[\"a\", \"b\"]".getBytes(UTF_8));
+        assertThat(binder.complete(), arrayContaining("a", "b"));
+    }
+
+    @Test
+    public void testCannotBind()
+    {
+        JSONBinder<Foo> binder = new JSONBinder<>(Foo.class);
+        assertThrows(IllegalArgumentException.class, () -> binder.parse("{\"int1\":\"one\"}".getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> binder.parse("{\"int1\":null}".getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> binder.parse("[]".getBytes(UTF_8)));
+
+        // The binder can be reused after a failure.
+        binder.parse("{\"int1\":1}".getBytes(UTF_8));
+        assertEquals(1, binder.complete().getInt1());
+    }
+
+    public static class Collections
+    {
+        private int[] ints;
+        private Set<String> names;
+        private List<Baz> bazs;
+        private Map<String, Object> extra;
+        private Object any;
+
+        public void setInts(int[] ints)
+        {
+            this.ints = ints;
+        }
+
+        public void setNames(Set<String> names)
+        {
+            this.names = names;
+        }
+
+        public void setBazs(List<Baz> bazs)
+        {
+            this.bazs = bazs;
+        }
+
+        public void setExtra(Map<String, Object> extra)
+        {
+            this.extra = extra;
+        }
+
+        public void setAny(Object any)
+        {
+            this.any = any;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JSONStreamParserTest
+{
+    @ParameterizedTest
+    @ValueSource(strings = {"|", "}", "]", "{]", "[}", "+", ".", "{} []", "[1,]", "{\"a\":1,}", "{\"a\" 1}", "01", "1.e", "-x", "[tRue]", "\"\\x\"", "\"\u0001\""})
+    public void testParseInvalidJSON(String json)
+    {
+        byte[] bytes = json.getBytes(UTF_8);
+        JSONStreamParser parser = new JSONStreamParser(new JSONStreamParser.Listener()
+        {
+        });
+
+        // Parse the whole input.
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(bytes));
+
+        // Parse byte by byte.
+        assertThrows(IllegalArgumentException.class, () ->
+        {
+            for (byte b : bytes)
+            {
+                parser.parse(new byte[]{b});
+            }
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{", "[1, 2", "{\"a\":", "\"abc", "tru", "-", "1e"})
+    public void testCompleteIncompleteJSON(String json)
+    {
+        JSONStreamParser parser = new JSONStreamParser(new JSONStreamParser.Listener()
+        {
+        });
+        assertFalse(parser.parse(json.getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, parser::complete);
+    }
+
+    @Test
+    public void testCompleteNoJSON()
+    {
+        JSONStreamParser parser = new JSONStreamParser(new JSONStreamParser.Listener()
+        {
+        });
+        assertThrows(IllegalStateException.class, parser::complete);
+        parser.parse("  ".getBytes(UTF_8));
+        assertThrows(IllegalStateException.class, parser::complete);
+    }
+
+    @Test
+    public void testEvents()
+    {
+        String json = "{\"name\": \"Joe\", \"age\": 42, \"height\": 1.85, \"tags\": [\"a\", true, false, null, -7, 1e3, {}, []], \"empty\": \"\"}";
+        List<String> expected = List.of(
+            "{", "name", "'Joe'", "age", "42", "height", "1.85",
+            "tags", "[", "'a'", "true", "false", "null", "-7", "1000.0", "{", "}", "[", "]", "]",
+            "empty", "''", "}");
+
+        EventsListener listener = new EventsListener();
+        JSONStreamParser parser = new JSONStreamParser(listener);
+
+        // Parse the whole input.
+        assertTrue(parser.parse(json.getBytes(UTF_8)));
+        parser.complete();
+        assertEquals(expected, listener.events);
+
+        // Parse byte by byte, reusing the parser.
+        listener.events.clear();
+        byte[] bytes = json.getBytes(UTF_8);
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            assertThat(parser.parse(new byte[]{bytes[i]}), is(i == bytes.length - 1));
+        }
+        parser.complete();
+        assertEquals(expected, listener.events);
+    }
+
+    @Test
+    public void testTopLevelNumber()
+    {
+        EventsListener listener = new EventsListener();
+        JSONStreamParser parser = new JSONStreamParser(listener);
+
+        // A top level number is only terminated by complete().
+        assertFalse(parser.parse("123".getBytes(UTF_8)));
+        assertTrue(listener.events.isEmpty());
+        parser.complete();
+        assertThat(listener.events, contains("123"));
+    }
+
+    @Test
+    public void testNumbers()
+    {
+        EventsListener listener = new EventsListener();
+        JSONStreamParser parser = new JSONStreamParser(listener);
+        parser.parse(("[0, -0, 9223372036854775807, 9223372036854775808, -12.5, 2E-2, 3e+1]").getBytes(UTF_8));
+        parser.complete();
+        assertThat(listener.events, contains("[", "0", "0", "9223372036854775807", "9.223372036854776E18", "-12.5", "0.02", "30.0", "]"));
+    }
+
+    @Test
+    public void testEscapes()
+    {
+        EventsListener listener = new EventsListener();
+        JSONStreamParser parser = new JSONStreamParser(listener);
+        byte[] bytes = "\"a\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e8\\ud83d\\ude00\\ud83dz€\"".getBytes(UTF_8);
+        for (byte b : bytes)
+        {
+            parser.parse(new byte[]{b});
+        }
+        parser.complete();
+        // The lone high surrogate is replaced by U+FFFD, the replacement character.
+        assertThat(listener.events, contains("'a\"\\/\b\f\n\r\tè😀" + (char)0xFFFD + "z€'"));
+    }
+
+    @Test
+    public void testStringIsNotCopied()
+    {
+        byte[] bytes = "{\"name\":\"value\"}".getBytes(UTF_8);
+        List<ByteBuffer> strings = new ArrayList<>();
+        JSONStreamParser parser = new JSONStreamParser(new JSONStreamParser.Listener()
+        {
+            @Override
+            public void onName(ByteBuffer name)
+            {
+                assertThat(name.array(), sameInstance(bytes));
+                strings.add(name);
+            }
+
+            @Override
+            public void onString(ByteBuffer value)
+            {
+                assertThat(value.array(), sameInstance(bytes));
+                assertEquals("value", BufferUtil.toUTF8String(value));
+                strings.add(value);
+            }
+        });
+
+        assertTrue(parser.parse(ByteBuffer.wrap(bytes)));
+        parser.complete();
+        assertThat(strings.size(), is(2));
+    }
+
+    private static class EventsListener implements JSONStreamParser.Listener
+    {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onObjectStart()
+        {
+            events.add("{");
+        }
+
+        @Override
+        public void onObjectEnd()
+        {
+            events.add("}");
+        }
+
+        @Override
+        public void onArrayStart()
+        {
+            events.add("[");
+        }
+
+        @Override
+        public void onArrayEnd()
+        {
+            events.add("]");
+        }
+
+        @Override
+        public void onName(ByteBuffer name)
+        {
+            events.add(BufferUtil.toUTF8String(name));
+        }
+
+        @Override
+        public void onString(ByteBuffer value)
+        {
+            events.add("'" + BufferUtil.toUTF8String(value) + "'");
+        }
+
+        @Override
+        public void onNumber(long value)
+        {
+            events.add(String.valueOf(value));
+        }
+
+        @Override
+        public void onNumber(double value)
+        {
+            events.add(String.valueOf(value));
+        }
+
+        @Override
+        public void onBoolean(boolean value)
+        {
+            events.add(String.valueOf(value));
+        }
+
+        @Override
+        public void onNull()
+        {
+            events.add("null");
+        }
+    }
+}
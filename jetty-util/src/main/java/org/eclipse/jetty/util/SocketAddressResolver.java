@@ -18,14 +18,20 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -194,4 +200,447 @@ public interface SocketAddressResolver
             });
         }
     }
+
+    /**
+     * <p>Creates {@link InetSocketAddress} instances asynchronously in a different thread,
+     * caching the results of DNS resolutions.</p>
+     * <p>Successful resolutions are cached for {@link #getTimeToLive()} milliseconds,
+     * while failed resolutions are cached for {@link #getNegativeTimeToLive()} milliseconds,
+     * so that unknown hosts do not cause a DNS lookup for every connect attempt.</p>
+     * <p>A cache hit after three quarters of the time to live has elapsed triggers a
+     * background refresh of the entry, while the cached addresses are still returned,
+     * so that frequently resolved hosts never wait for a DNS lookup.
+     * Concurrent resolutions of the same host wait for the same DNS lookup.</p>
+     * <p>DNS lookups are performed by a {@link Lookup}, by default
+     * {@link InetAddress#getAllByName(String)}.
+     * Note that the JVM also caches DNS lookups, for the time configured by the
+     * {@code networkaddress.cache.ttl} security property, which should be shorter
+     * than the time to live of this cache for background refreshes to be effective.</p>
+     * <p>Example usage:</p>
+     * <pre>
+     * SocketAddressResolver.Caching resolver = new SocketAddressResolver.Caching(executor, scheduler, timeout);
+     * resolver.setTimeToLive(60000);
+     * httpClient.setSocketAddressResolver(resolver);
+     * </pre>
+     */
+    @ManagedObject("The caching asynchronous address resolver")
+    public static class Caching implements SocketAddressResolver
+    {
+        private static final Logger LOG = LoggerFactory.getLogger(SocketAddressResolver.class);
+
+        private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder refreshes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final Executor executor;
+        private final Scheduler scheduler;
+        private final long timeout;
+        private final Lookup lookup;
+        private long timeToLive = 30000;
+        private long negativeTimeToLive = 10000;
+        private int maxCacheSize = 1024;
+
+        /**
+         * Creates a new instance that performs DNS lookups via {@link InetAddress#getAllByName(String)}.
+         *
+         * @param executor the thread pool to use to perform DNS resolution in pooled threads
+         * @param scheduler the scheduler to schedule tasks to cancel DNS resolution if it takes too long
+         * @param timeout the timeout, in milliseconds, for the DNS resolution to complete
+         */
+        public Caching(Executor executor, Scheduler scheduler, long timeout)
+        {
+            this(executor, scheduler, timeout, InetAddress::getAllByName);
+        }
+
+        /**
+         * Creates a new instance that performs DNS lookups via the given {@link Lookup}.
+         *
+         * @param executor the thread pool to use to perform DNS resolution in pooled threads
+         * @param scheduler the scheduler to schedule tasks to cancel DNS resolution if it takes too long
+         * @param timeout the timeout, in milliseconds, for the DNS resolution to complete
+         * @param lookup the DNS lookup implementation
+         */
+        public Caching(Executor executor, Scheduler scheduler, long timeout, Lookup lookup)
+        {
+            this.executor = executor;
+            this.scheduler = scheduler;
+            this.timeout = timeout;
+            this.lookup = lookup;
+        }
+
+        public Executor getExecutor()
+        {
+            return executor;
+        }
+
+        public Scheduler getScheduler()
+        {
+            return scheduler;
+        }
+
+        public Lookup getLookup()
+        {
+            return lookup;
+        }
+
+        @ManagedAttribute(value = "The timeout, in milliseconds, to resolve an address", readonly = true)
+        public long getTimeout()
+        {
+            return timeout;
+        }
+
+        /**
+         * @return the time, in milliseconds, successful resolutions are cached for
+         */
+        @ManagedAttribute("The time, in milliseconds, successful resolutions are cached for")
+        public long getTimeToLive()
+        {
+            return timeToLive;
+        }
+
+        /**
+         * @param timeToLive the time, in milliseconds, successful resolutions are cached for
+         */
+        public void setTimeToLive(long timeToLive)
+        {
+            this.timeToLive = timeToLive;
+        }
+
+        /**
+         * @return the time, in milliseconds, failed resolutions are cached for
+         */
+        @ManagedAttribute("The time, in milliseconds, failed resolutions are cached for")
+        public long getNegativeTimeToLive()
+        {
+            return negativeTimeToLive;
+        }
+
+        /**
+         * @param negativeTimeToLive the time, in milliseconds, failed resolutions are cached for,
+         * or zero to not cache failed resolutions
+         */
+        public void setNegativeTimeToLive(long negativeTimeToLive)
+        {
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+
+        /**
+         * @return the max number of hosts in the cache
+         */
+        @ManagedAttribute("The max number of hosts in the cache")
+        public int getMaxCacheSize()
+        {
+            return maxCacheSize;
+        }
+
+        /**
+         * <p>Sets the max number of hosts in the cache.</p>
+         * <p>When the cache is full, expired entries are evicted;
+         * if the cache is still full, arbitrary entries are evicted.</p>
+         *
+         * @param maxCacheSize the max number of hosts in the cache
+         */
+        public void setMaxCacheSize(int maxCacheSize)
+        {
+            this.maxCacheSize = maxCacheSize;
+        }
+
+        @ManagedAttribute("The number of hosts in the cache")
+        public int getCacheSize()
+        {
+            return cache.size();
+        }
+
+        @ManagedAttribute("The number of resolutions served by cached addresses")
+        public long getHits()
+        {
+            return hits.longValue();
+        }
+
+        @ManagedAttribute("The number of resolutions served by cached failures")
+        public long getNegativeHits()
+        {
+            return negativeHits.longValue();
+        }
+
+        @ManagedAttribute("The number of resolutions that waited for a DNS lookup")
+        public long getMisses()
+        {
+            return misses.longValue();
+        }
+
+        @ManagedAttribute("The number of background refreshes")
+        public long getRefreshes()
+        {
+            return refreshes.longValue();
+        }
+
+        @ManagedAttribute("The number of failed DNS lookups")
+        public long getFailures()
+        {
+            return failures.longValue();
+        }
+
+        @ManagedOperation(value = "Clears the cache", impact = "ACTION")
+        public void clear()
+        {
+            cache.clear();
+            hits.reset();
+            negativeHits.reset();
+            misses.reset();
+            refreshes.reset();
+            failures.reset();
+        }
+
+        @Override
+        public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise)
+        {
+            Entry entry = cache.get(host);
+            if (entry == null)
+            {
+                evict();
+                entry = cache.computeIfAbsent(host, Entry::new);
+            }
+            entry.resolve(new Promise<>()
+            {
+                @Override
+                public void succeeded(InetAddress[] addresses)
+                {
+                    List<InetSocketAddress> result = new ArrayList<>(addresses.length);
+                    for (InetAddress address : addresses)
+                    {
+                        result.add(new InetSocketAddress(address, port));
+                    }
+                    promise.succeeded(result);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    promise.failed(x);
+                }
+            });
+        }
+
+        private void evict()
+        {
+            int maxCacheSize = getMaxCacheSize();
+            if (cache.size() < maxCacheSize)
+                return;
+            long now = System.nanoTime();
+            cache.values().removeIf(entry -> entry.isExpired(now));
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (cache.size() >= maxCacheSize && iterator.hasNext())
+            {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[size=%d,ttl=%d,negativeTtl=%d]", getClass().getSimpleName(), hashCode(), getCacheSize(), getTimeToLive(), getNegativeTimeToLive());
+        }
+
+        /**
+         * <p>Performs the blocking DNS lookup of a host.</p>
+         */
+        @FunctionalInterface
+        public interface Lookup
+        {
+            /**
+             * @param host the host to resolve
+             * @return the addresses of the host
+             * @throws UnknownHostException if the host cannot be resolved
+             */
+            InetAddress[] lookup(String host) throws UnknownHostException;
+        }
+
+        private class Entry
+        {
+            private final AutoLock lock = new AutoLock();
+            private final List<Promise<InetAddress[]>> promises = new ArrayList<>();
+            private final String host;
+            private InetAddress[] addresses;
+            private Throwable failure;
+            private long expireNanoTime;
+            private long refreshNanoTime;
+            private long generation;
+            private boolean resolving;
+
+            private Entry(String host)
+            {
+                this.host = host;
+            }
+
+            private boolean isExpired(long now)
+            {
+                try (AutoLock l = lock.lock())
+                {
+                    return !resolving && now - expireNanoTime >= 0;
+                }
+            }
+
+            private void resolve(Promise<InetAddress[]> promise)
+            {
+                InetAddress[] cached = null;
+                Throwable cachedFailure = null;
+                long lookupGeneration = -1;
+                try (AutoLock l = lock.lock())
+                {
+                    long now = System.nanoTime();
+                    boolean valid = now - expireNanoTime < 0;
+                    if (valid && addresses != null)
+                    {
+                        hits.increment();
+                        cached = addresses;
+                        if (!resolving && now - refreshNanoTime >= 0)
+                        {
+                            refreshes.increment();
+                            resolving = true;
+                            lookupGeneration = generation;
+                        }
+                    }
+                    else if (valid && failure != null)
+                    {
+                        negativeHits.increment();
+                        cachedFailure = failure;
+                    }
+                    else
+                    {
+                        misses.increment();
+                        promises.add(promise);
+                        if (!resolving)
+                        {
+                            resolving = true;
+                            lookupGeneration = generation;
+                        }
+                    }
+                }
+
+                if (lookupGeneration >= 0)
+                    lookup(lookupGeneration);
+
+                if (cached != null)
+                    promise.succeeded(cached);
+                else if (cachedFailure != null)
+                    promise.failed(cachedFailure);
+            }
+
+            private void lookup(long generation)
+            {
+                try
+                {
+                    executor.execute(() ->
+                    {
+                        Scheduler.Task task = null;
+                        if (timeout > 0)
+                            task = scheduler.schedule(() -> timeout(generation), timeout, TimeUnit.MILLISECONDS);
+                        try
+                        {
+                            long start = System.nanoTime();
+                            InetAddress[] result = lookup.lookup(host);
+                            if (result == null || result.length == 0)
+                                throw new UnknownHostException(host);
+                            long elapsed = System.nanoTime() - start;
+                            if (LOG.isDebugEnabled())
+                                LOG.debug("Resolved {} in {} ms", host, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                            complete(generation, result, null);
+                        }
+                        catch (Throwable x)
+                        {
+                            if (LOG.isDebugEnabled())
+                                LOG.debug("Could not resolve {}", host, x);
+                            complete(generation, null, x);
+                        }
+                        finally
+                        {
+                            if (task != null)
+                                task.cancel();
+                        }
+                    });
+                }
+                catch (Throwable x)
+                {
+                    complete(generation, null, x);
+                }
+            }
+
+            private void complete(long generation, InetAddress[] result, Throwable x)
+            {
+                List<Promise<InetAddress[]>> waiters = List.of();
+                try (AutoLock l = lock.lock())
+                {
+                    long now = System.nanoTime();
+                    if (result != null)
+                    {
+                        long ttl = TimeUnit.MILLISECONDS.toNanos(getTimeToLive());
+                        addresses = result;
+                        failure = null;
+                        expireNanoTime = now + ttl;
+                        refreshNanoTime = now + ttl / 4 * 3;
+                    }
+                    else
+                    {
+                        failures.increment();
+                        long negativeTtl = TimeUnit.MILLISECONDS.toNanos(getNegativeTimeToLive());
+                        if (addresses != null && now - expireNanoTime < 0)
+                        {
+                            // A background refresh failed, keep the cached
+                            // addresses and retry the refresh later.
+                            refreshNanoTime = now + negativeTtl;
+                        }
+                        else
+                        {
+                            addresses = null;
+                            failure = x;
+                            expireNanoTime = now + negativeTtl;
+                        }
+                    }
+
+                    // If the lookup timed out, its waiters have
+                    // already been failed, but the result is cached.
+                    if (generation == this.generation)
+                    {
+                        resolving = false;
+                        waiters = new ArrayList<>(promises);
+                        promises.clear();
+                    }
+                }
+
+                for (Promise<InetAddress[]> waiter : waiters)
+                {
+                    if (result != null)
+                        waiter.succeeded(result);
+                    else
+                        waiter.failed(x);
+                }
+            }
+
+            private void timeout(long generation)
+            {
+                List<Promise<InetAddress[]>> waiters;
+                try (AutoLock l = lock.lock())
+                {
+                    if (generation != this.generation || !resolving)
+                        return;
+                    ++this.generation;
+                    resolving = false;
+                    waiters = new ArrayList<>(promises);
+                    promises.clear();
+                }
+
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Timed out resolving {}", host);
+                TimeoutException failure = new TimeoutException("DNS timeout " + getTimeout() + " ms");
+                for (Promise<InetAddress[]> waiter : waiters)
+                {
+                    waiter.failed(failure);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,205 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Collects the elapsed time of the phases of the server startup, such as
+ * XML configuration, webapp configuration, annotation scanning and servlet
+ * initialization.</p>
+ * <p>Timings are only collected when enabled, either via the {@value #STARTUP_REPORT_PROPERTY}
+ * system property (set by the {@code --startup-report} option of {@code start.jar})
+ * or via {@link #setEnabled(boolean)}; otherwise {@link #start(String, Object)} returns
+ * a no-op {@link Timing}.</p>
+ * <p>Timings only retain a description of their target, and at most {@value #MAX_TIMINGS}
+ * timings are retained until they are {@link #report() reported}, so that redeployed
+ * contexts are not kept alive by their timings.</p>
+ * <p>Typical usage is:</p>
+ * <pre>
+ * try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.SERVLET_INIT, context))
+ * {
+ *     initializeServlets();
+ * }
+ * </pre>
+ */
+public class StartupTimings
+{
+    public static final String STARTUP_REPORT_PROPERTY = "jetty.startup.report";
+    public static final String XML_CONFIGURATION = "xml configuration";
+    public static final String WEBAPP_PRECONFIGURE = "webapp preconfigure";
+    public static final String WEBAPP_CONFIGURE = "webapp configure";
+    public static final String ANNOTATION_SCAN = "annotation scan";
+    public static final String SERVLET_INIT = "servlet init";
+    public static final String DEPLOY = "deploy";
+    public static final int MAX_TIMINGS = 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimings.class);
+    private static final Timing NOOP = new Timing(null, null, 0)
+    {
+        @Override
+        public void close()
+        {
+        }
+    };
+    private static final ConcurrentLinkedQueue<Timing> TIMINGS = new ConcurrentLinkedQueue<>();
+    private static volatile boolean enabled = Boolean.getBoolean(STARTUP_REPORT_PROPERTY);
+
+    private StartupTimings()
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled)
+    {
+        StartupTimings.enabled = enabled;
+    }
+
+    /**
+     * <p>Starts the timing of a phase, which is recorded when the returned {@link Timing} is closed.</p>
+     *
+     * @param phase the name of the phase
+     * @param target the object the phase applies to, such as a context or a XML file,
+     * of which only the string representation is retained
+     * @return the timing to close at the end of the phase
+     */
+    public static Timing start(String phase, Object target)
+    {
+        if (!enabled)
+            return NOOP;
+        return new Timing(phase, String.valueOf(target), System.nanoTime());
+    }
+
+    /**
+     * @return the timings recorded so far, in completion order
+     */
+    public static List<Timing> getTimings()
+    {
+        return new ArrayList<>(TIMINGS);
+    }
+
+    /**
+     * @return the total elapsed nanoseconds of each phase, in the order the phases first completed
+     */
+    public static Map<String, Long> getPhaseTotals()
+    {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Timing timing : TIMINGS)
+        {
+            totals.merge(timing.getPhase(), timing.getElapsed(), Long::sum);
+        }
+        return totals;
+    }
+
+    public static void clear()
+    {
+        TIMINGS.clear();
+    }
+
+    /**
+     * <p>Logs the recorded timings, grouped by phase, if enabled, then clears them.</p>
+     */
+    public static void report()
+    {
+        if (!enabled || TIMINGS.isEmpty())
+        {
+            clear();
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder("Startup timings @").append(Uptime.getUptime()).append("ms");
+        for (Map.Entry<String, Long> entry : getPhaseTotals().entrySet())
+        {
+            builder.append(System.lineSeparator())
+                .append(String.format(" %-24s %6d ms", entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue())));
+            for (Timing timing : TIMINGS)
+            {
+                if (timing.getPhase().equals(entry.getKey()))
+                    builder.append(System.lineSeparator())
+                        .append(String.format("   %6d ms %s", TimeUnit.NANOSECONDS.toMillis(timing.getElapsed()), timing.getTarget()));
+            }
+        }
+        LOG.info(builder.toString());
+        clear();
+    }
+
+    /**
+     * <p>The timing of a single phase execution.</p>
+     */
+    public static class Timing implements AutoCloseable
+    {
+        private final String phase;
+        private final String target;
+        private final long begin;
+        private long elapsed;
+
+        private Timing(String phase, String target, long begin)
+        {
+            this.phase = phase;
+            this.target = target;
+            this.begin = begin;
+        }
+
+        public String getPhase()
+        {
+            return phase;
+        }
+
+        /**
+         * @return the description of the object the phase applies to
+         */
+        public String getTarget()
+        {
+            return target;
+        }
+
+        /**
+         * @return the elapsed nanoseconds of the phase
+         */
+        public long getElapsed()
+        {
+            return elapsed;
+        }
+
+        @Override
+        public void close()
+        {
+            elapsed = System.nanoTime() - begin;
+            TIMINGS.add(this);
+            // Drop the oldest timings if they are never reported.
+            while (TIMINGS.size() > MAX_TIMINGS)
+            {
+                TIMINGS.poll();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s,%s,%dns]", getClass().getSimpleName(), hashCode(), phase, target, elapsed);
+        }
+    }
+}
@@ -14,7 +14,10 @@
 package org.eclipse.jetty.util;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +54,8 @@ public abstract class Utf8Appendable
     public static final byte[] REPLACEMENT_UTF8 = new byte[]{(byte)0xEF, (byte)0xBF, (byte)0xBD};
     private static final int UTF8_ACCEPT = 0;
     private static final int UTF8_REJECT = 12;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long ASCII_MASK = 0x8080808080808080L;
 
     protected final Appendable _appendable;
     protected int _state = UTF8_ACCEPT;
@@ -160,9 +165,52 @@ public abstract class Utf8Appendable
     {
         try
         {
-            while (buf.remaining() > 0)
+            if (buf.hasArray())
             {
-                appendByte(buf.get());
+                byte[] array = buf.array();
+                int arrayOffset = buf.arrayOffset();
+                int i = arrayOffset + buf.position();
+                int end = arrayOffset + buf.limit();
+                try
+                {
+                    while (i < end)
+                    {
+                        if (_state == UTF8_ACCEPT)
+                        {
+                            int ascii = asciiLength(array, i, end);
+                            if (ascii > 0)
+                            {
+                                appendAscii(array, i, ascii);
+                                i += ascii;
+                                continue;
+                            }
+                        }
+                        appendByte(array[i++]);
+                    }
+                }
+                finally
+                {
+                    buf.position(i - arrayOffset);
+                }
+            }
+            else
+            {
+                int end = buf.limit();
+                while (buf.position() < end)
+                {
+                    if (_state == UTF8_ACCEPT)
+                    {
+                        int position = buf.position();
+                        int ascii = asciiLength(buf, position, end);
+                        if (ascii > 0)
+                        {
+                            appendAscii(buf, position, ascii);
+                            buf.position(position + ascii);
+                            continue;
+                        }
+                    }
+                    appendByte(buf.get());
+                }
             }
         }
         catch (IOException e)
@@ -181,9 +229,20 @@ public abstract class Utf8Appendable
         try
         {
             int end = offset + length;
-            for (int i = offset; i < end; i++)
+            int i = offset;
+            while (i < end)
             {
-                appendByte(b[i]);
+                if (_state == UTF8_ACCEPT)
+                {
+                    int ascii = asciiLength(b, i, end);
+                    if (ascii > 0)
+                    {
+                        appendAscii(b, i, ascii);
+                        i += ascii;
+                        continue;
+                    }
+                }
+                appendByte(b[i++]);
             }
         }
         catch (IOException e)
@@ -254,6 +313,77 @@ public abstract class Utf8Appendable
         }
     }
 
+    /**
+     * <p>Appends a run of ASCII bytes, that need no decoding nor validation.</p>
+     *
+     * @param b the bytes
+     * @param offset the offset of the first ASCII byte
+     * @param length the number of ASCII bytes
+     * @throws IOException if the bytes cannot be appended
+     */
+    protected void appendAscii(byte[] b, int offset, int length) throws IOException
+    {
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+        {
+            _appendable.append((char)b[i]);
+        }
+    }
+
+    /**
+     * <p>Appends a run of ASCII bytes, that need no decoding nor validation.</p>
+     *
+     * @param buf the buffer
+     * @param index the absolute index of the first ASCII byte
+     * @param length the number of ASCII bytes
+     * @throws IOException if the bytes cannot be appended
+     */
+    protected void appendAscii(ByteBuffer buf, int index, int length) throws IOException
+    {
+        int end = index + length;
+        for (int i = index; i < end; i++)
+        {
+            _appendable.append((char)buf.get(i));
+        }
+    }
+
+    /**
+     * <p>Returns the length of the run of ASCII bytes starting at the given offset,
+     * testing 8 bytes at a time.</p>
+     */
+    private static int asciiLength(byte[] b, int offset, int end)
+    {
+        int i = offset;
+        while (end - i >= 8)
+        {
+            if (((long)LONG_VIEW.get(b, i) & ASCII_MASK) != 0)
+                break;
+            i += 8;
+        }
+        while (i < end && b[i] >= 0)
+        {
+            i++;
+        }
+        return i - offset;
+    }
+
+    private static int asciiLength(ByteBuffer buf, int index, int end)
+    {
+        // The mask is the same in both byte orders.
+        int i = index;
+        while (end - i >= 8)
+        {
+            if ((buf.getLong(i) & ASCII_MASK) != 0)
+                break;
+            i += 8;
+        }
+        while (i < end && buf.get(i) >= 0)
+        {
+            i++;
+        }
+        return i - index;
+    }
+
     public boolean isUtf8SequenceComplete()
     {
         return _state == UTF8_ACCEPT;
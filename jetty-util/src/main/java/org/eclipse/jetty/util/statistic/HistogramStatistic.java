@@ -0,0 +1,202 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A histogram of sampled values.</p>
+ * <p>Samples are counted in buckets whose upper bounds are powers of two, so that bucket {@code 0}
+ * counts samples {@code <= 0}, bucket {@code 1} counts the sample {@code 1}, bucket {@code 2} counts
+ * samples in {@code [2, 3]}, bucket {@code 3} counts samples in {@code [4, 7]}, and so on; the last bucket
+ * counts all the samples that do not fit in the previous buckets.</p>
+ * <p>Recording a sample is lock-free and allocation-free, so a histogram may be shared by many threads,
+ * for example to aggregate the samples of many connections.</p>
+ */
+public class HistogramStatistic
+{
+    private final LongAdder[] _buckets;
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0L);
+    private final LongAdder _total = new LongAdder();
+
+    /**
+     * Creates a histogram with 32 buckets.
+     */
+    public HistogramStatistic()
+    {
+        this(32);
+    }
+
+    /**
+     * @param buckets the number of buckets, between 2 and 64
+     */
+    public HistogramStatistic(int buckets)
+    {
+        if (buckets < 2 || buckets > 64)
+            throw new IllegalArgumentException("Invalid number of buckets: " + buckets);
+        _buckets = new LongAdder[buckets];
+        for (int i = 0; i < buckets; ++i)
+        {
+            _buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset()
+    {
+        for (LongAdder bucket : _buckets)
+        {
+            bucket.reset();
+        }
+        _max.reset();
+        _total.reset();
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record.
+     */
+    public void record(long sample)
+    {
+        int bucket = sample <= 0 ? 0 : Math.min(_buckets.length - 1, Long.SIZE - Long.numberOfLeadingZeros(sample));
+        _buckets[bucket].increment();
+        _total.add(sample);
+        _max.accumulate(sample);
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    public int getBuckets()
+    {
+        return _buckets.length;
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the max value counted by the given bucket, or {@link Long#MAX_VALUE} for the last bucket
+     */
+    public long getUpperBound(int bucket)
+    {
+        if (bucket == _buckets.length - 1)
+            return Long.MAX_VALUE;
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the number of samples counted by the given bucket
+     */
+    public long getCount(int bucket)
+    {
+        return _buckets[bucket].sum();
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for (LongAdder bucket : _buckets)
+        {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the max value of the recorded samples
+     */
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    /**
+     * @return the sum of all the recorded samples
+     */
+    public long getTotal()
+    {
+        return _total.sum();
+    }
+
+    /**
+     * @return the average value of the samples recorded, or zero if there are no samples
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count > 0 ? (double)getTotal() / count : 0.0D;
+    }
+
+    /**
+     * <p>Returns an estimate of the given percentile of the recorded samples.</p>
+     * <p>The estimate is the upper bound of the bucket that contains the percentile,
+     * capped to the max recorded sample.</p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return an estimate of the given percentile, or zero if there are no samples
+     */
+    public long getPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        long[] counts = new long[_buckets.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; ++i)
+        {
+            counts[i] = _buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; ++i)
+        {
+            cumulative += counts[i];
+            if (cumulative >= rank)
+                return Math.min(getUpperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the non-empty buckets, as a map from the bucket upper bound to the bucket count
+     */
+    public Map<String, Long> toMap()
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < _buckets.length; ++i)
+        {
+            long count = _buckets[i].sum();
+            if (count > 0)
+                result.put(i == _buckets.length - 1 ? "+Inf" : "<=" + getUpperBound(i), count);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{count=%d,max=%d,mean=%f,p50=%d,p99=%d}", getClass().getSimpleName(), hashCode(), getCount(), getMax(), getMean(), getPercentile(50), getPercentile(99));
+    }
+}
@@ -0,0 +1,264 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SocketAddressResolverTest
+{
+    private final Map<String, InetAddress[]> dns = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private QueuedThreadPool executor;
+    private ScheduledExecutorScheduler scheduler;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        executor = new QueuedThreadPool();
+        executor.start();
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        scheduler.stop();
+        executor.stop();
+    }
+
+    private SocketAddressResolver.Caching newCachingResolver(long timeout)
+    {
+        return new SocketAddressResolver.Caching(executor, scheduler, timeout, host ->
+        {
+            lookups.incrementAndGet();
+            InetAddress[] addresses = dns.get(host);
+            if (addresses == null)
+                throw new UnknownHostException(host);
+            return addresses;
+        });
+    }
+
+    private static InetAddress address(String host, int last) throws UnknownHostException
+    {
+        return InetAddress.getByAddress(host, new byte[]{10, 0, 0, (byte)last});
+    }
+
+    private static List<InetSocketAddress> resolve(SocketAddressResolver resolver, String host, int port) throws Exception
+    {
+        FuturePromise<List<InetSocketAddress>> promise = new FuturePromise<>();
+        resolver.resolve(host, port, promise);
+        return promise.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCachingResolverCachesAddresses() throws Exception
+    {
+        dns.put("host", new InetAddress[]{address("host", 1), address("host", 2)});
+        SocketAddressResolver.Caching resolver = newCachingResolver(5000);
+
+        List<InetSocketAddress> result1 = resolve(resolver, "host", 8080);
+        assertEquals(List.of(new InetSocketAddress(address("host", 1), 8080), new InetSocketAddress(address("host", 2), 8080)), result1);
+        // Same host with a different port is also cached.
+        List<InetSocketAddress> result2 = resolve(resolver, "host", 8443);
+        assertEquals(8443, result2.get(0).getPort());
+
+        assertEquals(1, lookups.get());
+        assertEquals(1, resolver.getMisses());
+        assertEquals(1, resolver.getHits());
+        assertEquals(1, resolver.getCacheSize());
+    }
+
+    @Test
+    public void testCachingResolverExpiresAddresses() throws Exception
+    {
+        dns.put("host", new InetAddress[]{address("host", 1)});
+        SocketAddressResolver.Caching resolver = newCachingResolver(5000);
+        long ttl = 500;
+        resolver.setTimeToLive(ttl);
+
+        resolve(resolver, "host", 80);
+        dns.put("host", new InetAddress[]{address("host", 2)});
+        Thread.sleep(ttl * 2);
+
+        List<InetSocketAddress> result = resolve(resolver, "host", 80);
+        assertEquals(address("host", 2), result.get(0).getAddress());
+        assertEquals(2, lookups.get());
+        assertEquals(2, resolver.getMisses());
+    }
+
+    @Test
+    public void testCachingResolverCachesFailures() throws Exception
+    {
+        SocketAddressResolver.Caching resolver = newCachingResolver(5000);
+        long negativeTtl = 500;
+        resolver.setNegativeTimeToLive(negativeTtl);
+
+        ExecutionException failure1 = assertThrows(ExecutionException.class, () -> resolve(resolver, "unknown", 80));
+        assertThat(failure1.getCause(), instanceOf(UnknownHostException.class));
+        ExecutionException failure2 = assertThrows(ExecutionException.class, () -> resolve(resolver, "unknown", 80));
+        assertThat(failure2.getCause(), instanceOf(UnknownHostException.class));
+        assertEquals(1, lookups.get());
+        assertEquals(1, resolver.getNegativeHits());
+        assertEquals(1, resolver.getFailures());
+
+        // After the negative time to live, the host is looked up again.
+        dns.put("unknown", new InetAddress[]{address("unknown", 1)});
+        Thread.sleep(negativeTtl * 2);
+        List<InetSocketAddress> result = resolve(resolver, "unknown", 80);
+        assertEquals(address("unknown", 1), result.get(0).getAddress());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testCachingResolverRefreshesInBackground() throws Exception
+    {
+        dns.put("host", new InetAddress[]{address("host", 1)});
+        SocketAddressResolver.Caching resolver = newCachingResolver(5000);
+        long ttl = 1000;
+        resolver.setTimeToLive(ttl);
+
+        resolve(resolver, "host", 80);
+        dns.put("host", new InetAddress[]{address("host", 2)});
+
+        // Past three quarters of the time to live, the cached
+        // addresses are returned and a refresh is triggered.
+        Thread.sleep(ttl * 4 / 5);
+        List<InetSocketAddress> result1 = resolve(resolver, "host", 80);
+        assertEquals(address("host", 1), result1.get(0).getAddress());
+        assertEquals(1, resolver.getRefreshes());
+
+        await(() -> lookups.get() == 2);
+        List<InetSocketAddress> result2 = resolve(resolver, "host", 80);
+        assertEquals(address("host", 2), result2.get(0).getAddress());
+        assertEquals(1, resolver.getMisses());
+        assertEquals(2, resolver.getHits());
+    }
+
+    @Test
+    public void testCachingResolverKeepsAddressesWhenRefreshFails() throws Exception
+    {
+        dns.put("host", new InetAddress[]{address("host", 1)});
+        SocketAddressResolver.Caching resolver = newCachingResolver(5000);
+        long ttl = 1000;
+        resolver.setTimeToLive(ttl);
+
+        resolve(resolver, "host", 80);
+        dns.remove("host");
+
+        Thread.sleep(ttl * 4 / 5);
+        resolve(resolver, "host", 80);
+        await(() -> resolver.getFailures() == 1);
+
+        // The refresh failed, but the cached addresses are still valid.
+        List<InetSocketAddress> result = resolve(resolver, "host", 80);
+        assertEquals(address("host", 1), result.get(0).getAddress());
+    }
+
+    @Test
+    public void testCachingResolverCoalescesConcurrentLookups() throws Exception
+    {
+        CountDownLatch lookupLatch = new CountDownLatch(1);
+        InetAddress address = address("host", 1);
+        SocketAddressResolver.Caching resolver = new SocketAddressResolver.Caching(executor, scheduler, 5000, host ->
+        {
+            lookups.incrementAndGet();
+            try
+            {
+                lookupLatch.await(5, TimeUnit.SECONDS);
+                return new InetAddress[]{address};
+            }
+            catch (InterruptedException x)
+            {
+                throw new UnknownHostException(host);
+            }
+        });
+
+        int count = 10;
+        CountDownLatch resolveLatch = new CountDownLatch(count);
+        for (int i = 0; i < count; ++i)
+        {
+            resolver.resolve("host", 80, Promise.from(result ->
+            {
+                if (address.equals(result.get(0).getAddress()))
+                    resolveLatch.countDown();
+            }, x -> {}));
+        }
+        lookupLatch.countDown();
+
+        assertTrue(resolveLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testCachingResolverTimeout() throws Exception
+    {
+        CountDownLatch lookupLatch = new CountDownLatch(1);
+        SocketAddressResolver.Caching resolver = new SocketAddressResolver.Caching(executor, scheduler, 500, host ->
+        {
+            lookups.incrementAndGet();
+            try
+            {
+                lookupLatch.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ignored)
+            {
+            }
+            return new InetAddress[]{address(host, 1)};
+        });
+
+        TimeoutException failure = assertThrows(TimeoutException.class, () -> resolve(resolver, "slow", 80));
+        assertThat(failure.getMessage(), containsString("DNS timeout"));
+        lookupLatch.countDown();
+
+        // The timed out host can be resolved again.
+        List<InetSocketAddress> result = resolve(resolver, "slow", 80);
+        assertEquals(address("slow", 1), result.get(0).getAddress());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() > end)
+                throw new AssertionError("Condition not met");
+            Thread.sleep(10);
+        }
+    }
+}
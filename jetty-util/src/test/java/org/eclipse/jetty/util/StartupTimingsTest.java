@@ -0,0 +1,110 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class StartupTimingsTest
+{
+    @AfterEach
+    public void reset()
+    {
+        StartupTimings.setEnabled(false);
+        StartupTimings.clear();
+    }
+
+    @Test
+    public void testDisabledRecordsNothing()
+    {
+        StartupTimings.setEnabled(false);
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.XML_CONFIGURATION, "jetty.xml"))
+        {
+            assertThat(ignored.getPhase(), is((String)null));
+        }
+        assertThat(StartupTimings.getTimings(), is(empty()));
+    }
+
+    @Test
+    public void testPhaseTotals() throws Exception
+    {
+        StartupTimings.setEnabled(true);
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.XML_CONFIGURATION, "jetty.xml"))
+        {
+            Thread.sleep(10);
+        }
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.XML_CONFIGURATION, "jetty-http.xml"))
+        {
+            Thread.sleep(10);
+        }
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.SERVLET_INIT, "/context"))
+        {
+            Thread.sleep(10);
+        }
+
+        assertThat(StartupTimings.getTimings().size(), is(3));
+        Map<String, Long> totals = StartupTimings.getPhaseTotals();
+        assertThat(totals.keySet(), contains(StartupTimings.XML_CONFIGURATION, StartupTimings.SERVLET_INIT));
+        assertThat(totals.get(StartupTimings.XML_CONFIGURATION), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20)));
+
+        // Should not throw.
+        StartupTimings.report();
+        // The reported timings are not retained.
+        assertThat(StartupTimings.getTimings(), is(empty()));
+    }
+
+    @Test
+    public void testTargetIsNotRetained()
+    {
+        StartupTimings.setEnabled(true);
+        Object target = new Object()
+        {
+            @Override
+            public String toString()
+            {
+                return "/context";
+            }
+        };
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.WEBAPP_CONFIGURE, target))
+        {
+            assertThat(ignored.getTarget(), is("/context"));
+        }
+        assertThat(StartupTimings.getTimings().get(0).getTarget(), is("/context"));
+    }
+
+    @Test
+    public void testTimingsAreBounded()
+    {
+        StartupTimings.setEnabled(true);
+        for (int i = 0; i < StartupTimings.MAX_TIMINGS + 10; ++i)
+        {
+            try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.DEPLOY, "/context" + i))
+            {
+                assertThat(ignored.getPhase(), is(StartupTimings.DEPLOY));
+            }
+        }
+        assertThat(StartupTimings.getTimings().size(), is(StartupTimings.MAX_TIMINGS));
+        // The oldest timings are dropped.
+        assertThat(StartupTimings.getTimings().get(0).getTarget(), is("/context10"));
+    }
+}
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.util;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -30,6 +31,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
@@ -278,6 +280,43 @@ public class Utf8AppendableTest
         assertThat("Seq3", ret3, is("\uC3A4\uC3BC\uC3A0\uC3A1-UTF-8!!"));
     }
 
+    @ParameterizedTest
+    @MethodSource("implementations")
+    public void testLongAsciiRuns(Class<Utf8Appendable> impl) throws Exception
+    {
+        String source = "0123456789abcdef\u00e8ABCDEFGHIJKLMNOPQRSTUVWXYZ\u20ac\ud83d\ude00xyz_0123456789";
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+
+        Utf8Appendable array = impl.getDeclaredConstructor().newInstance();
+        array.append(bytes, 0, bytes.length);
+        assertEquals(source, array.toString());
+
+        Utf8Appendable heap = impl.getDeclaredConstructor().newInstance();
+        ByteBuffer heapBuffer = ByteBuffer.wrap(bytes);
+        heap.append(heapBuffer);
+        assertEquals(source, heap.toString());
+        assertFalse(heapBuffer.hasRemaining());
+
+        Utf8Appendable direct = impl.getDeclaredConstructor().newInstance();
+        ByteBuffer directBuffer = BufferUtil.toDirectBuffer(source, StandardCharsets.UTF_8);
+        direct.append(directBuffer);
+        assertEquals(source, direct.toString());
+        assertFalse(directBuffer.hasRemaining());
+    }
+
+    @ParameterizedTest
+    @MethodSource("implementations")
+    public void testInvalidAfterLongAsciiRun(Class<Utf8Appendable> impl) throws Exception
+    {
+        byte[] bytes = TypeUtil.fromHexString("303132333435363738396162636465666768C0AF7A");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Utf8Appendable utf8 = impl.getDeclaredConstructor().newInstance();
+        assertThrows(NotUtf8Exception.class, () -> utf8.append(buffer));
+        // The position is after the byte that failed the validation.
+        assertThat(buffer.position(), is(19));
+        assertThat(utf8.getPartialString(), is("0123456789abcdefgh\ufffd"));
+    }
+
     @TestFactory
     public Iterator<DynamicTest> testBadUtf8()
     {
@@ -0,0 +1,72 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testBuckets()
+    {
+        HistogramStatistic histogram = new HistogramStatistic(4);
+        assertEquals(0, histogram.getUpperBound(0));
+        assertEquals(1, histogram.getUpperBound(1));
+        assertEquals(3, histogram.getUpperBound(2));
+        assertEquals(Long.MAX_VALUE, histogram.getUpperBound(3));
+
+        for (long sample : new long[]{0, 1, 2, 3, 4, 1000})
+        {
+            histogram.record(sample);
+        }
+
+        assertEquals(1, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(2, histogram.getCount(2));
+        assertEquals(2, histogram.getCount(3));
+        assertEquals(6, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1010, histogram.getTotal());
+        assertThat(histogram.toMap(), is(Map.of("<=0", 1L, "<=1", 1L, "<=3", 2L, "+Inf", 2L)));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testPercentile()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        for (int i = 1; i <= 100; ++i)
+        {
+            histogram.record(i);
+        }
+
+        // 50 is counted in the [32, 63] bucket.
+        assertEquals(63, histogram.getPercentile(50));
+        // 99 and 100 are counted in the [64, 127] bucket, capped to the max sample.
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+}
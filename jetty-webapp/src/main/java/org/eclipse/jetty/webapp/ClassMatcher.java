@@ -771,8 +771,8 @@ public class ClassMatcher extends AbstractSet<String>
         if (Boolean.FALSE == byName)
             return false;
 
-        // check the location set
-        URI uri = location.get();
+        // check the location set, avoiding the cost of computing the location if there are no locations
+        URI uri = locations.isEmpty() ? null : location.get();
         Boolean byLocation = uri == null ? null : locations.isIncludedAndNotExcluded(uri);
 
         // If we excluded by location or couldn't check location exclusion, then no match
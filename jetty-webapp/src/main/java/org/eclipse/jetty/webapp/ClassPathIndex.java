@@ -0,0 +1,181 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>An index of the directories (packages) contained in the entries of a class path.</p>
+ * <p>The index is used by {@link WebAppClassLoader} to avoid probing every jar of
+ * {@code WEB-INF/lib} for classes and resources that are not in the webapp (typically
+ * JVM and server classes that are loaded by the parent class loader), as the
+ * probe of a {@link java.net.URLClassLoader} is linear in the number of jars.</p>
+ * <p>The index is a snapshot of the class path entries when they are added; if an
+ * entry cannot be indexed (for example it is not a local file, or a jar manifest has
+ * a {@code Class-Path} attribute), then the index is marked as incomplete and is not used
+ * to exclude lookups.</p>
+ */
+class ClassPathIndex
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ClassPathIndex.class);
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private final Set<String> _directories = ConcurrentHashMap.newKeySet();
+    private volatile boolean _complete = true;
+
+    ClassPathIndex()
+    {
+        _directories.add("");
+    }
+
+    /**
+     * @return whether all the entries of the class path could be indexed
+     */
+    boolean isComplete()
+    {
+        return _complete;
+    }
+
+    /**
+     * @return the number of indexed directories
+     */
+    int size()
+    {
+        return _directories.size();
+    }
+
+    /**
+     * Indexes a class path entry, either a jar file or a directory.
+     *
+     * @param url the class path entry
+     */
+    void add(URL url)
+    {
+        try
+        {
+            if (!"file".equalsIgnoreCase(url.getProtocol()))
+            {
+                incomplete(url, null);
+                return;
+            }
+
+            Path path = Paths.get(url.toURI());
+            if (Files.isDirectory(path))
+                addDirectory(path);
+            else if (Files.isRegularFile(path))
+                addJar(path);
+            else
+                incomplete(url, null);
+        }
+        catch (IOException | URISyntaxException | IllegalArgumentException x)
+        {
+            incomplete(url, x);
+        }
+    }
+
+    private void addDirectory(Path root) throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(root))
+        {
+            paths.filter(Files::isDirectory)
+                .filter(p -> !p.equals(root))
+                .forEach(p -> addParents(root.relativize(p).toString().replace('\\', '/') + "/"));
+        }
+    }
+
+    private void addJar(Path path) throws IOException
+    {
+        try (JarFile jar = new JarFile(path.toFile()))
+        {
+            Manifest manifest = jar.getManifest();
+            if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null)
+            {
+                // The URLClassLoader will also search the jars referenced by the manifest.
+                incomplete(path.toUri().toURL(), null);
+            }
+
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements())
+            {
+                String name = entries.nextElement().getName();
+                addParents(name);
+                // Multi-release jars may provide classes only in a versioned directory.
+                if (name.startsWith(VERSIONS))
+                {
+                    int slash = name.indexOf('/', VERSIONS.length());
+                    if (slash > 0)
+                        addParents(name.substring(slash + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the directory of the given entry name and all its parent directories.
+     *
+     * @param name the entry name, such as {@code org/example/Foo.class} or {@code org/example/}
+     */
+    private void addParents(String name)
+    {
+        int slash = name.lastIndexOf('/');
+        while (slash > 0)
+        {
+            String directory = name.substring(0, slash + 1);
+            if (!_directories.add(directory))
+                break;
+            slash = name.lastIndexOf('/', slash - 1);
+        }
+    }
+
+    private void incomplete(URL url, Throwable cause)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Cannot index {}", url, cause);
+        _complete = false;
+    }
+
+    /**
+     * @param name the name of a resource, such as {@code org/example/Foo.class}
+     * @return false if the resource is certainly not in the class path, true if it may be
+     */
+    boolean mayContain(String name)
+    {
+        if (!_complete || name.startsWith("/"))
+            return true;
+        int slash = name.lastIndexOf('/');
+        return _directories.contains(slash < 0 ? "" : name.substring(0, slash + 1));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{complete=%b,directories=%d}", getClass().getSimpleName(), hashCode(), _complete, _directories.size());
+    }
+}
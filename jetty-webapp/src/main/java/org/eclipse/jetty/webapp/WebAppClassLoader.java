@@ -77,6 +77,7 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
     private final Set<String> _extensions = new HashSet<String>();
     private String _name = String.valueOf(hashCode());
     private final List<ClassFileTransformer> _transformers = new CopyOnWriteArrayList<>();
+    private volatile ClassPathIndex _index;
 
     /**
      * The Context in which the classloader operates.
@@ -217,6 +218,76 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
         return _context;
     }
 
+    /**
+     * @return whether the class path entries are indexed by package
+     * @see #setIndexed(boolean)
+     */
+    public boolean isIndexed()
+    {
+        return _index != null;
+    }
+
+    /**
+     * <p>Sets whether the class path entries are indexed by package.</p>
+     * <p>When indexed, lookups of classes and resources in packages that are not
+     * contained in any class path entry fail fast, rather than probing each of the
+     * entries in turn. Entries added after the index is enabled are indexed
+     * incrementally as they are added.</p>
+     *
+     * @param indexed whether to index the class path entries
+     */
+    public void setIndexed(boolean indexed)
+    {
+        if (indexed == isIndexed())
+            return;
+        if (indexed)
+        {
+            ClassPathIndex index = new ClassPathIndex();
+            for (URL url : getURLs())
+            {
+                index.add(url);
+            }
+            _index = index;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Indexed {} {}", this, index);
+        }
+        else
+        {
+            _index = null;
+        }
+    }
+
+    @Override
+    protected void addURL(URL url)
+    {
+        ClassPathIndex index = _index;
+        if (index != null)
+            index.add(url);
+        super.addURL(url);
+    }
+
+    private boolean mayContain(String name)
+    {
+        ClassPathIndex index = _index;
+        return index == null || index.mayContain(name);
+    }
+
+    @Override
+    public URL findResource(String name)
+    {
+        if (!mayContain(name))
+            return null;
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException
+    {
+        if (!mayContain(name))
+            return Collections.emptyEnumeration();
+        return super.findResources(name);
+    }
+
     /**
      * @param resource Comma or semicolon separated path of filenames or URLs
      * pointing to directories or jar files. Directories should end
@@ -576,6 +647,9 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
     @Override
     protected Class<?> findClass(final String name) throws ClassNotFoundException
     {
+        if (!mayContain(TypeUtil.toClassReference(name)))
+            throw new ClassNotFoundException(name);
+
         if (_transformers.isEmpty())
         {
             return super.findClass(name);
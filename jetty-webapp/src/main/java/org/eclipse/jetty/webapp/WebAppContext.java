@@ -57,6 +57,7 @@ import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHandler;
 import org.eclipse.jetty.util.AttributesMap;
 import org.eclipse.jetty.util.MultiException;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.TopologicalSort;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -191,6 +192,7 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
     private boolean _copyWebInf = false;
     private boolean _logUrlOnStart = false;
     private boolean _parentLoaderPriority = Boolean.getBoolean("org.eclipse.jetty.server.webapp.parentLoaderPriority");
+    private boolean _indexClassPath = Boolean.getBoolean("org.eclipse.jetty.server.webapp.indexClassPath");
     private PermissionCollection _permissions;
 
     private String[] _contextWhiteList = null;
@@ -490,6 +492,7 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
         if (getClassLoader() == null)
         {
             WebAppClassLoader classLoader = new WebAppClassLoader(this);
+            classLoader.setIndexed(isIndexClassPath());
             setClassLoader(classLoader);
             _ownClassLoader = true;
         }
@@ -528,7 +531,10 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
             Boolean validate = (Boolean)getAttribute(MetaData.VALIDATE_XML);
             _metadata.setValidateXml((validate != null && validate));
             wrapConfigurations();
-            preConfigure();
+            try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.WEBAPP_PRECONFIGURE, this))
+            {
+                preConfigure();
+            }
             super.doStart();
             postConfigure();
 
@@ -873,6 +879,19 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
         return _parentLoaderPriority;
     }
 
+    /**
+     * @return True if the class path of the {@link WebAppClassLoader} created by this context
+     * is indexed by package, so that lookups of classes and resources not in the webapp fail fast.
+     * Default is false or can be set by the system property
+     * org.eclipse.jetty.server.webapp.indexClassPath
+     * @see WebAppClassLoader#setIndexed(boolean)
+     */
+    @ManagedAttribute(value = "webapp classpath indexed by package", readonly = true)
+    public boolean isIndexClassPath()
+    {
+        return _indexClassPath;
+    }
+
     protected void loadConfigurations()
     {
         //if the configuration instances have been set explicitly, use them
@@ -1125,6 +1144,16 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
         _parentLoaderPriority = java2compliant;
     }
 
+    /**
+     * @param indexClassPath True if the class path of the {@link WebAppClassLoader} created by
+     * this context should be indexed by package.
+     * @see WebAppClassLoader#setIndexed(boolean)
+     */
+    public void setIndexClassPath(boolean indexClassPath)
+    {
+        _indexClassPath = indexClassPath;
+    }
+
     /**
      * @param permissions The permissions to set.
      */
@@ -1297,7 +1326,12 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
     protected void startContext()
         throws Exception
     {
-        if (configure())
+        boolean configured;
+        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.WEBAPP_CONFIGURE, this))
+        {
+            configured = configure();
+        }
+        if (configured)
         {
             //resolve the metadata
             _metadata.resolve(this);
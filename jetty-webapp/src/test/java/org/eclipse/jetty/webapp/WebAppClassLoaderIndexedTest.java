@@ -0,0 +1,80 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.nio.file.Path;
+
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs all the {@link WebAppClassLoaderTest} tests with an indexed class path.
+ */
+public class WebAppClassLoaderIndexedTest extends WebAppClassLoaderTest
+{
+    @BeforeEach
+    @Override
+    public void init() throws Exception
+    {
+        super.init();
+        _loader.setIndexed(true);
+    }
+
+    @Test
+    public void testIndexedMisses() throws Exception
+    {
+        assertTrue(_loader.isIndexed());
+        assertThat(_loader.findResource("org/acme/webapp/ClassInJarA.class"), notNullValue());
+        assertThat(_loader.findResource("org/acme/nowhere/Missing.class"), nullValue());
+        assertFalse(_loader.findResources("java/lang/Object.class").hasMoreElements());
+        assertThrows(ClassNotFoundException.class, () -> _loader.findClass("com.example.Missing"));
+    }
+
+    @Test
+    public void testIndexDirectory() throws Exception
+    {
+        Path classes = MavenTestingUtils.getProjectDirPath("src/test/webapp/WEB-INF/classes");
+        ClassPathIndex index = new ClassPathIndex();
+        index.add(classes.toUri().toURL());
+        assertThat(index.isComplete(), is(true));
+        assertTrue(index.mayContain("org/acme/other/ClassInClassesC.class"));
+        assertTrue(index.mayContain("org/acme/resource.txt"));
+        assertTrue(index.mayContain("root.txt"));
+        assertFalse(index.mayContain("org/acme/webapp/ClassInJarA.class"));
+    }
+
+    @Test
+    public void testIndexedIncrementally() throws Exception
+    {
+        WebAppClassLoader loader = new WebAppClassLoader(new WebAppContext());
+        loader.setIndexed(true);
+        assertThat(loader.findResource("org/acme/webapp/ClassInJarA.class"), nullValue());
+        loader.addJars(new PathResource(MavenTestingUtils.getProjectDirPath("src/test/webapp/WEB-INF/lib")));
+        assertThat(loader.findResource("org/acme/webapp/ClassInJarA.class"), notNullValue());
+
+        loader.setIndexed(false);
+        assertFalse(loader.isIndexed());
+        assertThat(loader.findResource("org/acme/webapp/ClassInJarA.class"), notNullValue());
+    }
+}
@@ -91,6 +91,60 @@ public interface Configuration
      */
     void setMaxOutgoingFrames(int maxOutgoingFrames);
 
+    /**
+     * Get the maximum number of payload bytes of data frames allowed to be waiting to be sent at any one time.
+     * The default value is -1, this indicates there is no limit on how many bytes can be
+     * queued to be sent by the implementation. A single frame larger than the limit is always
+     * allowed when no other frame is waiting to be sent.
+     * This default implementation returns -1.
+     *
+     * @return the max number of bytes.
+     */
+    default long getMaxOutgoingBytes()
+    {
+        return WebSocketConstants.DEFAULT_MAX_OUTGOING_BYTES;
+    }
+
+    /**
+     * Set the maximum number of payload bytes of data frames allowed to be waiting to be sent at any one time.
+     * The default value is -1, this indicates there is no limit on how many bytes can be
+     * queued to be sent by the implementation.
+     * This default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param maxOutgoingBytes the max number of bytes.
+     * @throws UnsupportedOperationException if this configuration does not support the limit
+     */
+    default void setMaxOutgoingBytes(long maxOutgoingBytes)
+    {
+        throw new UnsupportedOperationException("setMaxOutgoingBytes");
+    }
+
+    /**
+     * Get the policy applied when the {@link #getMaxOutgoingFrames() max outgoing frames}
+     * or {@link #getMaxOutgoingBytes() max outgoing bytes} limit is exceeded.
+     * This default implementation returns {@link OutgoingQueuePolicy#FAIL}.
+     *
+     * @return the outgoing queue policy.
+     */
+    default OutgoingQueuePolicy getOutgoingQueuePolicy()
+    {
+        return WebSocketConstants.DEFAULT_OUTGOING_QUEUE_POLICY;
+    }
+
+    /**
+     * Set the policy applied when the {@link #getMaxOutgoingFrames() max outgoing frames}
+     * or {@link #getMaxOutgoingBytes() max outgoing bytes} limit is exceeded.
+     * The default value is {@link OutgoingQueuePolicy#FAIL}.
+     * This default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param policy the outgoing queue policy.
+     * @throws UnsupportedOperationException if this configuration does not support the policy
+     */
+    default void setOutgoingQueuePolicy(OutgoingQueuePolicy policy)
+    {
+        throw new UnsupportedOperationException("setOutgoingQueuePolicy");
+    }
+
     interface Customizer
     {
         void customize(Configuration configurable);
@@ -107,6 +161,8 @@ public interface Configuration
         private Long maxBinaryMessageSize;
         private Long maxTextMessageSize;
         private Integer maxOutgoingFrames;
+        private Long maxOutgoingBytes;
+        private OutgoingQueuePolicy outgoingQueuePolicy;
 
         @Override
         public Duration getIdleTimeout()
@@ -216,6 +272,30 @@ public interface Configuration
             this.maxOutgoingFrames = maxOutgoingFrames;
         }
 
+        @Override
+        public long getMaxOutgoingBytes()
+        {
+            return maxOutgoingBytes == null ? WebSocketConstants.DEFAULT_MAX_OUTGOING_BYTES : maxOutgoingBytes;
+        }
+
+        @Override
+        public void setMaxOutgoingBytes(long maxOutgoingBytes)
+        {
+            this.maxOutgoingBytes = maxOutgoingBytes;
+        }
+
+        @Override
+        public OutgoingQueuePolicy getOutgoingQueuePolicy()
+        {
+            return outgoingQueuePolicy == null ? WebSocketConstants.DEFAULT_OUTGOING_QUEUE_POLICY : outgoingQueuePolicy;
+        }
+
+        @Override
+        public void setOutgoingQueuePolicy(OutgoingQueuePolicy policy)
+        {
+            this.outgoingQueuePolicy = policy;
+        }
+
         @Override
         public void customize(Configuration configurable)
         {
@@ -237,16 +317,21 @@ public interface Configuration
                 configurable.setMaxTextMessageSize(maxTextMessageSize);
             if (maxOutgoingFrames != null)
                 configurable.setMaxOutgoingFrames(maxOutgoingFrames);
+            if (maxOutgoingBytes != null)
+                configurable.setMaxOutgoingBytes(maxOutgoingBytes);
+            if (outgoingQueuePolicy != null)
+                configurable.setOutgoingQueuePolicy(outgoingQueuePolicy);
         }
 
         @Override
         public String toString()
         {
             return String.format("%s@%x{idleTimeout=%s, writeTimeout=%s, autoFragment=%s, maxFrameSize=%s, " +
-                    "inputBufferSize=%s, outputBufferSize=%s, maxBinaryMessageSize=%s, maxTextMessageSize=%s, maxOutgoingFrames=%s}",
+                    "inputBufferSize=%s, outputBufferSize=%s, maxBinaryMessageSize=%s, maxTextMessageSize=%s, maxOutgoingFrames=%s, " +
+                    "maxOutgoingBytes=%s, outgoingQueuePolicy=%s}",
                 getClass().getSimpleName(), hashCode(),
                 idleTimeout, writeTimeout, autoFragment, maxFrameSize, inputBufferSize, outputBufferSize,
-                maxBinaryMessageSize, maxTextMessageSize, maxOutgoingFrames);
+                maxBinaryMessageSize, maxTextMessageSize, maxOutgoingFrames, maxOutgoingBytes, outgoingQueuePolicy);
         }
     }
 }
@@ -84,4 +84,11 @@ public interface Extension extends IncomingFrames, OutgoingFrames
      * @param coreSession the {@link CoreSession} for this Extension.
      */
     void setCoreSession(CoreSession coreSession);
+
+    /**
+     * Releases the resources held by this Extension, called once the connection has been closed.
+     */
+    default void close()
+    {
+    }
 }
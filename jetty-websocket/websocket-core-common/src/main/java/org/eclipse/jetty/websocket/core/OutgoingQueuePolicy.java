@@ -0,0 +1,44 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core;
+
+/**
+ * <p>The policy applied when a data frame is sent while the outgoing queue of a session
+ * is already at its {@link Configuration#getMaxOutgoingFrames() max frames} or
+ * {@link Configuration#getMaxOutgoingBytes() max bytes} limit.</p>
+ */
+public enum OutgoingQueuePolicy
+{
+    /**
+     * The frame being sent is failed with a {@link java.nio.channels.WritePendingException}.
+     */
+    FAIL,
+
+    /**
+     * The oldest whole messages that are still queued, and not yet being processed by the extensions or written,
+     * are failed with a {@link java.nio.channels.WritePendingException} to make room for the frame being sent.
+     * Fragments of a message are never dropped, so if not enough room can be made then the frame being sent
+     * is failed like {@link #FAIL}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The thread sending the frame blocks until the queue drains below its limits, or until the
+     * {@link Configuration#getWriteTimeout() write timeout} expires, in which case the frame is failed like {@link #FAIL}.
+     * Without a write timeout the wait is bounded by the {@link Configuration#getIdleTimeout() idle timeout}, and
+     * without either timeout this policy behaves like {@link #FAIL}, as the thread could otherwise block forever.
+     * Threads that must not block, such as selector threads, are never blocked and behave like {@link #FAIL}.
+     */
+    BLOCK
+}
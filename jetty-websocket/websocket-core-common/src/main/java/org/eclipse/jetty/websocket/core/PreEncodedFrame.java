@@ -0,0 +1,154 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.websocket.core.internal.Generator;
+
+/**
+ * <p>A read-only, whole message, data frame that is encoded once and can be sent
+ * to many sessions with {@link CoreSession#sendFrame(Frame, org.eclipse.jetty.util.Callback, boolean)}.</p>
+ * <p>The frame header and payload are generated once into a retained buffer that is shared
+ * by the server sessions that have not negotiated extensions transforming the payload; for
+ * these sessions the frame bypasses the generation (and the extensions) and the buffer is
+ * written directly to the network.</p>
+ * <p>Optionally, the payload can also be compressed once with {@code permessage-deflate},
+ * so that it can be shared by the sessions that negotiated {@code server_no_context_takeover},
+ * where every message is compressed independently.</p>
+ * <p>Other sessions, and client sessions whose frames must be masked, send the frame as
+ * they would send any other frame.</p>
+ */
+public class PreEncodedFrame extends Frame.ReadOnly
+{
+    private static final byte[] TAIL_BYTES = new byte[]{0x00, 0x00, (byte)0xFF, (byte)0xFF};
+
+    private final Encoded encoded;
+    private final Encoded deflated;
+
+    /**
+     * @param opCode the {@link OpCode#TEXT} or {@link OpCode#BINARY} opcode
+     * @param payload the whole message payload
+     */
+    public PreEncodedFrame(byte opCode, ByteBuffer payload)
+    {
+        this(opCode, payload, false);
+    }
+
+    /**
+     * @param opCode the {@link OpCode#TEXT} or {@link OpCode#BINARY} opcode
+     * @param payload the whole message payload
+     * @param deflate whether to also compress the payload for sessions with {@code server_no_context_takeover}
+     */
+    public PreEncodedFrame(byte opCode, ByteBuffer payload, boolean deflate)
+    {
+        super(new Frame(opCode, true, BufferUtil.toBuffer(BufferUtil.toArray(payload))));
+        if (!OpCode.isDataFrame(opCode) || opCode == OpCode.CONTINUATION)
+            throw new IllegalArgumentException("Not a message opcode: " + OpCode.name(opCode));
+        encoded = new Encoded(new Frame(finRsvOp, null, this.payload));
+        deflated = deflate ? new Encoded(deflate(this)) : null;
+    }
+
+    /**
+     * @param opCode the {@link OpCode#TEXT} or {@link OpCode#BINARY} opcode
+     * @param payload the whole message payload
+     */
+    public PreEncodedFrame(byte opCode, String payload)
+    {
+        this(opCode, BufferUtil.toBuffer(payload), false);
+    }
+
+    /**
+     * @return the frame encoded without extensions
+     */
+    public Encoded getEncoded()
+    {
+        return encoded;
+    }
+
+    /**
+     * @return the frame encoded with a {@code permessage-deflate} compressed payload, or null if not compressed
+     */
+    public Encoded getDeflated()
+    {
+        return deflated;
+    }
+
+    private static Frame deflate(Frame frame)
+    {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try
+        {
+            deflater.setInput(frame.getPayload());
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(16, frame.getPayloadLength() / 2));
+            byte[] chunk = new byte[4096];
+            while (true)
+            {
+                int compressed = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                output.write(chunk, 0, compressed);
+                if (compressed < chunk.length)
+                    break;
+            }
+
+            // Drop the tail bytes generated by SYNC_FLUSH, see RFC 7692 section 7.2.1.
+            byte[] bytes = output.toByteArray();
+            int length = bytes.length;
+            if (length >= TAIL_BYTES.length && bytes[length - 4] == 0 && bytes[length - 3] == 0 && bytes[length - 2] == (byte)0xFF && bytes[length - 1] == (byte)0xFF)
+                length -= TAIL_BYTES.length;
+            // An empty payload is sent as a single 0x00 byte, see RFC 7692 section 7.2.3.6.
+            ByteBuffer payload = length == 0 ? ByteBuffer.wrap(new byte[]{0x00}) : ByteBuffer.wrap(bytes, 0, length);
+
+            Frame compressed = new Frame(frame.getOpCode(), true, payload);
+            compressed.setRsv1(true);
+            return compressed;
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s{%s,deflated=%s}", getClass().getSimpleName(), super.toString(), deflated != null);
+    }
+
+    /**
+     * <p>A frame whose header and payload bytes are already generated.</p>
+     */
+    public static class Encoded extends Frame.ReadOnly
+    {
+        private final ByteBuffer bytes;
+
+        private Encoded(Frame frame)
+        {
+            super(frame);
+            ByteBuffer buffer = BufferUtil.allocateDirect(Generator.MAX_HEADER_LENGTH + frame.getPayloadLength());
+            new Generator().generateWholeFrame(frame, buffer);
+            bytes = buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * @return a new read-only view of the generated bytes, in flush mode
+         */
+        public ByteBuffer getBytes()
+        {
+            return bytes.slice();
+        }
+    }
+}
@@ -14,21 +14,28 @@
 package org.eclipse.jetty.websocket.core;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.Deflater;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.util.DecoratedObjectFactory;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 /**
  * A collection of components which are the resources needed for websockets such as
  * {@link ByteBufferPool}, {@link WebSocketExtensionRegistry}, and {@link DecoratedObjectFactory}.
  */
+@ManagedObject("WebSocket components")
 public class WebSocketComponents extends ContainerLifeCycle
 {
     private final DecoratedObjectFactory _objectFactory;
@@ -37,6 +44,15 @@ public class WebSocketComponents extends ContainerLifeCycle
     private final ByteBufferPool _bufferPool;
     private final InflaterPool _inflaterPool;
     private final DeflaterPool _deflaterPool;
+    private final AtomicLong _compressionMemory = new AtomicLong();
+    private long _maxCompressionMemory = -1;
+    private final LongAdder _outgoingFrames = new LongAdder();
+    private final LongAdder _outgoingBytes = new LongAdder();
+    private final LongAdder _rejectedOutgoingFrames = new LongAdder();
+    private final LongAdder _droppedOutgoingFrames = new LongAdder();
+    private final HistogramStatistic _outgoingQueueDepth = new HistogramStatistic();
+    private final HistogramStatistic _writeLatency = new HistogramStatistic();
+    private volatile boolean _statisticsEnabled;
 
     public WebSocketComponents()
     {
@@ -106,4 +122,203 @@ public class WebSocketComponents extends ContainerLifeCycle
     {
         return _deflaterPool;
     }
+
+    /**
+     * @return the estimated native memory, in bytes, held by the compression extensions of all sessions
+     */
+    public long getCompressionMemory()
+    {
+        return _compressionMemory.get();
+    }
+
+    /**
+     * @return the max estimated native memory, in bytes, that compression extensions may hold, or -1 for no limit
+     */
+    public long getMaxCompressionMemory()
+    {
+        return _maxCompressionMemory;
+    }
+
+    /**
+     * <p>Sets the max estimated native memory, in bytes, that compression extensions may hold.</p>
+     * <p>When the budget is exhausted, outgoing messages are sent uncompressed rather than acquiring
+     * a new compressor; decompressors are always acquired as the remote peer chooses what to compress.</p>
+     *
+     * @param maxCompressionMemory the max compression memory, or -1 for no limit
+     */
+    public void setMaxCompressionMemory(long maxCompressionMemory)
+    {
+        _maxCompressionMemory = maxCompressionMemory;
+    }
+
+    /**
+     * @param bytes the estimated native memory to reserve
+     * @param force whether to reserve the memory even if it exceeds the {@link #getMaxCompressionMemory() budget}
+     * @return whether the memory was reserved
+     */
+    public boolean reserveCompressionMemory(long bytes, boolean force)
+    {
+        long max = _maxCompressionMemory;
+        if (force || max < 0)
+        {
+            _compressionMemory.addAndGet(bytes);
+            return true;
+        }
+
+        while (true)
+        {
+            long current = _compressionMemory.get();
+            long updated = current + bytes;
+            if (updated > max)
+                return false;
+            if (_compressionMemory.compareAndSet(current, updated))
+                return true;
+        }
+    }
+
+    /**
+     * @param bytes the estimated native memory previously reserved with {@link #reserveCompressionMemory(long, boolean)}
+     */
+    public void releaseCompressionMemory(long bytes)
+    {
+        _compressionMemory.addAndGet(-bytes);
+    }
+
+    /**
+     * @return whether the outgoing data frames of the sessions are counted and their write latency is measured
+     */
+    @ManagedAttribute("Whether outgoing statistics are enabled")
+    public boolean isStatisticsEnabled()
+    {
+        return _statisticsEnabled;
+    }
+
+    /**
+     * <p>Enables the outgoing statistics of the sessions: the number of data frames and bytes waiting
+     * to be sent, the outgoing queue depth and the write latency histograms.</p>
+     * <p>Statistics are disabled by default, as they add a per-frame overhead.</p>
+     *
+     * @param statisticsEnabled whether outgoing statistics are enabled
+     */
+    public void setStatisticsEnabled(boolean statisticsEnabled)
+    {
+        _statisticsEnabled = statisticsEnabled;
+    }
+
+    /**
+     * @return the number of data frames waiting to be sent by all sessions
+     * @see #isStatisticsEnabled()
+     */
+    @ManagedAttribute("The number of data frames waiting to be sent by all sessions")
+    public long getOutgoingFrames()
+    {
+        return _outgoingFrames.sum();
+    }
+
+    /**
+     * @return the number of payload bytes of the data frames waiting to be sent by all sessions
+     * @see #isStatisticsEnabled()
+     */
+    @ManagedAttribute("The number of data frame payload bytes waiting to be sent by all sessions")
+    public long getOutgoingBytes()
+    {
+        return _outgoingBytes.sum();
+    }
+
+    /**
+     * @return the number of data frames failed because an outgoing queue was full
+     * @see OutgoingQueuePolicy
+     */
+    @ManagedAttribute("The number of data frames failed because an outgoing queue was full")
+    public long getRejectedOutgoingFrames()
+    {
+        return _rejectedOutgoingFrames.sum();
+    }
+
+    /**
+     * @return the number of queued data frames dropped to make room for newer frames
+     * @see OutgoingQueuePolicy#DROP_OLDEST
+     */
+    @ManagedAttribute("The number of queued data frames dropped to make room for newer frames")
+    public long getDroppedOutgoingFrames()
+    {
+        return _droppedOutgoingFrames.sum();
+    }
+
+    /**
+     * @return the histogram of the number of data frames waiting to be sent by a session, sampled when a data frame is sent
+     */
+    public HistogramStatistic getOutgoingQueueDepth()
+    {
+        return _outgoingQueueDepth;
+    }
+
+    /**
+     * @return the histogram of the time, in microseconds, taken to write data frames
+     */
+    public HistogramStatistic getWriteLatency()
+    {
+        return _writeLatency;
+    }
+
+    @ManagedAttribute("The histogram of the outgoing queue depth, in frames")
+    public String getOutgoingQueueDepthHistogram()
+    {
+        return _outgoingQueueDepth.toMap().toString();
+    }
+
+    @ManagedAttribute("The histogram of the data frame write latency, in microseconds")
+    public String getWriteLatencyHistogram()
+    {
+        return _writeLatency.toMap().toString();
+    }
+
+    @ManagedAttribute("The 99th percentile of the data frame write latency, in microseconds")
+    public long getWriteLatencyP99()
+    {
+        return _writeLatency.getPercentile(99);
+    }
+
+    @ManagedOperation(value = "Resets the outgoing queue statistics", impact = "ACTION")
+    public void resetOutgoingStatistics()
+    {
+        _rejectedOutgoingFrames.reset();
+        _droppedOutgoingFrames.reset();
+        _outgoingQueueDepth.reset();
+        _writeLatency.reset();
+    }
+
+    /**
+     * @param bytes the payload bytes of the data frame being sent
+     * @param queueDepth the number of data frames waiting to be sent by the session, including this one
+     */
+    public void onOutgoingFrame(long bytes, long queueDepth)
+    {
+        _outgoingFrames.increment();
+        _outgoingBytes.add(bytes);
+        _outgoingQueueDepth.record(queueDepth);
+    }
+
+    /**
+     * @param bytes the payload bytes of the data frame previously passed to {@link #onOutgoingFrame(long, long)}
+     * @param latency the time, in microseconds, taken to write the frame, or -1 if the frame was failed
+     */
+    public void onOutgoingFrameComplete(long bytes, long latency)
+    {
+        _outgoingFrames.decrement();
+        _outgoingBytes.add(-bytes);
+        if (latency >= 0)
+            _writeLatency.record(latency);
+    }
+
+    /**
+     * @param dropped whether a queued data frame was dropped, rather than a new data frame rejected
+     */
+    public void onOutgoingFrameRejected(boolean dropped)
+    {
+        if (dropped)
+            _droppedOutgoingFrames.increment();
+        else
+            _rejectedOutgoingFrames.increment();
+    }
 }
@@ -104,6 +104,59 @@ public class ExtensionStack implements IncomingFrames, OutgoingFrames, Dumpable
         incoming.onFrame(frame, callback);
     }
 
+    private Extension newExtension(ExtensionConfig config, List<ExtensionConfig> offeredConfigs)
+    {
+        try
+        {
+            return components.getExtensionRegistry().newInstance(config, components);
+        }
+        catch (Throwable t)
+        {
+            /* If there was an error creating the extension we need to differentiate between a
+            bad ExtensionConfig offered by the client and a bad ExtensionConfig negotiated by the server.
+
+            When deciding whether to decline the offer or to throw a WebSocketException and send a 500
+            response, or to throw a BadMessageException, it depends on whether this is running on the
+            client or the server. */
+            String parameterizedName = config.getParameterizedName();
+            switch (behavior)
+            {
+                case SERVER:
+                {
+                    for (int i = 0; i < offeredConfigs.size(); ++i)
+                    {
+                        if (!offeredConfigs.get(i).getParameterizedName().equals(parameterizedName))
+                            continue;
+
+                        // The server declines an offer it cannot accept (RFC 7692, section 5),
+                        // and tries the next offer of the same extension, if any.
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Declining offered extension {}", config, t);
+                        for (int j = i + 1; j < offeredConfigs.size(); ++j)
+                        {
+                            ExtensionConfig alternative = offeredConfigs.get(j);
+                            if (alternative.getName().equals(config.getName()))
+                                return newExtension(new ExtensionConfig(alternative), offeredConfigs.subList(j, offeredConfigs.size()));
+                        }
+                        return null;
+                    }
+                    throw new WebSocketException("could not instantiate negotiated extension", t);
+                }
+                case CLIENT:
+                {
+                    for (ExtensionConfig offered : offeredConfigs)
+                    {
+                        if (offered.getParameterizedName().equals(parameterizedName))
+                            throw new WebSocketException("could not instantiate offered extension", t);
+                    }
+                    throw new BadMessageException("could not instantiate negotiated extension", t);
+                }
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
     /**
      * Perform the extension negotiation.
      * <p>
@@ -121,49 +174,10 @@ public class ExtensionStack implements IncomingFrames, OutgoingFrames, Dumpable
 
         for (ExtensionConfig config : negotiatedConfigs)
         {
-            Extension ext;
-
-            try
-            {
-                ext = components.getExtensionRegistry().newInstance(config, components);
-            }
-            catch (Throwable t)
-            {
-                /* If there was an error creating the extension we need to differentiate between a
-                bad ExtensionConfig offered by the client and a bad ExtensionConfig negotiated by the server.
-
-                When deciding whether to throw a BadMessageException and send a 400 response or a WebSocketException
-                and send a 500 response it depends on whether this is running on the client or the server. */
-                switch (behavior)
-                {
-                    case SERVER:
-                    {
-                        String parameterizedName = config.getParameterizedName();
-                        for (ExtensionConfig offered : offeredConfigs)
-                        {
-                            if (offered.getParameterizedName().equals(parameterizedName))
-                                throw new BadMessageException("could not instantiate offered extension", t);
-                        }
-                        throw new WebSocketException("could not instantiate negotiated extension", t);
-                    }
-                    case CLIENT:
-                    {
-                        String parameterizedName = config.getParameterizedName();
-                        for (ExtensionConfig offered : offeredConfigs)
-                        {
-                            if (offered.getParameterizedName().equals(parameterizedName))
-                                throw new WebSocketException("could not instantiate offered extension", t);
-                        }
-                        throw new BadMessageException("could not instantiate negotiated extension", t);
-                    }
-                    default:
-                        throw new IllegalStateException();
-                }
-            }
-
+            Extension ext = newExtension(config, offeredConfigs);
             if (ext == null)
             {
-                // Extension not present on this side
+                // Extension not present on this side, or offer declined.
                 continue;
             }
 
@@ -273,6 +287,27 @@ public class ExtensionStack implements IncomingFrames, OutgoingFrames, Dumpable
         this.lastDemand = lastDemand;
     }
 
+    /**
+     * Closes all the extensions in the stack, releasing the resources they hold.
+     */
+    public void close()
+    {
+        if (extensions == null)
+            return;
+
+        for (Extension extension : extensions)
+        {
+            try
+            {
+                extension.close();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failure closing extension {}", extension, x);
+            }
+        }
+    }
+
     public Extension getRsv1User()
     {
         return rsvClaims[0];
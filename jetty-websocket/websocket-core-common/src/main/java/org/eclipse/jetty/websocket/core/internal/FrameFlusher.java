@@ -35,6 +35,7 @@ import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.websocket.core.CloseStatus;
 import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.PreEncodedFrame;
 import org.eclipse.jetty.websocket.core.exception.WebSocketException;
 import org.eclipse.jetty.websocket.core.exception.WebSocketWriteTimeoutException;
 import org.slf4j.Logger;
@@ -241,6 +242,12 @@ public class FrameFlusher extends IteratingCallback
                     // Generate the frame into the batchBuffer.
                     generator.generateWholeFrame(entry.frame, batchBuffer);
                 }
+                else if (entry.frame instanceof PreEncodedFrame.Encoded)
+                {
+                    // The header and payload have already been generated, and are shared with other sessions.
+                    buffers.add(((PreEncodedFrame.Encoded)entry.frame).getBytes());
+                    flush = true;
+                }
                 else
                 {
                     if (batchBuffer != null && batchSpace >= Generator.MAX_HEADER_LENGTH)
@@ -343,7 +350,10 @@ public class FrameFlusher extends IteratingCallback
         return bufferPool.acquire(capacity, isUseDirectByteBuffers());
     }
 
-    private int getQueueSize()
+    /**
+     * @return the number of frames queued and not yet being written
+     */
+    public int getQueueSize()
     {
         try (AutoLock l = lock.lock())
         {
@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.websocket.core.internal;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,8 +25,10 @@ import java.util.zip.Inflater;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.websocket.core.AbstractExtension;
 import org.eclipse.jetty.websocket.core.ExtensionConfig;
 import org.eclipse.jetty.websocket.core.Frame;
@@ -41,9 +44,24 @@ import org.slf4j.LoggerFactory;
  * Per Message Deflate Compression extension for WebSocket.
  * <p>
  * Attempts to follow <a href="https://tools.ietf.org/html/rfc7692">Compression Extensions for WebSocket</a>
+ * <p>
+ * The {@link Deflater} and {@link Inflater} are only held while needed: they are returned to their pools
+ * at the end of each message when there is no context takeover, and when the connection is closed.
+ * Their estimated native memory is accounted against the {@link WebSocketComponents#getMaxCompressionMemory() budget}
+ * of the {@link WebSocketComponents}; when it is exhausted outgoing messages are sent uncompressed.
  */
-public class PerMessageDeflateExtension extends AbstractExtension implements DemandChain
+public class PerMessageDeflateExtension extends AbstractExtension implements DemandChain, Dumpable
 {
+    public static final int MAX_WINDOW_BITS = 15;
+    /**
+     * The estimated native memory of a zlib deflater with the default window bits and memory level.
+     */
+    public static final long DEFLATER_MEMORY = (1L << (MAX_WINDOW_BITS + 2)) + (1L << (8 + 9));
+    /**
+     * The estimated native memory of a zlib inflater with the default window bits.
+     */
+    public static final long INFLATER_MEMORY = (1L << MAX_WINDOW_BITS) + 7 * 1024;
+
     private static final byte[] TAIL_BYTES = new byte[]{0x00, 0x00, (byte)0xFF, (byte)0xFF};
     private static final ByteBuffer TAIL_BYTES_BUF = ByteBuffer.wrap(TAIL_BYTES);
     private static final Logger LOG = LoggerFactory.getLogger(PerMessageDeflateExtension.class);
@@ -51,6 +69,8 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
 
     private final OutgoingFlusher outgoingFlusher;
     private final IncomingFlusher incomingFlusher;
+    private final AutoLock lock = new AutoLock();
+    private WebSocketComponents components;
     private DeflaterPool.Entry deflaterHolder;
     private InflaterPool.Entry inflaterHolder;
     private boolean incomingCompressed;
@@ -61,6 +81,9 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
     private int inflateBufferSize = DEFAULT_BUF_SIZE;
     private boolean incomingContextTakeover = true;
     private boolean outgoingContextTakeover = true;
+    private int outgoingWindowBits = MAX_WINDOW_BITS;
+    private long uncompressedMessages;
+    private boolean closed;
 
     public PerMessageDeflateExtension()
     {
@@ -105,10 +128,20 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             switch (key)
             {
                 case "client_max_window_bits":
+                {
+                    // The Inflater always uses the max window size.
+                    // Don't negotiate this parameter
+                    break;
+                }
                 case "server_max_window_bits":
                 {
-                    // Not supported by Jetty
-                    // Don't negotiate these parameters
+                    // The Deflater cannot reduce its window size, but a full flush every
+                    // window of input guarantees that no back reference exceeds the window.
+                    int windowBits = config.getParameter(key, MAX_WINDOW_BITS);
+                    if (windowBits < 8 || windowBits > MAX_WINDOW_BITS)
+                        throw new IllegalArgumentException("Invalid server_max_window_bits " + windowBits);
+                    paramsNegotiated.put("server_max_window_bits", Integer.toString(windowBits));
+                    outgoingWindowBits = windowBits;
                     break;
                 }
                 case "client_no_context_takeover":
@@ -135,13 +168,14 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
                 }
                 default:
                 {
-                    throw new IllegalArgumentException();
+                    throw new IllegalArgumentException("Unknown parameter " + key);
                 }
             }
         }
 
         configNegotiated = new ExtensionConfig(config.getName(), paramsNegotiated);
-        LOG.debug("config: outgoingContextTakover={}, incomingContextTakeover={} : {}", outgoingContextTakeover, incomingContextTakeover, this);
+        this.components = components;
+        LOG.debug("config: outgoingContextTakover={}, incomingContextTakeover={}, outgoingWindowBits={} : {}", outgoingContextTakeover, incomingContextTakeover, outgoingWindowBits, this);
 
         super.init(configNegotiated, components);
     }
@@ -175,35 +209,135 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
         return true;
     }
 
+    /**
+     * @return whether the compression context is kept across outgoing messages,
+     * that is whether {@code server_no_context_takeover} (for servers) was not negotiated
+     */
+    public boolean isOutgoingContextTakeover()
+    {
+        return outgoingContextTakeover;
+    }
+
+    /**
+     * @return the max window bits of the outgoing messages, as negotiated by {@code server_max_window_bits} (for servers)
+     */
+    public int getOutgoingWindowBits()
+    {
+        return outgoingWindowBits;
+    }
+
+    /**
+     * @return the number of outgoing messages sent uncompressed because the compression memory budget was exhausted
+     */
+    public long getUncompressedMessages()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return uncompressedMessages;
+        }
+    }
+
+    /**
+     * @return the estimated native memory currently held by this extension
+     */
+    public long getCompressionMemory()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return (deflaterHolder == null ? 0 : DEFLATER_MEMORY) + (inflaterHolder == null ? 0 : INFLATER_MEMORY);
+        }
+    }
+
     public Deflater getDeflater()
     {
-        if (deflaterHolder == null)
-            deflaterHolder = getDeflaterPool().acquire();
-        return deflaterHolder.get();
+        try (AutoLock l = lock.lock())
+        {
+            if (deflaterHolder == null)
+                acquireDeflater(true);
+            return deflaterHolder.get();
+        }
     }
 
     public Inflater getInflater()
     {
-        if (inflaterHolder == null)
-            inflaterHolder = getInflaterPool().acquire();
-        return inflaterHolder.get();
+        try (AutoLock l = lock.lock())
+        {
+            if (inflaterHolder == null)
+            {
+                if (closed)
+                    throw new IllegalStateException("Closed");
+                components.reserveCompressionMemory(INFLATER_MEMORY, true);
+                inflaterHolder = getInflaterPool().acquire();
+            }
+            return inflaterHolder.get();
+        }
+    }
+
+    private boolean acquireDeflater(boolean force)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            if (deflaterHolder != null)
+                return true;
+            if (closed)
+                throw new IllegalStateException("Closed");
+            if (!components.reserveCompressionMemory(DEFLATER_MEMORY, force))
+            {
+                ++uncompressedMessages;
+                return false;
+            }
+            deflaterHolder = getDeflaterPool().acquire();
+            return true;
+        }
     }
 
     public void releaseInflater()
     {
-        if (inflaterHolder != null)
+        try (AutoLock l = lock.lock())
         {
-            inflaterHolder.release();
-            inflaterHolder = null;
+            if (inflaterHolder != null)
+            {
+                inflaterHolder.release();
+                inflaterHolder = null;
+                components.releaseCompressionMemory(INFLATER_MEMORY);
+            }
         }
     }
 
     public void releaseDeflater()
     {
-        if (deflaterHolder != null)
+        try (AutoLock l = lock.lock())
         {
-            deflaterHolder.release();
-            deflaterHolder = null;
+            if (deflaterHolder != null)
+            {
+                deflaterHolder.release();
+                deflaterHolder = null;
+                components.releaseCompressionMemory(DEFLATER_MEMORY);
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            closed = true;
+            releaseDeflater();
+            releaseInflater();
+        }
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        try (AutoLock l = lock.lock())
+        {
+            Dumpable.dumpObjects(out, indent, this,
+                "deflater=" + (deflaterHolder == null ? null : toDetail(deflaterHolder.get())),
+                "inflater=" + (inflaterHolder == null ? null : toDetail(inflaterHolder.get())),
+                "compressionMemory=" + getCompressionMemory(),
+                "uncompressedMessages=" + uncompressedMessages);
         }
     }
 
@@ -230,7 +364,8 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
     @Override
     protected void nextOutgoingFrame(Frame frame, Callback callback, boolean batch)
     {
-        if (frame.isFin() && !outgoingContextTakeover)
+        // With a reduced window a full flush ends each message, so there is no context to keep.
+        if (frame.isFin() && (!outgoingContextTakeover || outgoingWindowBits < MAX_WINDOW_BITS))
         {
             LOG.debug("Outgoing Context Reset");
             releaseDeflater();
@@ -253,7 +388,9 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
     private class OutgoingFlusher extends TransformingFlusher
     {
         private boolean _first;
+        private boolean _compress;
         private Frame _frame;
+        private ByteBuffer _input;
         private boolean _batch;
 
         @Override
@@ -265,16 +402,38 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
                 return true;
             }
 
+            // Send the whole message uncompressed if the memory budget is exhausted.
+            if (frame.getOpCode() != OpCode.CONTINUATION)
+                _compress = acquireDeflater(false);
+            if (!_compress)
+            {
+                nextOutgoingFrame(frame, callback, batch);
+                return true;
+            }
+
             _first = true;
             _frame = frame;
             _batch = batch;
 
             // Provide the frames payload as input to the Deflater.
-            getDeflater().setInput(frame.getPayload().slice());
+            _input = frame.getPayload().slice();
+            try (AutoLock l = lock.lock())
+            {
+                setInput(getDeflater());
+            }
             callback.succeeded();
             return false;
         }
 
+        private void setInput(Deflater deflater)
+        {
+            ByteBuffer input = _input.slice();
+            if (outgoingWindowBits < MAX_WINDOW_BITS)
+                input.limit(Math.min(input.limit(), 1 << outgoingWindowBits));
+            _input.position(_input.position() + input.remaining());
+            deflater.setInput(input);
+        }
+
         @Override
         protected boolean transform(Callback callback)
         {
@@ -293,28 +452,38 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             BufferUtil.clear(buffer);
 
             // Fill up the buffer with a max length of bufferSize;
+            // a full flush resets the history so that back references stay within a reduced window.
             boolean finished = false;
-            Deflater deflater = getDeflater();
-            while (true)
+            int flush = outgoingWindowBits < MAX_WINDOW_BITS ? Deflater.FULL_FLUSH : Deflater.SYNC_FLUSH;
+            try (AutoLock l = lock.lock())
             {
-                int compressed = deflater.deflate(buffer.array(), buffer.arrayOffset() + buffer.position(),
-                    bufferSize - buffer.position(), Deflater.SYNC_FLUSH);
-                buffer.limit(buffer.limit() + compressed);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Compressed {} bytes {}", compressed, toDetail(deflater));
-
-                if (buffer.limit() == bufferSize)
+                Deflater deflater = getDeflater();
+                while (true)
                 {
-                    // We need to fragment.
-                    if (!getConfiguration().isAutoFragment())
-                        throw new MessageTooLargeException("Deflated payload exceeded the compress buffer size");
-                    break;
-                }
+                    int compressed = deflater.deflate(buffer.array(), buffer.arrayOffset() + buffer.limit(),
+                        bufferSize - buffer.limit(), flush);
+                    buffer.limit(buffer.limit() + compressed);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Compressed {} bytes {}", compressed, toDetail(deflater));
 
-                if (compressed == 0)
-                {
-                    finished = true;
-                    break;
+                    if (buffer.limit() == bufferSize)
+                    {
+                        // We need to fragment.
+                        if (!getConfiguration().isAutoFragment())
+                            throw new MessageTooLargeException("Deflated payload exceeded the compress buffer size");
+                        break;
+                    }
+
+                    if (compressed == 0)
+                    {
+                        if (_input.hasRemaining())
+                        {
+                            setInput(deflater);
+                            continue;
+                        }
+                        finished = true;
+                        break;
+                    }
                 }
             }
 
@@ -396,7 +565,10 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
 
                 // Provide the frames payload as input to the Inflater.
                 _tailBytes = false;
-                getInflater().setInput(frame.getPayload().slice());
+                try (AutoLock l = lock.lock())
+                {
+                    getInflater().setInput(frame.getPayload().slice());
+                }
             }
 
             try
@@ -419,34 +591,37 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             BufferUtil.clear(payload);
 
             // Fill up the ByteBuffer with a max length of bufferSize;
-            Inflater inflater = getInflater();
             boolean complete = false;
-            while (true)
+            try (AutoLock l = lock.lock())
             {
-                int decompressed = inflater.inflate(payload.array(), payload.arrayOffset() + payload.position(), bufferSize - payload.position());
-                payload.limit(payload.limit() + decompressed);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Decompress: read {} {}", decompressed, toDetail(inflater));
-
-                if (payload.limit() == bufferSize)
+                Inflater inflater = getInflater();
+                while (true)
                 {
-                    // We need to fragment.
-                    if (!getConfiguration().isAutoFragment())
-                        throw new MessageTooLargeException("Inflated payload exceeded the decompress buffer size");
-                    break;
-                }
+                    int decompressed = inflater.inflate(payload.array(), payload.arrayOffset() + payload.limit(), bufferSize - payload.limit());
+                    payload.limit(payload.limit() + decompressed);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Decompress: read {} {}", decompressed, toDetail(inflater));
 
-                if (decompressed == 0)
-                {
-                    if (!_tailBytes && frame.isFin())
+                    if (payload.limit() == bufferSize)
                     {
-                        inflater.setInput(TAIL_BYTES_BUF.slice());
-                        _tailBytes = true;
-                        continue;
+                        // We need to fragment.
+                        if (!getConfiguration().isAutoFragment())
+                            throw new MessageTooLargeException("Inflated payload exceeded the decompress buffer size");
+                        break;
                     }
 
-                    complete = true;
-                    break;
+                    if (decompressed == 0)
+                    {
+                        if (!_tailBytes && frame.isFin())
+                        {
+                            inflater.setInput(TAIL_BYTES_BUF.slice());
+                            _tailBytes = true;
+                            continue;
+                        }
+
+                        complete = true;
+                        break;
+                    }
                 }
             }
 
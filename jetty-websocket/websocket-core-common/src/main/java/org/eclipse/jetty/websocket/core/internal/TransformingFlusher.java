@@ -14,7 +14,9 @@
 package org.eclipse.jetty.websocket.core.internal;
 
 import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.Queue;
+import java.util.function.Predicate;
 
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
@@ -77,6 +79,41 @@ public abstract class TransformingFlusher
             notifyCallbackFailure(callback, failure);
     }
 
+    /**
+     * <p>Drops the oldest queued frame that matches the given predicate and that is not yet being
+     * processed, failing its callback with the given failure.</p>
+     *
+     * @param droppable the predicate selecting the frames that can be dropped
+     * @param failure the failure to notify to the callback of the dropped frame
+     * @return whether a frame was dropped
+     */
+    public boolean dropOldest(Predicate<Frame> droppable, Throwable failure)
+    {
+        FrameEntry dropped = null;
+        try (AutoLock l = lock.lock())
+        {
+            Iterator<FrameEntry> iterator = entries.iterator();
+            while (iterator.hasNext())
+            {
+                FrameEntry entry = iterator.next();
+                if (droppable.test(entry.frame))
+                {
+                    iterator.remove();
+                    dropped = entry;
+                    break;
+                }
+            }
+        }
+
+        if (dropped == null)
+            return false;
+
+        if (log.isDebugEnabled())
+            log.debug("Dropped {}", dropped);
+        notifyCallbackFailure(dropped.callback, failure);
+        return true;
+    }
+
     private void onFailure(Throwable t)
     {
         try (AutoLock l = lock.lock())
@@ -23,23 +23,32 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.Utf8Appendable;
 import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.websocket.core.Behavior;
 import org.eclipse.jetty.websocket.core.CloseStatus;
 import org.eclipse.jetty.websocket.core.Configuration;
 import org.eclipse.jetty.websocket.core.CoreSession;
+import org.eclipse.jetty.websocket.core.Extension;
 import org.eclipse.jetty.websocket.core.ExtensionConfig;
 import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.FrameHandler;
 import org.eclipse.jetty.websocket.core.IncomingFrames;
 import org.eclipse.jetty.websocket.core.OpCode;
 import org.eclipse.jetty.websocket.core.OutgoingFrames;
+import org.eclipse.jetty.websocket.core.OutgoingQueuePolicy;
+import org.eclipse.jetty.websocket.core.PreEncodedFrame;
 import org.eclipse.jetty.websocket.core.WebSocketComponents;
 import org.eclipse.jetty.websocket.core.WebSocketConstants;
 import org.eclipse.jetty.websocket.core.exception.CloseException;
@@ -67,10 +76,19 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
     private final Negotiated negotiated;
     private final boolean demanding;
     private final Flusher flusher = new Flusher(this);
+    private final OutgoingAdaptor outgoingAdaptor = new OutgoingAdaptor();
     private final ExtensionStack extensionStack;
 
     private int maxOutgoingFrames = -1;
+    private long maxOutgoingBytes = WebSocketConstants.DEFAULT_MAX_OUTGOING_BYTES;
+    private OutgoingQueuePolicy outgoingQueuePolicy = WebSocketConstants.DEFAULT_OUTGOING_QUEUE_POLICY;
     private final AtomicInteger numOutgoingFrames = new AtomicInteger();
+    private final AtomicLong numOutgoingBytes = new AtomicLong();
+    private final AutoLock.WithCondition outgoingLock = new AutoLock.WithCondition();
+    private final LongAdder rejectedOutgoingFrames = new LongAdder();
+    private final LongAdder droppedOutgoingFrames = new LongAdder();
+    private volatile HistogramStatistic outgoingQueueDepth;
+    private volatile HistogramStatistic writeLatency;
 
     private WebSocketConnection connection;
     private boolean autoFragment = WebSocketConstants.DEFAULT_AUTO_FRAGMENT;
@@ -92,7 +110,7 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
         this.negotiated = negotiated;
         this.demanding = handler.isDemanding();
         extensionStack = negotiated.getExtensions();
-        extensionStack.initialize(new IncomingAdaptor(), new OutgoingAdaptor(), this);
+        extensionStack.initialize(new IncomingAdaptor(), outgoingAdaptor, this);
     }
 
     public ClassLoader getClassLoader()
@@ -260,6 +278,7 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
             LOG.debug("closeConnection() {} {}", closeStatus, this);
 
         abort();
+        extensionStack.close();
 
         // Forward Errors to Local WebSocket EndPoint
         if (closeStatus.isAbnormal() && closeStatus.getCause() != null)
@@ -483,15 +502,18 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
     @Override
     public void sendFrame(Frame frame, Callback callback, boolean batch)
     {
-        if (maxOutgoingFrames > 0 && frame.isDataFrame())
+        if (frame instanceof PreEncodedFrame)
+            frame = toOutgoingFrame((PreEncodedFrame)frame);
+
+        // Data frames are only tracked when the outgoing queue is limited or statistics are enabled.
+        boolean statistics = components.isStatisticsEnabled();
+        if (frame.isDataFrame() && (statistics || maxOutgoingFrames > 0 || maxOutgoingBytes > 0))
         {
-            // Increase the number of outgoing frames, will be decremented when callback is completed.
-            callback = Callback.from(callback, numOutgoingFrames::decrementAndGet);
-            if (numOutgoingFrames.incrementAndGet() > maxOutgoingFrames)
-            {
-                callback.failed(new WritePendingException());
+            // Increase the number of outgoing frames and bytes, will be decremented when callback is completed.
+            OutgoingCallback outgoingCallback = new OutgoingCallback(callback, frame.getPayloadLength(), statistics);
+            callback = outgoingCallback;
+            if (!outgoingCallback.admit())
                 return;
-            }
         }
 
         try
@@ -543,6 +565,47 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
         }
     }
 
+    /**
+     * <p>Selects the pre-encoded form of the given frame that can be sent on this session
+     * bypassing the extensions, or a copy of the frame to send as any other frame.</p>
+     *
+     * @param frame the pre-encoded frame
+     * @return the frame to send
+     */
+    private Frame toOutgoingFrame(PreEncodedFrame frame)
+    {
+        // Client frames are masked with a different key each time.
+        if (behavior == Behavior.SERVER)
+        {
+            boolean deflate = false;
+            boolean encodable = true;
+            List<Extension> extensions = negotiated.getExtensions().getExtensions();
+            if (extensions != null)
+            {
+                for (Extension extension : extensions)
+                {
+                    // A message without RSV1 is not compressed, and does not affect the compression context.
+                    if (extension instanceof PerMessageDeflateExtension)
+                    {
+                        PerMessageDeflateExtension deflateExtension = (PerMessageDeflateExtension)extension;
+                        deflate = !deflateExtension.isOutgoingContextTakeover() &&
+                            deflateExtension.getOutgoingWindowBits() == PerMessageDeflateExtension.MAX_WINDOW_BITS;
+                    }
+                    else
+                        encodable = false;
+                }
+            }
+
+            if (encodable)
+            {
+                PreEncodedFrame.Encoded encoded = deflate && frame.getDeflated() != null ? frame.getDeflated() : frame.getEncoded();
+                if (maxFrameSize <= 0 || encoded.getPayloadLength() <= maxFrameSize)
+                    return encoded;
+            }
+        }
+        return new Frame(frame.getOpCode(), frame.isFin(), frame.getPayload());
+    }
+
     @Override
     public void flush(Callback callback)
     {
@@ -645,6 +708,257 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
         this.maxOutgoingFrames = maxOutgoingFrames;
     }
 
+    @Override
+    public long getMaxOutgoingBytes()
+    {
+        return maxOutgoingBytes;
+    }
+
+    @Override
+    public void setMaxOutgoingBytes(long maxOutgoingBytes)
+    {
+        this.maxOutgoingBytes = maxOutgoingBytes;
+    }
+
+    @Override
+    public OutgoingQueuePolicy getOutgoingQueuePolicy()
+    {
+        return outgoingQueuePolicy;
+    }
+
+    @Override
+    public void setOutgoingQueuePolicy(OutgoingQueuePolicy policy)
+    {
+        this.outgoingQueuePolicy = policy == null ? WebSocketConstants.DEFAULT_OUTGOING_QUEUE_POLICY : policy;
+    }
+
+    /**
+     * @return the number of data frames sent and waiting to be written, tracked only when
+     * the outgoing queue is limited or {@link WebSocketComponents#isStatisticsEnabled() statistics are enabled}
+     */
+    public int getOutgoingFrames()
+    {
+        return numOutgoingFrames.get();
+    }
+
+    /**
+     * @return the number of payload bytes of the data frames sent and waiting to be written, tracked only when
+     * the outgoing queue is limited or {@link WebSocketComponents#isStatisticsEnabled() statistics are enabled}
+     */
+    public long getOutgoingBytes()
+    {
+        return numOutgoingBytes.get();
+    }
+
+    /**
+     * @return the number of data frames failed because the outgoing queue was full
+     */
+    public long getRejectedOutgoingFrames()
+    {
+        return rejectedOutgoingFrames.sum();
+    }
+
+    /**
+     * @return the number of queued data frames dropped to make room for newer frames
+     */
+    public long getDroppedOutgoingFrames()
+    {
+        return droppedOutgoingFrames.sum();
+    }
+
+    /**
+     * @return the histogram of the number of data frames waiting to be written, sampled when a data frame
+     * is sent while {@link WebSocketComponents#isStatisticsEnabled() statistics are enabled}
+     */
+    public HistogramStatistic getOutgoingQueueDepth()
+    {
+        // The histograms are only allocated when needed, as sessions may be many.
+        HistogramStatistic histogram = outgoingQueueDepth;
+        if (histogram == null)
+        {
+            try (AutoLock l = outgoingLock.lock())
+            {
+                if (outgoingQueueDepth == null)
+                    outgoingQueueDepth = new HistogramStatistic();
+                histogram = outgoingQueueDepth;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the histogram of the time, in microseconds, taken to write data frames
+     * sent while {@link WebSocketComponents#isStatisticsEnabled() statistics are enabled}
+     */
+    public HistogramStatistic getWriteLatency()
+    {
+        HistogramStatistic histogram = writeLatency;
+        if (histogram == null)
+        {
+            try (AutoLock l = outgoingLock.lock())
+            {
+                if (writeLatency == null)
+                    writeLatency = new HistogramStatistic();
+                histogram = writeLatency;
+            }
+        }
+        return histogram;
+    }
+
+    private boolean isOutgoingQueueFull()
+    {
+        int frames = numOutgoingFrames.get();
+        if (maxOutgoingFrames > 0 && frames > maxOutgoingFrames)
+            return true;
+        // A single frame larger than the max bytes is allowed, otherwise it could never be sent.
+        return maxOutgoingBytes > 0 && frames > 1 && numOutgoingBytes.get() > maxOutgoingBytes;
+    }
+
+    private boolean dropOutgoingFrames()
+    {
+        while (isOutgoingQueueFull())
+        {
+            if (!flusher.dropOldest(WebSocketCoreSession::isWholeMessage, new WritePendingException()))
+                return false;
+            droppedOutgoingFrames.increment();
+            components.onOutgoingFrameRejected(true);
+        }
+        return true;
+    }
+
+    private static boolean isWholeMessage(Frame frame)
+    {
+        byte opCode = frame.getOpCode();
+        return frame.isFin() && (opCode == OpCode.TEXT || opCode == OpCode.BINARY);
+    }
+
+    private boolean awaitOutgoingFrames() throws InterruptedException
+    {
+        // Never block threads that must not block, such as selector threads.
+        if (Invocable.isNonBlockingInvocation())
+            return false;
+
+        // Without a write timeout, the wait is bounded by the idle timeout;
+        // without either, the thread is not blocked as it could block forever.
+        long timeout = writeTimeout.toNanos();
+        if (timeout <= 0)
+            timeout = idleTimeout.toNanos();
+        if (timeout <= 0)
+            return false;
+
+        long expiry = System.nanoTime() + timeout;
+        try (AutoLock.WithCondition l = outgoingLock.lock())
+        {
+            while (isOutgoingQueueFull())
+            {
+                if (isClosed())
+                    return false;
+                long remaining = expiry - System.nanoTime();
+                if (remaining <= 0 || !l.await(remaining, TimeUnit.NANOSECONDS))
+                    return !isOutgoingQueueFull();
+            }
+            return true;
+        }
+    }
+
+    private class OutgoingCallback extends Callback.Nested
+    {
+        private final long bytes;
+        private final boolean statistics;
+        private final long created;
+
+        private OutgoingCallback(Callback callback, long bytes, boolean statistics)
+        {
+            super(callback);
+            this.bytes = bytes;
+            this.statistics = statistics;
+            this.created = statistics ? System.nanoTime() : 0;
+        }
+
+        private boolean admit()
+        {
+            int frames = numOutgoingFrames.incrementAndGet();
+            numOutgoingBytes.addAndGet(bytes);
+            if (statistics)
+            {
+                getOutgoingQueueDepth().record(frames);
+                components.onOutgoingFrame(bytes, frames);
+            }
+
+            if (!isOutgoingQueueFull())
+                return true;
+
+            Throwable failure = null;
+            try
+            {
+                boolean admitted;
+                switch (outgoingQueuePolicy)
+                {
+                    case DROP_OLDEST:
+                        admitted = dropOutgoingFrames();
+                        break;
+                    case BLOCK:
+                        admitted = awaitOutgoingFrames();
+                        break;
+                    default:
+                        admitted = false;
+                        break;
+                }
+                if (admitted)
+                    return true;
+            }
+            catch (InterruptedException x)
+            {
+                failure = x;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Outgoing queue full, frames={}/{} bytes={}/{} policy={}",
+                    numOutgoingFrames.get(), maxOutgoingFrames, numOutgoingBytes.get(), maxOutgoingBytes, outgoingQueuePolicy);
+            rejectedOutgoingFrames.increment();
+            components.onOutgoingFrameRejected(false);
+            WritePendingException x = new WritePendingException();
+            if (failure != null)
+                x.initCause(failure);
+            failed(x);
+            return false;
+        }
+
+        @Override
+        public void succeeded()
+        {
+            release(statistics ? TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - created) : -1);
+            super.succeeded();
+        }
+
+        @Override
+        public void failed(Throwable x)
+        {
+            release(-1);
+            super.failed(x);
+        }
+
+        private void release(long latency)
+        {
+            numOutgoingFrames.decrementAndGet();
+            numOutgoingBytes.addAndGet(-bytes);
+            if (statistics)
+            {
+                if (latency >= 0)
+                    getWriteLatency().record(latency);
+                components.onOutgoingFrameComplete(bytes, latency);
+            }
+
+            if (outgoingQueuePolicy == OutgoingQueuePolicy.BLOCK)
+            {
+                try (AutoLock.WithCondition l = outgoingLock.lock())
+                {
+                    l.signalAll();
+                }
+            }
+        }
+    }
+
     private class IncomingAdaptor implements IncomingFrames
     {
         @Override
@@ -740,6 +1054,9 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
     {
         Dumpable.dumpObjects(out, indent, this,
             "subprotocol=" + negotiated.getSubProtocol(),
+            "outgoing=" + numOutgoingFrames.get() + "/" + numOutgoingBytes.get(),
+            "outgoingQueueDepth=" + outgoingQueueDepth,
+            "writeLatency=" + writeLatency,
             negotiated.getExtensions(),
             handler);
     }
@@ -811,7 +1128,11 @@ public class WebSocketCoreSession implements IncomingFrames, CoreSession, Dumpab
         @Override
         void forwardFrame(Frame frame, Callback callback, boolean batch)
         {
-            negotiated.getExtensions().sendFrame(frame, callback, batch);
+            // Pre-encoded frames are only selected when they need no transformation by the extensions.
+            if (frame instanceof PreEncodedFrame.Encoded)
+                outgoingAdaptor.sendFrame(frame, callback, batch);
+            else
+                negotiated.getExtensions().sendFrame(frame, callback, batch);
         }
     }
 }
@@ -0,0 +1,88 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.internal.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Utility methods to apply the 4 bytes WebSocket masking key to a payload.</p>
+ * <p>The payload is XOR-ed 8 bytes at a time using {@code long} reads and writes,
+ * which the JIT compiles to single unaligned memory accesses for both heap and
+ * direct buffers; the trailing bytes are masked one at a time.</p>
+ */
+public final class MaskingUtils
+{
+    private MaskingUtils()
+    {
+    }
+
+    /**
+     * <p>Masks (or unmasks) in place the bytes of the given buffer between {@code start} and {@code end}.</p>
+     *
+     * @param buffer the buffer to mask
+     * @param start the absolute index of the first byte to mask, which is masked with {@code mask[0]}
+     * @param end the absolute index after the last byte to mask
+     * @param mask the 4 bytes masking key
+     */
+    public static void mask(ByteBuffer buffer, int start, int end, byte[] mask)
+    {
+        long maskLong = toLong(mask, buffer.order());
+        int index = start;
+        while (end - index >= 8)
+        {
+            buffer.putLong(index, buffer.getLong(index) ^ maskLong);
+            index += 8;
+        }
+        // The mask phase is preserved, since 8 is a multiple of 4.
+        for (int offset = 0; index < end; ++index, ++offset)
+        {
+            buffer.put(index, (byte)(buffer.get(index) ^ mask[offset & 3]));
+        }
+    }
+
+    /**
+     * <p>Copies the remaining bytes of the {@code payload} buffer into the {@code buffer}
+     * in fill mode, masking them.</p>
+     * <p>The position of the {@code payload} buffer is not modified.</p>
+     *
+     * @param payload the bytes to mask
+     * @param buffer the buffer in fill mode to write the masked bytes to
+     * @param mask the 4 bytes masking key
+     */
+    public static void mask(ByteBuffer payload, ByteBuffer buffer, byte[] mask)
+    {
+        long maskLong = toLong(mask, payload.order());
+        boolean swap = payload.order() != buffer.order();
+        int index = payload.position();
+        int end = payload.limit();
+        while (end - index >= 8)
+        {
+            long masked = payload.getLong(index) ^ maskLong;
+            buffer.putLong(swap ? Long.reverseBytes(masked) : masked);
+            index += 8;
+        }
+        for (int offset = 0; index < end; ++index, ++offset)
+        {
+            buffer.put((byte)(payload.get(index) ^ mask[offset & 3]));
+        }
+    }
+
+    private static long toLong(byte[] mask, ByteOrder order)
+    {
+        long maskInt = ((mask[0] & 0xFFL) << 24) | ((mask[1] & 0xFF) << 16) | ((mask[2] & 0xFF) << 8) | (mask[3] & 0xFF);
+        long maskLong = (maskInt << 32) | maskInt;
+        return order == ByteOrder.BIG_ENDIAN ? maskLong : Long.reverseBytes(maskLong);
+    }
+}
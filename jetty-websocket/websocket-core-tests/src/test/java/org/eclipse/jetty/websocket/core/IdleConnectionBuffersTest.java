@@ -0,0 +1,107 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
+import org.eclipse.jetty.io.LeakTrackingByteBufferPool;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.websocket.core.internal.Parser;
+import org.eclipse.jetty.websocket.core.server.WebSocketNegotiator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Verifies that idle WebSocket connections, over clear-text and TLS,
+ * return all their buffers to the pools while there is nothing to read.
+ */
+public class IdleConnectionBuffersTest extends WebSocketTester
+{
+    private final LeakTrackingByteBufferPool serverBufferPool = new LeakTrackingByteBufferPool(new ArrayByteBufferPool());
+    private WebSocketServer server;
+    private final List<Socket> clients = new ArrayList<>();
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        for (Socket client : clients)
+        {
+            client.close();
+        }
+        if (server != null)
+            server.stop();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testIdleConnectionsRetainNoBuffers(boolean tls) throws Exception
+    {
+        WebSocketNegotiator negotiator = WebSocketNegotiator.from(negotiation ->
+        {
+            negotiation.setSubprotocol(negotiation.getOfferedSubprotocols().get(0));
+            return new EchoFrameHandler();
+        });
+        server = new WebSocketServer(new WebSocketComponents(), negotiator, tls, serverBufferPool);
+        server.start();
+
+        for (int i = 0; i < 8; ++i)
+        {
+            Socket client = newClient(server.getLocalPort(), tls);
+            clients.add(client);
+
+            client.getOutputStream().write(RawFrameBuilder.buildFrame(OpCode.TEXT, "hello " + i, true));
+            Parser.ParsedFrame frame = receiveFrame(client.getInputStream());
+            assertThat(frame.getPayloadAsUTF8(), is("hello " + i));
+        }
+
+        // All the connections are open and idle.
+        assertRetainedBytes(0);
+
+        // Idle connections re-acquire buffers when there is something to read.
+        for (Socket client : clients)
+        {
+            client.getOutputStream().write(RawFrameBuilder.buildFrame(OpCode.TEXT, "again", true));
+            assertThat(receiveFrame(client.getInputStream()).getPayloadAsUTF8(), is("again"));
+        }
+        assertRetainedBytes(0);
+    }
+
+    private void assertRetainedBytes(long expected) throws Exception
+    {
+        ServerConnector connector = server.getServer().getBean(ServerConnector.class);
+        ArrayRetainableByteBufferPool retainablePool = connector.getBean(ArrayRetainableByteBufferPool.class);
+
+        long retained = -1;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline)
+        {
+            retained = serverBufferPool.getAcquiredHeapMemory() + serverBufferPool.getAcquiredDirectMemory() +
+                retainablePool.getHeapMemory() - retainablePool.getAvailableHeapMemory() +
+                retainablePool.getDirectMemory() - retainablePool.getAvailableDirectMemory();
+            if (retained == expected)
+                break;
+            Thread.sleep(10);
+        }
+        assertThat(retained, is(expected));
+    }
+}
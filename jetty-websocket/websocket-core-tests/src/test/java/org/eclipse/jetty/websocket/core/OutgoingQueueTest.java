@@ -0,0 +1,289 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core;
+
+import java.nio.channels.WritePendingException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.core.client.CoreClientUpgradeRequest;
+import org.eclipse.jetty.websocket.core.client.WebSocketCoreClient;
+import org.eclipse.jetty.websocket.core.internal.WebSocketCoreSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutgoingQueueTest
+{
+    private final WebSocketComponents components = new WebSocketComponents();
+    private final TestFrameHandler serverHandler = new TestFrameHandler();
+    private WebSocketServer server;
+    private WebSocketCoreClient client;
+
+    @BeforeEach
+    public void startup() throws Exception
+    {
+        components.getExtensionRegistry().register(HoldingExtension.NAME, HoldingExtension.class);
+        components.setStatisticsEnabled(true);
+        server = new WebSocketServer(components, new TestWebSocketNegotiator(serverHandler), false);
+        client = new WebSocketCoreClient(null, components);
+        server.start();
+        client.start();
+    }
+
+    @AfterEach
+    public void shutdown() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    private WebSocketCoreSession connect(TestFrameHandler clientHandler) throws Exception
+    {
+        CoreClientUpgradeRequest upgradeRequest = CoreClientUpgradeRequest.from(client, server.getUri(), clientHandler);
+        upgradeRequest.addExtensions(HoldingExtension.NAME);
+        return (WebSocketCoreSession)client.connect(upgradeRequest).get(5, TimeUnit.SECONDS);
+    }
+
+    private HoldingExtension getHoldingExtension(WebSocketCoreSession coreSession)
+    {
+        return (HoldingExtension)coreSession.getExtensionStack().getExtensions().get(0);
+    }
+
+    @Test
+    public void testMaxOutgoingBytes() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        WebSocketCoreSession coreSession = connect(clientHandler);
+        HoldingExtension extension = getHoldingExtension(coreSession);
+        coreSession.setMaxOutgoingBytes(10);
+
+        // A frame is always allowed when the queue is empty, even if it is larger than the limit.
+        Callback.Completable callback1 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "0123456789ABCDEF"), callback1, false);
+        assertThat(coreSession.getOutgoingFrames(), is(1));
+        assertThat(coreSession.getOutgoingBytes(), is(16L));
+        assertThat(components.getOutgoingBytes(), is(16L));
+
+        // Further frames are failed while the first frame is waiting to be sent.
+        Callback.Completable callback2 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "x"), callback2, false);
+        ExecutionException x = assertThrows(ExecutionException.class, () -> callback2.get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(WritePendingException.class));
+        assertThat(coreSession.getRejectedOutgoingFrames(), is(1L));
+        assertThat(components.getRejectedOutgoingFrames(), is(1L));
+        assertThat(coreSession.getOutgoingFrames(), is(1));
+
+        extension.release();
+        callback1.get(5, TimeUnit.SECONDS);
+        Frame frame = Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS));
+        assertThat(frame.getPayloadAsUTF8(), is("0123456789ABCDEF"));
+
+        assertThat(coreSession.getOutgoingFrames(), is(0));
+        assertThat(coreSession.getOutgoingBytes(), is(0L));
+        assertThat(components.getOutgoingFrames(), is(0L));
+        assertThat(coreSession.getOutgoingQueueDepth().getCount(), is(2L));
+        assertThat(coreSession.getOutgoingQueueDepth().getMax(), is(2L));
+        assertThat(coreSession.getWriteLatency().getCount(), is(1L));
+        assertThat(components.getWriteLatency().getCount(), is(1L));
+
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDropOldestPolicy() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        WebSocketCoreSession coreSession = connect(clientHandler);
+        HoldingExtension extension = getHoldingExtension(coreSession);
+        coreSession.setMaxOutgoingFrames(3);
+        coreSession.setOutgoingQueuePolicy(OutgoingQueuePolicy.DROP_OLDEST);
+
+        // The first frame is held by the extension, the others are queued.
+        Callback.Completable callback1 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "1"), callback1, false);
+        Callback.Completable callback2 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "2"), callback2, false);
+        Callback.Completable callback3 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "3").setFin(false), callback3, false);
+
+        // The oldest queued whole message is dropped to make room for the new frame.
+        Callback.Completable callback4 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.CONTINUATION, "4"), callback4, false);
+        ExecutionException x = assertThrows(ExecutionException.class, () -> callback2.get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(WritePendingException.class));
+        assertThat(coreSession.getDroppedOutgoingFrames(), is(1L));
+        assertThat(components.getDroppedOutgoingFrames(), is(1L));
+
+        // Fragments are never dropped, so the new frame is failed.
+        Callback.Completable callback5 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "5"), callback5, false);
+        x = assertThrows(ExecutionException.class, () -> callback5.get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(WritePendingException.class));
+        assertThat(coreSession.getRejectedOutgoingFrames(), is(1L));
+
+        for (int i = 0; i < 3; ++i)
+        {
+            extension.release();
+        }
+        callback1.get(5, TimeUnit.SECONDS);
+        callback3.get(5, TimeUnit.SECONDS);
+        callback4.get(5, TimeUnit.SECONDS);
+        assertThat(Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS)).getPayloadAsUTF8(), is("1"));
+        assertThat(Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS)).getPayloadAsUTF8(), is("3"));
+        assertThat(Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS)).getPayloadAsUTF8(), is("4"));
+
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBlockPolicy() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        WebSocketCoreSession coreSession = connect(clientHandler);
+        HoldingExtension extension = getHoldingExtension(coreSession);
+        coreSession.setMaxOutgoingFrames(1);
+        coreSession.setOutgoingQueuePolicy(OutgoingQueuePolicy.BLOCK);
+
+        Callback.Completable callback1 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "1"), callback1, false);
+
+        // The second frame blocks the sending thread until the first frame is sent.
+        CountDownLatch sent = new CountDownLatch(1);
+        Callback.Completable callback2 = new Callback.Completable();
+        new Thread(() ->
+        {
+            coreSession.sendFrame(new Frame(OpCode.TEXT, "2"), callback2, false);
+            sent.countDown();
+        }).start();
+        assertFalse(sent.await(500, TimeUnit.MILLISECONDS));
+
+        extension.release();
+        callback1.get(5, TimeUnit.SECONDS);
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        extension.release();
+        callback2.get(5, TimeUnit.SECONDS);
+        assertThat(Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS)).getPayloadAsUTF8(), is("1"));
+        assertThat(Objects.requireNonNull(serverHandler.receivedFrames.poll(5, TimeUnit.SECONDS)).getPayloadAsUTF8(), is("2"));
+
+        // The sending thread does not block for longer than the write timeout.
+        coreSession.setWriteTimeout(Duration.ofMillis(500));
+        Callback.Completable callback3 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "3"), callback3, false);
+        Callback.Completable callback4 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "4"), callback4, false);
+        ExecutionException x = assertThrows(ExecutionException.class, () -> callback4.get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(WritePendingException.class));
+        assertThat(coreSession.getRejectedOutgoingFrames(), is(1L));
+
+        extension.release();
+        callback3.get(5, TimeUnit.SECONDS);
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBlockPolicyWithoutTimeouts() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        WebSocketCoreSession coreSession = connect(clientHandler);
+        HoldingExtension extension = getHoldingExtension(coreSession);
+        coreSession.setMaxOutgoingFrames(1);
+        coreSession.setOutgoingQueuePolicy(OutgoingQueuePolicy.BLOCK);
+        coreSession.setWriteTimeout(Duration.ZERO);
+        coreSession.setIdleTimeout(Duration.ZERO);
+
+        Callback.Completable callback1 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "1"), callback1, false);
+
+        // Without timeouts the sending thread would block forever, so the frame is failed.
+        Callback.Completable callback2 = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "2"), callback2, false);
+        ExecutionException x = assertThrows(ExecutionException.class, () -> callback2.get(5, TimeUnit.SECONDS));
+        assertThat(x.getCause(), instanceOf(WritePendingException.class));
+
+        extension.release();
+        callback1.get(5, TimeUnit.SECONDS);
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStatisticsDisabled() throws Exception
+    {
+        components.setStatisticsEnabled(false);
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        WebSocketCoreSession coreSession = connect(clientHandler);
+        HoldingExtension extension = getHoldingExtension(coreSession);
+
+        // Without limits and statistics, data frames are not tracked.
+        Callback.Completable callback = new Callback.Completable();
+        coreSession.sendFrame(new Frame(OpCode.TEXT, "1"), callback, false);
+        assertThat(coreSession.getOutgoingFrames(), is(0));
+        assertThat(components.getOutgoingFrames(), is(0L));
+
+        extension.release();
+        callback.get(5, TimeUnit.SECONDS);
+        assertThat(coreSession.getWriteLatency().getCount(), is(0L));
+        assertThat(components.getWriteLatency().getCount(), is(0L));
+
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Holds the data frames sent by clients until they are released.
+     */
+    public static class HoldingExtension extends AbstractExtension
+    {
+        public static final String NAME = "test-holding";
+
+        private final BlockingQueue<Runnable> held = new LinkedBlockingQueue<>();
+
+        @Override
+        public String getName()
+        {
+            return NAME;
+        }
+
+        @Override
+        public void sendFrame(Frame frame, Callback callback, boolean batch)
+        {
+            if (frame.isDataFrame() && getCoreSession().getBehavior() == Behavior.CLIENT)
+                held.offer(() -> nextOutgoingFrame(frame, callback, batch));
+            else
+                nextOutgoingFrame(frame, callback, batch);
+        }
+
+        public void release() throws InterruptedException
+        {
+            Objects.requireNonNull(held.poll(5, TimeUnit.SECONDS)).run();
+        }
+    }
+}
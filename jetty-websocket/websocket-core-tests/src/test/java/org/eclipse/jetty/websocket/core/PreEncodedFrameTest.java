@@ -0,0 +1,164 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core;
+
+import java.io.ByteArrayOutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Inflater;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FutureCallback;
+import org.eclipse.jetty.websocket.core.internal.Generator;
+import org.eclipse.jetty.websocket.core.internal.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreEncodedFrameTest extends WebSocketTester
+{
+    private WebSocketServer server;
+    private final BlockingQueue<CoreSession> sessions = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        if (server != null)
+            server.stop();
+    }
+
+    private void start() throws Exception
+    {
+        WebSocketOpenTest.DemandingAsyncFrameHandler serverHandler = new WebSocketOpenTest.DemandingAsyncFrameHandler((s, c) ->
+        {
+            sessions.offer(s);
+            c.succeeded();
+            s.demand(1);
+            return null;
+        });
+        server = new WebSocketServer(serverHandler);
+        server.start();
+    }
+
+    @Test
+    public void testEncoded()
+    {
+        String message = "Hello World";
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.TEXT, message);
+        assertThat(frame.getDeflated(), nullValue());
+
+        ByteBuffer expected = BufferUtil.allocate(64);
+        new Generator().generateWholeFrame(new Frame(OpCode.TEXT, message), expected);
+        assertEquals(expected, frame.getEncoded().getBytes());
+
+        // The pre-encoded frames cannot be modified.
+        assertThrows(UnsupportedOperationException.class, () -> frame.setFin(false));
+        assertThrows(UnsupportedOperationException.class, () -> frame.getEncoded().setMask(new byte[4]));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedFrame(OpCode.PING, BufferUtil.EMPTY_BUFFER));
+    }
+
+    @Test
+    public void testDeflated() throws Exception
+    {
+        String message = "Hello World, Hello World, Hello World";
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.TEXT, BufferUtil.toBuffer(message), true);
+
+        Frame deflated = frame.getDeflated();
+        assertThat(deflated, notNullValue());
+        assertThat(deflated.isRsv1(), is(true));
+        assertThat(deflated.isFin(), is(true));
+        assertThat(inflate(deflated.getPayload()), is(message));
+    }
+
+    @Test
+    public void testBroadcast() throws Exception
+    {
+        start();
+        Socket plain = newClient(server.getLocalPort());
+        CoreSession plainSession = sessions.poll(5, TimeUnit.SECONDS);
+        Socket noContextTakeover = newClient(server.getLocalPort(), "permessage-deflate; server_no_context_takeover");
+        CoreSession noContextTakeoverSession = sessions.poll(5, TimeUnit.SECONDS);
+        Socket contextTakeover = newClient(server.getLocalPort(), "permessage-deflate");
+        CoreSession contextTakeoverSession = sessions.poll(5, TimeUnit.SECONDS);
+
+        String message = "Hello World, Hello World, Hello World";
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.TEXT, BufferUtil.toBuffer(message), true);
+        for (CoreSession session : new CoreSession[]{plainSession, noContextTakeoverSession, contextTakeoverSession})
+        {
+            FutureCallback callback = new FutureCallback();
+            session.sendFrame(frame, callback, false);
+            callback.get(5, TimeUnit.SECONDS);
+        }
+
+        // The same pre-encoded bytes are received.
+        Parser.ParsedFrame received = receiveFrame(plain.getInputStream());
+        assertThat(received.isRsv1(), is(false));
+        assertThat(received.getPayloadAsUTF8(), is(message));
+
+        // The payload compressed once is received.
+        received = receiveFrame(noContextTakeover.getInputStream());
+        assertThat(received.isRsv1(), is(true));
+        assertEquals(frame.getDeflated().getPayload(), received.getPayload());
+        assertThat(inflate(received.getPayload()), is(message));
+
+        // The message is compressed with the session deflater.
+        received = receiveFrame(contextTakeover.getInputStream());
+        assertThat(received.isRsv1(), is(true));
+        assertThat(inflate(received.getPayload()), is(message));
+
+        // The frame can be sent again.
+        plainSession.sendFrame(frame, Callback.NOOP, false);
+        received = receiveFrame(plain.getInputStream());
+        assertThat(received.getPayloadAsUTF8(), is(message));
+
+        plain.close();
+        noContextTakeover.close();
+        contextTakeover.close();
+    }
+
+    private static String inflate(ByteBuffer payload) throws Exception
+    {
+        Inflater inflater = new Inflater(true);
+        try
+        {
+            ByteBuffer input = BufferUtil.allocate(payload.remaining() + 4);
+            BufferUtil.append(input, payload.slice());
+            BufferUtil.append(input, ByteBuffer.wrap(new byte[]{0x00, 0x00, (byte)0xFF, (byte)0xFF}));
+            inflater.setInput(BufferUtil.toArray(input));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1024];
+            int inflated;
+            while ((inflated = inflater.inflate(chunk)) > 0)
+            {
+                output.write(chunk, 0, inflated);
+            }
+            return output.toString(UTF_8);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
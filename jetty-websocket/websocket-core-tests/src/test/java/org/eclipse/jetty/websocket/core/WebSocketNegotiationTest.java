@@ -110,6 +110,7 @@ public class WebSocketNegotiationTest extends WebSocketTester
                     case "test":
                     case "testExtensionThatDoesNotExist":
                     case "testInvalidExtensionParameter":
+                    case "testInvalidExtensionParameterAlternative":
                     case "testAcceptTwoExtensionsOfSameName":
                     case "testInvalidUpgradeRequest":
                         break;
@@ -206,11 +207,57 @@ public class WebSocketNegotiationTest extends WebSocketTester
         upgradeRequest.setSubProtocols("testInvalidExtensionParameter");
         upgradeRequest.addExtensions("permessage-deflate;invalid_parameter");
 
+        CompletableFuture<String> extensionHeader = new CompletableFuture<>();
+        upgradeRequest.addListener(new UpgradeListener()
+        {
+            @Override
+            public void onHandshakeResponse(HttpRequest request, HttpResponse response)
+            {
+                extensionHeader.complete(response.getHeaders().get(HttpHeader.SEC_WEBSOCKET_EXTENSIONS));
+            }
+        });
+
+        // The invalid offer is declined, but the upgrade succeeds.
+        CompletableFuture<CoreSession> connect = client.connect(upgradeRequest);
+        connect.get(5, TimeUnit.SECONDS);
+
+        clientHandler.sendText("hello world");
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+        assertNull(clientHandler.getError());
+
+        assertNull(extensionHeader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvalidExtensionParameterAlternative() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+
+        CoreClientUpgradeRequest upgradeRequest = CoreClientUpgradeRequest.from(client, server.getUri(), clientHandler);
+        upgradeRequest.setSubProtocols("testInvalidExtensionParameterAlternative");
+        upgradeRequest.addExtensions("permessage-deflate;server_max_window_bits=16", "permessage-deflate;client_no_context_takeover");
+
+        CompletableFuture<String> extensionHeader = new CompletableFuture<>();
+        upgradeRequest.addListener(new UpgradeListener()
+        {
+            @Override
+            public void onHandshakeResponse(HttpRequest request, HttpResponse response)
+            {
+                extensionHeader.complete(response.getHeaders().get(HttpHeader.SEC_WEBSOCKET_EXTENSIONS));
+            }
+        });
+
+        // The first offer is declined and the next offer of the same extension is accepted.
         CompletableFuture<CoreSession> connect = client.connect(upgradeRequest);
+        connect.get(5, TimeUnit.SECONDS);
 
-        Throwable t = assertThrows(ExecutionException.class, () -> connect.get(5, TimeUnit.SECONDS));
-        assertThat(t.getMessage(), containsString("Failed to upgrade to websocket:"));
-        assertThat(t.getMessage(), containsString("400 Bad Request"));
+        clientHandler.sendText("hello world");
+        clientHandler.sendClose();
+        assertTrue(clientHandler.closed.await(5, TimeUnit.SECONDS));
+        assertNull(clientHandler.getError());
+
+        assertThat(extensionHeader.get(5, TimeUnit.SECONDS), is("permessage-deflate;client_no_context_takeover"));
     }
 
     @Test
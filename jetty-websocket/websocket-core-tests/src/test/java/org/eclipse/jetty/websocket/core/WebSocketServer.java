@@ -17,6 +17,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.AbstractConnectionFactory;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.NetworkConnector;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
@@ -73,12 +76,18 @@ public class WebSocketServer
     }
 
     public WebSocketServer(WebSocketComponents components, WebSocketNegotiator negotiator, boolean tls)
+    {
+        this(components, negotiator, tls, null);
+    }
+
+    public WebSocketServer(WebSocketComponents components, WebSocketNegotiator negotiator, boolean tls, ByteBufferPool bufferPool)
     {
         ServerConnector connector;
+        HttpConnectionFactory http = new HttpConnectionFactory();
         if (tls)
-            connector = new ServerConnector(server, createServerSslContextFactory());
+            connector = new ServerConnector(server, null, null, bufferPool, -1, -1, AbstractConnectionFactory.getFactories(createServerSslContextFactory(), http));
         else
-            connector = new ServerConnector(server);
+            connector = new ServerConnector(server, null, null, bufferPool, -1, -1, http);
         server.addConnector(connector);
 
         ContextHandler context = new ContextHandler("/");
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.Inflater;
 
 import org.eclipse.jetty.toolchain.test.ByteBufferAssert;
 import org.eclipse.jetty.util.BufferUtil;
@@ -42,6 +43,7 @@ import org.eclipse.jetty.websocket.core.internal.WebSocketCoreSession;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -525,6 +527,102 @@ public class PerMessageDeflateExtensionTest extends AbstractExtensionTest
         //assertThat("Frame.payload", actual.getPayload(), is(BufferUtil.EMPTY_BUFFER));
     }
 
+    @Test
+    public void testOutgoingCompressionMemoryBudget() throws Exception
+    {
+        PerMessageDeflateExtension ext = new PerMessageDeflateExtension();
+        ext.init(ExtensionConfig.parse("permessage-deflate"), components);
+        ext.setCoreSession(newSession());
+        OutgoingFramesCapture capture = new OutgoingFramesCapture();
+        ext.setNextOutgoingFrames(capture);
+
+        // No budget, the message is sent uncompressed.
+        components.setMaxCompressionMemory(0);
+        ext.sendFrame(new Frame(OpCode.TEXT, false, "Hello "), Callback.NOOP, false);
+        ext.sendFrame(new Frame(OpCode.CONTINUATION, true, "World"), Callback.NOOP, false);
+        capture.assertFrameCount(2);
+        Frame frame = capture.frames.poll(1, TimeUnit.SECONDS);
+        assertThat(frame.isRsv1(), is(false));
+        assertThat(frame.getPayloadAsUTF8(), is("Hello "));
+        frame = capture.frames.poll(1, TimeUnit.SECONDS);
+        assertThat(frame.isRsv1(), is(false));
+        assertThat(frame.getPayloadAsUTF8(), is("World"));
+        assertThat(ext.getUncompressedMessages(), is(1L));
+        assertThat(components.getCompressionMemory(), is(0L));
+
+        // Enough budget, the message is compressed and the Deflater kept for context takeover.
+        components.setMaxCompressionMemory(PerMessageDeflateExtension.DEFLATER_MEMORY);
+        ext.sendFrame(new Frame(OpCode.TEXT, true, "Hello World"), Callback.NOOP, false);
+        capture.assertFrameCount(1);
+        assertThat(capture.frames.poll(1, TimeUnit.SECONDS).isRsv1(), is(true));
+        assertThat(ext.getCompressionMemory(), is(PerMessageDeflateExtension.DEFLATER_MEMORY));
+        assertThat(components.getCompressionMemory(), is(PerMessageDeflateExtension.DEFLATER_MEMORY));
+        assertThat(ext.dump(), containsString("compressionMemory=" + PerMessageDeflateExtension.DEFLATER_MEMORY));
+
+        ext.close();
+        assertThat(ext.getCompressionMemory(), is(0L));
+        assertThat(components.getCompressionMemory(), is(0L));
+    }
+
+    @Test
+    public void testOutgoingNoContextTakeoverReleasesDeflater() throws Exception
+    {
+        PerMessageDeflateExtension ext = new PerMessageDeflateExtension();
+        ext.init(ExtensionConfig.parse("permessage-deflate; server_no_context_takeover"), components);
+        ext.setCoreSession(newSession());
+        OutgoingFramesCapture capture = new OutgoingFramesCapture();
+        ext.setNextOutgoingFrames(capture);
+
+        ext.sendFrame(new Frame(OpCode.TEXT, false, "Hello "), Callback.NOOP, false);
+        assertThat(components.getCompressionMemory(), is(PerMessageDeflateExtension.DEFLATER_MEMORY));
+        ext.sendFrame(new Frame(OpCode.CONTINUATION, true, "World"), Callback.NOOP, false);
+        capture.assertFrameCount(2);
+        assertThat(ext.getCompressionMemory(), is(0L));
+        assertThat(components.getCompressionMemory(), is(0L));
+    }
+
+    @Test
+    public void testOutgoingServerMaxWindowBits() throws Exception
+    {
+        PerMessageDeflateExtension ext = new PerMessageDeflateExtension();
+        ext.init(ExtensionConfig.parse("permessage-deflate; server_max_window_bits=8"), components);
+        ext.setCoreSession(newSession());
+        OutgoingFramesCapture capture = new OutgoingFramesCapture();
+        ext.setNextOutgoingFrames(capture);
+        assertThat(ext.getConfig().getParameter("server_max_window_bits", 0), is(8));
+        assertThat(ext.getOutgoingWindowBits(), is(8));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+        {
+            builder.append("Hello World ").append(i % 10);
+        }
+        String message = builder.toString();
+        for (int i = 0; i < 2; i++)
+        {
+            ext.sendFrame(new Frame(OpCode.TEXT, true, message), Callback.NOOP, false);
+        }
+
+        // Each message is inflated independently as there is no context to take over.
+        capture.assertFrameCount(2);
+        for (int i = 0; i < 2; i++)
+        {
+            Frame frame = capture.frames.poll(1, TimeUnit.SECONDS);
+            assertThat(frame.isRsv1(), is(true));
+            Inflater inflater = new Inflater(true);
+            byte[] output = new byte[message.length() * 2];
+            inflater.setInput(BufferUtil.toArray(frame.getPayload()));
+            int length = inflater.inflate(output);
+            inflater.setInput(new byte[]{0x00, 0x00, (byte)0xFF, (byte)0xFF});
+            length += inflater.inflate(output, length, output.length - length);
+            inflater.end();
+            assertThat(new String(output, 0, length, StandardCharsets.UTF_8), is(message));
+        }
+        assertThat(components.getCompressionMemory(), is(0L));
+
+        assertThrows(IllegalArgumentException.class, () -> new PerMessageDeflateExtension().init(ExtensionConfig.parse("permessage-deflate; server_max_window_bits=16"), components));
+    }
+
     @Test
     public void testPyWebSocketClientNoContextTakeoverThreeOra()
     {
@@ -0,0 +1,124 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.core.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.websocket.core.internal.util.MaskingUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class MaskingUtilsTest
+{
+    private static final byte[] MASK = new byte[]{(byte)0xF1, 0x02, (byte)0x83, 0x74};
+
+    public static Stream<Arguments> buffers()
+    {
+        return Stream.of(
+            Arguments.of(false, ByteOrder.BIG_ENDIAN),
+            Arguments.of(false, ByteOrder.LITTLE_ENDIAN),
+            Arguments.of(true, ByteOrder.BIG_ENDIAN),
+            Arguments.of(true, ByteOrder.LITTLE_ENDIAN)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("buffers")
+    public void testMaskInPlace(boolean direct, ByteOrder order)
+    {
+        for (int length = 0; length < 40; ++length)
+        {
+            for (int offset = 0; offset < 3; ++offset)
+            {
+                byte[] bytes = payload(length);
+                ByteBuffer buffer = allocate(direct, offset + length).order(order);
+                buffer.position(offset);
+                buffer.put(bytes);
+
+                MaskingUtils.mask(buffer, offset, offset + length, MASK);
+                assertArrayEquals(mask(bytes), toArray(buffer, offset, offset + length));
+
+                // Masking twice restores the original bytes.
+                MaskingUtils.mask(buffer, offset, offset + length, MASK);
+                assertArrayEquals(bytes, toArray(buffer, offset, offset + length));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("buffers")
+    public void testMaskCopy(boolean direct, ByteOrder order)
+    {
+        for (int length = 0; length < 40; ++length)
+        {
+            byte[] bytes = payload(length);
+            ByteBuffer payload = allocate(direct, length + 1).order(order);
+            payload.position(1);
+            payload.put(bytes);
+            payload.position(1);
+
+            // The destination byte order differs from the payload byte order.
+            ByteBuffer buffer = allocate(!direct, length + 2);
+            buffer.order(order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            buffer.put((byte)0);
+
+            MaskingUtils.mask(payload, buffer, MASK);
+            assertThat(payload.position(), is(1));
+            assertThat(buffer.position(), is(length + 1));
+            assertArrayEquals(mask(bytes), toArray(buffer, 1, length + 1));
+        }
+    }
+
+    private static ByteBuffer allocate(boolean direct, int capacity)
+    {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static byte[] payload(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i)
+        {
+            bytes[i] = (byte)(i * 31 + 7);
+        }
+        return bytes;
+    }
+
+    private static byte[] mask(byte[] bytes)
+    {
+        byte[] result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            result[i] = (byte)(bytes[i] ^ MASK[i % 4]);
+        }
+        return result;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer, int start, int end)
+    {
+        byte[] result = new byte[end - start];
+        for (int i = start; i < end; ++i)
+        {
+            result[i - start] = buffer.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.javax.common;
+
+import java.nio.ByteBuffer;
+import javax.websocket.SendHandler;
+import javax.websocket.Session;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.PreEncodedFrame;
+
+/**
+ * <p>Sends the same message to many sessions, generating the WebSocket frame only once.</p>
+ * <p>Server sessions without extensions (or with {@code permessage-deflate} only) write the
+ * same pre-encoded bytes; other sessions send the message as usual.</p>
+ *
+ * @see PreEncodedFrame
+ */
+public class JavaxWebSocketBroadcaster
+{
+    private final boolean deflate;
+
+    public JavaxWebSocketBroadcaster()
+    {
+        this(false);
+    }
+
+    /**
+     * @param deflate whether to also compress each message once, for the sessions
+     * that negotiated {@code permessage-deflate} with {@code server_no_context_takeover}
+     */
+    public JavaxWebSocketBroadcaster(boolean deflate)
+    {
+        this.deflate = deflate;
+    }
+
+    /**
+     * <p>Sends a text message to the given sessions.</p>
+     *
+     * @param sessions the sessions to send the message to
+     * @param text the message
+     * @param handler the handler notified once for each session
+     */
+    public void broadcastText(Iterable<? extends Session> sessions, String text, SendHandler handler)
+    {
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.TEXT, BufferUtil.toBuffer(text), deflate);
+        for (Session session : sessions)
+        {
+            if (session instanceof JavaxWebSocketSession)
+                send((JavaxWebSocketSession)session, frame, handler);
+            else
+                session.getAsyncRemote().sendText(text, handler);
+        }
+    }
+
+    /**
+     * <p>Sends a binary message to the given sessions.</p>
+     *
+     * @param sessions the sessions to send the message to
+     * @param data the message, whose bytes are copied
+     * @param handler the handler notified once for each session
+     */
+    public void broadcastBinary(Iterable<? extends Session> sessions, ByteBuffer data, SendHandler handler)
+    {
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.BINARY, data, deflate);
+        for (Session session : sessions)
+        {
+            if (session instanceof JavaxWebSocketSession)
+                send((JavaxWebSocketSession)session, frame, handler);
+            else
+                session.getAsyncRemote().sendBinary(frame.getPayload(), handler);
+        }
+    }
+
+    private void send(JavaxWebSocketSession session, PreEncodedFrame frame, SendHandler handler)
+    {
+        boolean batch = session.getAsyncRemote().getBatchingAllowed();
+        session.getCoreSession().sendFrame(frame, new SendHandlerCallback(handler), batch);
+    }
+}
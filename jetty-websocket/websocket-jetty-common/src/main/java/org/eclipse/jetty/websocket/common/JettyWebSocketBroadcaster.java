@@ -0,0 +1,95 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.PreEncodedFrame;
+
+/**
+ * <p>Sends the same message to many sessions, generating the WebSocket frame only once.</p>
+ * <p>Server sessions without extensions (or with {@code permessage-deflate} only) write the
+ * same pre-encoded bytes; other sessions send the message as usual.</p>
+ *
+ * @see PreEncodedFrame
+ */
+public class JettyWebSocketBroadcaster
+{
+    private final boolean deflate;
+
+    public JettyWebSocketBroadcaster()
+    {
+        this(false);
+    }
+
+    /**
+     * @param deflate whether to also compress each message once, for the sessions
+     * that negotiated {@code permessage-deflate} with {@code server_no_context_takeover}
+     */
+    public JettyWebSocketBroadcaster(boolean deflate)
+    {
+        this.deflate = deflate;
+    }
+
+    /**
+     * <p>Sends a text message to the given sessions.</p>
+     *
+     * @param sessions the sessions to send the message to
+     * @param text the message
+     * @param callback the callback notified once for each session, may be null
+     */
+    public void broadcastString(Iterable<? extends Session> sessions, String text, WriteCallback callback)
+    {
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.TEXT, BufferUtil.toBuffer(text), deflate);
+        for (Session session : sessions)
+        {
+            if (session instanceof WebSocketSession)
+                send((WebSocketSession)session, frame, callback);
+            else
+                session.getRemote().sendString(text, callback);
+        }
+    }
+
+    /**
+     * <p>Sends a binary message to the given sessions.</p>
+     *
+     * @param sessions the sessions to send the message to
+     * @param data the message, whose bytes are copied
+     * @param callback the callback notified once for each session, may be null
+     */
+    public void broadcastBytes(Iterable<? extends Session> sessions, ByteBuffer data, WriteCallback callback)
+    {
+        PreEncodedFrame frame = new PreEncodedFrame(OpCode.BINARY, data, deflate);
+        for (Session session : sessions)
+        {
+            if (session instanceof WebSocketSession)
+                send((WebSocketSession)session, frame, callback);
+            else
+                session.getRemote().sendBytes(frame.getPayload(), callback == null ? WriteCallback.NOOP : callback);
+        }
+    }
+
+    private void send(WebSocketSession session, PreEncodedFrame frame, WriteCallback callback)
+    {
+        Callback cb = callback == null ? Callback.NOOP : Callback.from(callback::writeSuccess, callback::writeFailed);
+        boolean batch = session.getRemote().getBatchMode() == BatchMode.ON;
+        session.getCoreSession().sendFrame(frame, cb, batch);
+    }
+}
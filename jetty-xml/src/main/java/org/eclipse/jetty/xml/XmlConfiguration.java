@@ -39,6 +39,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -54,6 +56,7 @@ import org.eclipse.jetty.util.LazyList;
 import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.StartupTimings;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.TypeUtil;
 import org.eclipse.jetty.util.annotation.Name;
@@ -99,6 +102,16 @@ public class XmlConfiguration
         .collect(Collectors.toList());
     private static final Pool<ConfigurationParser> __parsers =
         new Pool<>(Pool.StrategyType.THREAD_ID, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final Map<String, ParsedConfiguration> __parsedCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedConfiguration> eldest)
+        {
+            return size() > __maxParsedCacheSize;
+        }
+    });
+    private static volatile boolean __cacheParsed = Boolean.getBoolean("org.eclipse.jetty.xml.XmlConfiguration.cacheParsed");
+    private static volatile int __maxParsedCacheSize = Integer.getInteger("org.eclipse.jetty.xml.XmlConfiguration.maxParsedCacheSize", 64);
     public static final Comparator<Executable> EXECUTABLE_COMPARATOR = (e1, e2) ->
     {
         // Favour methods with less parameters
@@ -143,6 +156,124 @@ public class XmlConfiguration
         return compare;
     };
 
+    /**
+     * Public constructors of a class, sorted with {@link #EXECUTABLE_COMPARATOR}, so that
+     * repeated {@code <New>} elements do not need to lookup and sort them again.
+     */
+    private static final ClassValue<Constructor<?>[]> __constructors = new ClassValue<>()
+    {
+        @Override
+        protected Constructor<?>[] computeValue(Class<?> type)
+        {
+            Constructor<?>[] constructors = type.getConstructors();
+            Arrays.sort(constructors, EXECUTABLE_COMPARATOR);
+            return constructors;
+        }
+    };
+
+    /**
+     * Public methods of a class grouped by name, in the order returned by {@link Class#getMethods()}.
+     */
+    private static final ClassValue<Map<String, Method[]>> __methods = new ClassValue<>()
+    {
+        @Override
+        protected Map<String, Method[]> computeValue(Class<?> type)
+        {
+            return Arrays.stream(type.getMethods())
+                .collect(Collectors.groupingBy(Method::getName, Collectors.collectingAndThen(Collectors.toList(), l -> l.toArray(new Method[0]))));
+        }
+    };
+
+    /**
+     * Public methods of a class grouped by name, each group sorted with {@link #EXECUTABLE_COMPARATOR}.
+     */
+    private static final ClassValue<Map<String, Method[]>> __sortedMethods = new ClassValue<>()
+    {
+        @Override
+        protected Map<String, Method[]> computeValue(Class<?> type)
+        {
+            Map<String, Method[]> sorted = new HashMap<>();
+            for (Map.Entry<String, Method[]> entry : __methods.get(type).entrySet())
+            {
+                Method[] methods = entry.getValue().clone();
+                Arrays.sort(methods, EXECUTABLE_COMPARATOR);
+                sorted.put(entry.getKey(), methods);
+            }
+            return sorted;
+        }
+    };
+
+    private static final Method[] NO_METHODS = new Method[0];
+
+    private static Method[] getMethods(Class<?> type, String name)
+    {
+        return __methods.get(type).getOrDefault(name, NO_METHODS);
+    }
+
+    private static Method[] getSortedMethods(Class<?> type, String name)
+    {
+        return __sortedMethods.get(type).getOrDefault(name, NO_METHODS);
+    }
+
+    /**
+     * @return whether parsed configurations are cached
+     * @see #setCacheParsed(boolean)
+     */
+    public static boolean isCacheParsed()
+    {
+        return __cacheParsed;
+    }
+
+    /**
+     * <p>Sets whether parsed configurations are cached in memory, keyed by the URI of the XML file
+     * and its last modified time.</p>
+     * <p>When enabled, a XML file that has already been parsed and that has not been modified since
+     * (for example when a context is redeployed) is not parsed and validated again.
+     * Resources without a last modified time are not cached.
+     * The cache is held in memory only, and it is bounded by {@link #getMaxParsedCacheSize()},
+     * evicting the least recently used configurations.
+     * The default can be set with the {@code org.eclipse.jetty.xml.XmlConfiguration.cacheParsed}
+     * system property.</p>
+     *
+     * @param cacheParsed whether to cache parsed configurations
+     */
+    public static void setCacheParsed(boolean cacheParsed)
+    {
+        __cacheParsed = cacheParsed;
+        if (!cacheParsed)
+            __parsedCache.clear();
+    }
+
+    /**
+     * @return the max number of parsed configurations that are cached
+     * @see #setCacheParsed(boolean)
+     */
+    public static int getMaxParsedCacheSize()
+    {
+        return __maxParsedCacheSize;
+    }
+
+    /**
+     * <p>Sets the max number of parsed configurations that are cached.</p>
+     * <p>The default can be set with the {@code org.eclipse.jetty.xml.XmlConfiguration.maxParsedCacheSize}
+     * system property.</p>
+     *
+     * @param maxParsedCacheSize the max number of parsed configurations that are cached
+     */
+    public static void setMaxParsedCacheSize(int maxParsedCacheSize)
+    {
+        __maxParsedCacheSize = maxParsedCacheSize;
+        synchronized (__parsedCache)
+        {
+            Iterator<String> iterator = __parsedCache.keySet().iterator();
+            while (__parsedCache.size() > maxParsedCacheSize && iterator.hasNext())
+            {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
     /**
      * Set the standard IDs and properties expected in a jetty XML file:
      * <ul>
@@ -217,14 +348,53 @@ public class XmlConfiguration
      */
     public XmlConfiguration(Resource resource) throws SAXException, IOException
     {
+        _location = resource;
+        if (isCacheParsed())
+        {
+            ParsedConfiguration parsed = parse(resource);
+            setConfig(parsed._root);
+            _dtd = parsed._dtd;
+            return;
+        }
+
         try (ConfigurationParser parser = getParser(); InputStream inputStream = resource.getInputStream())
         {
-            _location = resource;
             setConfig(parser.parse(inputStream));
             _dtd = parser.getDTD();
         }
     }
 
+    static int getParsedCacheSize()
+    {
+        return __parsedCache.size();
+    }
+
+    private ParsedConfiguration parse(Resource resource) throws SAXException, IOException
+    {
+        String key = String.valueOf(resource.getURI());
+        long lastModified = resource.lastModified();
+        if (lastModified > 0)
+        {
+            ParsedConfiguration parsed = __parsedCache.get(key);
+            if (parsed != null && parsed._lastModified == lastModified)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Using cached parse of {}", resource);
+                return parsed;
+            }
+        }
+
+        ParsedConfiguration parsed;
+        try (ConfigurationParser parser = getParser(); InputStream inputStream = resource.getInputStream())
+        {
+            XmlParser.Node root = parser.parse(inputStream);
+            parsed = new ParsedConfiguration(root, parser.getDTD(), lastModified);
+        }
+        if (lastModified > 0)
+            __parsedCache.put(key, parsed);
+        return parsed;
+    }
+
     @Override
     public String toString()
     {
@@ -536,7 +706,7 @@ public class XmlConfiguration
                 if (propertyValue == null)
                 {
                     // check that there is at least one setter or field that could have matched
-                    if (Arrays.stream(oClass.getMethods()).noneMatch(m -> m.getName().equals(setter)) &&
+                    if (getMethods(oClass, setter).length == 0 &&
                         Arrays.stream(oClass.getFields()).filter(f -> Modifier.isPublic(f.getModifiers())).noneMatch(f -> f.getName().equals(name)))
                     {
                         NoSuchMethodException e = new NoSuchMethodException(String.format("No method '%s' on %s", setter, oClass.getName()));
@@ -632,46 +802,43 @@ public class XmlConfiguration
                 }
 
                 // Search for a match by trying all the set methods
-                Method[] sets = oClass.getMethods();
+                Method[] sets = getMethods(oClass, setter);
                 Method set = null;
                 for (Method s : sets)
                 {
                     if (s.getParameterCount() != 1)
                         continue;
                     Class<?>[] paramTypes = s.getParameterTypes();
-                    if (setter.equals(s.getName()))
+                    types = types == null ? paramTypes[0].getName() : (types + "," + paramTypes[0].getName());
+                    // lets try it
+                    try
                     {
-                        types = types == null ? paramTypes[0].getName() : (types + "," + paramTypes[0].getName());
-                        // lets try it
-                        try
-                        {
-                            set = s;
-                            invokeMethod(set, obj, arg);
-                            return;
-                        }
-                        catch (IllegalArgumentException | IllegalAccessException e)
-                        {
-                            LOG.trace("IGNORED", e);
-                            me.add(e);
-                        }
+                        set = s;
+                        invokeMethod(set, obj, arg);
+                        return;
+                    }
+                    catch (IllegalArgumentException | IllegalAccessException e)
+                    {
+                        LOG.trace("IGNORED", e);
+                        me.add(e);
+                    }
 
-                        try
+                    try
+                    {
+                        for (Class<?> c : SUPPORTED_COLLECTIONS)
                         {
-                            for (Class<?> c : SUPPORTED_COLLECTIONS)
+                            if (paramTypes[0].isAssignableFrom(c))
                             {
-                                if (paramTypes[0].isAssignableFrom(c))
-                                {
-                                    setValue = convertArrayToCollection(value, c);
-                                    invokeMethod(s, obj, setValue);
-                                    return;
-                                }
+                                setValue = convertArrayToCollection(value, c);
+                                invokeMethod(s, obj, setValue);
+                                return;
                             }
                         }
-                        catch (IllegalAccessException e)
-                        {
-                            LOG.trace("IGNORED", e);
-                            me.add(e);
-                        }
+                    }
+                    catch (IllegalAccessException e)
+                    {
+                        LOG.trace("IGNORED", e);
+                        me.add(e);
                     }
                 }
 
@@ -944,14 +1111,9 @@ public class XmlConfiguration
             if (StringUtil.isBlank(methodName))
                 throw new IllegalArgumentException("Method name cannot be blank");
 
-            // Lets just try all methods for now
-
-            Method[] methods = oClass.getMethods();
-            Arrays.sort(methods, EXECUTABLE_COMPARATOR);
-            for (Method method : methods)
+            // Lets just try all methods with that name, in preference order
+            for (Method method : getSortedMethods(oClass, methodName))
             {
-                if (!method.getName().equals(methodName))
-                    continue;
                 Object[] arguments = args.applyTo(method);
                 if (arguments == null)
                     continue;
@@ -1014,9 +1176,7 @@ public class XmlConfiguration
             Objects.requireNonNull(klass, "Class cannot be null");
             Objects.requireNonNull(args, "Named list cannot be null");
 
-            Constructor<?>[] constructors = klass.getConstructors();
-            Arrays.sort(constructors, EXECUTABLE_COMPARATOR);
-            for (Constructor<?> constructor : constructors)
+            for (Constructor<?> constructor : __constructors.get(klass))
             {
                 try
                 {
@@ -1850,7 +2010,11 @@ public class XmlConfiguration
                             configuration.getProperties().putAll(props);
                         }
 
-                        Object obj = configuration.configure();
+                        Object obj;
+                        try (StartupTimings.Timing ignored = StartupTimings.start(StartupTimings.XML_CONFIGURATION, arg))
+                        {
+                            obj = configuration.configure();
+                        }
                         if (obj != null && !objects.contains(obj))
                             objects.add(obj);
                         last = configuration;
@@ -1895,6 +2059,20 @@ public class XmlConfiguration
         }
     }
 
+    private static class ParsedConfiguration
+    {
+        private final XmlParser.Node _root;
+        private final String _dtd;
+        private final long _lastModified;
+
+        private ParsedConfiguration(XmlParser.Node root, String dtd, long lastModified)
+        {
+            _root = root;
+            _dtd = dtd;
+            _lastModified = lastModified;
+        }
+    }
+
     private static class ConfigurationParser extends XmlParser implements AutoCloseable
     {
         private final Pool<ConfigurationParser>.Entry _entry;
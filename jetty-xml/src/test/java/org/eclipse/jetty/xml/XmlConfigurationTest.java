@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -315,6 +316,65 @@ public class XmlConfigurationTest
         assertEquals(2, tc.testInt, "Set Type 3");
     }
 
+    @Test
+    public void testCacheParsed() throws Exception
+    {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<!DOCTYPE Configure PUBLIC \"-//Jetty//Configure//EN\" \"https://www.eclipse.org/jetty/configure_10_0.dtd\">\n" +
+            "<Configure class=\"org.eclipse.jetty.xml.TestConfiguration\"><Set name=\"TestString\" property=\"prop\"/><Set name=\"Test\" type=\"int\">2</Set></Configure>";
+        Path dir = workDir.getEmptyPathDir();
+        Path file = dir.resolve("one.xml");
+        Files.writeString(file, xml, UTF_8);
+        XmlConfiguration.setCacheParsed(true);
+        try
+        {
+            XmlConfiguration configuration1 = new XmlConfiguration(new PathResource(file));
+            assertEquals(1, XmlConfiguration.getParsedCacheSize());
+            // The same file is not parsed again.
+            XmlConfiguration configuration2 = new XmlConfiguration(new PathResource(file));
+            assertEquals(1, XmlConfiguration.getParsedCacheSize());
+
+            configuration1.getProperties().put("prop", "one");
+            configuration2.getProperties().put("prop", "two");
+            TestConfiguration tc1 = (TestConfiguration)configuration1.configure();
+            TestConfiguration tc2 = (TestConfiguration)configuration2.configure();
+            assertEquals("one", tc1.getTestString());
+            assertEquals("two", tc2.getTestString());
+            assertEquals(2, tc1.testInt);
+            assertEquals(2, tc2.testInt);
+
+            // A modified file is parsed again.
+            Files.writeString(file, xml.replace(">2<", ">3<"), UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+            TestConfiguration tc3 = (TestConfiguration)new XmlConfiguration(new PathResource(file)).configure();
+            assertEquals(3, tc3.testInt);
+            assertEquals(1, XmlConfiguration.getParsedCacheSize());
+
+            // The cache is bounded.
+            int maxCacheSize = XmlConfiguration.getMaxParsedCacheSize();
+            XmlConfiguration.setMaxParsedCacheSize(2);
+            try
+            {
+                for (int i = 0; i < 4; ++i)
+                {
+                    Path other = dir.resolve("other" + i + ".xml");
+                    Files.writeString(other, xml, UTF_8);
+                    new XmlConfiguration(new PathResource(other));
+                }
+                assertEquals(2, XmlConfiguration.getParsedCacheSize());
+            }
+            finally
+            {
+                XmlConfiguration.setMaxParsedCacheSize(maxCacheSize);
+            }
+        }
+        finally
+        {
+            XmlConfiguration.setCacheParsed(false);
+        }
+        assertEquals(0, XmlConfiguration.getParsedCacheSize());
+    }
+
     @Test
     public void testSetWithProperty() throws Exception
     {
@@ -0,0 +1,146 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http3.qpack.Instruction;
+import org.eclipse.jetty.http3.qpack.QpackDecoder;
+import org.eclipse.jetty.http3.qpack.QpackEncoder;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.NullByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the QPACK encoding and decoding of browser like request headers, where most
+ * fields repeat across requests and a few (the path, a tracking cookie) are unique.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QpackBenchmark
+{
+    @Param({"1", "2"})
+    int insertThreshold;
+
+    @Param({"0", "4096"})
+    int tableCapacity;
+
+    private final ByteBufferPool bufferPool = new NullByteBufferPool();
+    private final List<Instruction> encoderInstructions = new ArrayList<>();
+    private final List<Instruction> decoderInstructions = new ArrayList<>();
+    private final List<MetaData> requests = new ArrayList<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+    private QpackEncoder encoder;
+    private QpackDecoder decoder;
+    private MetaData decoded;
+    private long streamId;
+    private int request;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        encoder = new QpackEncoder(encoderInstructions::addAll, 16);
+        encoder.setInsertThreshold(insertThreshold);
+        decoder = new QpackDecoder(decoderInstructions::addAll, 16 * 1024);
+        if (tableCapacity > 0)
+        {
+            encoder.setCapacity(tableCapacity);
+            decoder.parseInstructions(toBuffer(encoderInstructions));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 64; ++i)
+        {
+            HttpFields fields = HttpFields.build()
+                .put(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/115.0")
+                .put(HttpHeader.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8")
+                .put(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.5")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br")
+                .put(HttpHeader.REFERER, "https://www.example.com/index.html")
+                .put(HttpHeader.COOKIE, "JSESSIONID=node01abcdefghij; _ga=GA1.2." + random.nextLong())
+                .put("sec-fetch-dest", "document")
+                .put("sec-fetch-mode", "navigate")
+                .put("sec-fetch-site", "same-origin");
+            HttpURI uri = HttpURI.from("https://www.example.com/catalog/item/" + random.nextInt(1_000_000));
+            requests.add(new MetaData.Request(HttpMethod.GET.asString(), uri, HttpVersion.HTTP_3, fields));
+        }
+    }
+
+    @Benchmark
+    public MetaData testEncodeDecode() throws Exception
+    {
+        MetaData metaData = requests.get(request++ & (requests.size() - 1));
+        streamId += 4;
+
+        buffer.clear();
+        encoder.encode(buffer, streamId, metaData);
+        buffer.flip();
+
+        decoder.parseInstructions(toBuffer(encoderInstructions));
+        decoder.decode(streamId, buffer, (id, result) -> decoded = result);
+        encoder.parseInstructions(toBuffer(decoderInstructions));
+        return decoded;
+    }
+
+    private ByteBuffer toBuffer(List<Instruction> instructions)
+    {
+        if (instructions.isEmpty())
+            return BufferUtil.EMPTY_BUFFER;
+        ByteBufferPool.Lease lease = new ByteBufferPool.Lease(bufferPool);
+        instructions.forEach(i -> i.encode(lease));
+        instructions.clear();
+        ByteBuffer result = ByteBuffer.allocate(Math.toIntExact(lease.getTotalLength()));
+        lease.getByteBuffers().forEach(result::put);
+        return result.flip();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(QpackBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
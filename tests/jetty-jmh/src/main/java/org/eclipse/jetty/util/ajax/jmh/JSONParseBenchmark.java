@@ -0,0 +1,237 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.ajax.AsyncJSON;
+import org.eclipse.jetty.util.ajax.JSON;
+import org.eclipse.jetty.util.ajax.JSONBinder;
+import org.eclipse.jetty.util.ajax.JSONStreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link JSON}, {@link AsyncJSON}, {@link JSONStreamParser} and
+ * {@link JSONBinder} parsing a JSON array of objects, delivered in chunks
+ * as if read from the network.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JSONParseBenchmark
+{
+    @Param({"16", "256"})
+    int items;
+
+    @Param({"1024", "65536"})
+    int chunkSize;
+
+    private String json;
+    private byte[] bytes;
+    private AsyncJSON.Factory asyncFactory;
+    private JSONStreamParser streamParser;
+    private JSONBinder<Object> genericBinder;
+    private JSONBinder<Item[]> itemBinder;
+
+    @Setup
+    public void setUp()
+    {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < items; ++i)
+        {
+            if (i > 0)
+                builder.append(",");
+            builder.append("{\"id\":").append(i)
+                .append(",\"name\":\"item-").append(i).append("\"")
+                .append(",\"description\":\"A somewhat longer description of item ").append(i).append(", used to exercise string scanning\"")
+                .append(",\"price\":").append(i).append(".99")
+                .append(",\"available\":").append(i % 2 == 0)
+                .append(",\"tags\":[\"one\",\"two\",\"three\"]")
+                .append(",\"attributes\":{\"color\":\"red\",\"weight\":").append(i * 10).append(",\"discontinued\":null}")
+                .append("}");
+        }
+        builder.append("]");
+        json = builder.toString();
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        asyncFactory = new AsyncJSON.Factory();
+        asyncFactory.setDetailedParseException(false);
+        streamParser = new JSONStreamParser(new JSONStreamParser.Listener()
+        {
+        });
+        genericBinder = new JSONBinder<>(Object.class);
+        itemBinder = new JSONBinder<>(Item[].class);
+    }
+
+    @Benchmark
+    public void testJSON(Blackhole blackhole)
+    {
+        blackhole.consume(new JSON().fromJSON(json));
+    }
+
+    @Benchmark
+    public void testAsyncJSON(Blackhole blackhole)
+    {
+        AsyncJSON parser = asyncFactory.newAsyncJSON();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize)
+        {
+            parser.parse(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+        List<Object> result = parser.complete();
+        blackhole.consume(result);
+    }
+
+    @Benchmark
+    public boolean testStreamParser()
+    {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize)
+        {
+            streamParser.parse(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+        streamParser.complete();
+        return true;
+    }
+
+    @Benchmark
+    public void testBindGeneric(Blackhole blackhole)
+    {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize)
+        {
+            genericBinder.parse(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+        blackhole.consume(genericBinder.complete());
+    }
+
+    @Benchmark
+    public void testBindBean(Blackhole blackhole)
+    {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize)
+        {
+            itemBinder.parse(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+        blackhole.consume(itemBinder.complete());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(JSONParseBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    public static class Item
+    {
+        private long id;
+        private String name;
+        private String description;
+        private double price;
+        private boolean available;
+        private String[] tags;
+        private Map<String, Object> attributes;
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public void setId(long id)
+        {
+            this.id = id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        public String getDescription()
+        {
+            return description;
+        }
+
+        public void setDescription(String description)
+        {
+            this.description = description;
+        }
+
+        public double getPrice()
+        {
+            return price;
+        }
+
+        public void setPrice(double price)
+        {
+            this.price = price;
+        }
+
+        public boolean isAvailable()
+        {
+            return available;
+        }
+
+        public void setAvailable(boolean available)
+        {
+            this.available = available;
+        }
+
+        public String[] getTags()
+        {
+            return tags;
+        }
+
+        public void setTags(String[] tags)
+        {
+            this.tags = tags;
+        }
+
+        public Map<String, Object> getAttributes()
+        {
+            return attributes;
+        }
+
+        public void setAttributes(Map<String, Object> attributes)
+        {
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+
+package org.eclipse.jetty.webapp.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebAppClassLoader;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Creates a {@link WebAppClassLoader} for a {@code WEB-INF/lib} with many jars,
+ * each containing one class in its own package, then loads every class and
+ * looks up as many classes and resources that are not in the web application,
+ * as frameworks typically do when probing for optional features.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WebAppClassLoaderBenchmark
+{
+    @Param({"300"})
+    public int jars;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private Path lib;
+    private WebAppContext context;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        lib = Files.createTempDirectory("webapp-classloader-benchmark");
+        for (int i = 0; i < jars; ++i)
+        {
+            try (OutputStream output = Files.newOutputStream(lib.resolve("lib" + i + ".jar"));
+                 JarOutputStream jar = new JarOutputStream(output))
+            {
+                String className = "lib" + i + "/C";
+                jar.putNextEntry(new JarEntry(className + ".class"));
+                jar.write(newClassBytes(className));
+                jar.closeEntry();
+                jar.putNextEntry(new JarEntry("lib" + i + "/resource.txt"));
+                jar.write(("lib" + i).getBytes());
+                jar.closeEntry();
+            }
+        }
+        context = new WebAppContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial()
+    {
+        IO.delete(lib.toFile());
+    }
+
+    /**
+     * @return the bytes of an empty class file, {@code public class <className> {}},
+     * without constructors since the class is only loaded, not instantiated
+     */
+    private static byte[] newClassBytes(String className) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0xCAFEBABE);
+        output.writeShort(0); // Minor version.
+        output.writeShort(52); // Major version, Java 8.
+        output.writeShort(5); // Constant pool count, plus one.
+        output.writeByte(1); // #1 Utf8.
+        output.writeUTF(className);
+        output.writeByte(7); // #2 Class #1.
+        output.writeShort(1);
+        output.writeByte(1); // #3 Utf8.
+        output.writeUTF("java/lang/Object");
+        output.writeByte(7); // #4 Class #3.
+        output.writeShort(3);
+        output.writeShort(0x0021); // ACC_PUBLIC | ACC_SUPER.
+        output.writeShort(2); // This class.
+        output.writeShort(4); // Super class.
+        output.writeShort(0); // Interfaces.
+        output.writeShort(0); // Fields.
+        output.writeShort(0); // Methods.
+        output.writeShort(0); // Attributes.
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int loadClasses() throws Exception
+    {
+        int result = 0;
+        try (WebAppClassLoader loader = new WebAppClassLoader(getClass().getClassLoader(), context))
+        {
+            loader.setIndexed(indexed);
+            loader.addJars(Resource.newResource(lib));
+            for (int i = 0; i < jars; ++i)
+            {
+                result += loader.loadClass("lib" + i + ".C").getName().length();
+                if (loader.getResource("lib" + i + "/resource.txt") != null)
+                    ++result;
+                try
+                {
+                    loader.loadClass("org.example.optional" + i + ".Feature");
+                }
+                catch (ClassNotFoundException x)
+                {
+                    ++result;
+                }
+                if (loader.getResource("META-INF/optional" + i + ".properties") == null)
+                    ++result;
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(WebAppClassLoaderBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
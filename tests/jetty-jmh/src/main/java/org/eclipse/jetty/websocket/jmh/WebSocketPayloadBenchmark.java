@@ -0,0 +1,151 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.websocket.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.core.internal.NullAppendable;
+import org.eclipse.jetty.websocket.core.internal.util.MaskingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the per-byte costs of receiving a masked text frame: unmasking the
+ * payload and validating its UTF-8, comparing the previous 4 bytes at a time
+ * masking with {@link MaskingUtils}.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WebSocketPayloadBenchmark
+{
+    private static final byte[] MASK = new byte[]{0x11, 0x22, 0x33, 0x44};
+
+    @Param({"125", "4096", "65536"})
+    int size;
+
+    @Param({"HEAP", "DIRECT"})
+    String bufferType;
+
+    @Param({"ASCII", "MIXED"})
+    String text;
+
+    private ByteBuffer payload;
+
+    @Setup
+    public void setUp()
+    {
+        StringBuilder builder = new StringBuilder(size);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (builder.length() < size)
+        {
+            // Market data like content, with an occasional non-ASCII character.
+            builder.append("{\"s\":\"EURUSD\",\"p\":").append(random.nextInt(100000)).append('}');
+            if ("MIXED".equals(text))
+                builder.append("€");
+        }
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        payload = "DIRECT".equals(bufferType) ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        payload.put(bytes, 0, size).flip();
+        // Make sure the payload ends with a complete UTF-8 sequence.
+        while (payload.get(payload.limit() - 1) < 0)
+        {
+            payload.put(payload.limit() - 1, (byte)' ');
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer testMaskInt()
+    {
+        int maskInt = 0;
+        for (byte maskByte : MASK)
+        {
+            maskInt = (maskInt << 8) + (maskByte & 0xFF);
+        }
+        int start = payload.position();
+        int end = payload.limit();
+        int offset = 0;
+        int remaining;
+        while ((remaining = end - start) > 0)
+        {
+            if (remaining >= 4)
+            {
+                payload.putInt(start, payload.getInt(start) ^ maskInt);
+                start += 4;
+            }
+            else
+            {
+                payload.put(start, (byte)(payload.get(start) ^ MASK[offset & 3]));
+                ++start;
+                ++offset;
+            }
+        }
+        return payload;
+    }
+
+    @Benchmark
+    public ByteBuffer testMaskLong()
+    {
+        MaskingUtils.mask(payload, payload.position(), payload.limit(), MASK);
+        return payload;
+    }
+
+    @Benchmark
+    public boolean testValidateUtf8ByteByByte()
+    {
+        NullAppendable appendable = new NullAppendable();
+        for (int i = payload.position(); i < payload.limit(); ++i)
+        {
+            appendable.append(payload.get(i));
+        }
+        return appendable.isUtf8SequenceComplete();
+    }
+
+    @Benchmark
+    public boolean testValidateUtf8()
+    {
+        NullAppendable appendable = new NullAppendable();
+        appendable.append(payload.slice());
+        return appendable.isUtf8SequenceComplete();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(WebSocketPayloadBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,210 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.xml.jmh;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.xml.XmlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Configures (without starting) a Server from XML files similar to the
+ * {@code jetty.xml}, {@code jetty-threadpool.xml} and {@code jetty-http.xml}
+ * files of a typical jetty-home configuration.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmlConfigurationBenchmark
+{
+    private static final String DOCTYPE = "<?xml version=\"1.0\"?>\n" +
+        "<!DOCTYPE Configure PUBLIC \"-//Jetty//Configure//EN\" \"https://www.eclipse.org/jetty/configure_10_0.dtd\">\n";
+
+    private static final String JETTY_THREADPOOL_XML = DOCTYPE +
+        "<Configure>\n" +
+        "  <New id=\"threadPool\" class=\"org.eclipse.jetty.util.thread.QueuedThreadPool\">\n" +
+        "    <Set name=\"name\" property=\"jetty.threadPool.namePrefix\" />\n" +
+        "    <Set name=\"minThreads\" type=\"int\"><Property name=\"jetty.threadPool.minThreads\" deprecated=\"threads.min\" default=\"10\"/></Set>\n" +
+        "    <Set name=\"maxThreads\" type=\"int\"><Property name=\"jetty.threadPool.maxThreads\" deprecated=\"threads.max\" default=\"200\"/></Set>\n" +
+        "    <Set name=\"reservedThreads\" type=\"int\"><Property name=\"jetty.threadPool.reservedThreads\" default=\"-1\"/></Set>\n" +
+        "    <Set name=\"idleTimeout\" type=\"int\"><Property name=\"jetty.threadPool.idleTimeout\" deprecated=\"threads.timeout\" default=\"60000\"/></Set>\n" +
+        "    <Set name=\"detailedDump\" type=\"boolean\"><Property name=\"jetty.threadPool.detailedDump\" default=\"false\"/></Set>\n" +
+        "  </New>\n" +
+        "</Configure>\n";
+
+    private static final String JETTY_XML = DOCTYPE +
+        "<Configure id=\"Server\" class=\"org.eclipse.jetty.server.Server\">\n" +
+        "  <Arg name=\"threadpool\"><Ref refid=\"threadPool\"/></Arg>\n" +
+        "  <Call name=\"addBean\">\n" +
+        "    <Arg>\n" +
+        "      <New class=\"org.eclipse.jetty.util.thread.ScheduledExecutorScheduler\">\n" +
+        "        <Arg name=\"name\"><Property name=\"jetty.scheduler.name\"/></Arg>\n" +
+        "        <Arg name=\"daemon\" type=\"boolean\"><Property name=\"jetty.scheduler.daemon\" default=\"false\" /></Arg>\n" +
+        "        <Arg name=\"threads\" type=\"int\"><Property name=\"jetty.scheduler.threads\" default=\"-1\" /></Arg>\n" +
+        "      </New>\n" +
+        "    </Arg>\n" +
+        "  </Call>\n" +
+        "  <New id=\"httpConfig\" class=\"org.eclipse.jetty.server.HttpConfiguration\">\n" +
+        "    <Set name=\"secureScheme\"><Property name=\"jetty.httpConfig.secureScheme\" default=\"https\" /></Set>\n" +
+        "    <Set name=\"securePort\"><Property name=\"jetty.httpConfig.securePort\" deprecated=\"jetty.secure.port\" default=\"8443\" /></Set>\n" +
+        "    <Set name=\"outputBufferSize\"><Property name=\"jetty.httpConfig.outputBufferSize\" deprecated=\"jetty.output.buffer.size\" default=\"32768\" /></Set>\n" +
+        "    <Set name=\"outputAggregationSize\"><Property name=\"jetty.httpConfig.outputAggregationSize\" deprecated=\"jetty.output.aggregation.size\" default=\"8192\" /></Set>\n" +
+        "    <Set name=\"requestHeaderSize\"><Property name=\"jetty.httpConfig.requestHeaderSize\" deprecated=\"jetty.request.header.size\" default=\"8192\" /></Set>\n" +
+        "    <Set name=\"responseHeaderSize\"><Property name=\"jetty.httpConfig.responseHeaderSize\" deprecated=\"jetty.response.header.size\" default=\"8192\" /></Set>\n" +
+        "    <Set name=\"sendServerVersion\"><Property name=\"jetty.httpConfig.sendServerVersion\" deprecated=\"jetty.send.server.version\" default=\"true\" /></Set>\n" +
+        "    <Set name=\"sendDateHeader\"><Property name=\"jetty.httpConfig.sendDateHeader\" deprecated=\"jetty.send.date.header\" default=\"false\" /></Set>\n" +
+        "    <Set name=\"headerCacheSize\"><Property name=\"jetty.httpConfig.headerCacheSize\" default=\"1024\" /></Set>\n" +
+        "    <Set name=\"delayDispatchUntilContent\"><Property name=\"jetty.httpConfig.delayDispatchUntilContent\" deprecated=\"jetty.delayDispatchUntilContent\" default=\"true\"/></Set>\n" +
+        "    <Set name=\"maxErrorDispatches\"><Property name=\"jetty.httpConfig.maxErrorDispatches\" default=\"10\"/></Set>\n" +
+        "    <Set name=\"persistentConnectionsEnabled\"><Property name=\"jetty.httpConfig.persistentConnectionsEnabled\" default=\"true\"/></Set>\n" +
+        "    <Set name=\"requestCookieCompliance\"><Call class=\"org.eclipse.jetty.http.CookieCompliance\" name=\"valueOf\"><Arg><Property name=\"jetty.httpConfig.requestCookieCompliance\" deprecated=\"jetty.httpConfig.cookieCompliance\" default=\"RFC6265\"/></Arg></Call></Set>\n" +
+        "    <Set name=\"responseCookieCompliance\"><Call class=\"org.eclipse.jetty.http.CookieCompliance\" name=\"valueOf\"><Arg><Property name=\"jetty.httpConfig.responseCookieCompliance\" default=\"RFC6265\"/></Arg></Call></Set>\n" +
+        "    <Set name=\"relativeRedirectAllowed\"><Property name=\"jetty.httpConfig.relativeRedirectAllowed\" default=\"false\"/></Set>\n" +
+        "  </New>\n" +
+        "  <Set name=\"handler\">\n" +
+        "    <New id=\"Handlers\" class=\"org.eclipse.jetty.server.handler.HandlerCollection\">\n" +
+        "      <Set name=\"handlers\">\n" +
+        "        <Array type=\"org.eclipse.jetty.server.Handler\">\n" +
+        "          <Item><New id=\"Contexts\" class=\"org.eclipse.jetty.server.handler.ContextHandlerCollection\"/></Item>\n" +
+        "          <Item><New id=\"DefaultHandler\" class=\"org.eclipse.jetty.server.handler.DefaultHandler\"/></Item>\n" +
+        "        </Array>\n" +
+        "      </Set>\n" +
+        "    </New>\n" +
+        "  </Set>\n" +
+        "  <Set name=\"stopAtShutdown\"><Property name=\"jetty.server.stopAtShutdown\" default=\"true\"/></Set>\n" +
+        "  <Set name=\"stopTimeout\"><Property name=\"jetty.server.stopTimeout\" default=\"5000\"/></Set>\n" +
+        "  <Set name=\"dumpAfterStart\"><Property name=\"jetty.server.dumpAfterStart\" deprecated=\"jetty.dump.start\" default=\"false\"/></Set>\n" +
+        "  <Set name=\"dumpBeforeStop\"><Property name=\"jetty.server.dumpBeforeStop\" deprecated=\"jetty.dump.stop\" default=\"false\"/></Set>\n" +
+        "</Configure>\n";
+
+    private static final String JETTY_HTTP_XML = DOCTYPE +
+        "<Configure id=\"Server\" class=\"org.eclipse.jetty.server.Server\">\n" +
+        "  <Call name=\"addConnector\">\n" +
+        "    <Arg>\n" +
+        "      <New id=\"httpConnector\" class=\"org.eclipse.jetty.server.ServerConnector\">\n" +
+        "        <Arg name=\"server\"><Ref refid=\"Server\" /></Arg>\n" +
+        "        <Arg name=\"acceptors\" type=\"int\"><Property name=\"jetty.http.acceptors\" default=\"1\"/></Arg>\n" +
+        "        <Arg name=\"selectors\" type=\"int\"><Property name=\"jetty.http.selectors\" default=\"-1\"/></Arg>\n" +
+        "        <Arg name=\"factories\">\n" +
+        "          <Array type=\"org.eclipse.jetty.server.ConnectionFactory\">\n" +
+        "            <Item>\n" +
+        "              <New class=\"org.eclipse.jetty.server.HttpConnectionFactory\">\n" +
+        "                <Arg name=\"config\"><Ref refid=\"httpConfig\" /></Arg>\n" +
+        "              </New>\n" +
+        "            </Item>\n" +
+        "          </Array>\n" +
+        "        </Arg>\n" +
+        "        <Set name=\"host\" property=\"jetty.http.host\" />\n" +
+        "        <Set name=\"port\"><Property name=\"jetty.http.port\" default=\"8080\" /></Set>\n" +
+        "        <Set name=\"idleTimeout\"><Property name=\"jetty.http.idleTimeout\" default=\"30000\"/></Set>\n" +
+        "        <Set name=\"acceptQueueSize\" property=\"jetty.http.acceptQueueSize\" />\n" +
+        "        <Set name=\"reuseAddress\"><Property name=\"jetty.http.reuseAddress\" default=\"true\"/></Set>\n" +
+        "        <Set name=\"acceptedTcpNoDelay\"><Property name=\"jetty.http.acceptedTcpNoDelay\" default=\"true\"/></Set>\n" +
+        "        <Get name=\"SelectorManager\">\n" +
+        "          <Set name=\"connectTimeout\"><Property name=\"jetty.http.connectTimeout\" default=\"15000\"/></Set>\n" +
+        "        </Get>\n" +
+        "      </New>\n" +
+        "    </Arg>\n" +
+        "  </Call>\n" +
+        "</Configure>\n";
+
+    @Param({"false", "true"})
+    public boolean cacheParsed;
+
+    private Path dir;
+    private final List<Resource> xmls = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        XmlConfiguration.setCacheParsed(cacheParsed);
+        dir = Files.createTempDirectory("xml-benchmark");
+        xmls.add(write("jetty-threadpool.xml", JETTY_THREADPOOL_XML));
+        xmls.add(write("jetty.xml", JETTY_XML));
+        xmls.add(write("jetty-http.xml", JETTY_HTTP_XML));
+    }
+
+    private Resource write(String name, String xml) throws Exception
+    {
+        Path path = dir.resolve(name);
+        Files.write(path, xml.getBytes(StandardCharsets.UTF_8));
+        return new PathResource(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        XmlConfiguration.setCacheParsed(false);
+        for (Resource xml : xmls)
+        {
+            Files.deleteIfExists(xml.getFile().toPath());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Object configureJettyHome() throws Exception
+    {
+        XmlConfiguration last = null;
+        Object server = null;
+        for (Resource xml : xmls)
+        {
+            XmlConfiguration configuration = new XmlConfiguration(xml);
+            if (last != null)
+                configuration.getIdMap().putAll(last.getIdMap());
+            Object object = configuration.configure();
+            if (object instanceof Server)
+                server = object;
+            last = configuration;
+        }
+        return server;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(XmlConfigurationBenchmark.class.getSimpleName())
+            .forks(1)
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,161 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2022 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.LeakTrackingByteBufferPool;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Verifies that idle server connections do not retain any buffer: every
+ * buffer must be returned to the pools when there are no more bytes to read,
+ * so that the memory cost of idle connections does not include buffers.</p>
+ */
+public class IdleConnectionBuffersTest extends AbstractTest<IdleConnectionBuffersTest.IdleTransportScenario>
+{
+    @Override
+    public void init(Transport transport) throws IOException
+    {
+        setScenario(new IdleTransportScenario(transport));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TransportProvider.class)
+    public void testIdleConnectionsRetainNoBuffers(Transport transport) throws Exception
+    {
+        // HTTP/3 reads datagrams into buffers that are not owned by connections.
+        Assumptions.assumeTrue(transport != Transport.H3);
+
+        init(transport);
+        List<Connection> connections = new ArrayList<>();
+        scenario.start(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                response.getOutputStream().write(new byte[4096]);
+            }
+        });
+        scenario.connector.addBean(new Connection.Listener.Adapter()
+        {
+            @Override
+            public void onOpened(Connection connection)
+            {
+                synchronized (connections)
+                {
+                    connections.add(connection);
+                }
+            }
+        });
+
+        // Send concurrent requests so that non-multiplexed
+        // transports open more than one connection.
+        int count = 16;
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; ++i)
+        {
+            scenario.client.newRequest(scenario.newURI())
+                .path(scenario.servletPath)
+                .send(result ->
+                {
+                    if (result.isSucceeded() && result.getResponse().getStatus() == HttpStatus.OK_200)
+                        latch.countDown();
+                });
+        }
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+
+        // The connections are open and idle, and must not retain any buffer.
+        await().atMost(5, TimeUnit.SECONDS).until(this::getServerRetainedBytes, is(0L));
+        synchronized (connections)
+        {
+            assertThat(connections.size(), greaterThan(0));
+            assertTrue(connections.stream().allMatch(connection -> connection.getEndPoint().isOpen()));
+        }
+
+        // The connections are still usable after having released their buffers.
+        for (int i = 0; i < count; ++i)
+        {
+            assertThat(scenario.client.newRequest(scenario.newURI())
+                .path(scenario.servletPath)
+                .timeout(5, TimeUnit.SECONDS)
+                .send()
+                .getStatus(), is(HttpStatus.OK_200));
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(this::getServerRetainedBytes, is(0L));
+    }
+
+    private long getServerRetainedBytes()
+    {
+        LeakTrackingByteBufferPool byteBufferPool = (LeakTrackingByteBufferPool)scenario.connector.getByteBufferPool();
+        ArrayRetainableByteBufferPool retainableByteBufferPool = scenario.connector.getBean(ArrayRetainableByteBufferPool.class);
+        long acquired = byteBufferPool.getAcquiredHeapMemory() + byteBufferPool.getAcquiredDirectMemory();
+        long retained = retainableByteBufferPool.getHeapMemory() - retainableByteBufferPool.getAvailableHeapMemory() +
+            retainableByteBufferPool.getDirectMemory() - retainableByteBufferPool.getAvailableDirectMemory();
+        return acquired + retained;
+    }
+
+    public static class IdleTransportScenario extends TransportScenario
+    {
+        public IdleTransportScenario(Transport transport) throws IOException
+        {
+            super(transport);
+        }
+
+        @Override
+        public Connector newServerConnector(Server server)
+        {
+            ByteBufferPool byteBufferPool = new LeakTrackingByteBufferPool(new ArrayByteBufferPool());
+            switch (transport)
+            {
+                case HTTP:
+                case HTTPS:
+                case H2C:
+                case H2:
+                case FCGI:
+                    return new ServerConnector(server, null, null, byteBufferPool, 1, 1, provideServerConnectionFactory(transport));
+                case UNIX_DOMAIN:
+                    UnixDomainServerConnector connector = new UnixDomainServerConnector(server, null, null, byteBufferPool, 1, 1, provideServerConnectionFactory(transport));
+                    connector.setUnixDomainPath(unixDomainPath);
+                    return connector;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+}